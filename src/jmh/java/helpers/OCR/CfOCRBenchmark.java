@@ -0,0 +1,40 @@
+package helpers.OCR;
+
+import helpers.patterns.Bold12Patterns;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a two line Bold 12 region with every font, the way GameOCR reads FontName.ANY, per pixel as before and with {@link cfOCR}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CfOCRBenchmark {
+    private static final List<Color> CHAT = List.of(Color.decode("#ffffff"), Color.decode("#9090ff"));
+
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        image = GoldenText.render(new Random(12), Bold12Patterns.bold12Patterns, 2, 20, CHAT, 0, BufferedImage.TYPE_3BYTE_BGR);
+    }
+
+    @Benchmark
+    public String perPixelAnyFont() {
+        return CfOCRReference.findAllPatternsInImageAnyFont(0, image, CHAT);
+    }
+
+    @Benchmark
+    public String anyFont() {
+        return cfOCR.findAllPatternsInImageAnyFont(0, image, CHAT);
+    }
+}
@@ -0,0 +1,53 @@
+package helpers.OCR;
+
+import helpers.Color.utils.BitMask;
+import helpers.OCR.utils.Glyph;
+import helpers.patterns.Plain12Patterns;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads every Plain 12 glyph from a chat sized region, per pixel as before and with the bitset {@link GlyphMatcher}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlyphMatchBenchmark {
+    private static final List<Color> CHAT = List.of(Color.decode("#ffffff"), Color.decode("#9090ff"));
+    private static final Map<String, int[][]> FONT = Plain12Patterns.plain12Patterns;
+
+    @Param({"0", "10"})
+    public int tolerance;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        image = GoldenText.render(new Random(12), FONT, 4, 40, CHAT, tolerance, BufferedImage.TYPE_3BYTE_BGR);
+    }
+
+    @Benchmark
+    public void perPixel(Blackhole blackhole) {
+        for (Map.Entry<String, int[][]> entry : FONT.entrySet()) {
+            blackhole.consume(PixelReference.findPattern(image, entry.getValue(), CHAT, tolerance));
+        }
+    }
+
+    @Benchmark
+    public void bitset(Blackhole blackhole) {
+        BitMask ink = GlyphMatcher.binarize(image, CHAT, tolerance);
+        for (Glyph glyph : GlyphMatcher.compile(FONT).getGlyphs()) {
+            blackhole.consume(GlyphMatcher.findAll(ink, glyph, true));
+        }
+    }
+}
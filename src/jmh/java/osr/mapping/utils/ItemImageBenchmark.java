@@ -0,0 +1,120 @@
+package osr.mapping.utils;
+
+import helpers.utils.MatCache;
+import nu.pattern.OpenCV;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Looks up every image of an item folder, cold as the first lookup of each item after start up
+ * and warm as every lookup after that, reading the PNGs into the image cache as before and from the {@link ItemImagePack}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemImageBenchmark {
+    private static final int ITEMS = 300;
+
+    private Path folder;
+    private Path packFile;
+    private ItemImagePack pack;
+    private MatCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        OpenCV.loadLocally();
+        folder = Files.createTempDirectory("item-images");
+        Random random = new Random(24);
+        for (int id = 0; id < ITEMS; id++) {
+            // Item images are 36 by 32 BGRA, the item on a transparent background
+            Mat image = new Mat(32, 36, CvType.CV_8UC4, new Scalar(0, 0, 0, 0));
+            Mat item = image.submat(4 + random.nextInt(4), 28, 4 + random.nextInt(4), 32);
+            item.setTo(new Scalar(random.nextInt(256), random.nextInt(256), random.nextInt(256), 255));
+            MatOfByte png = new MatOfByte();
+            Imgcodecs.imencode(".png", image, png);
+            Files.write(folder.resolve(id + ".png"), png.toArray());
+        }
+        packFile = folder.resolveSibling(folder.getFileName() + ".pack");
+        ItemImagePack.build(folder, packFile);
+
+        pack = ItemImagePack.open(packFile);
+        cache = new MatCache(30);
+        for (int id = 0; id < ITEMS; id++) {
+            cache.put(imagePath(id), decode(id));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        // The pack stays mapped until it is collected, so it may not be deletable yet
+        packFile.toFile().deleteOnExit();
+    }
+
+    private String imagePath(int id) {
+        // Built on every lookup, as ItemProcessor does
+        return folder + File.separator + id + ".png";
+    }
+
+    private Mat decode(int id) throws IOException {
+        byte[] encoded = Files.readAllBytes(Paths.get(imagePath(id)));
+        return Imgcodecs.imdecode(new MatOfByte(encoded), Imgcodecs.IMREAD_UNCHANGED);
+    }
+
+    /**
+     * Reads and decodes every PNG, what the first lookup of each item cost before the pack.
+     */
+    @Benchmark
+    public void coldPng(Blackhole blackhole) throws IOException {
+        for (int id = 0; id < ITEMS; id++) {
+            Mat image = decode(id);
+            blackhole.consume(image);
+            image.release();
+        }
+    }
+
+    /**
+     * Maps the pack and wraps every image, what the first lookups cost with the pack.
+     */
+    @Benchmark
+    public void coldPack(Blackhole blackhole) throws IOException {
+        ItemImagePack opened = ItemImagePack.open(packFile);
+        for (int id = 0; id < ITEMS; id++) {
+            blackhole.consume(opened.getImage(id));
+        }
+    }
+
+    @Benchmark
+    public void warmImageCache(Blackhole blackhole) {
+        for (int id = 0; id < ITEMS; id++) {
+            blackhole.consume(cache.get(imagePath(id)));
+        }
+    }
+
+    @Benchmark
+    public void warmPack(Blackhole blackhole) {
+        for (int id = 0; id < ITEMS; id++) {
+            blackhole.consume(pack.getImage(id));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package osr.walker.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local to world and a world to local lookup on a five group, two plane stitched map,
+ * scanning the ChunkData map as before and with {@link ChunkIndex}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkIndexBenchmark {
+    private static final int POINTS = 1024;
+
+    private final ChunkIndex index = new ChunkIndex();
+    private final ChunkDataReference reference = new ChunkDataReference();
+    private final int[] localX = new int[POINTS];
+    private final int[] localY = new int[POINTS];
+    private final int[] worldX = new int[POINTS];
+    private final int[] worldY = new int[POINTS];
+    private final int[] worldPlane = new int[POINTS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(17);
+        List<StitchedMaps.DrawnChunk> chunks;
+        do {
+            chunks = StitchedMaps.layout(random, 5, 12);
+        } while (chunks.size() < 80);
+        for (StitchedMaps.DrawnChunk chunk : chunks) {
+            index.add(chunk.chunkX, chunk.chunkY, chunk.plane, chunk.topLeft);
+            reference.add(chunk.chunkX, chunk.chunkY, chunk.plane, chunk.topLeft);
+        }
+        for (int i = 0; i < POINTS; i++) {
+            StitchedMaps.DrawnChunk chunk = chunks.get(random.nextInt(chunks.size()));
+            localX[i] = chunk.topLeft.x + random.nextInt(256);
+            localY[i] = chunk.topLeft.y + random.nextInt(256);
+            worldX[i] = chunk.chunkX * 256 + random.nextInt(256);
+            worldY[i] = chunk.chunkY * 256 - random.nextInt(256);
+            worldPlane[i] = Integer.parseInt(chunk.plane);
+        }
+    }
+
+    @Benchmark
+    public int chunkDataScan() {
+        int i = next++ & (POINTS - 1);
+        return reference.findChunkCoordinates(localX[i], localY[i]).x + reference.getLocalCoordinatesFromWorld(worldX[i], worldY[i], worldPlane[i]).y;
+    }
+
+    @Benchmark
+    public int chunkIndex() {
+        int i = next++ & (POINTS - 1);
+        return index.toWorld(localX[i], localY[i]).x + index.toLocal(worldX[i], worldY[i], worldPlane[i]).y;
+    }
+}
@@ -10,6 +10,7 @@ import helpers.Logger;
 import helpers.emulator.EmulatorManager;
 import helpers.emulator.LDPlayerInstanceMgr;
 import helpers.adb.ADBHandler;
+import helpers.scripts.ScriptThreads;
 import helpers.utils.IsScriptRunning;
 import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
@@ -242,7 +243,15 @@ public class MenuDropdown {
             Observables.USE_DIRECT_CAPTURE.set(false);
         });
 
-        subMenu5.getItems().addAll(isPaintEnabledMenuItem, refreshRate, useDirectCapture, usePrintWindowCapture);
+        CheckMenuItem useRawScreencap = new CheckMenuItem("Use raw ADB screencap");
+        useRawScreencap.selectedProperty().bindBidirectional(Observables.USE_RAW_SCREENCAP);
+
+        // Applies to scripts started afterward, needs Java 21
+        CheckMenuItem useVirtualThreads = new CheckMenuItem("Run scripts on virtual threads");
+        useVirtualThreads.selectedProperty().bindBidirectional(Observables.USE_VIRTUAL_THREADS);
+        useVirtualThreads.setDisable(!ScriptThreads.isVirtualThreadsSupported());
+
+        subMenu5.getItems().addAll(isPaintEnabledMenuItem, refreshRate, useDirectCapture, usePrintWindowCapture, useRawScreencap, useVirtualThreads);
 
         // Add submenus to the dropdown
         dropdownMenu.getItems().addAll(subMenu1, subMenu2, subMenu4, subMenu5);
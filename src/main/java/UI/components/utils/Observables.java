@@ -11,6 +11,8 @@ public class Observables {
     public static BooleanProperty IS_PAINT_ENABLED = new SimpleBooleanProperty(true);
     public static BooleanProperty USE_DIRECT_CAPTURE = new SimpleBooleanProperty(false);
     public static BooleanProperty USE_PW_CAPTURE = new SimpleBooleanProperty(false);
+    public static BooleanProperty USE_RAW_SCREENCAP = new SimpleBooleanProperty(true);
+    public static BooleanProperty USE_VIRTUAL_THREADS = new SimpleBooleanProperty(false);
 
     public static DoubleProperty WIDTH_OBSERVABLE = new SimpleDoubleProperty();
     public static DoubleProperty HEIGHT_OBSERVABLE = new SimpleDoubleProperty();
@@ -4,6 +4,9 @@ import UI.components.PaintBar;
 import UI.components.utils.ObservableConcurrentHashMap;
 import com.github.benmanes.caffeine.cache.*;
 import com.sun.jna.platform.win32.WinDef;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import helpers.OCR.utils.OCRCacheKey;
+import helpers.OCR.utils.OCRResultCache;
 import helpers.emulator.utils.EmulatorCaptureInfo;
 import helpers.openCV.utils.MatchedRectangle;
 import helpers.patterns.BankPinDigitPatterns;
@@ -11,6 +14,8 @@ import helpers.patterns.DigitPatterns;
 import helpers.patterns.LetterPatterns;
 import helpers.utils.HopProfile;
 import helpers.utils.HopTimeInfo;
+import helpers.utils.MatCache;
+import helpers.utils.MemoryGovernor;
 import helpers.utils.Skills;
 import helpers.utils.TabState;
 import javafx.scene.image.Image;
@@ -23,6 +28,7 @@ import osr.walker.utils.MapChunkHandler;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -30,6 +36,12 @@ public class CacheManager {
     // Define default expiration time
     private static final int DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES = 30;
 
+    // Byte budgets of the image caches, shrunk by the memory governor under memory pressure
+    private static final long STRING_MAT_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final long STRING_FX_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final long ITEM_MAT_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final long MEMORY_CHECK_INTERVAL_SECONDS = 5;
+
     // WORLDHOPPING
     private final Cache<String, HopProfile> hopProfileCache;
     private final Cache<String, String> hopProfilePerDeviceCache;
@@ -83,10 +95,15 @@ public class CacheManager {
     // XP
     private final Cache<String, String> deviceXpCache;
 
+    // OCR
+    private final OCRResultCache ocrResultCache;
+
     // UTILS
-    private final Cache<String, Mat> stringToMatCache;
+    private final MatCache stringToMatCache;
     private final Cache<String, Image> stringToFXCache;
-    private final Cache<String, Mat> itemMatCache;
+    private final MatCache itemMatCache;
+    private final MemoryGovernor memoryGovernor = new MemoryGovernor();
+    private final Map<String, Cache<?, ?>> statsCaches = new LinkedHashMap<>();
 
     // Paint bar
     private final ObservableConcurrentHashMap<String, PaintBar> paintbars; // Retained for observable behavior
@@ -188,10 +205,29 @@ public class CacheManager {
         // XP
         deviceXpCache = defaultCacheBuilder.build();
 
-        // UTILS
-        stringToMatCache = defaultCacheBuilder.build();
-        stringToFXCache = defaultCacheBuilder.build();
-        itemMatCache = defaultCacheBuilder.build();
+        // OCR (results of unchanged regions, statistics are recorded for the hit rate)
+        ocrResultCache = new OCRResultCache(4096, 10);
+
+        // UTILS (images weighed by their pixel bytes, the cache's own headers are released when they leave the cache)
+        stringToMatCache = new MatCache(DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES);
+        stringToFXCache = Caffeine.newBuilder()
+                .expireAfterAccess(DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+                .maximumWeight(STRING_FX_CACHE_BYTES)
+                .weigher((String key, Image image) -> weigh(image))
+                .recordStats()
+                .<String, Image>build();
+        itemMatCache = new MatCache(DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES);
+
+        memoryGovernor.register("stringToMat", stringToMatCache.getCache(), STRING_MAT_CACHE_BYTES);
+        memoryGovernor.register("stringToFX", stringToFXCache, STRING_FX_CACHE_BYTES);
+        memoryGovernor.register("itemMat", itemMatCache.getCache(), ITEM_MAT_CACHE_BYTES);
+        ThreadManager.getInstance().getTickScheduler().scheduleAtFixedRate(memoryGovernor::check,
+                MEMORY_CHECK_INTERVAL_SECONDS, MEMORY_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        statsCaches.put("ocrResult", ocrResultCache.getCache());
+        statsCaches.put("stringToMat", stringToMatCache.getCache());
+        statsCaches.put("stringToFX", stringToFXCache);
+        statsCaches.put("itemMat", itemMatCache.getCache());
 
         // Paint bar (Retained as ObservableConcurrentHashMap for observable behavior)
         paintbars = new ObservableConcurrentHashMap<>();
@@ -296,17 +332,76 @@ public class CacheManager {
         return deviceXpCache.getIfPresent(device);
     }
 
+    public Object getOcrResult(OCRCacheKey key) {
+        return ocrResultCache.get(key);
+    }
+
+    /**
+     * @return The OCR result cache, reads without a device are not cached.
+     */
+    public OCRResultCache getOcrResultCache() {
+        return ocrResultCache;
+    }
+
+    /**
+     * @return The hit and miss counts of the OCR result cache, see {@link CacheStats#hitRate()}.
+     */
+    public CacheStats getOcrCacheStats() {
+        return ocrResultCache.stats();
+    }
+
+    /**
+     * @return The hit, miss and eviction counts of every cache that records them, by cache name.
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        statsCaches.forEach((name, cache) -> stats.put(name, cache.stats()));
+        return stats;
+    }
+
+    /**
+     * @return The pixel bytes held by a weighted image cache, most of it native memory, or 0 for other caches.
+     */
+    public long getCacheBytes(String cacheName) {
+        return memoryGovernor.getWeightedSize(cacheName);
+    }
+
+    /**
+     * @return The pixel bytes held by all weighted image caches.
+     */
+    public long getTotalCacheBytes() {
+        return memoryGovernor.getTotalWeightedSize();
+    }
 
+    /**
+     * @return The byte budget a weighted image cache currently has, lower than configured under memory pressure.
+     */
+    public long getCacheBudget(String cacheName) {
+        return memoryGovernor.getBudget(cacheName);
+    }
+
+
+    /**
+     * Returns the cached image. Every get of an entry returns the same Mat, so it works as a key for the prepared templates.
+     * It stays valid after the entry leaves the cache, but it is shared: don't release or modify it.
+     *
+     * @return The cached image, or null if it isn't cached.
+     */
     public Mat getImageStringMat(String matName) {
-        return stringToMatCache.getIfPresent(matName);
+        return stringToMatCache.get(matName);
     }
 
     public Image getImageStringFX(String matName) {
         return stringToFXCache.getIfPresent(matName);
     }
 
+    /**
+     * Returns the cached item image, the same shared Mat on every get, see {@link #getImageStringMat(String)}.
+     *
+     * @return The cached item image, or null if it isn't cached.
+     */
     public Mat getItemMat(String matName) {
-        return itemMatCache.getIfPresent(matName);
+        return itemMatCache.get(matName);
     }
 
     public Circle getMinimapPosition(String device) {
@@ -457,16 +552,30 @@ public class CacheManager {
         deviceXpCache.put(device, XP);
     }
 
-    public void setImageStringMat(String matName, Mat mat) {
-        stringToMatCache.put(matName, mat);
+    public void setOcrResult(OCRCacheKey key, Object result) {
+        ocrResultCache.put(key, result);
+    }
+
+    /**
+     * Caches an image, unless another thread cached it first. The cache takes over the Mat and releases it.
+     *
+     * @return The cached image to use instead, the one later gets return.
+     */
+    public Mat setImageStringMat(String matName, Mat mat) {
+        return stringToMatCache.put(matName, mat);
     }
 
     public void setImageStringFX(String matName, Image mat) {
         stringToFXCache.put(matName, mat);
     }
 
-    public void setImageMat(String matName, Mat mat) {
-        itemMatCache.put(matName, mat);
+    /**
+     * Caches an item image, see {@link #setImageStringMat(String, Mat)}.
+     *
+     * @return The cached item image to use instead.
+     */
+    public Mat setImageMat(String matName, Mat mat) {
+        return itemMatCache.put(matName, mat);
     }
 
     public void setMinimapPosition(String device, Circle circle) {
@@ -640,8 +749,12 @@ public class CacheManager {
         deviceXpCache.invalidate(device);
     }
 
+    public void removeOcrResults(String device) {
+        ocrResultCache.removeDevice(device);
+    }
+
     public void removeImageStringMat(String matName) {
-        stringToMatCache.invalidate(matName);
+        stringToMatCache.remove(matName);
     }
 
     public void removeImageStringFX(String matName) {
@@ -649,7 +762,7 @@ public class CacheManager {
     }
 
     public void removeItemMat(String matName) {
-        itemMatCache.invalidate(matName);
+        itemMatCache.remove(matName);
     }
 
     public void removeMinimapPosition(String device) {
@@ -753,6 +866,9 @@ public class CacheManager {
         // XP
         removeDeviceXP(device);
 
+        // OCR
+        removeOcrResults(device);
+
         // NONE DEVICE SPECIFIC
         // Player
         orbCache.invalidateAll();
@@ -774,4 +890,9 @@ public class CacheManager {
         slotBoxCache.invalidateAll();
         tapItemLocationCache.invalidateAll();
     }
-}
\ No newline at end of file
+
+    private static int weigh(Image image) {
+        // JavaFX keeps decoded images as 4 bytes per pixel
+        return (int) Math.min(Integer.MAX_VALUE, (long) image.getWidth() * (long) image.getHeight() * 4);
+    }
+}
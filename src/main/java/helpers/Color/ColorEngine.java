@@ -0,0 +1,210 @@
+package helpers.Color;
+
+import helpers.Color.utils.BitMask;
+import helpers.Color.utils.ColorSet;
+import helpers.Color.utils.PackedPoints;
+
+import java.awt.*;
+import java.awt.image.*;
+
+/**
+ * Scans image regions against compiled {@link ColorSet}s.
+ * Pixels are read a row at a time straight from the raster's backing array when the image layout allows it
+ * (TYPE_3BYTE_BGR, TYPE_4BYTE_ABGR, TYPE_INT_RGB, TYPE_INT_ARGB), other images fall back to getRGB per row.
+ */
+public class ColorEngine {
+
+    /**
+     * Collects every pixel in the area that matches the colors and none of the exclusions.
+     *
+     * @param image      The image to scan.
+     * @param colors     The colors to look for.
+     * @param exclusions Colors that disqualify a pixel, may be null.
+     * @param area       The area to scan, clamped to the image.
+     * @return The matching pixels, in row order.
+     */
+    public PackedPoints findMatches(BufferedImage image, ColorSet colors, ColorSet exclusions, Rectangle area) {
+        PackedPoints matches = new PackedPoints();
+        Rectangle bounds = clamp(image, area);
+        if (bounds == null || colors.isEmpty()) {
+            return matches;
+        }
+
+        boolean checkExclusions = exclusions != null && !exclusions.isEmpty();
+        RowReader reader = new RowReader(image, bounds.width);
+        for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+            if (Thread.currentThread().isInterrupted()) {
+                matches.clear();
+                return matches;
+            }
+
+            int[] row = reader.read(bounds.x, y);
+            for (int i = 0; i < bounds.width; i++) {
+                int rgb = row[i];
+                if (colors.matches(rgb) && !(checkExclusions && exclusions.matches(rgb))) {
+                    matches.add(bounds.x + i, y);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks if any pixel in the area matches the colors, stopping at the first match.
+     *
+     * @param image  The image to scan.
+     * @param colors The colors to look for.
+     * @param area   The area to scan, clamped to the image.
+     * @return true if a matching pixel was found.
+     */
+    public boolean containsAny(BufferedImage image, ColorSet colors, Rectangle area) {
+        Rectangle bounds = clamp(image, area);
+        if (bounds == null || colors.isEmpty()) {
+            return false;
+        }
+
+        RowReader reader = new RowReader(image, bounds.width);
+        for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+            int[] row = reader.read(bounds.x, y);
+            for (int i = 0; i < bounds.width; i++) {
+                if (colors.matches(row[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the pixels in the area that match the colors.
+     *
+     * @param image  The image to scan.
+     * @param colors The colors to look for.
+     * @param area   The area to scan, clamped to the image.
+     * @return The number of matching pixels.
+     */
+    public int countMatches(BufferedImage image, ColorSet colors, Rectangle area) {
+        Rectangle bounds = clamp(image, area);
+        if (bounds == null || colors.isEmpty()) {
+            return 0;
+        }
+
+        int count = 0;
+        RowReader reader = new RowReader(image, bounds.width);
+        for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+            int[] row = reader.read(bounds.x, y);
+            for (int i = 0; i < bounds.width; i++) {
+                if (colors.matches(row[i])) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Binarizes an image: every pixel that matches the colors is set in the returned mask.
+     *
+     * @param image  The image to binarize.
+     * @param colors The colors that count as set.
+     * @return A mask the size of the image.
+     */
+    public BitMask toBitMask(BufferedImage image, ColorSet colors) {
+        BitMask mask = new BitMask(image.getWidth(), image.getHeight());
+        if (colors.isEmpty() || image.getWidth() == 0) {
+            return mask;
+        }
+
+        RowReader reader = new RowReader(image, image.getWidth());
+        for (int y = 0; y < image.getHeight(); y++) {
+            int[] row = reader.read(0, y);
+            for (int x = 0; x < row.length; x++) {
+                if (colors.matches(row[x])) {
+                    mask.set(x, y);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private Rectangle clamp(BufferedImage image, Rectangle area) {
+        if (image == null) {
+            return null;
+        }
+        Rectangle bounds = area.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        return bounds.isEmpty() ? null : bounds;
+    }
+
+    /**
+     * Reads rows of an image into a reused int[] of 0xRRGGBB values.
+     */
+    private static class RowReader {
+        private final BufferedImage image;
+        private final int[] row;
+        private byte[] bytes;
+        private int[] ints;
+        private int offset;
+        private int scanlineStride;
+        private int pixelStride;
+        private int redOffset;
+        private int greenOffset;
+        private int blueOffset;
+
+        RowReader(BufferedImage image, int width) {
+            this.image = image;
+            this.row = new int[width];
+            resolveLayout();
+        }
+
+        int[] read(int x, int y) {
+            if (bytes != null) {
+                int index = offset + y * scanlineStride + x * pixelStride;
+                for (int i = 0; i < row.length; i++, index += pixelStride) {
+                    row[i] = (bytes[index + redOffset] & 0xFF) << 16
+                            | (bytes[index + greenOffset] & 0xFF) << 8
+                            | (bytes[index + blueOffset] & 0xFF);
+                }
+            } else if (ints != null) {
+                int index = offset + y * scanlineStride + x;
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = ints[index + i] & 0xFFFFFF;
+                }
+            } else {
+                image.getRGB(x, y, row.length, 1, row, 0, row.length);
+            }
+            return row;
+        }
+
+        private void resolveLayout() {
+            WritableRaster raster = image.getRaster();
+            DataBuffer buffer = raster.getDataBuffer();
+            SampleModel sampleModel = raster.getSampleModel();
+            if (buffer.getNumBanks() != 1) {
+                return;
+            }
+
+            int translateX = raster.getSampleModelTranslateX();
+            int translateY = raster.getSampleModelTranslateY();
+            int type = image.getType();
+
+            if ((type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)
+                    && buffer instanceof DataBufferByte && sampleModel instanceof ComponentSampleModel) {
+                ComponentSampleModel model = (ComponentSampleModel) sampleModel;
+                int[] bandOffsets = model.getBandOffsets();
+                bytes = ((DataBufferByte) buffer).getData();
+                scanlineStride = model.getScanlineStride();
+                pixelStride = model.getPixelStride();
+                offset = buffer.getOffset() - translateY * scanlineStride - translateX * pixelStride;
+                redOffset = bandOffsets[0];
+                greenOffset = bandOffsets[1];
+                blueOffset = bandOffsets[2];
+            } else if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                    && buffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel) {
+                SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) sampleModel;
+                ints = ((DataBufferInt) buffer).getData();
+                scanlineStride = model.getScanlineStride();
+                offset = buffer.getOffset() - translateY * scanlineStride - translateX;
+            }
+        }
+    }
+}
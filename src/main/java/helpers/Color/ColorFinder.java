@@ -1,24 +1,21 @@
 package helpers.Color;
 
 import helpers.GetGameView;
-import helpers.ThreadManager;
 import helpers.Color.utils.ColorPointPair;
 import helpers.Color.utils.ColorRectanglePair;
+import helpers.Color.utils.ColorSet;
+import helpers.Color.utils.PackedPoints;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class ColorFinder {
     private final GetGameView getGameView;
-    private final DBSCAN dbscan = new DBSCAN();
-    private final ExecutorService executor = ThreadManager.getInstance().getUnifiedExecutor();
+    private final GridDBSCAN dbscan = new GridDBSCAN();
+    private final ColorEngine colorEngine = new ColorEngine();
 
     public final List<Color> greenOverlay = Arrays.asList(
             Color.decode("#20ff25"),
@@ -277,19 +274,7 @@ public class ColorFinder {
             return false;
         }
 
-        for (int x = rect.x; x < rect.x + rect.width; x++) {
-            for (int y = rect.y; y < rect.y + rect.height; y++) {
-                int pixelColor = bufferedImage.getRGB(x, y);
-
-                // Loop through each target color to check for a match
-                for (Color targetColor : targetColors) {
-                    if (isColorMatch(pixelColor, targetColor, tolerance)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false; // No match found in this rectangle
+        return colorEngine.containsAny(bufferedImage, ColorSet.of(targetColors, tolerance), rect);
     }
 
     private boolean isAnyColorInSingleRect(BufferedImage bufferedImage, Set<Integer> targetColors, Rectangle rect, int tolerance) {
@@ -303,20 +288,8 @@ public class ColorFinder {
             return false;
         }
 
-        for (int x = startX; x < endX; x++) {
-            for (int y = startY; y < endY; y++) {
-                // Mask off the alpha channel so we only compare RGB
-                int pixelColor = 0xFFFFFF & bufferedImage.getRGB(x, y);
-
-                // Check all target colors
-                for (int targetColor : targetColors) {
-                    if (isColorMatch(pixelColor, targetColor, tolerance)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        Rectangle bounds = new Rectangle(startX, startY, endX - startX, endY - startY);
+        return colorEngine.containsAny(bufferedImage, ColorSet.ofRgb(targetColors, tolerance), bounds);
     }
 
     public boolean isAllColorsInRect(String device, List<Color> targetColors, Rectangle rect, int tolerance) {
@@ -441,48 +414,16 @@ public class ColorFinder {
         int maxX = Math.max(point1.x, point2.x);
         int maxY = Math.max(point1.y, point2.y);
 
-        List<Point> allMatchingPoints = Collections.synchronizedList(new ArrayList<>());
-
-        // Collect Futures
-        List<Future<?>> futures = new ArrayList<>();
-
-        for (int x = minX; x <= maxX; x++) {
-            int finalX = x;
-            futures.add(executor.submit(() -> {
-                for (int y = minY; y <= maxY; y++) {
-                    // Check for interruption
-                    if (Thread.currentThread().isInterrupted()) {
-                        return; // Exit early if interrupted
-                    }
-
-                    int pixel = bImage.getRGB(finalX, y);
-                    if (!isExcluded(pixel, exclusionColors, exclusionTolerance)) {
-                        for (Color color : colors) {
-                            if (isColorMatch(pixel, color, tolerance)) {
-                                synchronized (allMatchingPoints) {
-                                    allMatchingPoints.add(new Point(finalX, y));
-                                }
-                                break; // Exit the color loop early if a match is found
-                            }
-                        }
-                    }
-                }
-            }));
-        }
+        ColorSet targetSet = ColorSet.of(colors, tolerance);
+        ColorSet exclusionSet = ColorSet.of(exclusionColors, exclusionTolerance);
+        Rectangle area = new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
 
-        // Wait for all tasks to complete
-        for (Future<?> future : futures) {
-            try {
-                future.get(); // Blocks until the task is done
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Restore interrupt status
-                return Collections.emptyList();
-            } catch (ExecutionException e) {
-                e.printStackTrace(); // Log other exceptions
-            }
+        PackedPoints matches = colorEngine.findMatches(bImage, targetSet, exclusionSet, area);
+        if (Thread.currentThread().isInterrupted()) {
+            return Collections.emptyList();
         }
-
-        return allMatchingPoints;
+        matches.sortByColumn();
+        return matches.toPointList();
     }
 
     public List<Point> searchForColorsInImage(BufferedImage bImage, List<Color> colors, int tolerance, Point point1, Point point2) {
@@ -491,41 +432,15 @@ public class ColorFinder {
         int maxX = Math.max(point1.x, point2.x);
         int maxY = Math.max(point1.y, point2.y);
 
-        List<Point> allMatchingPoints = Collections.synchronizedList(new ArrayList<>());
-
-        // Submit task and store the Future
-        Future<?> future = executor.submit(() ->
-                IntStream.range(minX, maxX + 1).forEach(x -> {
-                    // Check for interruption before processing each row
-                    if (Thread.currentThread().isInterrupted()) {
-                        return; // Exit the stream early if interrupted
-                    }
-                    IntStream.range(minY, maxY + 1).forEach(y -> {
-                        if (Thread.currentThread().isInterrupted()) {
-                            return; // Exit the stream early if interrupted
-                        }
-                        int pixel = bImage.getRGB(x, y);
-                        for (Color color : colors) {
-                            if (isColorMatch(pixel, color, tolerance)) {
-                                allMatchingPoints.add(new Point(x, y));
-                                break;
-                            }
-                        }
-                    });
-                })
-        );
-
-        // Wait for the task to complete
-        try {
-            future.get(); // This blocks until the task is done
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return Collections.emptyList(); // Return an empty list
-        } catch (ExecutionException e) {
-            e.printStackTrace(); // Log other exceptions
+        Rectangle area = new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        PackedPoints matches = colorEngine.findMatches(bImage, ColorSet.of(colors, tolerance), null, area);
+        if (Thread.currentThread().isInterrupted()) {
+            return Collections.emptyList();
         }
 
-        return allMatchingPoints;
+        // Keep the column by column order of the previous implementation
+        matches.sortByColumn();
+        return matches.toPointList();
     }
 
     public List<Point> processColorPoints(String deviceID, List<Color> colors, int tolerance) {
@@ -639,21 +554,6 @@ public class ColorFinder {
                 (Math.abs(bA - bB) <= tolerance);
     }
 
-    private boolean isExcluded(int rgb, List<Color> exclusionColors, int tolerance) {
-        int r = (rgb >> 16) & 0xFF;
-        int g = (rgb >> 8) & 0xFF;
-        int b = rgb & 0xFF;
-
-        for (Color color : exclusionColors) {
-            if (Math.abs(r - color.getRed()) <= tolerance &&
-                    Math.abs(g - color.getGreen()) <= tolerance &&
-                    Math.abs(b - color.getBlue()) <= tolerance) {
-                return true;  // Return true if the color matches any exclusion color
-            }
-        }
-        return false;
-    }
-
     public List<Rectangle> findBankPinTiles(String device, List<Color> targetColors, Rectangle roi, int tileSize, int tolerance, double coverageThreshold) {
         BufferedImage image = getGameView.getBuffered(device);
         List<Rectangle> foundTiles = new ArrayList<>();
@@ -751,20 +651,8 @@ public class ColorFinder {
 
     // Method to calculate coverage within a 64x64 area
     private double calculateTileCoverage(BufferedImage image, Rectangle tileRect, List<Color> targetColors, int tolerance) {
-        int matchingPixels = 0;
         int totalPixels = tileRect.width * tileRect.height;
-
-        for (int x = tileRect.x; x < tileRect.x + tileRect.width; x++) {
-            for (int y = tileRect.y; y < tileRect.y + tileRect.height; y++) {
-                int pixelColor = image.getRGB(x, y);
-                for (Color targetColor : targetColors) {
-                    if (isColorMatch(pixelColor, targetColor, tolerance)) {
-                        matchingPixels++;
-                        break;
-                    }
-                }
-            }
-        }
+        int matchingPixels = colorEngine.countMatches(image, ColorSet.of(targetColors, tolerance), tileRect);
 
         return (double) matchingPixels / totalPixels;
     }
@@ -4,33 +4,34 @@ import java.awt.*;
 import java.util.List;
 import java.util.Queue;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Reference all-pairs DBSCAN implementation. {@link GridDBSCAN} gives the same clusters much faster.
+ */
 public class DBSCAN {
-    // A map to cache neighbors for points to avoid redundant computations
-    private final ConcurrentHashMap<Point, List<Point>> neighborsCache = new ConcurrentHashMap<>();
-
 
     public List<Set<Point>> applyDBSCAN(List<Point> points, double eps, int minPts) {
         List<Set<Point>> clusters = new ArrayList<>();
         Set<Point> visited = new HashSet<>();
+        // Cache neighbors for points to avoid redundant computations, only valid for this set of points
+        Map<Point, List<Point>> neighborsCache = new HashMap<>();
 
         for (Point point : points) {
             if (visited.contains(point)) continue;
 
             visited.add(point);
-            List<Point> neighbors = getNeighbors(point, points, eps);
+            List<Point> neighbors = getNeighbors(point, points, eps, neighborsCache);
 
             if (neighbors.size() >= minPts) {
                 Set<Point> cluster = new HashSet<>();
-                clusters.add(expandCluster(point, cluster, visited, points, eps, minPts));
+                clusters.add(expandCluster(point, cluster, visited, points, eps, minPts, neighborsCache));
             }
         }
 
         return clusters;
     }
 
-    private Set<Point> expandCluster(Point point, Set<Point> cluster, Set<Point> visited, List<Point> points, double eps, int minPts) {
+    private Set<Point> expandCluster(Point point, Set<Point> cluster, Set<Point> visited, List<Point> points, double eps, int minPts, Map<Point, List<Point>> neighborsCache) {
         Queue<Point> queue = new LinkedList<>();
         queue.add(point);
 
@@ -38,10 +39,10 @@ public class DBSCAN {
             Point currentPoint = queue.poll();
             cluster.add(currentPoint);
 
-            for (Point neighbor : getNeighbors(currentPoint, points, eps)) {
+            for (Point neighbor : getNeighbors(currentPoint, points, eps, neighborsCache)) {
                 if (!visited.contains(neighbor)) {
                     visited.add(neighbor);
-                    List<Point> neighborPts = getNeighbors(neighbor, points, eps);
+                    List<Point> neighborPts = getNeighbors(neighbor, points, eps, neighborsCache);
 
                     if (neighborPts.size() >= minPts) {
                         queue.add(neighbor);
@@ -60,9 +61,10 @@ public class DBSCAN {
      *
      * @param point  The point for which neighbors are to be found.
      * @param points List of all points.
+     * @param neighborsCache Neighbors already computed for this set of points.
      * @return List of neighboring points.
      */
-    private List<Point> getNeighbors(Point point, List<Point> points, double eps) {
+    private List<Point> getNeighbors(Point point, List<Point> points, double eps, Map<Point, List<Point>> neighborsCache) {
         // Return cached neighbors if available
         if (neighborsCache.containsKey(point)) {
             return neighborsCache.get(point);
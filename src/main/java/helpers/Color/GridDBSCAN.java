@@ -0,0 +1,243 @@
+package helpers.Color;
+
+import helpers.Color.utils.PackedPoints;
+
+import java.awt.*;
+import java.util.List;
+import java.util.*;
+
+/**
+ * DBSCAN clustering backed by a uniform grid with cells of eps by eps pixels.
+ * Neighbor queries only look at the 3x3 cells around a point instead of every point, which makes
+ * clustering a frame's color matches close to linear. It produces the same clusters as {@link DBSCAN}:
+ * a point is a core point when at least minPts points (itself included) lie closer than eps,
+ * and every cluster holds the core points reachable from its seed plus their neighbors.
+ * Working arrays are kept per thread and reused between calls.
+ */
+public class GridDBSCAN {
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    public List<Set<Point>> applyDBSCAN(List<Point> points, double eps, int minPts) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            Point point = points.get(i);
+            scratch.xs[i] = point.x;
+            scratch.ys[i] = point.y;
+        }
+        return cluster(scratch, points.size(), eps, minPts);
+    }
+
+    public List<Set<Point>> applyDBSCAN(PackedPoints points, double eps, int minPts) {
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            scratch.xs[i] = points.getX(i);
+            scratch.ys[i] = points.getY(i);
+        }
+        return cluster(scratch, points.size(), eps, minPts);
+    }
+
+    private List<Set<Point>> cluster(Scratch scratch, int count, double eps, int minPts) {
+        List<Set<Point>> clusters = new ArrayList<>();
+        if (count == 0 || eps <= 0) {
+            return clusters;
+        }
+
+        scratch.buildGrid(count, eps);
+        int[] xs = scratch.xs;
+        int[] ys = scratch.ys;
+
+        for (int seed = 0; seed < count; seed++) {
+            if (scratch.isVisited(seed)) {
+                continue;
+            }
+            scratch.markVisited(seed);
+            if (scratch.neighborCount(seed) < minPts) {
+                continue; // Noise for now, it can still join a cluster as a border point
+            }
+
+            Set<Point> cluster = new HashSet<>();
+            int clusterStamp = scratch.nextClusterStamp();
+            int[] queue = scratch.queue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = seed;
+
+            while (head < tail) {
+                int current = queue[head++];
+                addToCluster(scratch, cluster, clusterStamp, current, xs, ys);
+
+                int neighbors = scratch.collectNeighbors(current);
+                int[] found = scratch.neighbors;
+                for (int n = 0; n < neighbors; n++) {
+                    int neighbor = found[n];
+                    if (!scratch.isVisited(neighbor)) {
+                        scratch.markVisited(neighbor);
+                        if (scratch.neighborCount(neighbor) >= minPts) {
+                            queue[tail++] = neighbor;
+                        }
+                    }
+                    addToCluster(scratch, cluster, clusterStamp, neighbor, xs, ys);
+                }
+            }
+            clusters.add(cluster);
+        }
+        return clusters;
+    }
+
+    private void addToCluster(Scratch scratch, Set<Point> cluster, int clusterStamp, int index, int[] xs, int[] ys) {
+        if (scratch.clusterStamps[index] != clusterStamp) {
+            scratch.clusterStamps[index] = clusterStamp;
+            cluster.add(new Point(xs[index], ys[index]));
+        }
+    }
+
+    /**
+     * Per-thread working state. Visited flags and cluster membership use generation stamps,
+     * so nothing has to be cleared between calls.
+     */
+    private static class Scratch {
+        int[] xs = new int[0];
+        int[] ys = new int[0];
+        int[] visitedStamps = new int[0];
+        int[] clusterStamps = new int[0];
+        int[] neighborCounts = new int[0];
+        int[] queue = new int[0];
+        int[] neighbors = new int[0];
+        int[] cellStart = new int[0];
+        int[] cellFill = new int[0];
+        int[] cellPoints = new int[0];
+        int visitedGeneration = 0;
+        int clusterGeneration = 0;
+
+        int minX;
+        int minY;
+        int cellSize;
+        long maxDistanceSquared;
+        int cellsX;
+        int cellsY;
+
+        void ensureCapacity(int size) {
+            if (xs.length < size) {
+                int capacity = Math.max(size, xs.length * 2);
+                xs = new int[capacity];
+                ys = new int[capacity];
+                visitedStamps = new int[capacity];
+                clusterStamps = new int[capacity];
+                neighborCounts = new int[capacity];
+                queue = new int[capacity];
+                neighbors = new int[capacity];
+                cellPoints = new int[capacity];
+                visitedGeneration = 0;
+                clusterGeneration = 0;
+            }
+        }
+
+        void buildGrid(int count, double eps) {
+            if (++visitedGeneration == Integer.MAX_VALUE) {
+                Arrays.fill(visitedStamps, 0);
+                visitedGeneration = 1;
+            }
+            Arrays.fill(neighborCounts, 0, count, -1);
+
+            minX = Integer.MAX_VALUE;
+            minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                minX = Math.min(minX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxX = Math.max(maxX, xs[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+
+            // Largest integer squared distance that is still closer than eps, same test as Point.distance(p) < eps
+            maxDistanceSquared = (long) Math.floor(eps * eps) + 1;
+            while (maxDistanceSquared >= 0 && Math.sqrt(maxDistanceSquared) >= eps) {
+                maxDistanceSquared--;
+            }
+
+            cellSize = (int) Math.max(1, Math.ceil(eps));
+            cellsX = (maxX - minX) / cellSize + 1;
+            cellsY = (maxY - minY) / cellSize + 1;
+            int cells = cellsX * cellsY;
+            if (cellStart.length < cells + 1) {
+                cellStart = new int[Math.max(cells + 1, cellStart.length * 2)];
+                cellFill = new int[cellStart.length];
+            }
+
+            // Counting sort of the point indices by cell
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+            for (int i = 0; i < count; i++) {
+                cellStart[cellOf(i) + 1]++;
+            }
+            for (int c = 0; c < cells; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            System.arraycopy(cellStart, 0, cellFill, 0, cells);
+            for (int i = 0; i < count; i++) {
+                cellPoints[cellFill[cellOf(i)]++] = i;
+            }
+        }
+
+        int nextClusterStamp() {
+            if (++clusterGeneration == Integer.MAX_VALUE) {
+                Arrays.fill(clusterStamps, 0);
+                clusterGeneration = 1;
+            }
+            return clusterGeneration;
+        }
+
+        boolean isVisited(int index) {
+            return visitedStamps[index] == visitedGeneration;
+        }
+
+        void markVisited(int index) {
+            visitedStamps[index] = visitedGeneration;
+        }
+
+        int neighborCount(int index) {
+            if (neighborCounts[index] < 0) {
+                neighborCounts[index] = scan(index, false);
+            }
+            return neighborCounts[index];
+        }
+
+        int collectNeighbors(int index) {
+            int found = scan(index, true);
+            neighborCounts[index] = found;
+            return found;
+        }
+
+        private int scan(int index, boolean collect) {
+            int px = xs[index];
+            int py = ys[index];
+            int cellX = (px - minX) / cellSize;
+            int cellY = (py - minY) / cellSize;
+            int found = 0;
+
+            for (int cy = Math.max(0, cellY - 1); cy <= Math.min(cellsY - 1, cellY + 1); cy++) {
+                for (int cx = Math.max(0, cellX - 1); cx <= Math.min(cellsX - 1, cellX + 1); cx++) {
+                    int cell = cy * cellsX + cx;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int candidate = cellPoints[k];
+                        long dx = xs[candidate] - px;
+                        long dy = ys[candidate] - py;
+                        if (dx * dx + dy * dy <= maxDistanceSquared) {
+                            if (collect) {
+                                neighbors[found] = candidate;
+                            }
+                            found++;
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+
+        private int cellOf(int index) {
+            return ((ys[index] - minY) / cellSize) * cellsX + (xs[index] - minX) / cellSize;
+        }
+    }
+}
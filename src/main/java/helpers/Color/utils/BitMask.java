@@ -0,0 +1,158 @@
+package helpers.Color.utils;
+
+import java.util.Arrays;
+
+/**
+ * A binary image stored as packed long bitsets, one run of words per row.
+ * Bit i of a row is pixel x = i, so a horizontal run of pixels can be read as a single long.
+ * The column view and the column segments are derived on first use and dropped again when a pixel is set.
+ */
+public class BitMask {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+    private BitMask columns;
+    private int[] columnSegments;
+
+    public BitMask(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = Math.max(1, (width + 63) >>> 6);
+        this.bits = new long[wordsPerRow * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void set(int x, int y) {
+        bits[y * wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+        columns = null;
+        columnSegments = null;
+    }
+
+    public boolean get(int x, int y) {
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+
+    /**
+     * Reads a horizontal run of pixels.
+     *
+     * @param x     The first pixel of the run.
+     * @param y     The row.
+     * @param count The number of pixels to read, 1 to 64. The run must lie within the mask.
+     * @return The run, with pixel x in the lowest bit.
+     */
+    public long extract(int x, int y, int count) {
+        int index = y * wordsPerRow + (x >>> 6);
+        int shift = x & 63;
+        long value = bits[index] >>> shift;
+        if (shift != 0 && shift + count > 64) {
+            value |= bits[index + 1] << (64 - shift);
+        }
+        return count == 64 ? value : value & ((1L << count) - 1);
+    }
+
+    /**
+     * Counts the set pixels in a row between two columns.
+     *
+     * @param y    The row.
+     * @param from The first column, inclusive.
+     * @param to   The last column, exclusive.
+     * @return The number of set pixels.
+     */
+    public int countRow(int y, int from, int to) {
+        int count = 0;
+        for (int x = from; x < to; x += 64) {
+            count += Long.bitCount(extract(x, y, Math.min(64, to - x)));
+        }
+        return count;
+    }
+
+    /**
+     * Finds the next set pixel in a row.
+     *
+     * @param y    The row.
+     * @param from The first column to look at.
+     * @return The column of the next set pixel, or -1 if there is none.
+     */
+    public int nextSetBit(int y, int from) {
+        if (from >= width) {
+            return -1;
+        }
+
+        int rowStart = y * wordsPerRow;
+        int word = from >>> 6;
+        long value = bits[rowStart + word] & (-1L << (from & 63));
+        while (true) {
+            if (value != 0) {
+                int x = (word << 6) + Long.numberOfTrailingZeros(value);
+                return x < width ? x : -1;
+            }
+            if (++word == wordsPerRow) {
+                return -1;
+            }
+            value = bits[rowStart + word];
+        }
+    }
+
+    /**
+     * Returns the mask transposed, so row x of the returned mask holds column x of this one.
+     *
+     * @return The column view of this mask.
+     */
+    public BitMask columns() {
+        if (columns == null) {
+            BitMask transposed = new BitMask(height, width);
+            for (int y = 0; y < height; y++) {
+                for (int x = nextSetBit(y, 0); x >= 0; x = nextSetBit(y, x + 1)) {
+                    transposed.bits[x * transposed.wordsPerRow + (y >>> 6)] |= 1L << (y & 63);
+                }
+            }
+            columns = transposed;
+        }
+        return columns;
+    }
+
+    /**
+     * Splits the mask into vertical segments: runs of columns that have at least one set pixel.
+     *
+     * @return The segments as start (inclusive) and end (exclusive) column pairs, left to right.
+     */
+    public int[] getColumnSegments() {
+        if (columnSegments == null) {
+            BitMask view = columns();
+            int[] segments = new int[width + 1];
+            int count = 0;
+            int start = -1;
+            for (int x = 0; x < width; x++) {
+                boolean inked = view.nextSetBit(x, 0) >= 0;
+                if (inked && start < 0) {
+                    start = x;
+                } else if (!inked && start >= 0) {
+                    segments[count++] = start;
+                    segments[count++] = x;
+                    start = -1;
+                }
+            }
+            if (start >= 0) {
+                segments[count++] = start;
+                segments[count++] = width;
+            }
+            columnSegments = Arrays.copyOf(segments, count);
+        }
+        return columnSegments;
+    }
+
+    /**
+     * @return true if the column has at least one set pixel.
+     */
+    public boolean isColumnSet(int x) {
+        return columns().nextSetBit(x, 0) >= 0;
+    }
+}
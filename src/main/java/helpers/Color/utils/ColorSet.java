@@ -0,0 +1,124 @@
+package helpers.Color.utils;
+
+import java.awt.*;
+import java.util.Collection;
+
+/**
+ * A set of target colors compiled together with a tolerance into per-channel lookup tables.
+ * For every channel value the table holds a bitmask of the colors that accept it, so a pixel matches
+ * when the masks of its red, green and blue values share a bit. This is the same per-channel
+ * tolerance check as comparing against every color, but costs three lookups regardless of the number of colors.
+ */
+public class ColorSet {
+    private final int words;
+    private final long[] red;
+    private final long[] green;
+    private final long[] blue;
+    private final boolean empty;
+
+    private ColorSet(int colorCount) {
+        this.words = Math.max(1, (colorCount + 63) >>> 6);
+        this.red = new long[256 * words];
+        this.green = new long[256 * words];
+        this.blue = new long[256 * words];
+        this.empty = colorCount == 0;
+    }
+
+    /**
+     * Compiles colors into a set.
+     *
+     * @param colors    The target colors.
+     * @param tolerance The maximum difference allowed per channel.
+     * @return The compiled set.
+     */
+    public static ColorSet of(Collection<Color> colors, int tolerance) {
+        ColorSet set = new ColorSet(tolerance < 0 ? 0 : colors.size());
+        if (tolerance >= 0) {
+            int index = 0;
+            for (Color color : colors) {
+                set.add(index++, color.getRed(), color.getGreen(), color.getBlue(), tolerance);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Compiles colors given as 0xRRGGBB integers into a set. Alpha bits are ignored.
+     *
+     * @param colors    The target colors.
+     * @param tolerance The maximum difference allowed per channel.
+     * @return The compiled set.
+     */
+    public static ColorSet ofRgb(Collection<Integer> colors, int tolerance) {
+        ColorSet set = new ColorSet(tolerance < 0 ? 0 : colors.size());
+        if (tolerance >= 0) {
+            int index = 0;
+            for (int rgb : colors) {
+                set.add(index++, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF, tolerance);
+            }
+        }
+        return set;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Checks a pixel against the set.
+     *
+     * @param rgb The pixel as 0xRRGGBB, alpha bits are ignored.
+     * @return true if any color in the set accepts the pixel.
+     */
+    public boolean matches(int rgb) {
+        int r = ((rgb >> 16) & 0xFF) * words;
+        int g = ((rgb >> 8) & 0xFF) * words;
+        int b = (rgb & 0xFF) * words;
+
+        if (words == 1) {
+            return (red[r] & green[g] & blue[b]) != 0;
+        }
+        for (int i = 0; i < words; i++) {
+            if ((red[r + i] & green[g + i] & blue[b + i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index (in insertion order) of the first color accepting the pixel.
+     *
+     * @param rgb The pixel as 0xRRGGBB, alpha bits are ignored.
+     * @return The color index, or -1 if no color accepts the pixel.
+     */
+    public int firstMatch(int rgb) {
+        int r = ((rgb >> 16) & 0xFF) * words;
+        int g = ((rgb >> 8) & 0xFF) * words;
+        int b = (rgb & 0xFF) * words;
+
+        for (int i = 0; i < words; i++) {
+            long mask = red[r + i] & green[g + i] & blue[b + i];
+            if (mask != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(mask);
+            }
+        }
+        return -1;
+    }
+
+    private void add(int index, int r, int g, int b, int tolerance) {
+        int word = index >>> 6;
+        long bit = 1L << (index & 63);
+        fill(red, r, tolerance, word, bit);
+        fill(green, g, tolerance, word, bit);
+        fill(blue, b, tolerance, word, bit);
+    }
+
+    private void fill(long[] table, int value, int tolerance, int word, long bit) {
+        int from = Math.max(0, value - tolerance);
+        int to = Math.min(255, value + tolerance);
+        for (int v = from; v <= to; v++) {
+            table[v * words + word] |= bit;
+        }
+    }
+}
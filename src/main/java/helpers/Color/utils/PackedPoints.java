@@ -0,0 +1,85 @@
+package helpers.Color.utils;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable list of points stored as packed ints (x in the high 16 bits, y in the low 16 bits),
+ * so collecting thousands of matching pixels does not allocate a Point per pixel.
+ * The sign bit is flipped when packing, so sorting the packed values as signed ints orders the points
+ * by column, then by row, for x up to 65535 as well.
+ */
+public class PackedPoints {
+    private static final int SIGN_BIT = 0x80000000;
+
+    private int[] data;
+    private int size = 0;
+
+    public PackedPoints() {
+        this(256);
+    }
+
+    public PackedPoints(int initialCapacity) {
+        data = new int[Math.max(16, initialCapacity)];
+    }
+
+    public static int pack(int x, int y) {
+        return ((x << 16) | (y & 0xFFFF)) ^ SIGN_BIT;
+    }
+
+    public static int unpackX(int packed) {
+        return (packed ^ SIGN_BIT) >>> 16;
+    }
+
+    public static int unpackY(int packed) {
+        return packed & 0xFFFF;
+    }
+
+    public void add(int x, int y) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = pack(x, y);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getX(int index) {
+        return unpackX(data[index]);
+    }
+
+    public int getY(int index) {
+        return unpackY(data[index]);
+    }
+
+    public int getPacked(int index) {
+        return data[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the points by x, then y.
+     */
+    public void sortByColumn() {
+        Arrays.sort(data, 0, size);
+    }
+
+    public List<Point> toPointList() {
+        List<Point> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new Point(unpackX(data[i]), unpackY(data[i])));
+        }
+        return points;
+    }
+}
@@ -1,5 +1,7 @@
 package helpers;
 
+import helpers.scripts.CancellationToken;
+import helpers.utils.Frame;
 import helpers.utils.GameviewCache;
 import org.opencv.core.Mat;
 import org.opencv.core.Rect;
@@ -32,6 +34,26 @@ public class GetGameView {
         return gameviewCache.getSubMat(device, subMatRect);
     }
 
+    /**
+     * Returns the latest frame without copying it. Close the frame when done, and do not modify its pixels.
+     */
+    public Frame acquireFrame(String device) {
+        return gameviewCache.acquireFrame(device);
+    }
+
+    public long getFrameVersion(String device) {
+        return gameviewCache.getFrameVersion(device);
+    }
+
+    /**
+     * Waits until a frame newer than seenVersion is captured, the deadline passes or the token is cancelled.
+     *
+     * @return The latest frame version, equal to seenVersion if no new frame arrived.
+     */
+    public long awaitNewFrame(String device, long seenVersion, long deadlineNanos, CancellationToken token) {
+        return gameviewCache.awaitNewFrame(device, seenVersion, deadlineNanos, token);
+    }
+
     public Point getGameviewCenter(String device) {
         // Check if the center is already cached
         Point cachedCenter = cacheManager.getGameviewCenter(device);
@@ -39,12 +61,20 @@ public class GetGameView {
             return cachedCenter;
         }
 
-        // Get the gameview Mat using the existing method
-        Mat gameviewMat = getMat(device);
-
-        // Calculate the center of the gameview Mat
-        int centerX = gameviewMat.cols() / 2;
-        int centerY = gameviewMat.rows() / 2;
+        // Read the size from the shared frame, no need to copy the pixels
+        int centerX;
+        int centerY;
+        try (Frame frame = acquireFrame(device)) {
+            if (frame != null) {
+                centerX = frame.getWidth() / 2;
+                centerY = frame.getHeight() / 2;
+            } else {
+                Mat gameviewMat = getMat(device);
+                centerX = gameviewMat.cols() / 2;
+                centerY = gameviewMat.rows() / 2;
+                gameviewMat.release();
+            }
+        }
 
         // Cache the center coordinates for future use
         Point centerPoint = new Point(centerX, centerY);
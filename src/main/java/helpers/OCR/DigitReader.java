@@ -2,12 +2,17 @@ package helpers.OCR;
 
 import helpers.CacheManager;
 import helpers.GetGameView;
+import helpers.Color.utils.BitMask;
 import helpers.OCR.utils.DigitLocation;
+import helpers.OCR.utils.Glyph;
+import helpers.OCR.utils.OCRCacheKey;
+import helpers.utils.FrameHash;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class DigitReader {
@@ -20,6 +25,29 @@ public class DigitReader {
     }
 
     public List<Map.Entry<Integer, List<Point>>> findAllPlusCoords(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> digitPatterns) {
+        return findAllPlusCoords(null, tolerance, image, colors, digitPatterns);
+    }
+
+    /**
+     * Finds every digit with its coordinates, reusing the previous result when the device's image did not change.
+     */
+    public List<Map.Entry<Integer, List<Point>>> findAllPlusCoords(String device, int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> digitPatterns) {
+        List<Map.Entry<Integer, List<Point>>> digitsWithCoords = cachedRead(device, "digitsWithCoords", tolerance, image, colors, digitPatterns,
+                () -> readAllPlusCoords(tolerance, image, colors, digitPatterns));
+
+        // Hand out copies, the cached points must not be modified
+        List<Map.Entry<Integer, List<Point>>> copy = new ArrayList<>(digitsWithCoords.size());
+        for (Map.Entry<Integer, List<Point>> entry : digitsWithCoords) {
+            List<Point> coords = new ArrayList<>(entry.getValue().size());
+            for (Point point : entry.getValue()) {
+                coords.add(new Point(point));
+            }
+            copy.add(new AbstractMap.SimpleEntry<>(entry.getKey(), coords));
+        }
+        return copy;
+    }
+
+    private List<Map.Entry<Integer, List<Point>>> readAllPlusCoords(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> digitPatterns) {
         List<Map.Entry<Integer, List<Point>>> digitsWithCoords = new ArrayList<>();
 
         Map<String, List<Point>> foundNumbers = findDigits(tolerance, image, colors, digitPatterns);
@@ -66,17 +94,48 @@ public class DigitReader {
     }
 
     public int findAllDigits(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> digitPatterns) {
-        Map<String, List<Point>> foundNumbers = findDigits(tolerance, image, colors, digitPatterns);
+        return findAllDigits(null, tolerance, image, colors, digitPatterns);
+    }
 
-        // Extract and return the complete number as an integer
-        return compileNumberFromPoints(foundNumbers);
+    /**
+     * Reads the number in the image, reusing the previous result when the device's image did not change.
+     */
+    public int findAllDigits(String device, int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> digitPatterns) {
+        return cachedRead(device, "digits", tolerance, image, colors, digitPatterns, () -> {
+            Map<String, List<Point>> foundNumbers = findDigits(tolerance, image, colors, digitPatterns);
+
+            // Extract and return the complete number as an integer
+            return compileNumberFromPoints(foundNumbers);
+        });
     }
 
     public String findAllLetters(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> letterPatterns) {
-        Map<String, List<Point>> foundLetters = findLettersNEW(tolerance, image, colors, letterPatterns);
+        return findAllLetters(null, tolerance, image, colors, letterPatterns);
+    }
 
-        // Extract and return the complete string from found letters
-        return compileStringFromPoints(foundLetters);
+    /**
+     * Reads the letters in the image, reusing the previous result when the device's image did not change.
+     */
+    public String findAllLetters(String device, int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> letterPatterns) {
+        return cachedRead(device, "letters", tolerance, image, colors, letterPatterns, () -> {
+            Map<String, List<Point>> foundLetters = findLettersNEW(tolerance, image, colors, letterPatterns);
+
+            // Extract and return the complete string from found letters
+            return compileStringFromPoints(foundLetters);
+        });
+    }
+
+    /**
+     * Returns the cached result when the device read the exact same pixels before with the same settings, otherwise reads and caches them.
+     * Reads without a device are not cached, their results could never be dropped with the device.
+     */
+    private <T> T cachedRead(String device, String reader, int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> patterns, Supplier<T> read) {
+        if (device == null || image == null || image.getWidth() == 0 || image.getHeight() == 0) {
+            return read.get();
+        }
+
+        OCRCacheKey key = new OCRCacheKey(device, null, reader, tolerance, colors, patterns, image.getWidth(), image.getHeight(), FrameHash.hash(image));
+        return cacheManager.getOcrResultCache().read(key, read);
     }
 
     public List<Map.Entry<String, List<Point>>> findAllLettersPlusCoords(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> letterPatterns) {
@@ -103,14 +162,12 @@ public class DigitReader {
         }
 
         // Iterate through the letter patterns to search within the image
-        for (Map.Entry<String, int[][]> entry : letterPatterns.entrySet()) {
-            String letter = entry.getKey();
-            int[][] pattern = entry.getValue();
-
-            // Search for the letter pattern in the image
-            java.util.List<Point> points = findLetterPattern(image, pattern, colors, tolerance);
+        BitMask ink = GlyphMatcher.binarize(image, colors, tolerance);
+        for (Glyph glyph : GlyphMatcher.compile(letterPatterns).getGlyphs()) {
+            // Search for the letter pattern in the image, only the letter's own pixels have to match
+            java.util.List<Point> points = GlyphMatcher.findAll(ink, glyph, false);
             if (!points.isEmpty()) {
-                foundLetters.put(letter, points);
+                foundLetters.put(glyph.getName(), points);
             }
         }
 
@@ -125,51 +182,17 @@ public class DigitReader {
             return foundLetters;
         }
 
-        for (Map.Entry<String, int[][]> entry : letterPatterns.entrySet()) {
-            String letter = entry.getKey();
-            int[][] pattern = entry.getValue();
-
-            java.util.List<Point> points = findPattern(image, pattern, colors, tolerance);
+        BitMask ink = GlyphMatcher.binarize(image, colors, tolerance);
+        for (Glyph glyph : GlyphMatcher.compile(letterPatterns).getGlyphs()) {
+            java.util.List<Point> points = GlyphMatcher.findAll(ink, glyph, true);
             if (!points.isEmpty()) {
-                foundLetters.put(letter, points);
+                foundLetters.put(glyph.getName(), points);
             }
         }
 
         return foundLetters;
     }
 
-    private java.util.List<Point> findLetterPattern(BufferedImage image, int[][] pattern, java.util.List<Color> targetColors, int tolerance) {
-        java.util.List<Point> points = new ArrayList<>();
-        int patternWidth = pattern[0].length;
-        int patternHeight = pattern.length;
-
-        for (int x = 0; x <= image.getWidth() - patternWidth; x++) {
-            for (int y = 0; y <= image.getHeight() - patternHeight; y++) {
-                boolean match = true;
-
-                for (int px = 0; px < patternWidth; px++) {
-                    for (int py = 0; py < patternHeight; py++) {
-                        int imageX = x + px;
-                        int imageY = y + py;
-                        Color pixelColor = new Color(image.getRGB(imageX, imageY));
-
-                        if (pattern[py][px] == 1 && !isColorListWithinTolerance(pixelColor, targetColors, tolerance)) {
-                            match = false;
-                            break;
-                        }
-                    }
-                    if (!match) break;
-                }
-
-                if (match) {
-                    points.add(new Point(x, y));
-                }
-            }
-        }
-
-        return points;
-    }
-
     private String compileStringFromPoints(Map<String, java.util.List<Point>> foundLetters) {
         // Sort letters based on their positions (e.g., x-coordinates or y-coordinates for reading order).
         java.util.List<Map.Entry<String, Point>> sortedLetters = new ArrayList<>();
@@ -191,7 +214,7 @@ public class DigitReader {
         return result.toString();
     }
 
-    // Modified method to find all numbers in the image, directly using the two colors, using Mat
+    // Finds all numbers in the image, directly using the given colors
     private Map<String, List<Point>> findDigits(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> digitPatterns) {
         Map<String, List<Point>> foundNumbers = new HashMap<>();
 
@@ -200,62 +223,17 @@ public class DigitReader {
             return foundNumbers;
         }
 
-        for (Map.Entry<String, int[][]> entry : digitPatterns.entrySet()) {
-            String digit = entry.getKey();
-            int[][] pattern = entry.getValue();
-
-            List<Point> points = findPattern(image, pattern, colors, tolerance);
+        BitMask ink = GlyphMatcher.binarize(image, colors, tolerance);
+        for (Glyph glyph : GlyphMatcher.compile(digitPatterns).getGlyphs()) {
+            List<Point> points = GlyphMatcher.findAll(ink, glyph, true);
             if (!points.isEmpty()) {
-                foundNumbers.put(digit, points);
+                foundNumbers.put(glyph.getName(), points);
             }
         }
 
         return foundNumbers;
     }
 
-    // Updated method to use Mat and a list of colors for pattern matching
-    private List<Point> findPattern(BufferedImage image, int[][] pattern, List<Color> targetColors, int tolerance) {
-        List<Point> points = new ArrayList<>();
-        int patternWidth = pattern[0].length;
-        int patternHeight = pattern.length;
-
-        for (int x = 0; x <= image.getWidth() - patternWidth; x++) {
-            for (int y = 0; y <= image.getHeight() - patternHeight; y++) {
-                boolean match = true;
-
-                for (int px = 0; px < patternWidth; px++) {
-                    for (int py = 0; py < patternHeight; py++) {
-                        int imageX = x + px;
-                        int imageY = y + py;
-                        Color pixelColor = new Color(image.getRGB(imageX, imageY));
-
-                        if (pattern[py][px] == 1) {
-                            // The pixel must match one of the target colors.
-                            if (!isColorListWithinTolerance(pixelColor, targetColors, tolerance)) {
-                                match = false;
-                                break;
-                            }
-                        } else {
-                            // The pixel should NOT match any of the target colors.
-                            if (isColorListWithinTolerance(pixelColor, targetColors, tolerance)) {
-                                match = false;
-                                break;
-                            }
-                        }
-                    }
-                    if (!match) break;
-                }
-
-                if (match) {
-                    points.add(new Point(x, y));
-                }
-            }
-        }
-
-        return points;
-    }
-
-
     private int compileNumberFromPoints(Map<String, List<Point>> foundNumbers) {
         if (foundNumbers.isEmpty()) {
             return -1;
@@ -347,17 +325,6 @@ public class DigitReader {
         return filteredLetters;
     }
 
-    private boolean isColorListWithinTolerance(Color color1, List<Color> targetColors, int tolerance) {
-        for (Color targetColor : targetColors) {
-            if (Math.abs(color1.getRed() - targetColor.getRed()) <= tolerance &&
-                    Math.abs(color1.getGreen() - targetColor.getGreen()) <= tolerance &&
-                    Math.abs(color1.getBlue() - targetColor.getBlue()) <= tolerance) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private Rectangle getClosestStringBoundingRectangle(Map<Point, String> filteredLetters, String targetString, Map<String, int[][]> letterPatterns) {
         // Sort the letters by their x-coordinate for left-to-right ordering
         List<Map.Entry<Point, String>> sortedLetters = new ArrayList<>(filteredLetters.entrySet());
@@ -0,0 +1,118 @@
+package helpers.OCR;
+
+import helpers.Color.ColorEngine;
+import helpers.Color.utils.BitMask;
+import helpers.Color.utils.ColorSet;
+import helpers.OCR.utils.CompiledFont;
+import helpers.OCR.utils.Glyph;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bitset based glyph matching shared by the OCR readers.
+ * The image is binarized once against the text colors, and every font pattern map is compiled into {@link Glyph}s
+ * the first time it is used, so a glyph is checked against a position a whole row at a time
+ * instead of building a Color for every pixel it covers.
+ * Positions are not scanned exhaustively: the binarized image is split into vertical ink segments,
+ * and a glyph is only tried where its leftmost ink pixel lands on an ink pixel of a segment.
+ */
+public final class GlyphMatcher {
+    private static final ColorEngine colorEngine = new ColorEngine();
+    private static final Map<Map<String, int[][]>, CompiledFont> compiledFonts = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private GlyphMatcher() {
+    }
+
+    /**
+     * Binarizes an image, marking every pixel within tolerance of one of the colors.
+     *
+     * @param image     The image to binarize.
+     * @param colors    The text colors.
+     * @param tolerance The maximum difference allowed per channel.
+     * @return The ink mask.
+     */
+    public static BitMask binarize(BufferedImage image, List<Color> colors, int tolerance) {
+        return colorEngine.toBitMask(image, ColorSet.of(colors, tolerance));
+    }
+
+    /**
+     * Returns the compiled glyphs for a pattern map. Pattern maps are compiled once and looked up by identity.
+     *
+     * @param patterns The pattern map.
+     * @return The compiled font.
+     */
+    public static CompiledFont compile(Map<String, int[][]> patterns) {
+        CompiledFont font = compiledFonts.get(patterns);
+        if (font == null || font.isStale(patterns)) {
+            font = new CompiledFont(patterns);
+            compiledFonts.put(patterns, font);
+        }
+        return font;
+    }
+
+    /**
+     * Finds every position where the glyph matches the mask.
+     *
+     * @param mask  The binarized image.
+     * @param glyph The glyph to look for.
+     * @param exact true if background pixels of the glyph must be unset as well, false if only the ink pixels have to be set.
+     * @return The top left corners of the matches, ordered by x and then y.
+     */
+    public static List<Point> findAll(BitMask mask, Glyph glyph, boolean exact) {
+        List<Point> points = new ArrayList<>();
+        if (glyph.getWidth() == 0 || glyph.getHeight() == 0) {
+            return points;
+        }
+
+        int maxX = mask.getWidth() - glyph.getWidth();
+        int maxY = mask.getHeight() - glyph.getHeight();
+        if (!glyph.hasInk()) {
+            // Nothing to anchor on, try every position
+            for (int x = 0; x <= maxX; x++) {
+                for (int y = 0; y <= maxY; y++) {
+                    if (glyph.matchesAt(mask, x, y, exact)) {
+                        points.add(new Point(x, y));
+                    }
+                }
+            }
+            return points;
+        }
+
+        // Every match puts the glyph's anchor pixel on an ink pixel, so only those positions are candidates.
+        // Walking the segments left to right and each column top to bottom keeps the x then y order.
+        BitMask columns = mask.columns();
+        int[] segments = mask.getColumnSegments();
+        int anchorX = glyph.getAnchorX();
+        int anchorY = glyph.getAnchorY();
+        int inkSpan = glyph.getLastInkColumn() - anchorX;
+
+        for (int s = 0; s < segments.length; s += 2) {
+            int from = Math.max(segments[s], anchorX);
+            int to = Math.min(segments[s + 1], maxX + anchorX + 1);
+            for (int column = from; column < to; column++) {
+                // The glyph's rightmost ink column needs ink as well
+                if (!mask.isColumnSet(column + inkSpan)) {
+                    continue;
+                }
+
+                int x = column - anchorX;
+                for (int row = columns.nextSetBit(column, anchorY); row >= 0; row = columns.nextSetBit(column, row + 1)) {
+                    int y = row - anchorY;
+                    if (y > maxY) {
+                        break;
+                    }
+                    if (glyph.matchesAt(mask, x, y, exact)) {
+                        points.add(new Point(x, y));
+                    }
+                }
+            }
+        }
+        return points;
+    }
+}
@@ -149,7 +149,7 @@ public class ReadLevels {
     public List<DetectedDigit> detectDigits(String device, Rectangle adjustedSkillArea, List<Color> colors) {
         BufferedImage searchImage = getGameView.getSubBuffered(device, adjustedSkillArea);
 
-        List<Map.Entry<Integer, List<Point>>> digitsWithCoords = digitReader.findAllPlusCoords(0, searchImage, colors, cacheManager.getDigitPatterns());
+        List<Map.Entry<Integer, List<Point>>> digitsWithCoords = digitReader.findAllPlusCoords(device, 0, searchImage, colors, cacheManager.getDigitPatterns());
         logger.devLog("CF results: " + digitsWithCoords);
 
         List<DetectedDigit> detectedDigits = new ArrayList<>();
@@ -167,7 +167,7 @@ public class ReadLevels {
     public List<DetectedDigit> detectDigitsWithTolerance(String device, Rectangle adjustedSkillArea, List<Color> colors) {
         BufferedImage searchImage = getGameView.getSubBuffered(device, adjustedSkillArea);
 
-        List<Map.Entry<Integer, List<Point>>> digitsWithCoords = digitReader.findAllPlusCoords(10, searchImage, colors, cacheManager.getDigitPatterns());
+        List<Map.Entry<Integer, List<Point>>> digitsWithCoords = digitReader.findAllPlusCoords(device, 10, searchImage, colors, cacheManager.getDigitPatterns());
 
         List<DetectedDigit> detectedDigits = new ArrayList<>();
         for (Map.Entry<Integer, List<Point>> entry : digitsWithCoords) {
@@ -32,7 +32,7 @@ public class ReadXP {
     public int readXP(String device) {
         BufferedImage image = getXPROIMat(xpBox, device);
 
-        int readXpValue = digitReader.findAllDigits(0, image, xpColors, cacheManager.getDigitPatterns());
+        int readXpValue = digitReader.findAllDigits(device, 0, image, xpColors, cacheManager.getDigitPatterns());
     
         // Check the current stored value in the cacheManager
         String storedXpString = cacheManager.getDeviceXP(device);
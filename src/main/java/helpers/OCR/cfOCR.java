@@ -1,7 +1,9 @@
 package helpers.OCR;
 
 
+import helpers.Color.utils.BitMask;
 import helpers.OCR.utils.FontName;
+import helpers.OCR.utils.Glyph;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -18,8 +20,18 @@ import static helpers.patterns.Quill2Patterns.quill2Patterns;
 public class cfOCR {
 
     public static String findAllPatternsInImage(int tolerance, BufferedImage image, List<Color> colors, FontName font) {
+        if (image == null) {
+            return "";
+        }
+
+        return findAllPatternsInMask(GlyphMatcher.binarize(image, colors, tolerance), font);
+    }
 
-        Map<String, List<Point>> foundLetters = findPatternsInImage(tolerance, image, colors, font);
+    /**
+     * Reads the text in an image that was already binarized with {@link GlyphMatcher#binarize}, so the same mask can be read with several fonts.
+     */
+    public static String findAllPatternsInMask(BitMask ink, FontName font) {
+        Map<String, List<Point>> foundLetters = findPatternsInImage(ink, font);
 
         // Extract and return the complete string from found letters
         return compileStringFromPatternPoints(foundLetters, font);
@@ -38,10 +50,13 @@ public class cfOCR {
         Map<FontName, String> results = new HashMap<>();
         Map<FontName, Long> executionTimes = new HashMap<>();
 
+        // The image only has to be binarized once for all fonts
+        BitMask ink = image == null ? null : GlyphMatcher.binarize(image, colors, tolerance);
+
         // Loop through each font and find the best result
         for (FontName font : fonts) {
             long startTime = System.currentTimeMillis();
-            String result = findAllPatternsInImage(tolerance, image, colors, font);
+            String result = ink == null ? "" : findAllPatternsInMask(ink, font);
             long elapsedTime = System.currentTimeMillis() - startTime;
 
             results.put(font, result);
@@ -58,59 +73,6 @@ public class cfOCR {
         return results.getOrDefault(bestFont, "");
     }
 
-    private static List<Point> findAllPatternsInImage(BufferedImage image, int[][] pattern, List<Color> targetColors, int tolerance) {
-        List<Point> points = new ArrayList<>();
-        int patternWidth = pattern[0].length;
-        int patternHeight = pattern.length;
-
-        for (int x = 0; x <= image.getWidth() - patternWidth; x++) {
-            for (int y = 0; y <= image.getHeight() - patternHeight; y++) {
-                boolean match = true;
-
-                for (int px = 0; px < patternWidth; px++) {
-                    for (int py = 0; py < patternHeight; py++) {
-                        int imageX = x + px;
-                        int imageY = y + py;
-                        Color pixelColor = new Color(image.getRGB(imageX, imageY));
-
-                        if (pattern[py][px] == 1) {
-                            // The pixel must match one of the target colors.
-                            if (!isColorListWithinToleranceBuffered(pixelColor, targetColors, tolerance)) {
-                                match = false;
-                                break;
-                            }
-                        } else {
-                            // The pixel should NOT match any of the target colors.
-                            if (isColorListWithinToleranceBuffered(pixelColor, targetColors, tolerance)) {
-                                match = false;
-                                break;
-                            }
-                        }
-                    }
-                    if (!match) break;
-                }
-
-                if (match) {
-                    points.add(new Point(x, y));
-                }
-            }
-        }
-
-        return points;
-    }
-
-    // Check if the color is within tolerance for any of the target colors
-    private static boolean isColorListWithinToleranceBuffered(Color color1, List<Color> targetColors, int tolerance) {
-        for (Color targetColor : targetColors) {
-            if (Math.abs(color1.getRed() - targetColor.getRed()) <= tolerance &&
-                    Math.abs(color1.getGreen() - targetColor.getGreen()) <= tolerance &&
-                    Math.abs(color1.getBlue() - targetColor.getBlue()) <= tolerance) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private static String compileStringFromPatternPoints(Map<String, List<Point>> foundLetters, FontName fontName) {
         int rowThreshold = 0;
 
@@ -142,21 +104,19 @@ public class cfOCR {
 
         List<List<Map.Entry<String, Point>>> rows = new ArrayList<>();
 
+        // Letters come in by increasing y, so a letter joins the first row that started at most rowThreshold above it.
+        // Rows that started further up can't take any later letter either, so the search resumes from there.
+        int firstOpenRow = 0;
         for (Map.Entry<String, Point> entry : sortedLetters) {
-            boolean added = false;
-            for (List<Map.Entry<String, Point>> row : rows) {
-                int rowY = row.get(0).getValue().y;
-                int currentY = entry.getValue().y;
-
-                // Ensuring letters from the same row stay together
-                if (Math.abs(rowY - currentY) <= rowThreshold) {
-                    row.add(entry);
-                    added = true;
-                    break;
-                }
+            int currentY = entry.getValue().y;
+            while (firstOpenRow < rows.size() && currentY - rows.get(firstOpenRow).get(0).getValue().y > rowThreshold) {
+                firstOpenRow++;
             }
 
-            if (!added) {
+            // Ensuring letters from the same row stay together
+            if (firstOpenRow < rows.size()) {
+                rows.get(firstOpenRow).add(entry);
+            } else {
                 List<Map.Entry<String, Point>> newRow = new ArrayList<>();
                 newRow.add(entry);
                 rows.add(newRow);
@@ -191,21 +151,17 @@ public class cfOCR {
         return result.toString().trim();
     }
 
-    private static Map<String, List<Point>> findPatternsInImage(int tolerance, BufferedImage image, List<Color> colors, FontName fontName) {
+    private static Map<String, List<Point>> findPatternsInImage(BitMask ink, FontName fontName) {
         Map<String, List<Point>> foundLetters = new HashMap<>();
 
-        if (image == null) {
-            return foundLetters;
-        }
-
         // Handle Quill font by performing two separate readings and combining results
         if (fontName == FontName.QUILL) {
 
             // First pass with quill1Patterns
-            Map<String, List<Point>> quill1Results = findPatternsInImageInternal(tolerance, image, colors, quill1Patterns);
+            Map<String, List<Point>> quill1Results = findPatternsInImageInternal(ink, quill1Patterns);
 
             // Second pass with quill2Patterns
-            Map<String, List<Point>> quill2Results = findPatternsInImageInternal(tolerance, image, colors, quill2Patterns);
+            Map<String, List<Point>> quill2Results = findPatternsInImageInternal(ink, quill2Patterns);
 
             // Merge results from both passes
             for (Map.Entry<String, List<Point>> entry : quill1Results.entrySet()) {
@@ -219,29 +175,29 @@ public class cfOCR {
 
         } else {
             // Normal handling for all other fonts
-            foundLetters = findPatternsInImageInternal(tolerance, image, colors, getLetterPatterns(fontName));
+            foundLetters = findPatternsInImageInternal(ink, getLetterPatterns(fontName));
         }
 
         return foundLetters;
     }
 
-    private static Map<String, List<Point>> findPatternsInImageInternal(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> letterPatterns) {
+    private static Map<String, List<Point>> findPatternsInImageInternal(BitMask ink, Map<String, int[][]> letterPatterns) {
         Map<String, List<Point>> foundLetters = new HashMap<>();
         List<Point> occupiedPoints = new ArrayList<>();
 
-        for (Map.Entry<String, int[][]> entry : letterPatterns.entrySet()) {
-            String letter = entry.getKey();
-            int[][] pattern = entry.getValue();
+        for (Glyph glyph : GlyphMatcher.compile(letterPatterns).getGlyphs()) {
+            String letter = glyph.getName();
 
-            List<Point> points = findAllPatternsInImage(image, pattern, colors, tolerance);
+            // Background pixels of the pattern must not be ink either
+            List<Point> points = GlyphMatcher.findAll(ink, glyph, true);
             List<Point> validPoints = new ArrayList<>();
 
             for (Point point : points) {
                 boolean overlaps = false;
 
                 for (Point occupied : occupiedPoints) {
-                    if (Math.abs(point.x - occupied.x) < pattern[0].length - 2 &&
-                            Math.abs(point.y - occupied.y) < pattern.length - 2) {
+                    if (Math.abs(point.x - occupied.x) < glyph.getWidth() - 2 &&
+                            Math.abs(point.y - occupied.y) < glyph.getHeight() - 2) {
                         overlaps = true;
                         break;
                     }
@@ -0,0 +1,34 @@
+package helpers.OCR.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The glyphs of a pattern map, compiled once and kept in the map's iteration order.
+ */
+public class CompiledFont {
+    private final List<Glyph> glyphs;
+    private final int sourceSize;
+
+    public CompiledFont(Map<String, int[][]> patterns) {
+        List<Glyph> compiled = new ArrayList<>(patterns.size());
+        for (Map.Entry<String, int[][]> entry : patterns.entrySet()) {
+            compiled.add(Glyph.compile(entry.getKey(), entry.getValue()));
+        }
+        this.glyphs = Collections.unmodifiableList(compiled);
+        this.sourceSize = patterns.size();
+    }
+
+    public List<Glyph> getGlyphs() {
+        return glyphs;
+    }
+
+    /**
+     * @return true if the pattern map changed size since it was compiled.
+     */
+    public boolean isStale(Map<String, int[][]> patterns) {
+        return patterns.size() != sourceSize;
+    }
+}
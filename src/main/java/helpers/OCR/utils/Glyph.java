@@ -0,0 +1,111 @@
+package helpers.OCR.utils;
+
+import helpers.Color.utils.BitMask;
+
+/**
+ * A font pattern compiled into row bitsets, so it can be compared against a {@link BitMask} a row of up to 64 pixels at a time.
+ */
+public class Glyph {
+    private final String name;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] ink;
+    private int anchorX = -1;
+    private int anchorY = -1;
+    private int lastInkColumn = -1;
+
+    private Glyph(String name, int width, int height) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = Math.max(1, (width + 63) >>> 6);
+        this.ink = new long[wordsPerRow * height];
+    }
+
+    /**
+     * Compiles a pattern where 1 marks an ink pixel and 0 a background pixel.
+     *
+     * @param name    The text the pattern represents.
+     * @param pattern The pattern rows, the first row sets the width.
+     * @return The compiled glyph.
+     */
+    public static Glyph compile(String name, int[][] pattern) {
+        int width = pattern.length == 0 ? 0 : pattern[0].length;
+        Glyph glyph = new Glyph(name, width, pattern.length);
+        for (int y = 0; y < pattern.length; y++) {
+            for (int x = 0; x < Math.min(width, pattern[y].length); x++) {
+                if (pattern[y][x] == 1) {
+                    glyph.ink[y * glyph.wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+                    if (glyph.anchorX < 0 || x < glyph.anchorX || (x == glyph.anchorX && y < glyph.anchorY)) {
+                        glyph.anchorX = x;
+                        glyph.anchorY = y;
+                    }
+                    glyph.lastInkColumn = Math.max(glyph.lastInkColumn, x);
+                }
+            }
+        }
+        return glyph;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean hasInk() {
+        return anchorX >= 0;
+    }
+
+    /**
+     * @return The column of the glyph's leftmost ink pixel, or -1 if the glyph has no ink.
+     */
+    public int getAnchorX() {
+        return anchorX;
+    }
+
+    /**
+     * @return The row of the topmost ink pixel in the glyph's leftmost ink column, or -1 if the glyph has no ink.
+     */
+    public int getAnchorY() {
+        return anchorY;
+    }
+
+    /**
+     * @return The column of the glyph's rightmost ink pixel, or -1 if the glyph has no ink.
+     */
+    public int getLastInkColumn() {
+        return lastInkColumn;
+    }
+
+    /**
+     * Checks the glyph against the mask at a position.
+     *
+     * @param mask  The binarized image.
+     * @param x     The left edge of the glyph in the mask.
+     * @param y     The top edge of the glyph in the mask.
+     * @param exact true if background pixels must be unset as well, false if only the ink pixels have to be set.
+     * @return true if the glyph matches. The glyph must fit within the mask at the position.
+     */
+    public boolean matchesAt(BitMask mask, int x, int y, boolean exact) {
+        for (int row = 0; row < height; row++) {
+            int rowStart = row * wordsPerRow;
+            for (int word = 0; word < wordsPerRow; word++) {
+                int offset = word << 6;
+                long expected = ink[rowStart + word];
+                long actual = mask.extract(x + offset, y + row, Math.min(64, width - offset));
+                if (exact ? actual != expected : (actual & expected) != expected) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
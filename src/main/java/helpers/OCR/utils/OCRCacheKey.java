@@ -0,0 +1,65 @@
+package helpers.OCR.utils;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Identifies an OCR read by everything that decides its result: the reader and its settings, the text colors,
+ * the pattern map (compared by identity) and a 64-bit hash of the pixels read.
+ * The device and region are part of the key when the caller knows them, so results can be dropped per device.
+ */
+public class OCRCacheKey {
+    private final String device;
+    private final Rectangle region;
+    private final String reader;
+    private final int tolerance;
+    private final List<Color> colors;
+    private final Object patterns;
+    private final int width;
+    private final int height;
+    private final long pixelHash;
+    private final int hashCode;
+
+    public OCRCacheKey(String device, Rectangle region, String reader, int tolerance, List<Color> colors, Object patterns, int width, int height, long pixelHash) {
+        this.device = device;
+        this.region = region == null ? null : new Rectangle(region);
+        this.reader = reader;
+        this.tolerance = tolerance;
+        this.colors = List.copyOf(colors);
+        this.patterns = patterns;
+        this.width = width;
+        this.height = height;
+        this.pixelHash = pixelHash;
+        this.hashCode = Objects.hash(device, this.region, reader, tolerance, this.colors, System.identityHashCode(patterns), width, height, pixelHash);
+    }
+
+    public String getDevice() {
+        return device;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OCRCacheKey)) {
+            return false;
+        }
+        OCRCacheKey other = (OCRCacheKey) o;
+        return pixelHash == other.pixelHash
+                && width == other.width
+                && height == other.height
+                && tolerance == other.tolerance
+                && patterns == other.patterns
+                && reader.equals(other.reader)
+                && Objects.equals(device, other.device)
+                && Objects.equals(region, other.region)
+                && colors.equals(other.colors);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,69 @@
+package helpers.OCR.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Results of OCR reads by {@link OCRCacheKey}, so a region whose pixels did not change is not matched again.
+ * Results are dropped per device when the device goes away, so reads without a device are never cached:
+ * nothing would remove them.
+ */
+public class OCRResultCache {
+    private final Cache<OCRCacheKey, Object> results;
+
+    public OCRResultCache(long maximumSize, long expireAfterAccessMinutes) {
+        results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    public Object get(OCRCacheKey key) {
+        return results.getIfPresent(key);
+    }
+
+    public void put(OCRCacheKey key, Object result) {
+        if (key.getDevice() != null && result != null) {
+            results.put(key, result);
+        }
+    }
+
+    /**
+     * Returns the cached result for the key, otherwise reads and caches it.
+     *
+     * @param key  The key of the read.
+     * @param read Reads the region when there is no cached result.
+     * @return The result of the read.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(OCRCacheKey key, Supplier<T> read) {
+        Object cached = get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        T result = read.get();
+        put(key, result);
+        return result;
+    }
+
+    public void removeDevice(String device) {
+        results.asMap().keySet().removeIf(key -> device.equals(key.getDevice()));
+    }
+
+    /**
+     * @return The hit and miss counts, see {@link CacheStats#hitRate()}.
+     */
+    public CacheStats stats() {
+        return results.stats();
+    }
+
+    public Cache<OCRCacheKey, Object> getCache() {
+        return results;
+    }
+}
@@ -15,6 +15,9 @@ public class ThreadManager {
     // Scheduled executor for periodic tasks
     private final ScheduledExecutorService scheduler;
 
+    // Timing wheel for the per-device work of the services
+    private final TickScheduler tickScheduler;
+
     public static int AVAILABLE_CORES;
 
     private ThreadManager() {
@@ -43,6 +46,12 @@ public class ThreadManager {
         );
         ((ScheduledThreadPoolExecutor) this.scheduler).setRemoveOnCancelPolicy(true);
 
+        // One timer thread and a fixed set of workers, however many devices are running
+        this.tickScheduler = new TickScheduler(
+                new CustomThreadFactory("TickWheelThread"),
+                Executors.newFixedThreadPool(Math.max(2, coreCount / 2), new CustomThreadFactory("TickWorkerThread"))
+        );
+
         // Schedule garbage collection every 30 minutes
         scheduleGarbageCollection();
     }
@@ -64,6 +73,10 @@ public class ThreadManager {
         return scheduler;
     }
 
+    public TickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+
     public ExecutorService getADBExecutor(String device) {
         return adbExecutors.computeIfAbsent(device, this::createADBExecutor);
     }
@@ -85,6 +98,7 @@ public class ThreadManager {
     public void shutdown() {
         System.out.println("Shutting down schedulers");
         shutdownExecutor(scheduler, "Scheduler");
+        tickScheduler.shutdown();
         System.out.println("Shutting down ADB executors");
         adbExecutors.forEach((device, executor) -> shutdownExecutor(executor, "ADBExecutor-" + device));
         System.out.println("Shutting down unified executors");
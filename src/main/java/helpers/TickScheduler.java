@@ -0,0 +1,313 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the timed and periodic per-device work of the services from one hashed timing wheel.
+ * A single timer thread advances the wheel every {@value #TICK_MS}ms and hands due tasks to a fixed pool of workers,
+ * so the number of threads stays the same however many devices and services are running.
+ * <p>
+ * Frame tasks are tied to the capture loop: they run at most once per period, and only when a new frame
+ * arrived for their device since they last ran. A frame task with nothing new to look at is parked off the wheel
+ * until {@link #onFrame(String)} wakes it, so idle devices cost nothing.
+ * <p>
+ * A periodic task is never run by two workers at once, it is put back on the wheel when its run returns.
+ */
+public class TickScheduler {
+    private static final long TICK_MS = 10;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MS);
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final int SCHEDULED = 0;
+    private static final int RUNNING = 1;
+    private static final int PARKED = 2;
+    private static final int DONE = 3;
+    private static final int CANCELLED = 4;
+
+    private final ExecutorService workers;
+    private final Thread timerThread;
+    private final long startNanos;
+    private final Queue<TickTask> pending = new ConcurrentLinkedQueue<>();
+    private final Map<String, DeviceFrames> deviceFrames = new ConcurrentHashMap<>();
+    private volatile Logger logger;
+    private volatile boolean running = true;
+
+    // Only touched by the timer thread
+    private final List<List<TickTask>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private long currentTick;
+
+    public TickScheduler(ThreadFactory timerThreadFactory, ExecutorService workers) {
+        this.workers = workers;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.startNanos = System.nanoTime();
+        this.timerThread = timerThreadFactory.newThread(this::runWheel);
+        this.timerThread.start();
+    }
+
+    /**
+     * Runs a task once after a delay.
+     */
+    public TickTask schedule(Runnable task, long delay, TimeUnit unit) {
+        return submit(new TickTask(task, null, 0, System.nanoTime() + unit.toNanos(delay)));
+    }
+
+    /**
+     * Runs a task periodically. A run that takes longer than the period delays the next one instead of overlapping it.
+     */
+    public TickTask scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        return submit(new TickTask(task, null, Math.max(TICK_NANOS, unit.toNanos(period)), System.nanoTime() + unit.toNanos(initialDelay)));
+    }
+
+    /**
+     * Runs a task for every new frame captured for a device, but at most once per period.
+     * The task runs once right away, after that only when {@link #onFrame(String)} reported a frame it hasn't seen.
+     *
+     * @param device    The device whose frames drive the task.
+     * @param task      The task, usually a check on the latest frame.
+     * @param minPeriod The shortest time between two runs.
+     * @param unit      The unit of the period.
+     */
+    public TickTask scheduleOnFrame(String device, Runnable task, long minPeriod, TimeUnit unit) {
+        TickTask tickTask = new TickTask(task, device, Math.max(TICK_NANOS, unit.toNanos(minPeriod)), System.nanoTime());
+        deviceFrames.compute(device, (key, frames) -> {
+            DeviceFrames current = frames == null ? new DeviceFrames() : frames;
+            current.tasks.add(tickTask);
+            return current;
+        });
+        return submit(tickTask);
+    }
+
+    /**
+     * Reports a new frame for a device, waking its parked frame tasks. Called from the capture loop.
+     */
+    public void onFrame(String device) {
+        DeviceFrames frames = deviceFrames.get(device);
+        if (frames == null) {
+            // No frame tasks for this device
+            return;
+        }
+        frames.version.incrementAndGet();
+        for (TickTask task : frames.parked) {
+            wake(task);
+        }
+    }
+
+    /**
+     * Cancels the frame tasks of a device and forgets its frames. Called when the device is torn down.
+     */
+    public void removeDevice(String device) {
+        DeviceFrames frames = deviceFrames.remove(device);
+        if (frames == null) {
+            return;
+        }
+        for (TickTask task : frames.tasks) {
+            task.state.set(CANCELLED);
+        }
+        frames.tasks.clear();
+        frames.parked.clear();
+    }
+
+    /**
+     * Sets the logger failed tasks are reported to, the scheduler is created before the logger is.
+     */
+    public void setLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(timerThread);
+        workers.shutdownNow();
+    }
+
+    private TickTask submit(TickTask task) {
+        pending.add(task);
+        return task;
+    }
+
+    private void runWheel() {
+        while (running) {
+            long deadline = startNanos + (currentTick + 1) * TICK_NANOS;
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+
+            TickTask task;
+            while ((task = pending.poll()) != null) {
+                if (task.state.get() == SCHEDULED) {
+                    place(task);
+                }
+            }
+
+            List<TickTask> bucket = wheel.get((int) (currentTick & WHEEL_MASK));
+            int kept = 0;
+            for (int i = 0; i < bucket.size(); i++) {
+                TickTask candidate = bucket.get(i);
+                if (candidate.state.get() != SCHEDULED) {
+                    continue;
+                }
+                if (candidate.rounds > 0) {
+                    candidate.rounds--;
+                    bucket.set(kept++, candidate);
+                } else {
+                    expire(candidate);
+                }
+            }
+            bucket.subList(kept, bucket.size()).clear();
+            currentTick++;
+        }
+    }
+
+    private void place(TickTask task) {
+        long due = Math.max(currentTick, (task.deadline - startNanos + TICK_NANOS - 1) / TICK_NANOS);
+        task.rounds = (due - currentTick) / WHEEL_SIZE;
+        wheel.get((int) (due & WHEEL_MASK)).add(task);
+    }
+
+    private void expire(TickTask task) {
+        DeviceFrames frames = task.device == null ? null : deviceFrames.get(task.device);
+        if (task.device != null && frames == null) {
+            // The device was removed while the task was on the wheel
+            task.state.set(CANCELLED);
+            return;
+        }
+        if (frames == null || frames.version.get() != task.lastFrame) {
+            dispatch(task, SCHEDULED);
+            return;
+        }
+
+        // Nothing new to look at, wait for the capture loop instead of polling
+        if (task.state.compareAndSet(SCHEDULED, PARKED)) {
+            frames.parked.add(task);
+            if (frames.version.get() != task.lastFrame) {
+                wake(task);
+            }
+        }
+    }
+
+    private void wake(TickTask task) {
+        DeviceFrames frames = deviceFrames.get(task.device);
+        if (task.state.get() == PARKED && frames != null && frames.parked.remove(task)) {
+            dispatch(task, PARKED);
+        }
+    }
+
+    private void dispatch(TickTask task, int expectedState) {
+        if (!task.state.compareAndSet(expectedState, RUNNING)) {
+            return;
+        }
+        try {
+            workers.execute(() -> run(task));
+        } catch (RuntimeException e) {
+            // The workers are shut down
+            task.state.set(CANCELLED);
+        }
+    }
+
+    private void run(TickTask task) {
+        long started = System.nanoTime();
+        if (task.device != null) {
+            DeviceFrames frames = deviceFrames.get(task.device);
+            task.lastFrame = frames == null ? -1 : frames.version.get();
+        }
+        try {
+            task.runnable.run();
+        } catch (Throwable t) {
+            Logger current = logger;
+            if (current != null) {
+                StackTraceElement[] trace = t.getStackTrace();
+                current.globalLog("Tick task " + (task.device == null ? "" : "for " + task.device + " ") + "failed: " + t
+                        + (trace.length > 0 ? " at " + trace[0] : ""));
+            }
+        }
+
+        if (task.period == 0) {
+            task.state.compareAndSet(RUNNING, DONE);
+            task.forget();
+            return;
+        }
+        task.deadline = Math.max(task.deadline + task.period, started);
+        if (task.state.compareAndSet(RUNNING, SCHEDULED)) {
+            submit(task);
+        }
+    }
+
+    private static class DeviceFrames {
+        private final AtomicLong version = new AtomicLong();
+        private final Set<TickTask> parked = ConcurrentHashMap.newKeySet();
+        private final Set<TickTask> tasks = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * A handle to a scheduled task.
+     */
+    public class TickTask {
+        private final Runnable runnable;
+        private final String device;
+        private final long period;
+        private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+        private volatile long deadline;
+        private volatile long lastFrame = -1;
+        private long rounds;
+
+        private TickTask(Runnable runnable, String device, long period, long deadline) {
+            this.runnable = runnable;
+            this.device = device;
+            this.period = period;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Stops the task from running again. A run already in progress is not interrupted.
+         */
+        public void cancel() {
+            state.set(CANCELLED);
+            forget();
+        }
+
+        private void forget() {
+            DeviceFrames frames = device == null ? null : deviceFrames.get(device);
+            if (frames != null) {
+                frames.parked.remove(this);
+                frames.tasks.remove(this);
+                // Drop the device once its last frame task is gone
+                deviceFrames.computeIfPresent(device, (key, current) -> current.tasks.isEmpty() ? null : current);
+            }
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isDone() {
+            int current = state.get();
+            return current == DONE || current == CANCELLED;
+        }
+
+        /**
+         * @return The time left until the task is due, 0 if it is due, running or waiting for a frame.
+         */
+        public long getDelay(TimeUnit unit) {
+            if (state.get() != SCHEDULED) {
+                return 0;
+            }
+            return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+}
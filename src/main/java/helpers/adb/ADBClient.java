@@ -0,0 +1,288 @@
+package helpers.adb;
+
+import helpers.Logger;
+import helpers.adb.utils.ADBConnection;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * ADBClient talks to the local ADB server over its socket protocol instead of starting an adb process per command.
+ * Shell and exec services use a fresh socket each (the server closes the stream when the service exits),
+ * while sync sessions used for file transfers are pooled per device and reused.
+ * Every connection gives up on a read after {@value #READ_TIMEOUT_MS} ms without data, so a hung device
+ * can't block a thread forever. Callers that wait longer on purpose set their own timeout on the connection.
+ */
+public class ADBClient {
+    public static final String DEFAULT_HOST = "127.0.0.1";
+    public static final int DEFAULT_PORT = 5037;
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    private static final int READ_TIMEOUT_MS = 10_000;
+    private static final int MAX_IDLE_SYNC_CONNECTIONS = 2;
+    private static final long SERVER_RECHECK_INTERVAL_MS = 5000;
+
+    private final Logger logger;
+    private final String host;
+    private final int port;
+    private final Map<String, Deque<ADBConnection>> idleSyncConnections = new ConcurrentHashMap<>();
+    private volatile long lastFailedConnectMs = 0;
+
+    public ADBClient(Logger logger) {
+        this(logger, DEFAULT_HOST, DEFAULT_PORT);
+    }
+
+    public ADBClient(Logger logger, String host, int port) {
+        this.logger = logger;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Checks if the ADB server can be used. A failed connection is remembered for a few seconds
+     * so callers can fall back to the adb binary without paying the connect timeout on every command.
+     *
+     * @return false if connecting to the server recently failed, true otherwise.
+     */
+    public boolean isServerAvailable() {
+        return System.currentTimeMillis() - lastFailedConnectMs >= SERVER_RECHECK_INTERVAL_MS;
+    }
+
+    /**
+     * Lists the devices known to the ADB server, in the same "serial\tstate" format as "adb devices".
+     *
+     * @return The device lines.
+     * @throws IOException If the server could not be reached.
+     */
+    public List<String> getDevices() throws IOException {
+        try (ADBConnection connection = connect()) {
+            connection.sendRequest("host:devices");
+            String response = connection.readLengthPrefixedString();
+
+            List<String> lines = new ArrayList<>();
+            for (String line : response.split("\n")) {
+                if (!line.isBlank()) {
+                    lines.add(line.trim());
+                }
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Runs a shell command on the device and returns its output as a String.
+     *
+     * @param device  The device identifier.
+     * @param command The shell command, e.g. "input tap 100 200".
+     * @return The combined output of the command.
+     * @throws IOException If the server or device refused the command.
+     */
+    public String shell(String device, String command) throws IOException {
+        try (InputStream stream = openService(device, "shell:" + command)) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Opens a shell service on the device. The stream ends when the command exits.
+     *
+     * @param device  The device identifier.
+     * @param command The shell command to run.
+     * @return An InputStream of the command output. Closing it closes the connection.
+     * @throws IOException If the server or device refused the command.
+     */
+    public InputStream openShell(String device, String command) throws IOException {
+        return openService(device, "shell:" + command);
+    }
+
+    /**
+     * Opens an exec service on the device. Unlike shell, exec does not go through a pty,
+     * so binary output such as screencap data arrives unmodified.
+     *
+     * @param device  The device identifier.
+     * @param command The command to run.
+     * @return An InputStream of the raw command output. Closing it closes the connection.
+     * @throws IOException If the server or device refused the command.
+     */
+    public InputStream openExec(String device, String command) throws IOException {
+        return openService(device, "exec:" + command);
+    }
+
+    /**
+     * Starts an exec service on the device and returns its connection, so the caller can write to the command's
+     * standard input as well as read its output. Used to keep a shell open across many commands.
+     *
+     * @param device  The device identifier.
+     * @param command The command to run, e.g. "sh".
+     * @return The connection, closing it ends the command.
+     * @throws IOException If the server or device refused the command.
+     */
+    public ADBConnection openExecConnection(String device, String command) throws IOException {
+        ADBConnection connection = connectToDevice(device);
+        try {
+            connection.sendRequest("exec:" + command);
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Pulls a file from the device using a pooled sync connection.
+     *
+     * @param device     The device identifier.
+     * @param remotePath The full path to the file on the device.
+     * @return The file contents.
+     * @throws IOException If the transfer failed.
+     */
+    public byte[] pull(String device, String remotePath) throws IOException {
+        ADBConnection connection = borrowSyncConnection(device);
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            connection.syncReceive(remotePath, buffer);
+            releaseSyncConnection(device, connection);
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Pushes data to a file on the device using a pooled sync connection.
+     *
+     * @param device     The device identifier.
+     * @param remotePath The full path where the file should be written.
+     * @param data       The file contents.
+     * @throws IOException If the transfer failed.
+     */
+    public void push(String device, String remotePath, byte[] data) throws IOException {
+        ADBConnection connection = borrowSyncConnection(device);
+        try {
+            connection.syncSend(remotePath, data, 0644);
+            releaseSyncConnection(device, connection);
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the pooled connections held for a device, for example when it goes offline.
+     *
+     * @param device The device identifier.
+     */
+    public void closeDevice(String device) {
+        Deque<ADBConnection> idle = idleSyncConnections.remove(device);
+        if (idle != null) {
+            idle.forEach(this::quietlyQuit);
+        }
+    }
+
+    /**
+     * Closes all pooled connections.
+     */
+    public void shutdown() {
+        for (String device : new ArrayList<>(idleSyncConnections.keySet())) {
+            closeDevice(device);
+        }
+    }
+
+    private InputStream openService(String device, String service) throws IOException {
+        ADBConnection connection = connectToDevice(device);
+        try {
+            connection.sendRequest(service);
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+
+        InputStream serviceStream = connection.getInputStream();
+        return new FilterInputStream(serviceStream) {
+            @Override
+            public void close() {
+                connection.close();
+            }
+        };
+    }
+
+    private ADBConnection borrowSyncConnection(String device) throws IOException {
+        Deque<ADBConnection> idle = idleSyncConnections.get(device);
+        if (idle != null) {
+            ADBConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (connection.isOpen()) {
+                    return connection;
+                }
+                connection.close();
+            }
+        }
+
+        ADBConnection connection = connectToDevice(device);
+        try {
+            connection.startSync();
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private void releaseSyncConnection(String device, ADBConnection connection) {
+        Deque<ADBConnection> idle = idleSyncConnections.computeIfAbsent(device, k -> new ConcurrentLinkedDeque<>());
+        if (idle.size() < MAX_IDLE_SYNC_CONNECTIONS) {
+            idle.offerFirst(connection);
+        } else {
+            quietlyQuit(connection);
+        }
+    }
+
+    private void quietlyQuit(ADBConnection connection) {
+        try {
+            connection.syncQuit();
+        } catch (IOException ignored) {
+            // The connection is being discarded either way
+        } finally {
+            connection.close();
+        }
+    }
+
+    private ADBConnection connectToDevice(String device) throws IOException {
+        ADBConnection connection = connect();
+        try {
+            if (device == null || device.isEmpty()) {
+                connection.sendRequest("host:transport-any");
+            } else {
+                connection.sendRequest("host:transport:" + device);
+            }
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private ADBConnection connect() throws IOException {
+        ADBConnection connection = null;
+        try {
+            connection = new ADBConnection(host, port, CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            return connection;
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.close();
+            }
+            if (isServerAvailable()) {
+                logger.err("Could not connect to the ADB server on " + host + ":" + port + ": " + e.getMessage());
+            }
+            lastFailedConnectMs = System.currentTimeMillis();
+            throw e;
+        }
+    }
+}
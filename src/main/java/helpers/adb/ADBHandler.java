@@ -2,15 +2,21 @@ package helpers.adb;
 
 import helpers.Logger;
 import helpers.ThreadManager;
+import helpers.adb.utils.BufferPool;
+import helpers.adb.utils.ProcessInputStream;
+import helpers.adb.utils.RawScreencapDecoder;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static UI.components.utils.Observables.USE_RAW_SCREENCAP;
 import static utils.Constants.OS_WIN;
 import static utils.Constants.PLATFORM_TOOLS;
 import static utils.SystemUtils.getOperatingSystem;
@@ -20,7 +26,13 @@ public class ADBHandler {
     private final AtomicBoolean isADBChecked = new AtomicBoolean(false);
     private volatile boolean isADBInstalled = false;
     private final Logger logger;
+    private final ADBClient adbClient;
+    private final InputChannel inputChannel;
     private Process adbServerProcess;
+    private final Map<String, RawScreencapDecoder> screencapDecoders = new ConcurrentHashMap<>();
+    private final Map<String, Integer> screencapHeaderSizes = new ConcurrentHashMap<>();
+    private final Set<String> pngScreencapDevices = ConcurrentHashMap.newKeySet();
+    private final BufferPool streamBuffers = new BufferPool(64 * 1024, 32);
 
     // ExecutorService to handle concurrent ADB commands
     private final ThreadManager executorService = ThreadManager.getInstance();
@@ -34,6 +46,8 @@ public class ADBHandler {
      */
     public ADBHandler(Logger logger) {
         this.logger = logger;
+        this.adbClient = new ADBClient(logger);
+        this.inputChannel = new InputChannel(adbClient, logger);
         startADBServer();
     }
 
@@ -98,10 +112,22 @@ public class ADBHandler {
         }
     }
 
+    /**
+     * Closes the input shell and the pooled connections of a device. They are opened again when the device is used.
+     *
+     * @param device The device identifier.
+     */
+    public void closeDevice(String device) {
+        inputChannel.closeDevice(device);
+        adbClient.closeDevice(device);
+    }
+
     /**
      * Stops the ADB server if it's running.
      */
     public synchronized void shutdown() {
+        inputChannel.shutdown();
+        adbClient.shutdown();
         if (adbServerProcess != null && adbServerProcess.isAlive()) {
             try {
                 List<String> command = new ArrayList<>();
@@ -140,6 +166,10 @@ public class ADBHandler {
      * @return A BufferedImage representing the screenshot, or null if failed.
      */
     public BufferedImage captureScreenshot(String device) {
+        if (USE_RAW_SCREENCAP.get() && !pngScreencapDevices.contains(device)) {
+            return captureRawScreenshot(device);
+        }
+
         String command = "exec-out screencap -p";
 
         try (InputStream adbOutput = runADBCommandAsStream(command, device)) {
@@ -162,6 +192,77 @@ public class ADBHandler {
         return null;
     }
 
+    /**
+     * Captures a screenshot from the specified device using the raw screencap output.
+     * This skips the PNG encoding on the device and the PNG decoding on our side.
+     * Devices that send a pixel format the decoder does not support are switched to "screencap -p" for good.
+     *
+     * @param device The device identifier.
+     * @return A TYPE_3BYTE_BGR BufferedImage of the screenshot, or null if failed.
+     */
+    public BufferedImage captureRawScreenshot(String device) {
+        Integer headerSize = screencapHeaderSizes.get(device);
+        if (headerSize == null) {
+            headerSize = detectScreencapHeaderSize(device);
+            if (headerSize > 0) {
+                screencapHeaderSizes.put(device, headerSize);
+            } else {
+                // Not cached, so the next capture asks the device again.
+                headerSize = RawScreencapDecoder.HEADER_SIZE;
+            }
+        }
+        RawScreencapDecoder decoder = screencapDecoders.computeIfAbsent(device, k -> new RawScreencapDecoder());
+
+        try (InputStream adbOutput = runADBCommandAsStream("exec-out screencap", device)) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Thread was interrupted before screenshot capture.");
+            }
+
+            return decoder.decode(adbOutput, headerSize);
+        } catch (RawScreencapDecoder.UnsupportedFormatException e) {
+            logger.print(e.getMessage() + " on device " + device + ", switching it to PNG screenshots.");
+            pngScreencapDevices.add(device);
+            return captureScreenshot(device);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Restore interrupt status
+        } catch (IOException e) {
+            logger.err("IO error during raw screenshot capture for device " + device + ": " + e.getMessage());
+        } catch (Exception e) {
+            logger.err("Unexpected error during raw screenshot capture for device " + device + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Hands a screenshot returned by {@link #captureScreenshot(String)} back for reuse, once the caller dropped it.
+     * The next raw capture of the same size is decoded into it, the image must not be referenced anywhere else.
+     *
+     * @param device The device identifier.
+     * @param image  The screenshot that is no longer used.
+     */
+    public void recycleScreenshot(String device, BufferedImage image) {
+        RawScreencapDecoder decoder = screencapDecoders.get(device);
+        if (decoder != null) {
+            decoder.recycle(image);
+        }
+    }
+
+    /**
+     * Android 9 (SDK 28) added a dataspace field to the raw screencap header.
+     *
+     * @param device The device identifier.
+     * @return The raw screencap header size in bytes for the device, or -1 if the SDK version could not be read.
+     */
+    private int detectScreencapHeaderSize(String device) {
+        try {
+            String sdk = runADBCommand("shell getprop ro.build.version.sdk", device, deviceGetter).trim();
+            return Integer.parseInt(sdk) >= 28 ? RawScreencapDecoder.HEADER_SIZE : RawScreencapDecoder.LEGACY_HEADER_SIZE;
+        } catch (IOException | NumberFormatException e) {
+            logger.err("Could not read the SDK version for device " + device + ", assuming a recent Android version.");
+            return -1;
+        }
+    }
+
     /**
      * Retrieves the Path to the ADB executable.
      *
@@ -183,6 +284,7 @@ public class ADBHandler {
 
     /**
      * Executes an ADB command and processes the output immediately.
+     * Input commands ("shell input ...") are written to the device's persistent input shell when the ADB server is reachable.
      *
      * @param command The ADB command to execute.
      * @param device  The device identifier. If "none", the command is not executed.
@@ -193,11 +295,19 @@ public class ADBHandler {
             return;
         }
 
+        List<String> arguments = parseCommand(command);
+        if (isInputCommand(arguments) && adbClient.isServerAvailable()
+                && inputChannel.run(device, String.join(" ", arguments.subList(1, arguments.size())))) {
+            return;
+        }
+
         Future<Void> future = null;
+        // The command's socket or process, closed on timeout because a blocked read ignores the interrupt
+        AtomicReference<Closeable> running = new AtomicReference<>();
         try {
             // Submit the ADB command task
             future = executorService.getADBExecutor(device).submit(() -> {
-                String output = runADBCommand(command, device, executorService.getADBExecutor(device));
+                String output = runADBCommand(command, device, executorService.getADBExecutor(device), running);
                 BufferedReader reader = new BufferedReader(new StringReader(output));
                 String line;
 
@@ -223,10 +333,61 @@ public class ADBHandler {
         } finally {
             if (future != null && !future.isDone()) {
                 future.cancel(true); // Ensure the task is cancelled
+                closeQuietly(running.get());
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // The command is abandoned either way
+            }
+        }
+    }
+
+    /**
+     * Executes a sequence of input commands with pauses in between as one batch on the device's input shell.
+     * Falls back to one command at a time when the ADB server can't be used.
+     *
+     * @param inputCommands The input arguments without the "shell input" prefix, e.g. "tap 100 200".
+     * @param delaysMs      The pause after each command in milliseconds.
+     * @param device        The device identifier.
+     */
+    public void executeInputSequence(List<String> inputCommands, List<Integer> delaysMs, String device) {
+        if ("none".equals(device)) {
+            logger.print("No device specified. Command not executed.");
+            return;
+        }
+
+        List<String> commands = new ArrayList<>(inputCommands.size());
+        for (String inputCommand : inputCommands) {
+            commands.add("input " + inputCommand);
+        }
+        if (adbClient.isServerAvailable() && inputChannel.runSequence(device, commands, delaysMs)) {
+            return;
+        }
+
+        for (int i = 0; i < inputCommands.size(); i++) {
+            executeADBCommand("shell input " + inputCommands.get(i), device);
+            int delay = i < delaysMs.size() && i < inputCommands.size() - 1 ? delaysMs.get(i) : 0;
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // Restore interrupt status
+                    return;
+                }
             }
         }
     }
 
+    private boolean isInputCommand(List<String> arguments) {
+        return arguments.size() > 2 && arguments.get(0).equals("shell") && arguments.get(1).equals("input");
+    }
+
     /**
      * Executes an ADB command and collects the output lines.
      *
@@ -267,17 +428,35 @@ public class ADBHandler {
      * @throws IOException          If an I/O error occurs.
      */
     public String runADBCommand(String command, String device, ExecutorService executor) throws IOException {
+        return runADBCommand(command, device, executor, null);
+    }
+
+    private String runADBCommand(String command, String device, ExecutorService executor, AtomicReference<Closeable> running) throws IOException {
+        List<String> arguments = parseCommand(command);
+        InputStream nativeStream = openNativeStream(arguments, device);
+        if (nativeStream != null) {
+            if (running != null) {
+                running.set(nativeStream);
+            }
+            try (nativeStream) {
+                return new String(nativeStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+
         List<String> commandList = new ArrayList<>();
         commandList.add(getADBPath().toString());
         if (device != null && !device.isEmpty()) {
             commandList.add("-s");
             commandList.add(device);
         }
-        commandList.addAll(parseCommand(command));
+        commandList.addAll(arguments);
 
         ProcessBuilder builder = new ProcessBuilder(commandList);
         builder.redirectErrorStream(true); // Merge stderr with stdout
         Process process = builder.start();
+        if (running != null) {
+            running.set(process::destroyForcibly);
+        }
 
         // Start a separate thread to process the output asynchronously
         StringBuilder output = new StringBuilder();
@@ -321,13 +500,19 @@ public class ADBHandler {
      * @throws IOException If an I/O error occurs.
      */
     public InputStream runADBCommandAsStream(String command, String device) throws IOException {
+        List<String> arguments = parseCommand(command);
+        InputStream nativeStream = openNativeStream(arguments, device);
+        if (nativeStream != null) {
+            return nativeStream;
+        }
+
         List<String> commandList = new ArrayList<>();
         commandList.add(getADBPath().toString());
         if (device != null && !device.isEmpty()) {
             commandList.add("-s");
             commandList.add(device);
         }
-        commandList.addAll(parseCommand(command));
+        commandList.addAll(arguments);
 
         ProcessBuilder processBuilder = new ProcessBuilder(commandList);
         processBuilder.redirectErrorStream(true);
@@ -337,25 +522,30 @@ public class ADBHandler {
         // Handle the error stream asynchronously
         handleErrorStreamAsync(process);
 
-        // Return an InputStream wrapper that ensures proper cleanup
-        InputStream processInputStream = process.getInputStream();
-        return new InputStream() {
-            @Override
-            public int read() throws IOException {
-                return processInputStream.read();
-            }
+        // Return a buffered InputStream that ends the process when closed
+        return new ProcessInputStream(process, streamBuffers);
+    }
 
-            @Override
-            public void close() throws IOException {
-                try {
-                    processInputStream.close();
-                } finally {
-                    if (process.isAlive()) {
-                        process.destroy();
-                    }
-                }
+    /**
+     * Pulls a file from the device over a pooled sync connection, falling back to "exec-out cat" through the adb binary.
+     *
+     * @param remotePath The full path to the file on the device.
+     * @param deviceId   The unique device identifier.
+     * @return The file contents.
+     * @throws IOException If the file could not be read.
+     */
+    public byte[] pullFileFromDevice(String remotePath, String deviceId) throws IOException {
+        if (adbClient.isServerAvailable()) {
+            try {
+                return adbClient.pull(deviceId, remotePath);
+            } catch (IOException e) {
+                logger.err("Sync pull failed for " + remotePath + ", falling back to exec-out cat: " + e.getMessage());
             }
-        };
+        }
+
+        try (InputStream adbOutput = runADBCommandAsStream("exec-out cat " + remotePath, deviceId)) {
+            return adbOutput.readAllBytes();
+        }
     }
 
     /**
@@ -367,6 +557,15 @@ public class ADBHandler {
      * @throws IOException If an error occurs during file push.
      */
     public void pushFileToDevice(String remotePath, byte[] data, String deviceId) throws IOException {
+        if (adbClient.isServerAvailable()) {
+            try {
+                adbClient.push(deviceId, remotePath, data);
+                return;
+            } catch (IOException e) {
+                logger.err("Sync push failed for " + remotePath + ", falling back to adb push: " + e.getMessage());
+            }
+        }
+
         // Create a temporary file to hold the data.
         File tempFile = File.createTempFile("adb_push_", ".tmp");
         try (FileOutputStream fos = new FileOutputStream(tempFile)) {
@@ -415,6 +614,48 @@ public class ADBHandler {
         }
     }
 
+    /**
+     * Runs the command through the ADB server socket when it maps onto a server service,
+     * which avoids starting a new adb process for every tap or screenshot.
+     *
+     * @param arguments The parsed command arguments.
+     * @param device    The device identifier.
+     * @return The output stream of the service, or null if the command should run through the adb binary.
+     * @throws IOException If the server is reachable but refused the command.
+     */
+    private InputStream openNativeStream(List<String> arguments, String device) throws IOException {
+        if (arguments.isEmpty() || !adbClient.isServerAvailable()) {
+            return null;
+        }
+
+        String service = arguments.get(0);
+        String remoteCommand = String.join(" ", arguments.subList(1, arguments.size()));
+        try {
+            switch (service) {
+                case "shell":
+                    return remoteCommand.isEmpty() ? null : adbClient.openShell(device, remoteCommand);
+                case "exec-out":
+                    return remoteCommand.isEmpty() ? null : adbClient.openExec(device, remoteCommand);
+                case "devices":
+                    if (arguments.size() > 1) {
+                        return null;
+                    }
+                    StringBuilder output = new StringBuilder("List of devices attached").append(System.lineSeparator());
+                    for (String line : adbClient.getDevices()) {
+                        output.append(line).append(System.lineSeparator());
+                    }
+                    return new ByteArrayInputStream(output.toString().getBytes(StandardCharsets.UTF_8));
+                default:
+                    return null;
+            }
+        } catch (IOException e) {
+            if (!adbClient.isServerAvailable()) {
+                return null; // The server could not be reached, use the adb binary instead
+            }
+            throw e;
+        }
+    }
+
     /**
      * Handles the error stream of a process asynchronously to prevent blocking.
      *
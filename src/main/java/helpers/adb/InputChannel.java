@@ -0,0 +1,181 @@
+package helpers.adb;
+
+import helpers.Logger;
+import helpers.adb.utils.ADBConnection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * InputChannel keeps one shell open per device and writes input commands to it,
+ * instead of opening a new ADB service for every tap, swipe or keyevent.
+ * The shell runs through the exec service, so there is no pty echoing the commands back.
+ * After each batch the shell echoes a numbered marker, which tells when the device finished the commands
+ * and keeps the output of one batch from being mistaken for the next.
+ * <p>
+ * A sequence of commands with delays is written as one shell line with sleeps in between,
+ * so the delays are kept on the device instead of adding a round trip for every tap.
+ */
+public class InputChannel {
+    private static final int COMMAND_TIMEOUT_MS = 2000;
+    private static final String MARKER = "__input_done_";
+
+    private final ADBClient adbClient;
+    private final Logger logger;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public InputChannel(ADBClient adbClient, Logger logger) {
+        this.adbClient = adbClient;
+        this.logger = logger;
+    }
+
+    /**
+     * Runs a shell command, e.g. "input tap 100 200", and waits for it to finish.
+     *
+     * @param device  The device identifier.
+     * @param command The shell command.
+     * @return false if the command could not be sent, in which case the caller should send it another way.
+     */
+    public boolean run(String device, String command) {
+        return runSequence(device, List.of(command), List.of());
+    }
+
+    /**
+     * Runs shell commands one after another in a single batch and waits for the last one to finish.
+     *
+     * @param device   The device identifier.
+     * @param commands The shell commands.
+     * @param delaysMs The pause after each command in milliseconds, missing entries mean no pause.
+     * @return false if the commands could not be sent, in which case the caller should send them another way.
+     * A batch that was sent but didn't finish, because it timed out or the shell closed, is not sent again.
+     */
+    public boolean runSequence(String device, List<String> commands, List<Integer> delaysMs) {
+        if (commands.isEmpty()) {
+            return true;
+        }
+
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < commands.size(); i++) {
+            if (i > 0) {
+                script.append("; ");
+            }
+            script.append(commands.get(i));
+            int delay = i < delaysMs.size() && i < commands.size() - 1 ? delaysMs.get(i) : 0;
+            if (delay > 0) {
+                script.append(String.format(Locale.ROOT, "; sleep %.3f", delay / 1000.0));
+            }
+        }
+
+        Session session = sessions.computeIfAbsent(device, Session::new);
+        session.lock.lock();
+        try {
+            return session.execute(script.toString(), estimateDuration(delaysMs, commands.size()));
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the shell of a device, for example when it goes offline. The next command opens a new one.
+     */
+    public void closeDevice(String device) {
+        Session session = sessions.remove(device);
+        if (session != null) {
+            session.lock.lock();
+            try {
+                session.close();
+            } finally {
+                session.lock.unlock();
+            }
+        }
+    }
+
+    public void shutdown() {
+        for (String device : new ArrayList<>(sessions.keySet())) {
+            closeDevice(device);
+        }
+    }
+
+    private static int estimateDuration(List<Integer> delaysMs, int commandCount) {
+        long total = 0;
+        for (int i = 0; i < Math.min(delaysMs.size(), commandCount - 1); i++) {
+            total += Math.max(0, delaysMs.get(i));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    private class Session {
+        // A lock instead of synchronized, so a virtual thread waiting on the socket doesn't pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private final String device;
+        private ADBConnection connection;
+        private OutputStream output;
+        private BufferedReader reader;
+        private long nextMarker = 0;
+
+        Session(String device) {
+            this.device = device;
+        }
+
+        boolean execute(String script, int expectedDurationMs) {
+            long marker = nextMarker++;
+            try {
+                if (connection == null || !connection.isOpen()) {
+                    open();
+                }
+                output.write(("{ " + script + "; } 2>&1; echo " + MARKER + marker + "\n").getBytes(StandardCharsets.UTF_8));
+                output.flush();
+            } catch (IOException e) {
+                logger.devLog("Input shell unavailable for " + device + ": " + e.getMessage());
+                close();
+                return false;
+            }
+
+            // The commands were sent, from here on a failure must not make the caller send them again
+            try {
+                connection.setReadTimeout(COMMAND_TIMEOUT_MS + expectedDurationMs);
+                String expected = MARKER + marker;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.equals(expected)) {
+                        return true;
+                    }
+                    logger.devLog("Input shell output on " + device + ": " + line);
+                }
+                // Some of the commands may have run before the shell went away, sending them again could repeat them
+                logger.devLog("Input shell closed by " + device + ", the batch failed");
+            } catch (SocketTimeoutException e) {
+                logger.devLog("Input command timed out on " + device + ", reopening the shell");
+            } catch (IOException e) {
+                logger.devLog("Input shell failed for " + device + ": " + e.getMessage());
+            }
+            close();
+            return true;
+        }
+
+        private void open() throws IOException {
+            connection = adbClient.openExecConnection(device, "sh");
+            output = connection.getOutputStream();
+            reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        void close() {
+            if (connection != null) {
+                connection.close();
+                connection = null;
+                output = null;
+                reader = null;
+            }
+        }
+    }
+}
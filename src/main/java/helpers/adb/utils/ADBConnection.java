@@ -0,0 +1,213 @@
+package helpers.adb.utils;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single socket connection to the local ADB server, speaking the host wire protocol.
+ * Requests are framed as a 4 digit hex length followed by the ASCII payload, and every
+ * request is answered with either "OKAY" or "FAIL" + hex length + message.
+ * Once a connection is switched into sync mode it speaks the binary sync protocol instead
+ * and can be reused for several transfers until it is closed.
+ */
+public class ADBConnection implements Closeable {
+    private static final int SYNC_DATA_MAX = 64 * 1024;
+
+    private final Socket socket;
+    private final DataInputStream input;
+    private final OutputStream output;
+    private final byte[] header = new byte[8];
+
+    public ADBConnection(String host, int port, int connectTimeoutMs) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), SYNC_DATA_MAX));
+        output = new BufferedOutputStream(socket.getOutputStream(), 8 * 1024);
+    }
+
+    public void setReadTimeout(int timeoutMs) throws IOException {
+        socket.setSoTimeout(timeoutMs);
+    }
+
+    public boolean isOpen() {
+        return !socket.isClosed() && socket.isConnected();
+    }
+
+    /**
+     * Sends a host request and waits for the OKAY/FAIL status.
+     *
+     * @param request The request payload, e.g. "host:transport:emulator-5554".
+     * @throws IOException If the server answered FAIL or the connection broke.
+     */
+    public void sendRequest(String request) throws IOException {
+        byte[] payload = request.getBytes(StandardCharsets.UTF_8);
+        output.write(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        output.write(payload);
+        output.flush();
+        readStatus(request);
+    }
+
+    /**
+     * Reads a hex length prefixed string, as returned by requests such as "host:devices".
+     */
+    public String readLengthPrefixedString() throws IOException {
+        int length = readHexLength();
+        byte[] data = new byte[length];
+        input.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the raw stream of a service such as "shell:" or "exec:", which ends when the service exits.
+     */
+    public InputStream getInputStream() {
+        return input;
+    }
+
+    public OutputStream getOutputStream() {
+        return output;
+    }
+
+    /**
+     * Switches this connection into sync mode. The device transport must already be selected.
+     */
+    public void startSync() throws IOException {
+        sendRequest("sync:");
+    }
+
+    /**
+     * Receives a remote file over an open sync connection.
+     *
+     * @param remotePath The full path to the file on the device.
+     * @param target     Stream that receives the file contents.
+     * @throws IOException If the device reports a failure or the connection broke.
+     */
+    public void syncReceive(String remotePath, OutputStream target) throws IOException {
+        writeSyncPacket("RECV", remotePath.getBytes(StandardCharsets.UTF_8));
+
+        byte[] chunk = new byte[SYNC_DATA_MAX];
+        while (true) {
+            String id = readSyncHeader();
+            int length = readLittleEndianInt(4);
+            switch (id) {
+                case "DATA":
+                    if (length > chunk.length) {
+                        chunk = new byte[length];
+                    }
+                    input.readFully(chunk, 0, length);
+                    target.write(chunk, 0, length);
+                    break;
+                case "DONE":
+                    return;
+                case "FAIL":
+                    throw new IOException("Sync RECV failed for " + remotePath + ": " + readString(length));
+                default:
+                    throw new IOException("Unexpected sync response " + id + " while receiving " + remotePath);
+            }
+        }
+    }
+
+    /**
+     * Sends file data to the device over an open sync connection, overwriting the remote file.
+     *
+     * @param remotePath The full path where the file should be written.
+     * @param data       The file data.
+     * @param mode       The unix file mode, e.g. 0644.
+     * @throws IOException If the device reports a failure or the connection broke.
+     */
+    public void syncSend(String remotePath, byte[] data, int mode) throws IOException {
+        writeSyncPacket("SEND", (remotePath + "," + mode).getBytes(StandardCharsets.UTF_8));
+
+        for (int offset = 0; offset < data.length; offset += SYNC_DATA_MAX) {
+            int length = Math.min(SYNC_DATA_MAX, data.length - offset);
+            writeSyncHeader("DATA", length);
+            output.write(data, offset, length);
+        }
+        writeSyncHeader("DONE", (int) (System.currentTimeMillis() / 1000));
+        output.flush();
+
+        String id = readSyncHeader();
+        int length = readLittleEndianInt(4);
+        if ("FAIL".equals(id)) {
+            throw new IOException("Sync SEND failed for " + remotePath + ": " + readString(length));
+        }
+        if (!"OKAY".equals(id)) {
+            throw new IOException("Unexpected sync response " + id + " while sending " + remotePath);
+        }
+    }
+
+    /**
+     * Ends the sync session. The server closes the connection afterward.
+     */
+    public void syncQuit() throws IOException {
+        writeSyncHeader("QUIT", 0);
+        output.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do if closing the socket fails
+        }
+    }
+
+    private void readStatus(String request) throws IOException {
+        input.readFully(header, 0, 4);
+        String status = new String(header, 0, 4, StandardCharsets.US_ASCII);
+        if ("OKAY".equals(status)) {
+            return;
+        }
+        if ("FAIL".equals(status)) {
+            throw new IOException("ADB server refused '" + request + "': " + readLengthPrefixedString());
+        }
+        throw new IOException("Unexpected ADB server status '" + status + "' for '" + request + "'");
+    }
+
+    private int readHexLength() throws IOException {
+        input.readFully(header, 0, 4);
+        try {
+            return Integer.parseInt(new String(header, 0, 4, StandardCharsets.US_ASCII), 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid length prefix from ADB server", e);
+        }
+    }
+
+    private void writeSyncPacket(String id, byte[] payload) throws IOException {
+        writeSyncHeader(id, payload.length);
+        output.write(payload);
+        output.flush();
+    }
+
+    private void writeSyncHeader(String id, int value) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(idBytes, 0, header, 0, 4);
+        header[4] = (byte) value;
+        header[5] = (byte) (value >> 8);
+        header[6] = (byte) (value >> 16);
+        header[7] = (byte) (value >> 24);
+        output.write(header, 0, 8);
+    }
+
+    private String readSyncHeader() throws IOException {
+        input.readFully(header, 0, 8);
+        return new String(header, 0, 4, StandardCharsets.US_ASCII);
+    }
+
+    private int readLittleEndianInt(int offset) {
+        return (header[offset] & 0xFF)
+                | (header[offset + 1] & 0xFF) << 8
+                | (header[offset + 2] & 0xFF) << 16
+                | (header[offset + 3] & 0xFF) << 24;
+    }
+
+    private String readString(int length) throws IOException {
+        byte[] data = new byte[length];
+        input.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,133 @@
+package helpers.adb.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffered stream over the standard output of an adb process.
+ * Bulk reads larger than the buffer go straight to the process pipe, smaller reads are served from a pooled buffer,
+ * so consumers such as ImageIO or file pulls don't end up making one call per byte.
+ * Closing the stream returns the buffer to the pool and ends the process.
+ */
+public class ProcessInputStream extends InputStream {
+    private static final long FORCE_DESTROY_AFTER_SECONDS = 2;
+
+    private final Process process;
+    private final InputStream source;
+    private final BufferPool bufferPool;
+    private byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean closed = false;
+
+    public ProcessInputStream(Process process, BufferPool bufferPool) {
+        this.process = process;
+        this.source = process.getInputStream();
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool.acquire();
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (position >= limit && fill() <= 0) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        ensureOpen();
+        if (length == 0) {
+            return 0;
+        }
+
+        int buffered = limit - position;
+        if (buffered > 0) {
+            int count = Math.min(buffered, length);
+            System.arraycopy(buffer, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        // Large reads skip the intermediate copy
+        if (length >= buffer.length) {
+            return source.read(target, offset, length);
+        }
+
+        if (fill() <= 0) {
+            return -1;
+        }
+        int count = Math.min(limit, length);
+        System.arraycopy(buffer, 0, target, offset, count);
+        position = count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        ensureOpen();
+        if (n <= 0) {
+            return 0;
+        }
+
+        int buffered = limit - position;
+        if (buffered > 0) {
+            int count = (int) Math.min(buffered, n);
+            position += count;
+            return count;
+        }
+        return source.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return (limit - position) + source.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            source.close();
+        } finally {
+            bufferPool.release(buffer);
+            buffer = null;
+            destroyProcess();
+        }
+    }
+
+    private int fill() throws IOException {
+        position = 0;
+        limit = Math.max(source.read(buffer, 0, buffer.length), 0);
+        return limit;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void destroyProcess() {
+        if (!process.isAlive()) {
+            return;
+        }
+
+        process.destroy();
+        // Don't block the caller waiting for the exit, force it in the background if adb ignores the request
+        process.onExit()
+                .orTimeout(FORCE_DESTROY_AFTER_SECONDS, TimeUnit.SECONDS)
+                .exceptionally(e -> {
+                    process.destroyForcibly();
+                    return process;
+                });
+    }
+}
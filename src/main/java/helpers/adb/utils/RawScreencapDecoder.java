@@ -0,0 +1,157 @@
+package helpers.adb.utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decodes the raw output of "screencap" (without -p) straight into a TYPE_3BYTE_BGR image.
+ * The raw output is a little endian header (width, height, pixel format and, from Android 9, a dataspace)
+ * followed by the uncompressed pixels, so there is no PNG encoding on the device and no PNG decoding here.
+ * TYPE_3BYTE_BGR matches the Mat layout used everywhere else, so the frame can be copied into a Mat
+ * with a single bulk put instead of being redrawn first.
+ * A decoder keeps its read buffer between frames, so use one decoder per device.
+ * An image the caller didn't keep can be handed back with {@link #recycle(BufferedImage)},
+ * the next frame of the same size is then decoded into it instead of a new image.
+ * Concurrent decodes on the same decoder take turns on a ReentrantLock rather than a monitor,
+ * so a virtual thread blocked on the socket read does not pin its carrier thread.
+ */
+public class RawScreencapDecoder {
+    public static final int LEGACY_HEADER_SIZE = 12;
+    public static final int HEADER_SIZE = 16;
+
+    private static final int FORMAT_RGBA_8888 = 1;
+    private static final int FORMAT_RGBX_8888 = 2;
+    private static final int FORMAT_RGB_888 = 3;
+    private static final int FORMAT_BGRA_8888 = 5;
+    private static final int CHUNK_PIXELS = 16 * 1024;
+
+    private final byte[] header = new byte[HEADER_SIZE];
+    private final byte[] chunk = new byte[CHUNK_PIXELS * 4];
+    private final ReentrantLock lock = new ReentrantLock();
+    private BufferedImage spare;
+
+    /**
+     * Decodes a frame into the recycled image if it has the frame's size, or into a newly allocated image.
+     *
+     * @param input      The screencap output stream.
+     * @param headerSize The header size for the device, {@link #HEADER_SIZE} or {@link #LEGACY_HEADER_SIZE}.
+     * @return The decoded frame.
+     * @throws IOException If the stream ended early or the header is invalid.
+     * @throws UnsupportedFormatException If the device uses a pixel format this decoder cannot read.
+     */
+    public BufferedImage decode(InputStream input, int headerSize) throws IOException {
+        lock.lock();
+        try {
+            readHeader(input, headerSize);
+            int width = readInt(0);
+            int height = readInt(4);
+            BufferedImage image = spare != null && spare.getWidth() == width && spare.getHeight() == height
+                    ? spare
+                    : new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            spare = null;
+            readPixels(input, image, readInt(8));
+            return image;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands back a decoded image nobody holds on to anymore, so the next frame can reuse its pixels.
+     * Only pass images that are not referenced anywhere else, the next decode overwrites them.
+     *
+     * @param image The image to reuse, ignored unless it is an unshared TYPE_3BYTE_BGR image.
+     */
+    public void recycle(BufferedImage image) {
+        if (image == null || image.getType() != BufferedImage.TYPE_3BYTE_BGR || image.getRaster().getParent() != null) {
+            return;
+        }
+        lock.lock();
+        try {
+            spare = image;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void readHeader(InputStream input, int headerSize) throws IOException {
+        readFully(input, header, headerSize);
+        int width = readInt(0);
+        int height = readInt(4);
+        if (width <= 0 || height <= 0 || width > 8192 || height > 8192) {
+            throw new IOException("Invalid screencap header, size " + width + "x" + height);
+        }
+    }
+
+    private void readPixels(InputStream input, BufferedImage image, int format) throws IOException {
+        int bytesPerPixel;
+        switch (format) {
+            case FORMAT_RGBA_8888:
+            case FORMAT_RGBX_8888:
+            case FORMAT_BGRA_8888:
+                bytesPerPixel = 4;
+                break;
+            case FORMAT_RGB_888:
+                bytesPerPixel = 3;
+                break;
+            default:
+                throw new UnsupportedFormatException(format);
+        }
+        boolean sourceIsBgr = format == FORMAT_BGRA_8888;
+
+        byte[] target = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int totalPixels = image.getWidth() * image.getHeight();
+        int out = 0;
+
+        for (int done = 0; done < totalPixels; ) {
+            int pixels = Math.min(CHUNK_PIXELS, totalPixels - done);
+            readFully(input, chunk, pixels * bytesPerPixel);
+
+            int in = 0;
+            if (sourceIsBgr) {
+                for (int i = 0; i < pixels; i++, in += bytesPerPixel) {
+                    target[out++] = chunk[in];
+                    target[out++] = chunk[in + 1];
+                    target[out++] = chunk[in + 2];
+                }
+            } else {
+                for (int i = 0; i < pixels; i++, in += bytesPerPixel) {
+                    target[out++] = chunk[in + 2];
+                    target[out++] = chunk[in + 1];
+                    target[out++] = chunk[in];
+                }
+            }
+            done += pixels;
+        }
+    }
+
+    private int readInt(int offset) {
+        return (header[offset] & 0xFF)
+                | (header[offset + 1] & 0xFF) << 8
+                | (header[offset + 2] & 0xFF) << 16
+                | (header[offset + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * Thrown when the device sends a pixel format the decoder does not support.
+     * The device will keep sending that format, so the caller should switch to "screencap -p" for it.
+     */
+    public static class UnsupportedFormatException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedFormatException(int format) {
+            super("Unsupported screencap pixel format " + format);
+        }
+    }
+
+    private static void readFully(InputStream input, byte[] buffer, int length) throws IOException {
+        int read = input.readNBytes(buffer, 0, length);
+        if (read < length) {
+            throw new EOFException("Screencap stream ended after " + read + " of " + length + " bytes.");
+        }
+    }
+}
@@ -5,9 +5,7 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import helpers.adb.ADBHandler;
 import helpers.cacheHandler.utils.RSCacheData;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.concurrent.TimeUnit;
 
 import static helpers.cacheHandler.utils.RunescapeCache.getRsCacheLocation;
@@ -162,8 +160,7 @@ public class RSCacheHandler {
     }
 
     /**
-     * Uses ADB to pull a file from the device by streaming its contents.
-     * Executes the command "exec-out cat <remotePath>".
+     * Uses ADB to pull a file from the device.
      *
      * @param deviceId   the unique device identifier
      * @param remotePath the full path to the file on the device
@@ -171,16 +168,6 @@ public class RSCacheHandler {
      * @throws IOException if an I/O error occurs during retrieval
      */
     private byte[] pullFileFromDevice(String deviceId, String remotePath) throws IOException {
-        String command = "exec-out cat " + remotePath;
-        try (InputStream is = adbHandler.runADBCommandAsStream(command, deviceId);
-             ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-
-            byte[] data = new byte[4096];
-            int nRead;
-            while ((nRead = is.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
-            }
-            return buffer.toByteArray();
-        }
+        return adbHandler.pullFileFromDevice(remotePath, deviceId);
     }
 }
\ No newline at end of file
@@ -2,9 +2,7 @@ package helpers.cacheHandler;
 
 import helpers.adb.ADBHandler;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
 import static helpers.cacheHandler.utils.RunescapeCache.getRsCacheLocation;
@@ -75,16 +73,8 @@ public class RSPreferenceUpdater {
      * @return a byte array containing the file data, or null if an error occurred
      */
     private byte[] pullFileFromDevice(String deviceId, String remotePath) {
-        String command = "exec-out cat " + remotePath;
-        try (InputStream is = adbHandler.runADBCommandAsStream(command, deviceId);
-             ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-
-            byte[] data = new byte[4096];
-            int nRead;
-            while ((nRead = is.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
-            }
-            return buffer.toByteArray();
+        try {
+            return adbHandler.pullFileFromDevice(remotePath, deviceId);
         } catch (IOException e) {
             System.err.println("Failed to pull file " + remotePath + " for device " + deviceId + ": " + e.getMessage());
             return null;
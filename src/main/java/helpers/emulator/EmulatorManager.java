@@ -3,6 +3,7 @@ package helpers.emulator;
 import helpers.Logger;
 import helpers.adb.ADBHandler;
 import helpers.cacheHandler.RSPreferenceUpdater;
+import helpers.utils.FrameHash;
 import helpers.utils.GameviewCache;
 import helpers.utils.IsScriptRunning;
 import org.jetbrains.annotations.NotNull;
@@ -19,6 +20,11 @@ import static UI.components.utils.Observables.*;
 import static utils.Constants.IS_WINDOWS_USER;
 
 public class EmulatorManager {
+    // Captures never run closer together than this, even if the device is slower than the refresh rate
+    private static final long MIN_CAPTURE_GAP_MS = 10;
+    // Slow devices get an interval of their average capture latency times this factor
+    private static final double LATENCY_HEADROOM = 1.25;
+
     private final Logger logger;
     private final ADBHandler adbHandler;
     private final EmulatorHelper emulatorHelper;
@@ -26,7 +32,7 @@ public class EmulatorManager {
     private final IsScriptRunning isScriptRunning;
     private final DirectCapture directCapture;
 
-    private final Map<String, ScheduledFuture<?>> captureTasks = new ConcurrentHashMap<>();
+    private final Map<String, CaptureLoop> captureTasks = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler;
     private final ExecutorService executorService;
     private final RSPreferenceUpdater rsPreferenceUpdater;
@@ -49,19 +55,8 @@ public class EmulatorManager {
     }
 
     public void updateRefreshRateForAll(int newRateMillis) {
-        // Update the global refresh rate
+        // Update the global refresh rate, running capture loops pick it up on their next capture
         GAME_REFRESHRATE.set(newRateMillis);
-
-        // Stop all existing scheduled tasks and restart them
-        for (String device : captureTasks.keySet()) {
-            ScheduledFuture<?> existingTask = captureTasks.remove(device);
-            if (existingTask != null) {
-                existingTask.cancel(false); // Cancel the task but let running tasks finish
-            }
-
-            // Restart the capture task for this device
-            startCapture(device);
-        }
     }
 
     public void shutdown() {
@@ -76,14 +71,18 @@ public class EmulatorManager {
         }
 
         rsPreferenceUpdater.updatePreferencesFile(emulator); // Update the in-game settings for the device
-        captureTasks.computeIfAbsent(selectedDevice, k -> scheduler.scheduleAtFixedRate(() -> executorService.submit(() -> captureAndStoreScreenshot(selectedDevice)), 0, GAME_REFRESHRATE.get(), TimeUnit.MILLISECONDS));
+        captureTasks.computeIfAbsent(selectedDevice, k -> {
+            CaptureLoop loop = new CaptureLoop(selectedDevice);
+            loop.scheduleNext(0);
+            return loop;
+        });
     }
 
     private void stopCapture(String emulator) {
         logger.print("Stopping capture on: " + emulator);
-        ScheduledFuture<?> captureTask = captureTasks.remove(emulator);
-        if (captureTask != null) {
-            captureTask.cancel(false);
+        CaptureLoop captureLoop = captureTasks.remove(emulator);
+        if (captureLoop != null) {
+            captureLoop.stop();
         }
         gameviewCache.cleanCache(emulator);
     }
@@ -101,10 +100,10 @@ public class EmulatorManager {
         return gameviewCache.getBuffer(device);
     }
 
-    private void captureAndStoreScreenshot(String device) {
+    private BufferedImage captureScreenshot(String device) {
         if (device == null) {
-            logger.print("Device is null in captureAndStoreScreenshot.");
-            return;
+            logger.print("Device is null in captureScreenshot.");
+            return null;
         }
 
         BufferedImage screenshot;
@@ -115,10 +114,10 @@ public class EmulatorManager {
         }
         if (screenshot == null || isFallbackImage(screenshot)) {
             handleScreenshotFailure(device);
-            return;
+            return null;
         }
 
-        updateLatestScreenshot(device, screenshot);
+        return screenshot;
     }
 
     private boolean isFallbackImage(BufferedImage image) {
@@ -162,6 +161,81 @@ public class EmulatorManager {
         }
     }
 
+    /**
+     * Capture loop for a single device. The next capture is only scheduled once the current one finished,
+     * so a slow device can never pile up captures. The interval stretches to the measured capture latency,
+     * and frames identical to the previous one are not stored again.
+     */
+    private class CaptureLoop {
+        private final String device;
+        private volatile boolean running = true;
+        private volatile Future<?> pending;
+        private double averageLatencyMs = -1;
+        private long lastFrameHash;
+        private boolean hasStoredFrame = false;
+
+        CaptureLoop(String device) {
+            this.device = device;
+        }
+
+        void stop() {
+            running = false;
+            Future<?> task = pending;
+            if (task != null) {
+                task.cancel(false); // Let a running capture finish
+            }
+        }
+
+        private void scheduleNext(long delayMs) {
+            if (!running) {
+                return;
+            }
+
+            try {
+                pending = scheduler.schedule(() -> {
+                    if (running) {
+                        pending = executorService.submit(this::captureOnce);
+                    }
+                }, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                running = false; // The executors are shutting down
+            }
+        }
+
+        private void captureOnce() {
+            long start = System.nanoTime();
+            try {
+                BufferedImage screenshot = captureScreenshot(device);
+                if (screenshot != null && running) {
+                    storeIfChanged(screenshot);
+                }
+            } catch (Exception e) {
+                logger.devLog("Capture failed for device " + device + ": " + e.getMessage());
+            } finally {
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                averageLatencyMs = averageLatencyMs < 0 ? elapsedMs : averageLatencyMs * 0.8 + elapsedMs * 0.2;
+
+                long intervalMs = Math.max(GAME_REFRESHRATE.get(), Math.round(averageLatencyMs * LATENCY_HEADROOM));
+                scheduleNext(Math.max(MIN_CAPTURE_GAP_MS, intervalMs - elapsedMs));
+            }
+        }
+
+        private void storeIfChanged(BufferedImage screenshot) {
+            long frameHash = FrameHash.hash(screenshot);
+            if (hasStoredFrame && frameHash == lastFrameHash) {
+                // Nothing changed on screen, keep the cached frame. The new image wasn't stored, so adb can decode into it again
+                if (!USE_DIRECT_CAPTURE.get() && !USE_PW_CAPTURE.get()) {
+                    adbHandler.recycleScreenshot(device, screenshot);
+                }
+                return;
+            }
+
+            updateLatestScreenshot(device, screenshot);
+            lastFrameHash = frameHash;
+            hasStoredFrame = true;
+        }
+    }
+
     // Custom ThreadFactory for naming threads
     private static class CaptureThreadFactory implements ThreadFactory {
         private final String baseName;
@@ -0,0 +1,565 @@
+package helpers.grapher;
+
+import helpers.grapher.utils.GraphEdge;
+import helpers.grapher.utils.GraphNode;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * An immutable snapshot of a {@link Graph} in compressed sparse row form, used for pathfinding.
+ * Nodes are numbered 0..n-1, the neighbours of node i are {@code targets[offsets[i]..offsets[i + 1])}
+ * and every edge carries its precomputed length, so a search touches nothing but primitive data.
+ * Searches run A* with a straight line heuristic and reuse per thread scratch arrays that are reset by a generation stamp
+ * instead of being cleared for every query.
+ * <p>
+ * All data lives in one little endian buffer laid out exactly like the binary graph file written by {@link GraphFile}:
+ * <pre>
+ * header   magic, version, nodeCount, edgeCount, gridX, gridY, cellSize, gridColumns, gridRows, reserved
+ * int[n]   x, y and z of every node
+ * int[n+1] offsets
+ * int[e]   targets
+ * float[e] costs
+ * int[c+1] cell starts, node i lies in cell k when cellStarts[k] &lt;= i &lt; cellStarts[k + 1]
+ * int[n+1] id starts, the id of node i is UTF-8 bytes idStarts[i]..idStarts[i + 1] of the id section
+ * byte[]   ids
+ * </pre>
+ * Nodes are numbered in row major cell order, so the nodes of a grid cell are a contiguous range of indices.
+ * A graph built from a {@link Graph} uses a heap buffer, a graph loaded from a file uses the mapped file directly.
+ * A loaded graph answers {@link #indexOf} and {@link #findPath} from the stored ids as well; the id lookup is only built
+ * the first time {@link #indexOf} is called, searches by index never need it.
+ */
+public class CompactGraph {
+    static final int MAGIC = 0x4F535247; // "OSRG"
+    static final int VERSION = 2;
+    static final int HEADER_INTS = 10;
+    private static final int MIN_CELL_SIZE = 32;
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int gridX;
+    private final int gridY;
+    private final int cellSize;
+    private final int gridColumns;
+    private final int gridRows;
+    private final IntBuffer x;
+    private final IntBuffer y;
+    private final IntBuffer z;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer costs;
+    private final IntBuffer cellStarts;
+    private final IntBuffer idStarts;
+    private final int idsPosition;
+    private final ThreadLocal<SearchState> searchState;
+
+    // Only set for graphs built from a Graph
+    private final GraphNode[] nodes;
+    // Built on first use for graphs loaded from a file
+    private volatile Map<String, Integer> indexById;
+
+    /**
+     * Reads a graph from a buffer in the binary graph layout.
+     *
+     * @param buffer The buffer, positioned at the header.
+     * @throws IllegalArgumentException if the buffer does not hold a graph of a supported version.
+     */
+    public CompactGraph(ByteBuffer buffer) {
+        this(buffer, null, null);
+    }
+
+    private CompactGraph(ByteBuffer buffer, GraphNode[] nodes, Map<String, Integer> indexById) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer header = this.buffer.asIntBuffer();
+        if (header.limit() < HEADER_INTS || header.get(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a graph file.");
+        }
+        if (header.get(1) != VERSION) {
+            throw new IllegalArgumentException("Unsupported graph file version: " + header.get(1));
+        }
+        this.nodeCount = header.get(2);
+        this.edgeCount = header.get(3);
+        this.gridX = header.get(4);
+        this.gridY = header.get(5);
+        this.cellSize = header.get(6);
+        this.gridColumns = header.get(7);
+        this.gridRows = header.get(8);
+
+        int position = HEADER_INTS;
+        this.x = section(position, nodeCount);
+        this.y = section(position += nodeCount, nodeCount);
+        this.z = section(position += nodeCount, nodeCount);
+        this.offsets = section(position += nodeCount, nodeCount + 1);
+        this.targets = section(position += nodeCount + 1, edgeCount);
+        this.costs = this.buffer.duplicate().position((position += edgeCount) * 4).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().limit(edgeCount);
+        this.cellStarts = section(position += edgeCount, gridColumns * gridRows + 1);
+        this.idStarts = section(position += gridColumns * gridRows + 1, nodeCount + 1);
+        this.idsPosition = (position + nodeCount + 1) * 4;
+        if (idsPosition + idStarts.get(nodeCount) > this.buffer.limit()) {
+            throw new IllegalArgumentException("Graph file is truncated.");
+        }
+
+        this.nodes = nodes;
+        this.indexById = indexById;
+        this.searchState = ThreadLocal.withInitial(() -> new SearchState(nodeCount));
+    }
+
+    private IntBuffer section(int intOffset, int length) {
+        return buffer.duplicate().position(intOffset * 4).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().limit(length);
+    }
+
+    /**
+     * Builds the compact form of a graph.
+     *
+     * @param adjacencyList Every node of the graph with the edges it is part of.
+     * @return The compact graph, which can map its indices back to the graph's nodes.
+     */
+    static CompactGraph build(Map<GraphNode, Set<GraphEdge>> adjacencyList) {
+        GraphNode[] unordered = adjacencyList.keySet().toArray(new GraphNode[0]);
+        int n = unordered.length;
+
+        // Size the grid to the nodes' bounds, growing the cells until there are at most about two cells per node
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (GraphNode node : unordered) {
+            minX = Math.min(minX, node.getNodeX());
+            minY = Math.min(minY, node.getNodeY());
+            maxX = Math.max(maxX, node.getNodeX());
+            maxY = Math.max(maxY, node.getNodeY());
+        }
+        if (n == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        int cellSize = MIN_CELL_SIZE;
+        while ((long) ((maxX - minX) / cellSize + 1) * ((maxY - minY) / cellSize + 1) > Math.max(1024, 2L * n)) {
+            cellSize *= 2;
+        }
+        int columns = (maxX - minX) / cellSize + 1;
+        int rows = (maxY - minY) / cellSize + 1;
+
+        // Number the nodes by cell with a counting sort
+        int[] cellStarts = new int[columns * rows + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = ((unordered[i].getNodeY() - minY) / cellSize) * columns + (unordered[i].getNodeX() - minX) / cellSize;
+            cellStarts[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+        int[] fill = Arrays.copyOf(cellStarts, cellStarts.length - 1);
+        GraphNode[] nodes = new GraphNode[n];
+        Map<String, Integer> indexById = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            int index = fill[cellOf[i]]++;
+            nodes[index] = unordered[i];
+            indexById.put(unordered[i].getNodeId(), index);
+        }
+        byte[][] ids = new byte[n][];
+        int idBytes = 0;
+        for (int i = 0; i < n; i++) {
+            ids[i] = nodes[i].getNodeId().getBytes(StandardCharsets.UTF_8);
+            idBytes += ids[i].length;
+        }
+
+        // Edges are stored in both endpoints' sets, the neighbour is whichever end is not the node itself
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[16];
+        int edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = edgeCount;
+            Set<GraphEdge> edges = adjacencyList.get(nodes[i]);
+            if (edges == null) {
+                continue;
+            }
+            for (GraphEdge edge : edges) {
+                GraphNode neighbour = edge.getStartNode().equals(nodes[i]) ? edge.getEndNode() : edge.getStartNode();
+                Integer index = indexById.get(neighbour.getNodeId());
+                if (index == null) {
+                    continue;
+                }
+                if (edgeCount == targets.length) {
+                    targets = Arrays.copyOf(targets, edgeCount * 2);
+                }
+                targets[edgeCount++] = index;
+            }
+        }
+        offsets[n] = edgeCount;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (HEADER_INTS + 5 * n + 2 + 2 * edgeCount + cellStarts.length) + idBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(edgeCount)
+                .putInt(minX).putInt(minY).putInt(cellSize).putInt(columns).putInt(rows).putInt(0);
+        for (GraphNode node : nodes) {
+            buffer.putInt(node.getNodeX());
+        }
+        for (GraphNode node : nodes) {
+            buffer.putInt(node.getNodeY());
+        }
+        for (GraphNode node : nodes) {
+            buffer.putInt(node.getNodeZ());
+        }
+        for (int offset : offsets) {
+            buffer.putInt(offset);
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            buffer.putInt(targets[e]);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                buffer.putFloat((float) nodes[i].distance(nodes[targets[e]]));
+            }
+        }
+        for (int start : cellStarts) {
+            buffer.putInt(start);
+        }
+        int idStart = 0;
+        for (byte[] id : ids) {
+            buffer.putInt(idStart);
+            idStart += id.length;
+        }
+        buffer.putInt(idStart);
+        for (byte[] id : ids) {
+            buffer.put(id);
+        }
+        return new CompactGraph(buffer.flip(), nodes, indexById);
+    }
+
+    /**
+     * @return A read only view of the graph in the binary graph layout.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getNodeX(int index) {
+        return x.get(index);
+    }
+
+    public int getNodeY(int index) {
+        return y.get(index);
+    }
+
+    public int getNodeZ(int index) {
+        return z.get(index);
+    }
+
+    /**
+     * @return true if the node at the index has at least one neighbour.
+     */
+    public boolean hasEdges(int index) {
+        return offsets.get(index + 1) > offsets.get(index);
+    }
+
+    /**
+     * @return The id of the node at the index.
+     */
+    public String getNodeId(int index) {
+        int from = idStarts.get(index);
+        byte[] id = new byte[idStarts.get(index + 1) - from];
+        buffer.duplicate().position(idsPosition + from).get(id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param nodeId The id of the node.
+     * @return The index of the node, or -1 if it is not part of the graph.
+     */
+    public int indexOf(String nodeId) {
+        Map<String, Integer> index = indexById;
+        if (index == null) {
+            synchronized (this) {
+                if (indexById == null) {
+                    Map<String, Integer> ids = new HashMap<>(nodeCount * 2);
+                    for (int i = 0; i < nodeCount; i++) {
+                        ids.put(getNodeId(i), i);
+                    }
+                    indexById = ids;
+                }
+                index = indexById;
+            }
+        }
+        Integer found = index.get(nodeId);
+        return found == null ? -1 : found;
+    }
+
+    /**
+     * Finds the node closest to a point on the map, ignoring the plane.
+     *
+     * @param px The x coordinate.
+     * @param py The y coordinate.
+     * @return The index of the nearest node, or -1 if the graph is empty.
+     */
+    public int findNearestNode(int px, int py) {
+        if (nodeCount == 0) {
+            return -1;
+        }
+
+        // Search rings of cells around the cell of the point. Every cell outside ring r is at least r cells away,
+        // also for a point outside the grid as clamping it into the grid only brings it closer.
+        int column = clamp((px - gridX) / cellSize, gridColumns);
+        int row = clamp((py - gridY) / cellSize, gridRows);
+        int maxRing = Math.max(Math.max(column, gridColumns - 1 - column), Math.max(row, gridRows - 1 - row));
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= gridRows) {
+                    continue;
+                }
+                boolean edgeRow = r == row - ring || r == row + ring;
+                for (int c = column - ring; c <= column + ring; c += edgeRow ? 1 : 2 * ring) {
+                    if (c < 0 || c >= gridColumns) {
+                        continue;
+                    }
+                    int cell = r * gridColumns + c;
+                    for (int i = cellStarts.get(cell); i < cellStarts.get(cell + 1); i++) {
+                        long dx = x.get(i) - px;
+                        long dy = y.get(i) - py;
+                        long distance = dx * dx + dy * dy;
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = i;
+                        }
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+            long reach = (long) ring * cellSize;
+            if (best >= 0 && bestDistance <= reach * reach) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Picks the node to start a path from: the node closest to the given one within 50 tiles that has edges,
+     * or the given node itself if none of them do.
+     *
+     * @param index The index of the node nearest to the player.
+     * @return The index of the start node.
+     */
+    public int findBestStartNode(int index) {
+        int searchRadius = 50;
+        int nodeX = x.get(index);
+        int nodeY = y.get(index);
+        int nodeZ = z.get(index);
+        int fromColumn = clamp((nodeX - searchRadius - gridX) / cellSize, gridColumns);
+        int toColumn = clamp((nodeX + searchRadius - gridX) / cellSize, gridColumns);
+        int fromRow = clamp((nodeY - searchRadius - gridY) / cellSize, gridRows);
+        int toRow = clamp((nodeY + searchRadius - gridY) / cellSize, gridRows);
+
+        int best = index;
+        long bestDistance = Long.MAX_VALUE;
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int i = cellStarts.get(r * gridColumns + fromColumn); i < cellStarts.get(r * gridColumns + toColumn + 1); i++) {
+                long dx = x.get(i) - nodeX;
+                long dy = y.get(i) - nodeY;
+                long dz = z.get(i) - nodeZ;
+                long distance = dx * dx + dy * dy + dz * dz;
+                if (Math.abs(dx) <= searchRadius && Math.abs(dy) <= searchRadius && distance < bestDistance && hasEdges(i)) {
+                    bestDistance = distance;
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    /**
+     * Finds the shortest path between two nodes. A graph built from a {@link Graph} returns that graph's nodes,
+     * a graph loaded from a file returns new nodes with the stored ids and coordinates.
+     *
+     * @param start The index of the start node.
+     * @param goal  The index of the goal node.
+     * @return The nodes of the path from start to goal, or an empty array if the goal can't be reached.
+     */
+    public GraphNode[] findPath(int start, int goal) {
+        int[] indices = findPathIndices(start, goal);
+        GraphNode[] path = new GraphNode[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            int node = indices[i];
+            path[i] = nodes != null ? nodes[node] : new GraphNode(getNodeId(node), x.get(node), y.get(node), z.get(node));
+        }
+        return path;
+    }
+
+    /**
+     * Finds the shortest path between two nodes.
+     *
+     * @param start The index of the start node.
+     * @param goal  The index of the goal node.
+     * @return The node indices of the path from start to goal, or an empty array if the goal can't be reached.
+     */
+    public int[] findPathIndices(int start, int goal) {
+        SearchState state = searchState.get();
+        state.begin();
+        state.open(start, 0, heuristic(start, goal), -1);
+
+        boolean found = false;
+        while (!state.isEmpty()) {
+            int current = state.poll();
+            if (current < 0) {
+                continue; // Stale heap entry, the node was reached cheaper since it was pushed
+            }
+            if (current == goal) {
+                found = true;
+                break;
+            }
+
+            double currentCost = state.cost[current];
+            int end = offsets.get(current + 1);
+            for (int e = offsets.get(current); e < end; e++) {
+                int neighbour = targets.get(e);
+                double newCost = currentCost + costs.get(e);
+                if (newCost < state.costOf(neighbour)) {
+                    state.open(neighbour, newCost, newCost + heuristic(neighbour, goal), current);
+                }
+            }
+        }
+
+        if (!found) {
+            return new int[0];
+        }
+
+        int length = 0;
+        for (int node = goal; node >= 0; node = state.parent[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = goal; node >= 0; node = state.parent[node]) {
+            path[--length] = node;
+        }
+        return path;
+    }
+
+    private double heuristic(int from, int goal) {
+        // Edge costs are rounded to float, scale the estimate down a little so it never overshoots them
+        double dx = x.get(from) - x.get(goal);
+        double dy = y.get(from) - y.get(goal);
+        double dz = z.get(from) - z.get(goal);
+        return Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.9999;
+    }
+
+    /**
+     * Per thread scratch space for a search. A node's cost and parent are only valid when its stamp matches the current
+     * generation, so starting a new search is a single increment.
+     */
+    private static class SearchState {
+        private final int[] stamp;
+        private final double[] cost;
+        private final int[] parent;
+        private int generation;
+
+        // Binary min heap of (node, priority, cost at push)
+        private int[] heapNodes = new int[64];
+        private double[] heapPriorities = new double[64];
+        private double[] heapCosts = new double[64];
+        private int heapSize;
+
+        SearchState(int nodeCount) {
+            this.stamp = new int[nodeCount];
+            this.cost = new double[nodeCount];
+            this.parent = new int[nodeCount];
+        }
+
+        void begin() {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+            heapSize = 0;
+        }
+
+        double costOf(int node) {
+            return stamp[node] == generation ? cost[node] : Double.POSITIVE_INFINITY;
+        }
+
+        void open(int node, double nodeCost, double priority, int from) {
+            stamp[node] = generation;
+            cost[node] = nodeCost;
+            parent[node] = from;
+            push(node, priority, nodeCost);
+        }
+
+        boolean isEmpty() {
+            return heapSize == 0;
+        }
+
+        /**
+         * @return The node with the lowest priority, or -1 if the entry is outdated.
+         */
+        int poll() {
+            int node = heapNodes[0];
+            double pushedCost = heapCosts[0];
+            heapSize--;
+            if (heapSize > 0) {
+                siftDown(heapNodes[heapSize], heapPriorities[heapSize], heapCosts[heapSize]);
+            }
+            return pushedCost > cost[node] ? -1 : node;
+        }
+
+        private void push(int node, double priority, double nodeCost) {
+            if (heapSize == heapNodes.length) {
+                heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+                heapPriorities = Arrays.copyOf(heapPriorities, heapSize * 2);
+                heapCosts = Arrays.copyOf(heapCosts, heapSize * 2);
+            }
+            int index = heapSize++;
+            while (index > 0) {
+                int parentIndex = (index - 1) >>> 1;
+                if (heapPriorities[parentIndex] <= priority) {
+                    break;
+                }
+                move(parentIndex, index);
+                index = parentIndex;
+            }
+            set(index, node, priority, nodeCost);
+        }
+
+        private void siftDown(int node, double priority, double nodeCost) {
+            int index = 0;
+            int half = heapSize >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < heapSize && heapPriorities[child + 1] < heapPriorities[child]) {
+                    child++;
+                }
+                if (priority <= heapPriorities[child]) {
+                    break;
+                }
+                move(child, index);
+                index = child;
+            }
+            set(index, node, priority, nodeCost);
+        }
+
+        private void move(int from, int to) {
+            set(to, heapNodes[from], heapPriorities[from], heapCosts[from]);
+        }
+
+        private void set(int index, int node, double priority, double nodeCost) {
+            heapNodes[index] = node;
+            heapPriorities[index] = priority;
+            heapCosts[index] = nodeCost;
+        }
+    }
+}
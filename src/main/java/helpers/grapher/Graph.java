@@ -14,6 +14,7 @@ public class Graph {
     private final ConcurrentMap<GraphNode, Set<GraphEdge>> adjacencyList = new ConcurrentHashMap<>();
 
     private final Quadtree quadtree;
+    private volatile CompactGraph compactGraph;
 
     public Graph() {
         this.quadtree = new Quadtree(0, 0, 0, 12800, 46568);
@@ -33,6 +34,7 @@ public class Graph {
 
         // Insert into quadtree
         quadtree.insert(node);
+        compactGraph = null;
     }
 
     public void removeNode(GraphNode node) {
@@ -48,6 +50,7 @@ public class Graph {
         // Remove the node from the nodes map and quadtree
         nodes.remove(node.getNodeId());
         quadtree.remove(node);
+        compactGraph = null;
     }
 
     public void addEdge(GraphEdge edge) {
@@ -64,11 +67,13 @@ public class Graph {
         if (!adjacencyList.get(end).contains(edge)) {
             adjacencyList.get(end).add(edge);
         }
+        compactGraph = null;
     }
 
     public void removeEdge(GraphEdge edge) {
         adjacencyList.get(edge.getStartNode()).remove(edge);
         adjacencyList.get(edge.getEndNode()).remove(edge);
+        compactGraph = null;
     }
 
     public Collection<GraphNode> getNodes() {
@@ -108,6 +113,25 @@ public class Graph {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns the compact form of the graph used for pathfinding. It is built on first use and rebuilt after the graph changes.
+     *
+     * @return The compact graph.
+     */
+    public CompactGraph compact() {
+        CompactGraph compact = compactGraph;
+        if (compact == null) {
+            synchronized (this) {
+                compact = compactGraph;
+                if (compact == null) {
+                    compact = CompactGraph.build(adjacencyList);
+                    compactGraph = compact;
+                }
+            }
+        }
+        return compact;
+    }
+
     public GraphNode[] findShortestPath(GraphNode startNode, GraphNode endNode) {
         // Ensure the end node exists in the graph
         if (!nodes.containsKey(endNode.getNodeId())) {
@@ -117,60 +141,15 @@ public class Graph {
         // Find the best possible start node
         GraphNode bestStartNode = findBestStartNode(startNode);
 
-        // Initialize data structures for Dijkstra's algorithm
-        Map<GraphNode, Double> distances = new HashMap<>();
-        Map<GraphNode, GraphNode> previousNodes = new HashMap<>();
-        PriorityQueue<GraphNodeDistance> priorityQueue = new PriorityQueue<>();
-
-        // Initialize distances
-        for (GraphNode node : nodes.values()) {
-            if (node.equals(bestStartNode)) {
-                distances.put(node, 0.0);
-                priorityQueue.add(new GraphNodeDistance(node, 0.0));
-            } else {
-                distances.put(node, Double.POSITIVE_INFINITY);
-            }
-        }
-
-        // Run Dijkstra's algorithm
-        while (!priorityQueue.isEmpty()) {
-            GraphNodeDistance current = priorityQueue.poll();
-            GraphNode currentNode = current.node;
-
-            if (currentNode.equals(endNode)) {
-                break; // Found the shortest path to endNode
-            }
-
-            for (GraphEdge edge : adjacencyList.get(currentNode)) {
-                GraphNode neighbor = edge.getStartNode().equals(currentNode) ? edge.getEndNode() : edge.getStartNode();
-                double newDist = distances.get(currentNode) + currentNode.distance(neighbor);
-
-                if (newDist < distances.get(neighbor)) {
-                    distances.put(neighbor, newDist);
-                    previousNodes.put(neighbor, currentNode);
-                    priorityQueue.add(new GraphNodeDistance(neighbor, newDist));
-                }
-            }
-        }
-
-        // Reconstruct the path from endNode to startNode
-        List<GraphNode> path = new ArrayList<>();
-        GraphNode currentNode = endNode;
-        while (currentNode != null) {
-            path.add(currentNode);
-            currentNode = previousNodes.get(currentNode);
-        }
-
-        // Reverse the path to start from startNode
-        Collections.reverse(path);
+        CompactGraph compact = compact();
+        int start = compact.indexOf(bestStartNode.getNodeId());
+        int goal = compact.indexOf(endNode.getNodeId());
+        GraphNode[] path = start < 0 || goal < 0 ? new GraphNode[0] : compact.findPath(start, goal);
 
-        // Check if the start node is at the beginning of the path
-        if (!path.get(0).equals(bestStartNode)) {
+        if (path.length == 0) {
             System.out.println("No path found from startNode to endNode: " + "start node: " + startNode.getNodeX() + "," + startNode.getNodeY() + "," + startNode.getNodeZ() + " -- end node: " + endNode.getNodeX() + "," + endNode.getNodeY() + "," + endNode.getNodeZ());
-            return new GraphNode[0]; // Return an empty array if no path exists
         }
-
-        return path.toArray(new GraphNode[0]);
+        return path;
     }
 
     public GraphNode findBestStartNode(GraphNode currentLocation) {
@@ -196,23 +175,4 @@ public class Graph {
         // If none of the nearby nodes have edges, return the closest node anyway
         return nearbyNodes.get(0);
     }
-
-
-    /**
-     * Helper class to associate GraphNode with its current distance in the priority queue.
-     */
-    private static class GraphNodeDistance implements Comparable<GraphNodeDistance> {
-        GraphNode node;
-        double distance;
-
-        public GraphNodeDistance(GraphNode node, double distance) {
-            this.node = node;
-            this.distance = distance;
-        }
-
-        @Override
-        public int compareTo(GraphNodeDistance other) {
-            return Double.compare(this.distance, other.distance);
-        }
-    }
 }
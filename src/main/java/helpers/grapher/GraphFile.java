@@ -0,0 +1,201 @@
+package helpers.grapher;
+
+import com.google.gson.Gson;
+import helpers.grapher.utils.dataclasses.GraphData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static helpers.grapher.GraphHelpers.convertToGraph;
+
+/**
+ * Reads and writes the binary graph format described in {@link CompactGraph}.
+ * A loaded file is memory mapped read only and handed out to every caller that asks for the same file,
+ * so the graph costs no heap beyond the per thread search scratch space however many devices walk it.
+ * A mapping can't be released while a graph still uses it, and Windows doesn't replace or delete a mapped file,
+ * so every conversion of a JSON graph goes to a file of its own: map.graph becomes map.1718000000000.v2.bgraph,
+ * named after the JSON file's modification time and the format version.
+ */
+public final class GraphFile {
+    private static final Map<Path, LoadedGraph> loadedGraphs = new ConcurrentHashMap<>();
+
+    private GraphFile() {
+    }
+
+    /**
+     * Maps a binary graph file. The mapping is shared until the file changes on disk.
+     *
+     * @param path The binary graph file.
+     * @return The graph.
+     * @throws IOException if the file can't be read or is not a supported graph file.
+     */
+    public static CompactGraph load(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        long lastModified = Files.getLastModifiedTime(key).toMillis();
+        LoadedGraph loaded = loadedGraphs.get(key);
+        if (loaded != null && loaded.lastModified == lastModified) {
+            return loaded.graph;
+        }
+
+        synchronized (loadedGraphs) {
+            loaded = loadedGraphs.get(key);
+            if (loaded == null || loaded.lastModified != lastModified) {
+                loaded = new LoadedGraph(map(key), lastModified);
+                loadedGraphs.put(key, loaded);
+            }
+            return loaded.graph;
+        }
+    }
+
+    private static CompactGraph map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CompactGraph(buffer);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid graph file " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a graph in the binary format. The file is written next to the target and moved in place,
+     * so a reader never sees a partly written graph. The target must not be a loaded graph file.
+     *
+     * @param graph The graph to write.
+     * @param path  The binary graph file.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(CompactGraph graph, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = graph.getBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Converts a JSON graph as saved by the graph editor into the binary format.
+     *
+     * @param jsonPath   The JSON graph file.
+     * @param binaryPath The binary graph file to write.
+     * @throws IOException if either file can't be accessed.
+     */
+    public static void convert(Path jsonPath, Path binaryPath) throws IOException {
+        String json = Files.readString(jsonPath);
+        GraphData graphData = new Gson().fromJson(json, GraphData.class);
+        write(convertToGraph(graphData).compact(), binaryPath);
+    }
+
+    /**
+     * Loads the binary graph for a JSON graph, converting the JSON first if there is no binary file for its current version.
+     * Without the JSON file the newest binary file is loaded. Binary files of other versions are dropped from the loaded graphs
+     * and deleted, a file that is still mapped is left for a later start.
+     *
+     * @param jsonPath The JSON graph file.
+     * @return The graph.
+     * @throws IOException if neither file can be read.
+     */
+    public static CompactGraph loadOrConvert(Path jsonPath) throws IOException {
+        Path binaryPath;
+        if (Files.exists(jsonPath)) {
+            binaryPath = getBinaryPath(jsonPath, Files.getLastModifiedTime(jsonPath).toMillis());
+            if (!Files.exists(binaryPath)) {
+                convert(jsonPath, binaryPath);
+            }
+        } else {
+            binaryPath = findNewestBinary(jsonPath);
+        }
+
+        CompactGraph graph = load(binaryPath);
+        removeOtherVersions(jsonPath, binaryPath);
+        return graph;
+    }
+
+    /**
+     * @return The path of the binary graph next to a JSON graph for one version of it,
+     * map.graph modified at 1718000000000 becomes map.1718000000000.v2.bgraph.
+     */
+    public static Path getBinaryPath(Path jsonPath, long version) {
+        return jsonPath.resolveSibling(getBaseName(jsonPath) + "." + version + ".v" + CompactGraph.VERSION + ".bgraph");
+    }
+
+    private static String getBaseName(Path jsonPath) {
+        String name = jsonPath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    private static Path findNewestBinary(Path jsonPath) throws IOException {
+        String prefix = getBaseName(jsonPath) + ".";
+        String suffix = ".v" + CompactGraph.VERSION + ".bgraph";
+        Path newest = null;
+        long newestVersion = Long.MIN_VALUE;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directoryOf(jsonPath), prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    long version = Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+                    if (version > newestVersion) {
+                        newestVersion = version;
+                        newest = file;
+                    }
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // No directory, no graph
+        }
+        if (newest == null) {
+            throw new NoSuchFileException(jsonPath.toString());
+        }
+        return newest;
+    }
+
+    private static void removeOtherVersions(Path jsonPath, Path current) {
+        // Older builds wrote map.bgraph, every version since writes map.<version>.v<format>.bgraph
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directoryOf(jsonPath), getBaseName(jsonPath) + ".*bgraph")) {
+            for (Path file : files) {
+                if (file.equals(current)) {
+                    continue;
+                }
+                // Graphs already handed out keep their mapping until they are no longer used
+                loadedGraphs.remove(file.toAbsolutePath().normalize());
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Still mapped by this or another process, deleted on a later start
+                }
+            }
+        } catch (IOException e) {
+            // Cleaning up is best effort, the current graph is loaded either way
+        }
+    }
+
+    private static Path directoryOf(Path path) {
+        Path parent = path.toAbsolutePath().getParent();
+        return parent == null ? Path.of(".") : parent;
+    }
+
+    private static class LoadedGraph {
+        private final CompactGraph graph;
+        private final long lastModified;
+
+        LoadedGraph(CompactGraph graph, long lastModified) {
+            this.graph = graph;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -3,9 +3,8 @@ package helpers.openCV;
 import helpers.Logger;
 import helpers.Color.ColorFinder;
 import helpers.openCV.utils.MatchedRectangle;
-import org.opencv.core.Point;
+import helpers.openCV.utils.Template;
 import org.opencv.core.*;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
 import java.awt.*;
@@ -17,20 +16,37 @@ import java.util.List;
 public class ImageRecognition {
     private final Logger logger;
     private final ColorFinder colorFinder;
+    private final TemplateRegistry templateRegistry = new TemplateRegistry();
+    private final MatchExtractor matchExtractor = new MatchExtractor();
 
     public ImageRecognition(Logger logger, ColorFinder colorFinder) {
         this.logger = logger;
         this.colorFinder = colorFinder;
     }
 
+    /**
+     * @return The registry holding the prepared templates used by this class.
+     */
+    public TemplateRegistry getTemplateRegistry() {
+        return templateRegistry;
+    }
+
     /*
      ** Game object stuff
      */
 
     public MatchedRectangle returnBestMatchObject(File imageToSearchFor, Mat imageToSearchIn, double threshold) {
-        Mat imageToSearchForMat = Imgcodecs.imread(imageToSearchFor.getAbsolutePath(), Imgcodecs.IMREAD_UNCHANGED);
+        Template template = templateRegistry.get(imageToSearchFor);
+        if (template == null) {
+            logger.devLog("Unable to read template image: " + imageToSearchFor.getAbsolutePath());
+            return null;
+        }
+
+        return returnBestMatchObject(template, imageToSearchIn, threshold);
+    }
 
-        List<MatchedRectangle> matches = performTemplateMatchForGameObjects(imageToSearchForMat, imageToSearchIn, threshold);
+    public MatchedRectangle returnBestMatchObject(Template imageToSearchFor, Mat imageToSearchIn, double threshold) {
+        List<MatchedRectangle> matches = performTemplateMatch(imageToSearchFor, imageToSearchIn, threshold);
 
         double bestMatchValue = Double.MIN_VALUE;
         MatchedRectangle bestMatchRect = null;
@@ -125,93 +141,42 @@ public class ImageRecognition {
     }
 
     public List<MatchedRectangle> returnAllMatchObjects(File imageToSearchFor, Mat imageToSearchIn, double threshold) {
-        Mat imageToSearchForMat = Imgcodecs.imread(imageToSearchFor.getAbsolutePath(), Imgcodecs.IMREAD_UNCHANGED);
-        return performTemplateMatchForGameObjects(imageToSearchForMat, imageToSearchIn, threshold);
+        Template template = templateRegistry.get(imageToSearchFor);
+        if (template == null) {
+            logger.devLog("Unable to read template image: " + imageToSearchFor.getAbsolutePath());
+            return new ArrayList<>();
+        }
+        return performTemplateMatch(template, imageToSearchIn, threshold);
     }
 
     public List<MatchedRectangle> performTemplateMatchForGameObjects(Mat imageToSearchFor, Mat imageToSearchIn, double threshold) {
-        List<MatchedRectangle> matchRectangles = new ArrayList<>();
-
-        // Split the source image into its channels
-        List<Mat> sourceChannels = new ArrayList<>();
-        Core.split(imageToSearchFor, sourceChannels);
-
-        Mat imageToSearchForBGR = new Mat();
-        Mat mask = new Mat();
-
-        // Check if the source image has an alpha channel
-        if (imageToSearchFor.channels() >= 4) {
-            // Use the first three channels (BGR) for matching
-            Core.merge(new ArrayList<>(sourceChannels.subList(0, 3)), imageToSearchForBGR);
-
-            // Use the fourth channel (alpha) for masking
-            Mat alphaChannel = sourceChannels.get(3);
-            Core.compare(alphaChannel, new Scalar(0), mask, Core.CMP_GT);
-        } else {
-            // If no alpha channel, use the source image as is
-            imageToSearchForBGR = imageToSearchFor;
-        }
-
-        // Perform the template matching
-        Mat result = new Mat();
-        Imgproc.matchTemplate(imageToSearchIn, imageToSearchForBGR, result, Imgproc.TM_CCOEFF_NORMED, mask);
-
-        // Find all matches above the threshold and below the maximum score cap
-        for (int y = 0; y < result.rows(); y++) {
-            for (int x = 0; x < result.cols(); x++) {
-                double matchValue = result.get(y, x)[0];
-                if (matchValue >= threshold && matchValue <= 1.1) {
-                    // Avoid matching the same location again
-                    Imgproc.floodFill(result, new Mat(), new Point(x, y), new Scalar(0), new Rect(), new Scalar(0), new Scalar(0.1));
-                    // Add the match to the list
-                    matchRectangles.add(new MatchedRectangle(x, y, imageToSearchFor.width(), imageToSearchFor.height(), matchValue));
-                }
-            }
-        }
-        return matchRectangles;
+        return performTemplateMatch(templateRegistry.get(imageToSearchFor), imageToSearchIn, threshold);
     }
 
     public List<MatchedRectangle> performTemplateMatchForGameObjectsWithMask(Mat imageToSearchFor, Mat imageToSearchIn, double threshold) {
-        List<MatchedRectangle> matchRectangles = new ArrayList<>();
-
-        // Split the source image into its channels
-        List<Mat> sourceChannels = new ArrayList<>();
-        Core.split(imageToSearchFor, sourceChannels);
-
-        Mat imageToSearchForBGR = new Mat();
-        Mat mask = new Mat();
-
-        // Check if the source image has an alpha channel
-        if (imageToSearchFor.channels() >= 4) {
-            // Use the first three channels (BGR) for matching
-            Core.merge(new ArrayList<>(sourceChannels.subList(0, 3)), imageToSearchForBGR);
-
-            // Use the fourth channel (alpha) for masking
-            mask = sourceChannels.get(3);
-            Core.compare(mask, new Scalar(0), mask, Core.CMP_GT);
-        } else {
-            // If no alpha channel, use the source image as is
-            imageToSearchForBGR = imageToSearchFor;
-        }
+        return performTemplateMatch(templateRegistry.get(imageToSearchFor), imageToSearchIn, threshold);
+    }
 
+    /**
+     * Finds all locations where the template matches above the threshold.
+     * Transparent pixels of the template are masked out of the match.
+     *
+     * @param template        The prepared template to search for.
+     * @param imageToSearchIn The BGR image to search in.
+     * @param threshold       The minimum match score.
+     * @return The matches, in row order.
+     */
+    public List<MatchedRectangle> performTemplateMatch(Template template, Mat imageToSearchIn, double threshold) {
         // Perform the template matching
         Mat result = new Mat();
-        Imgproc.matchTemplate(imageToSearchIn, imageToSearchForBGR, result, Imgproc.TM_CCOEFF_NORMED, mask);
-
-        // Find all matches above the threshold
-        for (int y = 0; y < result.rows(); y++) {
-            for (int x = 0; x < result.cols(); x++) {
-                double matchValue = result.get(y, x)[0];
-                if (matchValue >= threshold && matchValue <= 1.1) {
-                    // Avoid matching the same location again
-                    Imgproc.floodFill(result, new Mat(), new Point(x, y), new Scalar(0), new Rect(), new Scalar(0), new Scalar(0.1));
-
-                    // Add the match to the list
-                    matchRectangles.add(new MatchedRectangle(x, y, imageToSearchForBGR.width(), imageToSearchForBGR.height(), matchValue));
-                }
-            }
+        try {
+            Imgproc.matchTemplate(imageToSearchIn, template.getImage(), result, Imgproc.TM_CCOEFF_NORMED, template.getMask());
+
+            // Find all matches above the threshold and below the maximum score cap
+            return matchExtractor.findAll(result, template.width(), template.height(), threshold);
+        } finally {
+            result.release();
         }
-        return matchRectangles;
     }
 
     public MatchedRectangle returnBestMatchObjectWithMask(Mat imageToSearchIn, Mat imageToFind, Mat mask, double threshold) {
@@ -229,31 +194,18 @@ public class ImageRecognition {
             }
         } catch (CvException e) {
             logger.devLog("OpenCV Error in matchTemplate: " + e.getMessage());
+            result.release();
             return null;
         }
 
-        double maxMatchScore = Double.MIN_VALUE;
-        int maxX = -1;
-        int maxY = -1;
-
         // Search for the match with the highest score above the threshold
-        for (int y = 0; y < result.rows(); y++) {
-            for (int x = 0; x < result.cols(); x++) {
-                double matchScore = result.get(y, x)[0];
-                if (matchScore >= threshold && matchScore > maxMatchScore) {
-                    maxMatchScore = matchScore;
-                    maxX = x;
-                    maxY = y;
-                }
-            }
-        }
+        MatchedRectangle bestMatch = matchExtractor.findBest(result, imageToFind.width(), imageToFind.height(), threshold);
+        result.release();
 
-        if (maxX != -1) {
-            logger.devLog("Best match score: " + maxMatchScore);
-            return new MatchedRectangle(maxX, maxY, imageToFind.width(), imageToFind.height(), maxMatchScore);
-        } else {
-            return null; // No match found or thread interrupted
+        if (bestMatch != null) {
+            logger.devLog("Best match score: " + bestMatch.getMatchValue());
         }
+        return bestMatch; // Null if no match was found
     }
 
     public MatchedRectangle returnFirstMatchObjectWithMask(Mat imageToSearchIn, Mat imageToFind, Mat mask, double threshold) {
@@ -271,20 +223,17 @@ public class ImageRecognition {
             }
         } catch (CvException e) {
             logger.devLog("OpenCV Error in matchTemplate: " + e.getMessage());
+            result.release();
             return null;
         }
 
         // Search for the first match above the threshold
-        for (int y = 0; y < result.rows(); y++) {
-            for (int x = 0; x < result.cols(); x++) {
-                double matchScore = result.get(y, x)[0];
-                if (matchScore >= threshold && matchScore <= 1.1) {
-                    logger.devLog("First match score: " + matchScore);
+        MatchedRectangle firstMatch = matchExtractor.findFirst(result, imageToFind.width(), imageToFind.height(), threshold);
+        result.release();
 
-                    return new MatchedRectangle(x, y, imageToFind.width(), imageToFind.height(), matchScore);
-                }
-            }
+        if (firstMatch != null) {
+            logger.devLog("First match score: " + firstMatch.getMatchValue());
         }
-        return null; // No match found or thread interrupted
+        return firstMatch; // Null if no match was found
     }
 }
\ No newline at end of file
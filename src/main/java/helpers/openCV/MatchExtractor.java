@@ -0,0 +1,179 @@
+package helpers.openCV;
+
+import helpers.openCV.utils.MatchedRectangle;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads matchTemplate results in bulk and extracts matches from them in plain Java.
+ * The result Mat is copied into a reused float[] with a single get call instead of one JNI call per cell,
+ * and overlapping matches are suppressed by comparing boxes instead of flood filling the result.
+ */
+public class MatchExtractor {
+    // Scores above this are artifacts of masked matching on flat areas, not real matches
+    private static final double MAX_SCORE = 1.1;
+
+    private static final ThreadLocal<float[]> BUFFER = ThreadLocal.withInitial(() -> new float[0]);
+
+    /**
+     * Finds all matches above the threshold. Each match is the strongest score in its 3x3 neighborhood,
+     * and a match is dropped when its top left corner lies within half a template of a stronger match.
+     *
+     * @param result         The matchTemplate result.
+     * @param templateWidth  The width of the template that was matched.
+     * @param templateHeight The height of the template that was matched.
+     * @param threshold      The minimum match score.
+     * @return The matches, in row order.
+     */
+    public List<MatchedRectangle> findAll(Mat result, int templateWidth, int templateHeight, double threshold) {
+        List<MatchedRectangle> matches = new ArrayList<>();
+        int cols = result.cols();
+        int rows = result.rows();
+        float[] scores = read(result);
+        if (scores == null) {
+            return matches;
+        }
+
+        // Local maxima above the threshold, ties go to the first cell in row order
+        List<MatchedRectangle> candidates = new ArrayList<>();
+        for (int y = 0; y < rows; y++) {
+            int rowStart = y * cols;
+            for (int x = 0; x < cols; x++) {
+                float score = scores[rowStart + x];
+                if (score >= threshold && score <= MAX_SCORE && isLocalMaximum(scores, cols, rows, x, y, score)) {
+                    candidates.add(new MatchedRectangle(x, y, templateWidth, templateHeight, score));
+                }
+            }
+        }
+        if (candidates.size() <= 1) {
+            return candidates;
+        }
+
+        // Greedy suppression, strongest first
+        candidates.sort(Comparator.comparingDouble(MatchedRectangle::getMatchValue).reversed());
+        int minDistanceX = Math.max(1, templateWidth / 2);
+        int minDistanceY = Math.max(1, templateHeight / 2);
+        for (MatchedRectangle candidate : candidates) {
+            boolean suppressed = false;
+            for (MatchedRectangle kept : matches) {
+                if (Math.abs(candidate.x - kept.x) < minDistanceX && Math.abs(candidate.y - kept.y) < minDistanceY) {
+                    suppressed = true;
+                    break;
+                }
+            }
+            if (!suppressed) {
+                matches.add(candidate);
+            }
+        }
+
+        matches.sort(Comparator.comparingInt((MatchedRectangle rect) -> rect.y).thenComparingInt(rect -> rect.x));
+        return matches;
+    }
+
+    /**
+     * Finds the highest score at or above the threshold. Ties go to the first cell in row order.
+     *
+     * @param result         The matchTemplate result.
+     * @param templateWidth  The width of the template that was matched.
+     * @param templateHeight The height of the template that was matched.
+     * @param threshold      The minimum match score.
+     * @return The best match, or null if no score reaches the threshold.
+     */
+    public MatchedRectangle findBest(Mat result, int templateWidth, int templateHeight, double threshold) {
+        float[] scores = read(result);
+        if (scores == null) {
+            return null;
+        }
+
+        int cols = result.cols();
+        int count = cols * result.rows();
+        int bestIndex = -1;
+        double bestScore = Double.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            float score = scores[i];
+            if (score >= threshold && score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+        }
+
+        if (bestIndex == -1) {
+            return null;
+        }
+        return new MatchedRectangle(bestIndex % cols, bestIndex / cols, templateWidth, templateHeight, bestScore);
+    }
+
+    /**
+     * Finds the first score in row order that reaches the threshold.
+     *
+     * @param result         The matchTemplate result.
+     * @param templateWidth  The width of the template that was matched.
+     * @param templateHeight The height of the template that was matched.
+     * @param threshold      The minimum match score.
+     * @return The first match, or null if no score reaches the threshold.
+     */
+    public MatchedRectangle findFirst(Mat result, int templateWidth, int templateHeight, double threshold) {
+        float[] scores = read(result);
+        if (scores == null) {
+            return null;
+        }
+
+        int cols = result.cols();
+        int count = cols * result.rows();
+        for (int i = 0; i < count; i++) {
+            float score = scores[i];
+            if (score >= threshold && score <= MAX_SCORE) {
+                return new MatchedRectangle(i % cols, i / cols, templateWidth, templateHeight, score);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies a single channel float result into the calling thread's buffer.
+     *
+     * @return The buffer holding the result in row order, or null if the result is empty or not CV_32FC1.
+     */
+    private float[] read(Mat result) {
+        if (result.empty() || result.type() != CvType.CV_32FC1) {
+            return null;
+        }
+
+        int count = result.rows() * result.cols();
+        float[] buffer = BUFFER.get();
+        if (buffer.length < count) {
+            buffer = new float[count];
+            BUFFER.set(buffer);
+        }
+
+        if (result.isContinuous()) {
+            result.get(0, 0, buffer);
+        } else {
+            Mat continuous = result.clone();
+            continuous.get(0, 0, buffer);
+            continuous.release();
+        }
+        return buffer;
+    }
+
+    private boolean isLocalMaximum(float[] scores, int cols, int rows, int x, int y, float score) {
+        for (int ny = Math.max(0, y - 1); ny <= Math.min(rows - 1, y + 1); ny++) {
+            int rowStart = ny * cols;
+            for (int nx = Math.max(0, x - 1); nx <= Math.min(cols - 1, x + 1); nx++) {
+                float neighbor = scores[rowStart + nx];
+                if (neighbor > MAX_SCORE) {
+                    continue; // Capped scores can't be matches, so they don't suppress their neighbors either
+                }
+                boolean before = ny < y || (ny == y && nx < x);
+                if (before ? neighbor >= score : neighbor > score) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package helpers.openCV;
+
+import helpers.openCV.utils.Template;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads and prepares template images once and hands out the shared {@link Template}s.
+ * File templates are keyed by their absolute path and reloaded when the file changes on disk,
+ * templates registered under an id stay until they are replaced.
+ * Templates passed in as Mats are keyed by the Mat itself, which pays off because callers get their Mats
+ * from the image cache and keep passing the same instance. Only Mats that need preparing (the ones with an alpha channel)
+ * are remembered, and only for as long as the Mat itself is reachable.
+ */
+public class TemplateRegistry {
+    private final Map<String, FileTemplate> fileTemplates = new ConcurrentHashMap<>();
+    private final Map<String, Template> idTemplates = new ConcurrentHashMap<>();
+    private final Map<Mat, Template> matTemplates = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the template for an image file.
+     *
+     * @param file The image file.
+     * @return The template, or null if the file can't be read.
+     */
+    public Template get(File file) {
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+
+        FileTemplate cached = fileTemplates.get(path);
+        if (cached != null && cached.lastModified == lastModified) {
+            return cached.template;
+        }
+
+        Mat image = Imgcodecs.imread(path, Imgcodecs.IMREAD_UNCHANGED);
+        if (image.empty()) {
+            return null;
+        }
+
+        Template template = Template.of(image);
+        if (template.getImage() != image) {
+            image.release();
+        }
+        fileTemplates.put(path, new FileTemplate(template, lastModified));
+        return template;
+    }
+
+    /**
+     * Returns the template for an image that is already loaded.
+     *
+     * @param image The template image, as loaded with IMREAD_UNCHANGED. It must not be modified afterwards.
+     * @return The template.
+     */
+    public Template get(Mat image) {
+        if (image.channels() < 4) {
+            return Template.of(image); // Nothing to prepare, and the template would keep its own key alive
+        }
+
+        Template template = matTemplates.get(image);
+        if (template == null) {
+            template = Template.of(image);
+            Template existing = matTemplates.putIfAbsent(image, template);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Prepares an image and registers the template under an id, replacing any template registered before.
+     *
+     * @param id    The id to register the template under.
+     * @param image The template image, as loaded with IMREAD_UNCHANGED.
+     * @return The registered template.
+     */
+    public Template register(String id, Mat image) {
+        Template template = Template.of(image);
+        idTemplates.put(id, template);
+        return template;
+    }
+
+    /**
+     * @param id The id the template was registered under.
+     * @return The template, or null if nothing is registered under the id.
+     */
+    public Template get(String id) {
+        return idTemplates.get(id);
+    }
+
+    public void clear() {
+        fileTemplates.clear();
+        idTemplates.clear();
+        matTemplates.clear();
+    }
+
+    private static class FileTemplate {
+        final Template template;
+        final long lastModified;
+
+        FileTemplate(Template template, long lastModified) {
+            this.template = template;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package helpers.openCV.utils;
+
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A template image prepared for matching: the BGR planes and the alpha mask (empty if the image has no alpha channel),
+ * split once when the template is loaded. The masked mean and standard deviation are computed on first use.
+ * Templates are shared between callers, the Mats they hand out must not be modified or released.
+ */
+public class Template {
+    private final Mat image;
+    private final Mat mask;
+    private Scalar mean;
+    private Scalar stdDev;
+    private final List<Template> pyramid = new ArrayList<>();
+
+    private Template(Mat image, Mat mask) {
+        this.image = image;
+        this.mask = mask;
+    }
+
+    /**
+     * Prepares a template from an image as loaded with IMREAD_UNCHANGED.
+     * Images with an alpha channel are split into BGR planes and a mask of the non transparent pixels,
+     * other images are used as they are.
+     *
+     * @param source The template image, it is not modified.
+     * @return The prepared template.
+     */
+    public static Template of(Mat source) {
+        if (source.channels() < 4) {
+            return new Template(source, new Mat());
+        }
+
+        List<Mat> channels = new ArrayList<>();
+        Core.split(source, channels);
+
+        Mat bgr = new Mat();
+        Core.merge(new ArrayList<>(channels.subList(0, 3)), bgr);
+
+        Mat mask = new Mat();
+        Core.compare(channels.get(3), new Scalar(0), mask, Core.CMP_GT);
+
+        for (Mat channel : channels) {
+            channel.release();
+        }
+        return new Template(bgr, mask);
+    }
+
+    /**
+     * @return The BGR image to match with.
+     */
+    public Mat getImage() {
+        return image;
+    }
+
+    /**
+     * @return The mask of the non transparent pixels, or an empty Mat if the template has no alpha channel.
+     */
+    public Mat getMask() {
+        return mask;
+    }
+
+    public boolean hasMask() {
+        return !mask.empty();
+    }
+
+    public int width() {
+        return image.width();
+    }
+
+    public int height() {
+        return image.height();
+    }
+
+    /**
+     * @return The per channel mean of the template's non transparent pixels.
+     */
+    public synchronized Scalar getMean() {
+        computeStatistics();
+        return mean;
+    }
+
+    /**
+     * @return The per channel standard deviation of the template's non transparent pixels.
+     */
+    public synchronized Scalar getStdDev() {
+        computeStatistics();
+        return stdDev;
+    }
+
+    /**
+     * Returns the template downscaled by a power of two, built on first use and kept with the template.
+     *
+     * @param level The pyramid level, 0 is the template itself, every level halves the size.
+     * @return The downscaled template.
+     */
+    public synchronized Template getPyramidLevel(int level) {
+        if (level <= 0) {
+            return this;
+        }
+
+        while (pyramid.size() < level) {
+            Template previous = pyramid.isEmpty() ? this : pyramid.get(pyramid.size() - 1);
+            Mat downImage = new Mat();
+            Imgproc.pyrDown(previous.image, downImage);
+
+            Mat downMask = new Mat();
+            if (previous.hasMask()) {
+                Imgproc.resize(previous.mask, downMask, downImage.size(), 0, 0, Imgproc.INTER_NEAREST);
+            }
+            pyramid.add(new Template(downImage, downMask));
+        }
+        return pyramid.get(level - 1);
+    }
+
+    private void computeStatistics() {
+        if (mean != null) {
+            return;
+        }
+
+        MatOfDouble meanMat = new MatOfDouble();
+        MatOfDouble stdDevMat = new MatOfDouble();
+        if (mask.empty()) {
+            Core.meanStdDev(image, meanMat, stdDevMat);
+        } else {
+            Core.meanStdDev(image, meanMat, stdDevMat, mask);
+        }
+        mean = new Scalar(meanMat.toArray());
+        stdDev = new Scalar(stdDevMat.toArray());
+        meanMat.release();
+        stdDevMat.release();
+    }
+}
@@ -1,17 +1,79 @@
 package helpers.scripts;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 public class CancellationToken {
     private volatile boolean cancellationRequested = false;
     private static final CancellationToken defaultToken = new CancellationToken(); // Static default token
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+    private final Set<Thread> boundThreads = ConcurrentHashMap.newKeySet();
 
     public void requestCancellation() {
         cancellationRequested = true;
+        // Wake threads parked in a wait so they notice the cancellation right away
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+        // Interrupt the virtual threads running the script, ending blocking calls that don't know about the token.
+        // Platform threads are left alone, an interrupt during NIO would close the FileChannel they are using.
+        for (Thread thread : boundThreads) {
+            if (ScriptThreads.isVirtual(thread)) {
+                thread.interrupt();
+            }
+        }
     }
 
     public boolean isCancellationRequested() {
         return cancellationRequested;
     }
 
+    /**
+     * Registers a thread to be unparked when cancellation is requested. Remove it again when its wait ends.
+     */
+    public void addWaiter(Thread thread) {
+        waiters.add(thread);
+    }
+
+    public void removeWaiter(Thread thread) {
+        waiters.remove(thread);
+    }
+
+    /**
+     * Binds a thread to this token, so it is interrupted when cancellation is requested if it is a virtual thread.
+     * Unbind it when it finishes.
+     */
+    public void bindThread(Thread thread) {
+        boundThreads.add(thread);
+    }
+
+    public void unbindThread(Thread thread) {
+        boundThreads.remove(thread);
+    }
+
+    /**
+     * Sleeps until the timeout passes, cancellation is requested or the thread is interrupted.
+     * The interrupt status is left set.
+     *
+     * @return true if cancellation was requested.
+     */
+    public boolean awaitCancellation(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Thread current = Thread.currentThread();
+        addWaiter(current);
+        try {
+            long remaining;
+            while (!cancellationRequested && !current.isInterrupted() && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            return cancellationRequested;
+        } finally {
+            removeWaiter(current);
+        }
+    }
+
     // Static method to get a default cancelled token
     public static CancellationToken getDefaultCancelledToken() {
         defaultToken.requestCancellation(); // Set this token as cancelled by default
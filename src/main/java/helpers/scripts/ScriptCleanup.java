@@ -3,8 +3,11 @@ package helpers.scripts;
 import helpers.CacheManager;
 import helpers.DiscordWebhook;
 import helpers.Logger;
+import helpers.ThreadManager;
+import helpers.adb.ADBHandler;
 import helpers.utils.IsScriptRunning;
 import osr.mapping.XPBar;
+import osr.walker.Walker;
 
 public class ScriptCleanup {
     private final CacheManager cacheManager;
@@ -12,13 +15,17 @@ public class ScriptCleanup {
     private final DiscordWebhook discordWebhook;
     private final XPBar xpBar;
     private final IsScriptRunning isScriptRunning;
+    private final Walker walker;
+    private final ADBHandler adbHandler;
 
-    public ScriptCleanup(CacheManager cacheManager, Logger logger, DiscordWebhook discordWebhook, XPBar xpBar, IsScriptRunning isScriptRunning) {
+    public ScriptCleanup(CacheManager cacheManager, Logger logger, DiscordWebhook discordWebhook, XPBar xpBar, IsScriptRunning isScriptRunning, Walker walker, ADBHandler adbHandler) {
         this.cacheManager = cacheManager;
         this.logger = logger;
         this.discordWebhook = discordWebhook;
         this.xpBar = xpBar;
         this.isScriptRunning = isScriptRunning;
+        this.walker = walker;
+        this.adbHandler = adbHandler;
     }
     public void clean(String deviceID) {
         isScriptRunning.isScriptRunningProperty(deviceID).set(false);
@@ -30,5 +37,14 @@ public class ScriptCleanup {
 
         // Clear cachemanager
         cacheManager.cleanCaches(deviceID);
+
+        // Drop the frame tasks and frame tracking of the device
+        ThreadManager.getInstance().getTickScheduler().removeDevice(deviceID);
+
+        // Drop the position tracking, including the bank map tracker
+        walker.resetTracking(deviceID);
+
+        // Close the input shell and pooled ADB connections of the device
+        adbHandler.closeDevice(deviceID);
     }
 }
@@ -0,0 +1,101 @@
+package helpers.scripts;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads scripts run on, either platform threads or virtual threads.
+ * Virtual threads need Java 21, the builder is looked up once at runtime so the client still builds and runs on older versions,
+ * where asking for a virtual thread quietly gives a platform thread.
+ * <p>
+ * A script thread is tied to the script's {@link CancellationToken} and released from it when it finishes.
+ * Cancelling the token wakes its waits, and interrupts it if it is a virtual thread, which ends blocking calls right away.
+ * Platform threads are not interrupted, an interrupt during NIO would close the FileChannels they use.
+ */
+public final class ScriptThreads {
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method IS_VIRTUAL = findMethod(Thread.class, "isVirtual");
+    private static final Method BUILDER_NAME = findMethod(builderClass(), "name", String.class);
+    private static final Method BUILDER_UNSTARTED = findMethod(builderClass(), "unstarted", Runnable.class);
+
+    private ScriptThreads() {
+    }
+
+    /**
+     * @return true if the running Java version supports virtual threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_UNSTARTED != null;
+    }
+
+    /**
+     * @return true if the thread is a virtual thread, always false on Java versions without them.
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates an unstarted thread bound to a cancellation token.
+     *
+     * @param name    The thread name.
+     * @param task    The work to run.
+     * @param token   The token that ends the thread's waits when cancelled, or null.
+     * @param virtual Whether to use a virtual thread when the Java version supports them.
+     * @return The thread, start it with {@link Thread#start()}.
+     */
+    public static Thread newThread(String name, Runnable task, CancellationToken token, boolean virtual) {
+        Runnable bound = token == null ? task : () -> {
+            Thread current = Thread.currentThread();
+            token.bindThread(current);
+            if (token.isCancellationRequested() && isVirtual(current)) {
+                current.interrupt(); // Cancelled before the thread got to bind itself
+            }
+            try {
+                task.run();
+            } finally {
+                token.unbindThread(current);
+            }
+        };
+
+        Thread thread = virtual && isVirtualThreadsSupported() ? newVirtualThread(name, bound) : null;
+        if (thread == null) {
+            thread = new Thread(bound, name);
+        }
+        return thread;
+    }
+
+    private static Thread newVirtualThread(String name, Runnable task) {
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> builderClass() {
+        try {
+            return Class.forName("java.lang.Thread$Builder");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> owner, String name, Class<?>... parameterTypes) {
+        if (owner == null) {
+            return null;
+        }
+        try {
+            return owner.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
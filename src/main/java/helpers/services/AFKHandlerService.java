@@ -1,6 +1,7 @@
 package helpers.services;
 
 import helpers.ThreadManager;
+import helpers.TickScheduler;
 import helpers.services.utils.AFKServiceSettings;
 
 import java.util.Random;
@@ -8,7 +9,7 @@ import java.util.concurrent.*;
 
 public class AFKHandlerService {
     private final AFKServiceSettings AFKServiceSettings;
-    private final ScheduledExecutorService executorService = ThreadManager.getInstance().getScheduler();
+    private final TickScheduler tickScheduler = ThreadManager.getInstance().getTickScheduler();
 
     private final ConcurrentHashMap<String, AFKHandlerService> handlers = new ConcurrentHashMap<>();
     private long uniqueIdentifier;
@@ -18,8 +19,8 @@ public class AFKHandlerService {
     private int VARIABILITY_AFK_RUN = 10;
     private int accumulatedAFKTime = 0;
     private boolean isAFKing = false;
-    private ScheduledFuture<?> nextAFKFuture;
-    private ScheduledFuture<?> endAFKFuture;
+    private TickScheduler.TickTask nextAFKFuture;
+    private TickScheduler.TickTask endAFKFuture;
     private boolean isEnabled = true;
 
     public AFKHandlerService(AFKServiceSettings AFKServiceSettings) {
@@ -48,23 +49,23 @@ public class AFKHandlerService {
 
     private void AFKManager() {
         Random afkRandom = new Random(uniqueIdentifier);
-        scheduleAFK(executorService, afkRandom);
+        scheduleAFK(afkRandom);
     }
 
-    private void scheduleAFK(ScheduledExecutorService executorService, Random random) {
+    private void scheduleAFK(Random random) {
         int timeBeforeBreak = generateTimeAroundTarget(random, TARGET_AFK_RUN_LENGTH, VARIABILITY_AFK_RUN);
 
         // Schedule the start of the break
-        nextAFKFuture = executorService.schedule(() -> {
+        nextAFKFuture = tickScheduler.schedule(() -> {
             int AFKLength = generateTimeAroundTarget(random, TARGET_AFK_LENGTH, VARIABILITY_AFK);
             isAFKing = true; // Break starts here
 
             // Schedule the end of the break
-            endAFKFuture = executorService.schedule(() -> {
+            endAFKFuture = tickScheduler.schedule(() -> {
                 isAFKing = false; // Break ends here
                 accumulatedAFKTime += AFKLength;
                 // Schedule the next break without checking accumulatedBreakTime
-                scheduleAFK(executorService, random);
+                scheduleAFK(random);
 
             }, AFKLength, TimeUnit.SECONDS); // Schedule the end of the break after breakLength seconds
 
@@ -99,7 +100,7 @@ public class AFKHandlerService {
     public void disable() {
         this.isEnabled = false;
         if (nextAFKFuture != null && !nextAFKFuture.isDone()) {
-            nextAFKFuture.cancel(true); // Cancel the scheduled AFK
+            nextAFKFuture.cancel(); // Cancel the scheduled AFK
         }
     }
 
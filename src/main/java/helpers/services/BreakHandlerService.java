@@ -1,6 +1,7 @@
 package helpers.services;
 
 import helpers.ThreadManager;
+import helpers.TickScheduler;
 import helpers.services.utils.BreakServiceSettings;
 import helpers.services.utils.IHandlerService;
 
@@ -10,7 +11,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class BreakHandlerService implements IHandlerService {
     private final BreakServiceSettings breakServiceSettings;
-    private final ScheduledExecutorService executorService = ThreadManager.getInstance().getScheduler();
+    private final TickScheduler tickScheduler = ThreadManager.getInstance().getTickScheduler();
     private final AtomicBoolean isActive = new AtomicBoolean(true);
 
     private final ConcurrentHashMap<String, BreakHandlerService> handlers = new ConcurrentHashMap<>();
@@ -24,8 +25,8 @@ public class BreakHandlerService implements IHandlerService {
     private final AtomicBoolean isOnBreak = new AtomicBoolean(false);
     private final AtomicBoolean postponeBreak = new AtomicBoolean(false);
     private final AtomicBoolean isTimeForBreak = new AtomicBoolean(false);
-    private ScheduledFuture<?> nextBreakFuture;
-    private ScheduledFuture<?> endBreakFuture;
+    private TickScheduler.TickTask nextBreakFuture;
+    private TickScheduler.TickTask endBreakFuture;
     private boolean isEnabled = true;
 
     public BreakHandlerService(BreakServiceSettings breakServiceSettings) {
@@ -57,10 +58,10 @@ public class BreakHandlerService implements IHandlerService {
 
     private void breakManager() {
         Random breakRandom = new Random(uniqueIdentifier);
-        scheduleBreak(executorService, breakRandom);
+        scheduleBreak(breakRandom);
     }
 
-    private void scheduleBreak(ScheduledExecutorService executorService, Random random) {
+    private void scheduleBreak(Random random) {
         if (isOnBreak.get() || (nextBreakFuture != null && !nextBreakFuture.isDone())) {
             return;
         }
@@ -68,34 +69,30 @@ public class BreakHandlerService implements IHandlerService {
         int timeBeforeBreak = generateTimeAroundTarget(random, TARGET_RUN_LENGTH, VARIABILITY_RUN);
 
         // Schedule the start of the break
-        nextBreakFuture = executorService.schedule(() -> {
-            isTimeForBreak.set(true);
-
-            // Wait until postponeBreak is cleared
-            while (postponeBreak.get() && isActive.get()) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    isTimeForBreak.set(false);
-                    return;
-                }
-            }
+        nextBreakFuture = tickScheduler.schedule(() -> startBreak(random), timeBeforeBreak, TimeUnit.SECONDS);
+    }
 
-            isTimeForBreak.set(false);
-            int breakLength = generateTimeAroundTarget(random, TARGET_BREAK_LENGTH, VARIABILITY_BREAK);
-            isOnBreak.set(true); // Break starts here
+    private void startBreak(Random random) {
+        isTimeForBreak.set(true);
+
+        // Check again in a second while the break is postponed, instead of holding a thread until it is cleared
+        if (postponeBreak.get() && isActive.get()) {
+            nextBreakFuture = tickScheduler.schedule(() -> startBreak(random), 1, TimeUnit.SECONDS);
+            return;
+        }
 
-            // Schedule the end of the break
-            endBreakFuture = executorService.schedule(() -> {
-                isOnBreak.set(false); // Break ends here
-                accumulatedBreakTime += breakLength;
-                // Schedule the next break without checking accumulatedBreakTime
-                scheduleBreak(executorService, random);
+        isTimeForBreak.set(false);
+        int breakLength = generateTimeAroundTarget(random, TARGET_BREAK_LENGTH, VARIABILITY_BREAK);
+        isOnBreak.set(true); // Break starts here
 
-            }, breakLength, TimeUnit.SECONDS); // Schedule the end of the break after breakLength seconds
+        // Schedule the end of the break
+        endBreakFuture = tickScheduler.schedule(() -> {
+            isOnBreak.set(false); // Break ends here
+            accumulatedBreakTime += breakLength;
+            // Schedule the next break without checking accumulatedBreakTime
+            scheduleBreak(random);
 
-        }, timeBeforeBreak, TimeUnit.SECONDS); // Schedule the start of the break after timeBeforeBreak seconds
+        }, breakLength, TimeUnit.SECONDS); // Schedule the end of the break after breakLength seconds
     }
 
     private int generateTimeAroundTarget(Random random, int target, int variability) {
@@ -134,7 +131,7 @@ public class BreakHandlerService implements IHandlerService {
     public void disable() {
         this.isEnabled = false;
         if (nextBreakFuture != null && !nextBreakFuture.isDone()) {
-            nextBreakFuture.cancel(true);  // Cancel the scheduled break
+            nextBreakFuture.cancel();  // Cancel the scheduled break
         }
     }
 
@@ -171,8 +168,8 @@ public class BreakHandlerService implements IHandlerService {
         handler.isOnBreak.set(true); // Set the handler to "on break"
 
         // Schedule the forced break as the next break
-        handler.nextBreakFuture = handler.executorService.schedule(() -> {
-            handler.endBreakFuture = handler.executorService.schedule(() -> {
+        handler.nextBreakFuture = handler.tickScheduler.schedule(() -> {
+            handler.endBreakFuture = handler.tickScheduler.schedule(() -> {
                 System.out.println("forceBreak is done for: " + deviceID);
                 handler.isOnBreak.set(false); // End the break
                 handler.accumulatedBreakTime += (int) TimeUnit.MILLISECONDS.toSeconds(durationMs);
@@ -3,6 +3,7 @@ package helpers.services;
 import helpers.DiscordWebhook;
 import helpers.GetGameView;
 import helpers.ThreadManager;
+import helpers.TickScheduler;
 import org.opencv.core.Mat;
 import org.opencv.imgcodecs.Imgcodecs;
 import osr.mapping.Player;
@@ -17,12 +18,15 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class LeveledupService {
+    // The level up check reads the screen, so it runs on new frames at most this often
+    private static final long CHECK_INTERVAL_MS = 200;
+
     private final Player player;
     private final DiscordWebhook discordWebhook;
     private final GetGameView getGameView;
     private final ConcurrentHashMap<String, LeveledupService> levelServices = new ConcurrentHashMap<>();
-    private ScheduledFuture<?> periodicTask;
-    private final ScheduledExecutorService executorService = ThreadManager.getInstance().getScheduler();
+    private TickScheduler.TickTask periodicTask;
+    private final TickScheduler tickScheduler = ThreadManager.getInstance().getTickScheduler();
     private final AtomicBoolean leveledUpSent = new AtomicBoolean(false);
 
     public LeveledupService(Player player, DiscordWebhook discordWebhook, GetGameView getGameView) {
@@ -36,7 +40,7 @@ public class LeveledupService {
     }
 
     private void startPeriodicUpdate(String device) {
-        periodicTask = executorService.scheduleAtFixedRate(() -> {
+        periodicTask = tickScheduler.scheduleOnFrame(device, () -> {
             boolean leveledUp = player.leveledUp(device);
             if (leveledUp) {
                 if (!leveledUpSent.get()) {
@@ -51,7 +55,7 @@ public class LeveledupService {
             } else {
                 leveledUpSent.set(false);
             }
-        }, 0, 200, TimeUnit.MILLISECONDS);
+        }, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
     // Static method to get or create a RuntimeService instance for a given ID
@@ -67,7 +71,7 @@ public class LeveledupService {
     // Stops the periodic update task and shuts down the executor
     private void stopPeriodicUpdate() {
         if (periodicTask != null && !periodicTask.isCancelled()) {
-            periodicTask.cancel(true);  // Cancel the task for this specific device
+            periodicTask.cancel();  // Cancel the task for this specific device
         }
     }
 
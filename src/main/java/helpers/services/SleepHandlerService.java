@@ -2,6 +2,7 @@ package helpers.services;
 
 import helpers.Logger;
 import helpers.ThreadManager;
+import helpers.TickScheduler;
 import helpers.services.utils.IHandlerService;
 import helpers.services.utils.SleepServiceSettings;
 
@@ -12,7 +13,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class SleepHandlerService implements IHandlerService {
     private final SleepServiceSettings sleepHandlerSettings;
     private final Logger logger;
-    private final ScheduledExecutorService executorService = ThreadManager.getInstance().getScheduler();
+    private final TickScheduler tickScheduler = ThreadManager.getInstance().getTickScheduler();
     private final AtomicBoolean isActive = new AtomicBoolean(true);
 
     private final ConcurrentHashMap<String, SleepHandlerService> handlers = new ConcurrentHashMap<>();
@@ -26,8 +27,8 @@ public class SleepHandlerService implements IHandlerService {
     private final AtomicBoolean isSleeping = new AtomicBoolean(false);
     private final AtomicBoolean postponeSleep = new AtomicBoolean(false);
     private final AtomicBoolean isTimeForSleep = new AtomicBoolean(false);
-    private ScheduledFuture<?> nextBreakFuture;
-    private ScheduledFuture<?> endBreakFuture;
+    private TickScheduler.TickTask nextBreakFuture;
+    private TickScheduler.TickTask endBreakFuture;
     private boolean isEnabled = true;
 
     private String deviceName = "none";
@@ -66,10 +67,10 @@ public class SleepHandlerService implements IHandlerService {
 
     private void sleepManager() {
         Random breakRandom = new Random(uniqueIdentifier);
-        scheduleSleep(executorService, breakRandom);
+        scheduleSleep(breakRandom);
     }
 
-    private void scheduleSleep(ScheduledExecutorService executorService, Random random) {
+    private void scheduleSleep(Random random) {
         if (isSleeping.get() || (nextBreakFuture != null && !nextBreakFuture.isDone())) {
             return;
         }
@@ -78,35 +79,31 @@ public class SleepHandlerService implements IHandlerService {
         logger.log("We will sleep next in: " + prettyPrintTimeInMinutes(timeBeforeBreak), deviceName);
 
         // Schedule the start of the break
-        nextBreakFuture = executorService.schedule(() -> {
-            isTimeForSleep.set(true);
-
-            // Wait until postponeBreak is cleared
-            while (postponeSleep.get() && isActive.get()) {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    isTimeForSleep.set(false);
-                    return;
-                }
-            }
+        nextBreakFuture = tickScheduler.schedule(() -> startSleep(random), timeBeforeBreak, TimeUnit.SECONDS);
+    }
 
-            isTimeForSleep.set(false);
-            int sleepLenght = generateTimeAroundTarget(random, TARGET_SLEEP_LENGTH, VARIABILITY_SLEEP);
-            logger.log("Starting to sleep for: " + prettyPrintTimeInMinutes(sleepLenght), deviceName);
-            isSleeping.set(true); // Sleep starts here
+    private void startSleep(Random random) {
+        isTimeForSleep.set(true);
+
+        // Check again in a second while the sleep is postponed, instead of holding a thread until it is cleared
+        if (postponeSleep.get() && isActive.get()) {
+            nextBreakFuture = tickScheduler.schedule(() -> startSleep(random), 1, TimeUnit.SECONDS);
+            return;
+        }
 
-            // Schedule the end of the break
-            endBreakFuture = executorService.schedule(() -> {
-                isSleeping.set(false); // Break ends here
-                accumulatedBreakTime += sleepLenght;
-                // Schedule the next break without checking accumulatedBreakTime
-                scheduleSleep(executorService, random);
+        isTimeForSleep.set(false);
+        int sleepLenght = generateTimeAroundTarget(random, TARGET_SLEEP_LENGTH, VARIABILITY_SLEEP);
+        logger.log("Starting to sleep for: " + prettyPrintTimeInMinutes(sleepLenght), deviceName);
+        isSleeping.set(true); // Sleep starts here
 
-            }, sleepLenght, TimeUnit.SECONDS); // Schedule the end of the break after sleepLenght seconds
+        // Schedule the end of the break
+        endBreakFuture = tickScheduler.schedule(() -> {
+            isSleeping.set(false); // Break ends here
+            accumulatedBreakTime += sleepLenght;
+            // Schedule the next break without checking accumulatedBreakTime
+            scheduleSleep(random);
 
-        }, timeBeforeBreak, TimeUnit.SECONDS); // Schedule the start of the break after timeBeforeBreak seconds
+        }, sleepLenght, TimeUnit.SECONDS); // Schedule the end of the break after sleepLenght seconds
     }
 
     private int generateTimeAroundTarget(Random random, int target, int variability) {
@@ -145,7 +142,7 @@ public class SleepHandlerService implements IHandlerService {
     public void disable() {
         this.isEnabled = false;
         if (nextBreakFuture != null && !nextBreakFuture.isDone()) {
-            nextBreakFuture.cancel(true);  // Cancel the scheduled break
+            nextBreakFuture.cancel();  // Cancel the scheduled break
         }
     }
 
@@ -182,8 +179,8 @@ public class SleepHandlerService implements IHandlerService {
         handler.isSleeping.set(true); // Set the handler to "on break"
 
         // Schedule the forced break as the next break
-        handler.nextBreakFuture = handler.executorService.schedule(() -> {
-            handler.endBreakFuture = handler.executorService.schedule(() -> {
+        handler.nextBreakFuture = handler.tickScheduler.schedule(() -> {
+            handler.endBreakFuture = handler.tickScheduler.schedule(() -> {
                 System.out.println("forceBreak is done for: " + deviceID);
                 handler.isSleeping.set(false); // End the break
                 handler.accumulatedBreakTime += (int) TimeUnit.MILLISECONDS.toSeconds(durationMs);
@@ -0,0 +1,122 @@
+package helpers.utils;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single captured gameview frame, shared between the frame store and its readers.
+ * The BufferedImage and the Mat are filled once when the frame is captured and must not be modified afterward.
+ * Frames are reference counted: the store holds one reference while the frame is in its ring,
+ * and every reader from {@link GameviewCache#acquireFrame(String)} holds one until it calls {@link #close()}.
+ * The native Mat memory is released once the last reference is gone.
+ */
+public class Frame implements AutoCloseable {
+    private final long version;
+    private final long captureTimeMillis;
+    private final BufferedImage image;
+    private final Mat mat;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    public Frame(long version, BufferedImage image, Mat mat) {
+        this.version = version;
+        this.captureTimeMillis = System.currentTimeMillis();
+        this.image = image;
+        this.mat = mat;
+    }
+
+    /**
+     * The per-device sequence number of this frame, increasing by one for each stored frame.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCaptureTimeMillis() {
+        return captureTimeMillis;
+    }
+
+    public int getWidth() {
+        return mat.cols();
+    }
+
+    public int getHeight() {
+        return mat.rows();
+    }
+
+    /**
+     * The frame as a BufferedImage. Shared, do not draw on it.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * The frame as a BGR Mat. Shared, do not modify or release it.
+     */
+    public Mat getMat() {
+        return mat;
+    }
+
+    /**
+     * Returns a view on a region of the frame without copying pixels.
+     * The region is clamped to the frame bounds. The view shares the frame's pixels and must not be modified,
+     * it stays valid after the frame is closed because OpenCV reference counts the pixel data.
+     *
+     * @param region The requested region.
+     * @return A view on the region, or an empty Mat if the region lies outside the frame.
+     */
+    public Mat roi(Rect region) {
+        Rect bounded = clamp(region);
+        if (bounded == null) {
+            return new Mat();
+        }
+        return mat.submat(bounded);
+    }
+
+    /**
+     * Clamps a region to the frame bounds.
+     *
+     * @param region The requested region.
+     * @return The clamped region, or null if nothing of it lies inside the frame.
+     */
+    public Rect clamp(Rect region) {
+        int x = Math.max(region.x, 0);
+        int y = Math.max(region.y, 0);
+        int width = Math.min(region.x + region.width, mat.cols()) - x;
+        int height = Math.min(region.y + region.height, mat.rows()) - y;
+
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        return new Rect(x, y, width, height);
+    }
+
+    /**
+     * Takes an extra reference on the frame.
+     *
+     * @return false if the frame was already released and can no longer be used.
+     */
+    boolean retain() {
+        int current;
+        do {
+            current = references.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Drops a reference on the frame, releasing the native memory when it was the last one.
+     */
+    @Override
+    public void close() {
+        if (references.decrementAndGet() == 0) {
+            mat.release();
+        }
+    }
+}
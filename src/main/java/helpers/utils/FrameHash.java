@@ -0,0 +1,111 @@
+package helpers.utils;
+
+import java.awt.image.*;
+
+/**
+ * Fast 64-bit content hash (FNV-1a) for captured frames and regions of them,
+ * used to detect frames and regions that did not change.
+ */
+public final class FrameHash {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private FrameHash() {
+
+    }
+
+    /**
+     * Hashes the pixel data of an image. Byte and int backed images hash their backing array directly,
+     * sub images (as returned by getSubimage) hash only the rows and columns they cover.
+     *
+     * @param image The image to hash.
+     * @return The 64-bit hash of the image contents and size.
+     */
+    public static long hash(BufferedImage image) {
+        long hash = mix(OFFSET_BASIS, image.getWidth());
+        hash = mix(hash, image.getHeight());
+
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        SampleModel sampleModel = raster.getSampleModel();
+        if (buffer.getNumBanks() == 1) {
+            if (raster.getParent() == null && buffer instanceof DataBufferByte) {
+                return hash(hash, ((DataBufferByte) buffer).getData());
+            }
+            if (raster.getParent() == null && buffer instanceof DataBufferInt) {
+                return hash(hash, ((DataBufferInt) buffer).getData());
+            }
+
+            int translateX = raster.getSampleModelTranslateX();
+            int translateY = raster.getSampleModelTranslateY();
+            if (buffer instanceof DataBufferByte && sampleModel instanceof ComponentSampleModel) {
+                ComponentSampleModel model = (ComponentSampleModel) sampleModel;
+                byte[] data = ((DataBufferByte) buffer).getData();
+                int rowLength = image.getWidth() * model.getPixelStride();
+                int offset = buffer.getOffset() - translateY * model.getScanlineStride() - translateX * model.getPixelStride();
+                for (int y = 0; y < image.getHeight(); y++) {
+                    hash = hash(hash, data, offset + y * model.getScanlineStride(), rowLength);
+                }
+                return hash;
+            }
+            if (buffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel) {
+                SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) sampleModel;
+                int[] data = ((DataBufferInt) buffer).getData();
+                int offset = buffer.getOffset() - translateY * model.getScanlineStride() - translateX;
+                for (int y = 0; y < image.getHeight(); y++) {
+                    hash = hash(hash, data, offset + y * model.getScanlineStride(), image.getWidth());
+                }
+                return hash;
+            }
+        }
+
+        int[] row = new int[image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, row.length, 1, row, 0, row.length);
+            hash = hash(hash, row);
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes raw pixel bytes, e.g. a region copied out of a Mat.
+     *
+     * @param data The bytes to hash.
+     * @return The 64-bit hash of the bytes and their length.
+     */
+    public static long hash(byte[] data) {
+        return hash(mix(OFFSET_BASIS, data.length), data);
+    }
+
+    private static long hash(long hash, byte[] data) {
+        for (byte value : data) {
+            hash = (hash ^ (value & 0xFF)) * PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, byte[] data, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            hash = (hash ^ (data[i] & 0xFF)) * PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, int[] data) {
+        for (int value : data) {
+            hash = mix(hash, value);
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, int[] data, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            hash = mix(hash, data[i]);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * PRIME;
+    }
+}
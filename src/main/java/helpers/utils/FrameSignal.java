@@ -0,0 +1,81 @@
+package helpers.utils;
+
+import helpers.scripts.CancellationToken;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The frame version of one device, with the threads waiting for it to change.
+ * The capture pipeline publishes every stored frame, which wakes the waiting threads right away,
+ * so a wait for the screen to change neither polls nor sleeps past the frame it waited for.
+ */
+public class FrameSignal {
+    private final AtomicLong assigned = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Assigns the version of a new frame without publishing it yet.
+     * The frame is published with {@link #publish(long)} once it is stored and can be read.
+     *
+     * @return The version for the new frame.
+     */
+    public long nextVersion() {
+        return assigned.incrementAndGet();
+    }
+
+    /**
+     * Makes a stored frame the latest version and wakes every waiting thread.
+     * A version older than the one already published is ignored, so the version never goes back.
+     *
+     * @param published The version of the stored frame.
+     */
+    public void publish(long published) {
+        version.accumulateAndGet(published, Math::max);
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Waits until the version differs from a version seen before, the deadline passes, the token is cancelled
+     * or the thread is interrupted. The interrupt status is left set.
+     *
+     * @param seenVersion   The version the caller has already seen.
+     * @param deadlineNanos The {@link System#nanoTime()} to give up at.
+     * @param token         The token that ends the wait when cancelled, or null.
+     * @return The version when the wait ended, equal to seenVersion if no new frame arrived.
+     */
+    public long awaitChange(long seenVersion, long deadlineNanos, CancellationToken token) {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        if (token != null) {
+            token.addWaiter(current);
+        }
+        try {
+            while (true) {
+                long latest = version.get();
+                if (latest != seenVersion) {
+                    return latest;
+                }
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0 || current.isInterrupted() || (token != null && token.isCancellationRequested())) {
+                    return latest;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            waiters.remove(current);
+            if (token != null) {
+                token.removeWaiter(current);
+            }
+        }
+    }
+}
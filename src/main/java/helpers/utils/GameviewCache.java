@@ -1,7 +1,9 @@
 package helpers.utils;
 
 import helpers.Logger;
+import helpers.ThreadManager;
 import helpers.emulator.utils.CircularBuffer;
+import helpers.scripts.CancellationToken;
 import org.opencv.core.Mat;
 import org.opencv.core.Rect;
 import osr.utils.ImageUtils;
@@ -13,34 +15,42 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * GameviewCache manages the caching of game view images for different devices.
- * It ensures that native memory held by OpenCV Mats is properly managed to prevent memory leaks.
+ * Each captured image is stored once as an immutable, reference counted {@link Frame} holding both the
+ * BufferedImage and the Mat, so native memory is released as soon as a frame leaves the ring and nobody reads it anymore.
  */
 public class GameviewCache {
+    private static final int FRAMES_PER_DEVICE = 5;
+
     private final ImageUtils imageUtils;
     private final Logger logger;
     private final Mat templateMat;
-    private final Map<String, CircularBuffer<BufferedImage>> emulatorBuffers = new ConcurrentHashMap<>();
-    private final Map<String, CircularBuffer<Mat>> matCache = new ConcurrentHashMap<>();
+    private final Map<String, CircularBuffer<Frame>> frameBuffers = new ConcurrentHashMap<>();
+    private final Map<String, FrameSignal> frameSignals = new ConcurrentHashMap<>();
 
     public GameviewCache(ImageUtils imageUtils, Logger logger) {
         this.imageUtils = imageUtils;
         this.logger = logger;
 
-        templateMat = imageUtils.pathToMat("/assets/template.png");
+        templateMat = imageUtils.pathToMat("/assets/template.png").clone(); // Kept for good, the cached one is released on eviction
     }
 
     public void cleanCache(String device) {
-        emulatorBuffers.remove(device);
+        CircularBuffer<Frame> buffer = frameBuffers.remove(device);
+        if (buffer != null) {
+            releaseFrames(buffer);
+        }
     }
 
     public void clearCache() {
-        emulatorBuffers.clear();
+        for (String device : frameBuffers.keySet()) {
+            cleanCache(device);
+        }
     }
 
     public BufferedImage getBuffer(String device) {
-        return emulatorBuffers
-                .computeIfAbsent(device, k -> new CircularBuffer<>(5))
-                .getLatest();
+        CircularBuffer<Frame> buffer = frameBuffers.get(device);
+        Frame frame = buffer == null ? null : buffer.getLatest();
+        return frame == null ? null : frame.getImage();
     }
 
     public BufferedImage getSubBuffer(String device, Rectangle subMatRect) {
@@ -50,6 +60,7 @@ public class GameviewCache {
 
     /**
      * Caches the game view image for a specific device.
+     * The image must not be modified after it is cached.
      *
      * @param device Device identifier.
      * @param image  BufferedImage to cache.
@@ -60,73 +71,126 @@ public class GameviewCache {
             return;
         }
 
-        // Cache BufferedImage
-        emulatorBuffers.computeIfAbsent(device, k -> new CircularBuffer<>(5)).add(image);
+        // The frame is published only once it is stored, a woken waiter must find it when it reads the latest frame
+        FrameSignal signal = getFrameSignal(device);
+        Frame frame = new Frame(signal.nextVersion(), image, imageUtils.bufferedImageToMat(image));
 
-        // Convert to Mat and cache it
-        CircularBuffer<Mat> matBuffer = matCache.computeIfAbsent(device, k -> new CircularBuffer<>(5));
-        Mat newMat = imageUtils.bufferedImageToMat(image);
+        Frame replaced = frameBuffers
+                .computeIfAbsent(device, k -> new CircularBuffer<>(FRAMES_PER_DEVICE))
+                .addAndGetReplaced(frame);
+        if (replaced != null) {
+            replaced.close(); // Drop the cache's reference, readers still holding it keep it alive
+        }
+        signal.publish(frame.getVersion());
+
+        ThreadManager.getInstance().getTickScheduler().onFrame(device);
+    }
 
-        synchronized (matBuffer) {
-            Mat oldMat = matBuffer.addAndGetReplaced(newMat); // Add new Mat and get replaced one
-            if (oldMat != null) {
-                oldMat.release(); // Safely release the replaced Mat
+    /**
+     * Returns the latest frame for a device with an extra reference held for the caller.
+     * The caller must close the frame when done, preferably with try-with-resources.
+     * Use this instead of {@link #getGameview(String)} or {@link #getSubMat(String, Rect)} to read pixels without copying.
+     *
+     * @param device Device identifier.
+     * @return The latest frame, or null if no frame was captured yet.
+     */
+    public Frame acquireFrame(String device) {
+        CircularBuffer<Frame> buffer = frameBuffers.get(device);
+        if (buffer == null) {
+            return null;
+        }
+
+        // The frame can be evicted between reading and retaining it, in which case a newer one is available
+        for (int attempt = 0; attempt < FRAMES_PER_DEVICE; attempt++) {
+            Frame frame = buffer.getLatest();
+            if (frame == null) {
+                return null;
+            }
+            if (frame.retain()) {
+                return frame;
             }
         }
+        return null;
+    }
+
+    /**
+     * Returns the version of the latest cached frame for a device.
+     *
+     * @param device Device identifier.
+     * @return The frame version, or 0 if no frame was captured yet.
+     */
+    public long getFrameVersion(String device) {
+        FrameSignal signal = frameSignals.get(device);
+        return signal == null ? 0 : signal.getVersion();
+    }
+
+    /**
+     * Waits for a frame newer than one already seen, see {@link FrameSignal#awaitChange(long, long, CancellationToken)}.
+     *
+     * @param device        Device identifier.
+     * @param seenVersion   The frame version the caller has already seen.
+     * @param deadlineNanos The {@link System#nanoTime()} to give up at.
+     * @param token         The token that ends the wait when cancelled, or null.
+     * @return The latest frame version, equal to seenVersion if no new frame arrived.
+     */
+    public long awaitNewFrame(String device, long seenVersion, long deadlineNanos, CancellationToken token) {
+        return getFrameSignal(device).awaitChange(seenVersion, deadlineNanos, token);
+    }
+
+    private FrameSignal getFrameSignal(String device) {
+        return frameSignals.computeIfAbsent(device, k -> new FrameSignal());
     }
 
     /**
      * Retrieves the cached game view as a Mat for a specific device.
      *
      * @param device Device identifier.
-     * @return Cached Mat, or the templateMat if not available.
+     * @return A copy of the cached Mat that the caller owns, or the templateMat if not available.
      */
     public Mat getGameview(String device) {
-        CircularBuffer<Mat> buffer = matCache.get(device);
-        if (buffer == null) {
-            logger.print("No cached gameview available for device: " + device);
-            return templateMat.clone();
-        }
-
-        synchronized (buffer) {
-            Mat latestMat = buffer.getLatest();
-            if (latestMat == null) {
+        try (Frame frame = acquireFrame(device)) {
+            if (frame == null) {
                 logger.print("No cached gameview available for device: " + device);
                 return templateMat.clone();
             }
-            return latestMat.clone(); // Clone the Mat for safe external use
+            return frame.getMat().clone(); // Clone the Mat for safe external use
         }
     }
 
+    /**
+     * Retrieves a region of the cached game view. Only the region is copied, not the full frame.
+     *
+     * @param device Device identifier.
+     * @param subMat The region, clamped to the frame bounds.
+     * @return A copy of the region that the caller owns, or the templateMat if no frame is available.
+     */
     public Mat getSubMat(String device, Rect subMat) {
-        CircularBuffer<Mat> buffer = matCache.get(device);
-        if (buffer == null) {
-            logger.print("No valid cached gameview available for device: " + device);
-            return templateMat.clone();
-        }
-
-        Mat matImage;
-        synchronized (buffer) {
-            matImage = buffer.getLatest();
-            if (matImage == null || matImage.empty()) {
+        try (Frame frame = acquireFrame(device)) {
+            if (frame == null || frame.getMat().empty()) {
                 logger.print("No valid cached gameview or cached gameview is empty for device: " + device);
                 return templateMat.clone();
             }
-            matImage = matImage.clone();
-        }
 
-        // Adjust subMat to fit within the Mat's bounds
-        int x = Math.max(subMat.x, 0);
-        int y = Math.max(subMat.y, 0);
-        int width = Math.min(subMat.width, matImage.cols() - x);
-        int height = Math.min(subMat.height, matImage.rows() - y);
+            Rect boundedRect = frame.clamp(subMat);
+            if (boundedRect == null) {
+                logger.print("Adjusted ROI is invalid. Original ROI: " + subMat);
+                return new Mat(); // Return an empty Mat if the ROI is invalid
+            }
 
-        if (width <= 0 || height <= 0) {
-            logger.print("Adjusted ROI is invalid. Original ROI: " + subMat);
-            return new Mat(); // Return an empty Mat if the ROI is invalid
+            Mat view = frame.getMat().submat(boundedRect);
+            Mat copy = view.clone();
+            view.release();
+            return copy;
         }
+    }
 
-        Rect boundedRect = new Rect(x, y, width, height);
-        return matImage.submat(boundedRect);
+    private void releaseFrames(CircularBuffer<Frame> buffer) {
+        Frame replaced;
+        for (int i = 0; i < FRAMES_PER_DEVICE; i++) {
+            replaced = buffer.addAndGetReplaced(null);
+            if (replaced != null) {
+                replaced.close();
+            }
+        }
     }
-}
\ No newline at end of file
+}
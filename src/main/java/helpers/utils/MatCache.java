@@ -0,0 +1,78 @@
+package helpers.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.opencv.core.Mat;
+import org.opencv.core.Range;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Images by name, weighed by their pixel bytes so the {@link MemoryGovernor} can bound the cache.
+ * <p>
+ * Each entry holds two headers on the same pixels: one the cache owns and releases when the entry leaves the cache,
+ * and one that every get hands out. Handing out the same header keeps the Mat usable as a key, e.g. for the prepared
+ * templates, and since OpenCV reference counts the pixels a Mat that was handed out stays valid after its entry is
+ * evicted. Its pixels are freed once that header is collected as well.
+ * The handed-out Mat is shared by every caller, so callers must neither release nor modify it.
+ */
+public class MatCache {
+    private final Cache<String, CachedMat> images;
+
+    public MatCache(long expireAfterAccessMinutes) {
+        images = Caffeine.newBuilder()
+                .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+                .maximumWeight(Long.MAX_VALUE) // The memory governor sets the budget
+                .weigher((String key, CachedMat cached) -> weigh(cached.own))
+                .removalListener((String key, CachedMat cached, RemovalCause cause) -> {
+                    if (cached != null) {
+                        cached.own.release(); // A handed out header keeps the pixels for as long as it is used
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return The cached image, the same Mat on every get of an entry, or null if it isn't cached.
+     */
+    public Mat get(String name) {
+        CachedMat cached = images.getIfPresent(name);
+        return cached == null ? null : cached.shared;
+    }
+
+    /**
+     * Caches an image, unless another thread cached one under the name first.
+     * The cache takes over the Mat it is given and releases it, use the returned Mat instead.
+     *
+     * @return The cached image, the one handed out by later gets.
+     */
+    public Mat put(String name, Mat mat) {
+        CachedMat cached = images.asMap().computeIfAbsent(name, key -> new CachedMat(mat));
+        mat.release(); // The cached headers hold the pixels, or they belong to the image cached first
+        return cached.shared;
+    }
+
+    public void remove(String name) {
+        images.invalidate(name);
+    }
+
+    public Cache<String, ?> getCache() {
+        return images;
+    }
+
+    private static int weigh(Mat mat) {
+        return (int) Math.min(Integer.MAX_VALUE, mat.total() * mat.elemSize());
+    }
+
+    private static class CachedMat {
+        private final Mat own;
+        private final Mat shared;
+
+        CachedMat(Mat mat) {
+            this.own = mat.empty() ? new Mat() : new Mat(mat, Range.all());
+            this.shared = mat.empty() ? new Mat() : new Mat(mat, Range.all());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package helpers.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shrinks the byte budgets of weighted caches while the client is short on memory and grows them back afterwards.
+ * A check counts as pressure when the Java heap is nearly full or the machine is nearly out of physical memory,
+ * the latter matters because the images in the caches live in native memory the heap doesn't see.
+ * <p>
+ * Every check under pressure halves the budgets, down to an eighth of what the caches were registered with.
+ * Every check without pressure doubles them again, up to the registered budgets.
+ */
+public class MemoryGovernor {
+    private static final double HEAP_PRESSURE_RATIO = 0.85;
+    private static final double SYSTEM_FREE_RATIO = 0.05;
+    private static final int MAX_SHRINK_STEPS = 3;
+
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+    private volatile int shrinkSteps = 0;
+
+    /**
+     * Puts a cache built with a maximum weight under the governor.
+     *
+     * @param name  The name of the cache, used in the stats.
+     * @param cache The cache.
+     * @param bytes The budget of the cache in bytes when there is no memory pressure.
+     */
+    public void register(String name, Cache<?, ?> cache, long bytes) {
+        Policy.Eviction<?, ?> eviction = cache.policy().eviction()
+                .orElseThrow(() -> new IllegalArgumentException("Cache " + name + " has no maximum weight"));
+        budgets.put(name, new Budget(eviction, bytes));
+        apply(budgets.get(name));
+    }
+
+    /**
+     * Checks the memory usage and adjusts the budgets. Called periodically.
+     */
+    public void check() {
+        int steps = shrinkSteps;
+        int next = isUnderPressure() ? Math.min(MAX_SHRINK_STEPS, steps + 1) : Math.max(0, steps - 1);
+        if (next != steps) {
+            shrinkSteps = next;
+            budgets.values().forEach(this::apply);
+        }
+    }
+
+    /**
+     * @return How many times the budgets are currently halved, 0 without memory pressure.
+     */
+    public int getShrinkSteps() {
+        return shrinkSteps;
+    }
+
+    /**
+     * @return The current budget of a registered cache in bytes, or 0 if no cache has that name.
+     */
+    public long getBudget(String name) {
+        Budget budget = budgets.get(name);
+        return budget == null ? 0 : budget.eviction.getMaximum();
+    }
+
+    /**
+     * @return The bytes held by a registered cache, or 0 if no cache has that name.
+     */
+    public long getWeightedSize(String name) {
+        Budget budget = budgets.get(name);
+        return budget == null ? 0 : budget.eviction.weightedSize().orElse(0);
+    }
+
+    /**
+     * @return The bytes held by all registered caches.
+     */
+    public long getTotalWeightedSize() {
+        long total = 0;
+        for (Budget budget : budgets.values()) {
+            total += budget.eviction.weightedSize().orElse(0);
+        }
+        return total;
+    }
+
+    private void apply(Budget budget) {
+        budget.eviction.setMaximum(budget.bytes >> shrinkSteps);
+    }
+
+    private static boolean isUnderPressure() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        if (used > runtime.maxMemory() * HEAP_PRESSURE_RATIO) {
+            return true;
+        }
+
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            com.sun.management.OperatingSystemMXBean system = (com.sun.management.OperatingSystemMXBean) os;
+            long total = system.getTotalMemorySize();
+            return total > 0 && system.getFreeMemorySize() < total * SYSTEM_FREE_RATIO;
+        }
+        return false;
+    }
+
+    private static class Budget {
+        private final Policy.Eviction<?, ?> eviction;
+        private final long bytes;
+
+        Budget(Policy.Eviction<?, ?> eviction, long bytes) {
+            this.eviction = eviction;
+            this.bytes = bytes;
+        }
+    }
+}
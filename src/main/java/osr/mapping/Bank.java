@@ -323,7 +323,7 @@ public class Bank {
         if (cachedItemRect != null) {
             logger.devLog("Using cached item stack location for itemID: " + itemID + " on device: " + device);
             BufferedImage cachedRoiImage = getGameView.getSubBuffered(device, cachedItemRect);
-            return digitReader.findAllDigits(0, cachedRoiImage, stackColors, cacheManager.getDigitPatterns());
+            return digitReader.findAllDigits(device, 0, cachedRoiImage, stackColors, cacheManager.getDigitPatterns());
         }
 
         Mat itemImage = itemProcessor.getItemImage(itemID);
@@ -360,7 +360,7 @@ public class Bank {
             // Cache the adjusted rectangle for future lookups
             cacheManager.setBankItemStackPositionCache(cacheKey, adjustedItemRect);
 
-            return digitReader.findAllDigits(0, adjustedRoiImage, stackColors, cacheManager.getDigitPatterns());
+            return digitReader.findAllDigits(device, 0, adjustedRoiImage, stackColors, cacheManager.getDigitPatterns());
         } else {
             logger.devLog("Item not found in the cropped area for itemID: " + itemID + " on device: " + device);
         }
@@ -617,7 +617,7 @@ public class Bank {
         BufferedImage searchROI = getGameView.getSubBuffered(device, new Rectangle(searchArea.x, searchArea.y, searchArea.width, searchArea.height));
 
         // Find all digits within the search area
-        List<Map.Entry<Integer, List<Point>>> digitsWithCoords = digitReader.findAllPlusCoords(tolerance, searchROI, pinColor, cacheManager.getBankpinDigitPatterns());
+        List<Map.Entry<Integer, List<Point>>> digitsWithCoords = digitReader.findAllPlusCoords(device, tolerance, searchROI, pinColor, cacheManager.getBankpinDigitPatterns());
 
         // Associate each digit with the correct tile
         List<Map.Entry<Integer, Rectangle>> digitTileAssociations = new ArrayList<>();
@@ -254,7 +254,7 @@ public class Chatbox {
             // Ensure all Mat objects are released
             if (imageToSearchIn != null) imageToSearchIn.release();
             if (subImage != null) subImage.release();
-            if (leftItemCorner != null) leftItemCorner.release();
+            // leftItemCorner is owned by the image cache
             if (leftItemCornerBGR != leftItemCorner) leftItemCornerBGR.release();
             if (!mask.empty()) mask.release();
         }
@@ -432,7 +432,7 @@ public class Chatbox {
             // Ensure all Mat objects are released
             if (imageToSearchIn != null) imageToSearchIn.release();
             if (subImage != null) subImage.release();
-            if (leftItemCorner != null) leftItemCorner.release();
+            // leftItemCorner is owned by the image cache
             if (leftItemCornerBGR != null && leftItemCornerBGR != leftItemCorner) leftItemCornerBGR.release();
             if (!mask.empty()) mask.release();
         }
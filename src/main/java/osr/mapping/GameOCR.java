@@ -1,11 +1,15 @@
 package osr.mapping;
 
 import helpers.CacheManager;
+import helpers.Color.utils.BitMask;
 import helpers.GetGameView;
 import helpers.Logger;
 import helpers.OCR.DigitReader;
+import helpers.OCR.GlyphMatcher;
 import helpers.OCR.cfOCR;
 import helpers.OCR.utils.FontName;
+import helpers.OCR.utils.OCRCacheKey;
+import helpers.utils.FrameHash;
 import helpers.visualFeedback.FeedbackObservables;
 
 import java.awt.*;
@@ -36,14 +40,23 @@ public class GameOCR {
                 return logAndReturn("Failed to load game view for emulator: " + emulatorId, "No result found as gameview is null");
             }
 
-            switch (font) {
-                case NONE:
-                    return logAndReturn("Font is NONE, skipping OCR.", "No results as font is NONE");
-                case ANY:
-                    return performOcrForMultipleFonts(emulatorId, regionToOCR, colors);
-                default:
-                    return performOcr(bufferedImage, font, colors);
+            if (font == FontName.NONE) {
+                return logAndReturn("Font is NONE, skipping OCR.", "No results as font is NONE");
             }
+
+            // Unchanged regions return the previous result without matching glyphs again
+            OCRCacheKey key = new OCRCacheKey(emulatorId, regionToOCR, "text:" + font.name(), 0, colors, null,
+                    bufferedImage.getWidth(), bufferedImage.getHeight(), FrameHash.hash(bufferedImage));
+            String cached = (String) cacheManager.getOcrResult(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            String result = font == FontName.ANY
+                    ? performOcrForMultipleFonts(bufferedImage, colors)
+                    : performOcr(bufferedImage, font, colors);
+            cacheManager.setOcrResult(key, result);
+            return result;
         } catch (Exception e) {
             return logAndReturn("Error during OCR: " + e.getMessage(), "Error during OCR");
         }
@@ -61,9 +74,12 @@ public class GameOCR {
     }
 
     // Handles OCR processing for multiple fonts (when font == ANY)
-    private String performOcrForMultipleFonts(String emulatorId, Rectangle regionToOCR, List<Color> colors) {
+    private String performOcrForMultipleFonts(BufferedImage bufferedImage, List<Color> colors) {
         logger.devLog("Performing OCR with all major fonts.");
 
+        // Binarize the region once and read it with every font
+        BitMask ink = GlyphMatcher.binarize(bufferedImage, colors, 0);
+
         List<FontName> fontsToTest = Arrays.asList(
                 FontName.BOLD_12, FontName.PLAIN_11, FontName.PLAIN_12, FontName.QUILL, FontName.QUILL_8
         );
@@ -72,7 +88,7 @@ public class GameOCR {
 
         for (FontName testFont : fontsToTest) {
             long startTime = System.currentTimeMillis();
-            String result = readText(emulatorId, regionToOCR, testFont, colors);
+            String result = cfOCR.findAllPatternsInMask(ink, testFont);
             long elapsedTime = System.currentTimeMillis() - startTime;
 
             results.put(testFont, result);
@@ -105,7 +121,17 @@ public class GameOCR {
                 logger.devLog("Failed to load the game view image for emulator: " + emulatorId);
                 return null;
             }
-            return cfOCR.findAllPatternsInImage(0, bufferedImage, ChatTextColors, FontName.PLAIN_12);
+
+            OCRCacheKey key = new OCRCacheKey(emulatorId, regionToOCR, "chatbox", 0, ChatTextColors, null,
+                    bufferedImage.getWidth(), bufferedImage.getHeight(), FrameHash.hash(bufferedImage));
+            String cached = (String) cacheManager.getOcrResult(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            String result = cfOCR.findAllPatternsInImage(0, bufferedImage, ChatTextColors, FontName.PLAIN_12);
+            cacheManager.setOcrResult(key, result);
+            return result;
         } catch (Exception e) {
             logger.devLog("Error during OCR: " + e.getMessage());
             return null;
@@ -120,7 +146,7 @@ public class GameOCR {
         BufferedImage image = getGameView.getSubBuffered(emulatorId, areaToOCR);
 
         // Find digits in the Mat
-        int digitsFound = digitReader.findAllDigits(5, image, colorsToScan, cacheManager.getDigitPatterns());
+        int digitsFound = digitReader.findAllDigits(emulatorId, 5, image, colorsToScan, cacheManager.getDigitPatterns());
 
         // Check if any digits were found
         if (digitsFound == 0) {
@@ -270,7 +270,7 @@ public class Interfaces {
         }
 
         // Use colorFinder to detect and return the stack size
-        return digitReader.findAllDigits(0, gameScreen, stackColors, cacheManager.getDigitPatterns());
+        return digitReader.findAllDigits(device, 0, gameScreen, stackColors, cacheManager.getDigitPatterns());
     }
 
     public Integer readCustomStackSize(Rectangle roi, List<Color> textColors, Map<String, int[][]> digitPatterns, String device) {
@@ -283,7 +283,7 @@ public class Interfaces {
         }
 
         // Use colorFinder to detect and return the stack size using the provided digitPatterns
-        return digitReader.findAllDigits(0, gameScreen, textColors, digitPatterns);
+        return digitReader.findAllDigits(device, 0, gameScreen, textColors, digitPatterns);
     }
 
     public int readCustomDigitsInArea(Rectangle roi, List<Color> textColors, Map<String, int[][]> digitPatterns, String device) {
@@ -296,7 +296,7 @@ public class Interfaces {
         }
 
         // Use colorFinder to detect and return the stack size using the provided digitPatterns
-        return digitReader.findAllDigits(0, gameScreen, textColors, digitPatterns);
+        return digitReader.findAllDigits(device, 0, gameScreen, textColors, digitPatterns);
     }
 
     public String readCustomLettersInArea(Rectangle roi, List<Color> textColors, Map<String, int[][]> letterPatterns, String device) {
@@ -309,7 +309,7 @@ public class Interfaces {
         }
 
         // Use colorFinder to detect and return the string using the provided letterPatterns
-        return digitReader.findAllLetters(0, gameScreen, textColors, letterPatterns);
+        return digitReader.findAllLetters(device, 0, gameScreen, textColors, letterPatterns);
     }
 
     public boolean isSelectedMake(String device, String buttonType) {
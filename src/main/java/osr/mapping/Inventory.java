@@ -13,6 +13,8 @@ import org.opencv.core.Mat;
 import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
 import org.opencv.imgproc.Imgproc;
+import osr.mapping.utils.InventorySlotMatcher;
+import osr.mapping.utils.InventorySlots;
 import osr.mapping.utils.ItemProcessor;
 import scripts.APIClasses.ClientAPI;
 import scripts.ScriptInfo;
@@ -67,6 +69,7 @@ public class Inventory {
     private final ItemProcessor itemProcessor;
     private final ColorFinder colorFinder;
     private final DigitReader digitReader;
+    private final InventorySlotMatcher slotMatcher;
     private final List<Color> stackColors = Arrays.asList(
             Color.decode("#fefe00"),
             Color.decode("#fefefe"),
@@ -88,6 +91,7 @@ public class Inventory {
         this.scriptInfo = scriptInfo;
         this.itemProcessor = itemProcessor;
         this.digitReader = digitReader;
+        this.slotMatcher = new InventorySlotMatcher(getGameView, itemProcessor::getItemImage, SLOT_BOXES, INVENTORY_RECT, EMPTY_SLOT_THRESHOLD);
     }
 
     private Mat getInventoryImage(String device) {
@@ -190,6 +194,20 @@ public class Inventory {
         }
     }
 
+    /**
+     * Matches the items against the inventory of the latest frame once and tells which slots hold them.
+     * An item is in a slot when a match of it overlapping the slot reaches the threshold, the whole inventory search
+     * finds it exactly when some slot holds it. Use this to check several items, slots or thresholds on the same inventory.
+     *
+     * @param device    The device.
+     * @param itemIDs   The items to look for.
+     * @param threshold The minimum match score.
+     * @return Which of the items each slot holds.
+     */
+    public InventorySlots scanSlots(String device, int[] itemIDs, double threshold) {
+        return slotMatcher.scan(device, itemIDs, threshold);
+    }
+
     private int countInventorySlots(String device, boolean countUsed) {
         int usedSlots = 0;
         if (gameTabs.isTabOpen(device, "Inventory")) {
@@ -373,6 +391,17 @@ public class Inventory {
         return containsItems(device, itemIDs, threshold, targetColor, exclusionColor);
     }
 
+    public boolean containsAll(String device, int[] itemIDs, double threshold) {
+        InventorySlots slots = scanSlots(device, itemIDs, threshold);
+        for (int itemID : itemIDs) {
+            if (!slots.contains(itemID)) {
+                logger.devLog("No match found for item ID: " + itemID);
+                return false;
+            }
+        }
+        return true;
+    }
+
     // Consolidated method to handle both types of itemID arrays
     private boolean containsItems(String device, int[] itemIDs, double threshold, Color targetColor, Color exclusionColor) {
         logger.devLog("Checking inventory for items. Device ID: " + device + ", Threshold: " + threshold);
@@ -661,7 +690,7 @@ public class Inventory {
             Rectangle adjustedRect = new Rectangle(newX, newY, newWidth, newHeight);
             BufferedImage adjustedRoiImage = getGameView.getSubBuffered(device, adjustedRect);
 
-            return digitReader.findAllDigits(0, adjustedRoiImage, stackColors, cacheManager.getDigitPatterns());
+            return digitReader.findAllDigits(device, 0, adjustedRoiImage, stackColors, cacheManager.getDigitPatterns());
         } else {
             logger.devLog("No match found.");
         }
@@ -119,8 +119,7 @@ public class Magic {
             logger.devLog("An error occurred while processing spell: " + spellName + " - " + e.getMessage());
         } finally {
             // Release Mat objects
-            if (imageToFind != null) imageToFind.release();
-            if (scaledImageToFind != null) scaledImageToFind.release();
+            // imageToFind and scaledImageToFind are owned by the image cache
             if (imageToFindIn != null) imageToFindIn.release();
             if (imageToFindInRoi != null) imageToFindInRoi.release();
             if (colorImageToFind != null) colorImageToFind.release();
@@ -217,8 +216,7 @@ public class Magic {
             logger.devLog("An error occurred while processing spell: " + spellName + " - " + e.getMessage());
         } finally {
             // Release Mat objects
-            if (imageToFind != null) imageToFind.release();
-            if (scaledImageToFind != null) scaledImageToFind.release();
+            // imageToFind and scaledImageToFind are owned by the image cache
             if (imageToFindIn != null) imageToFindIn.release();
             if (imageToFindInRoi != null) imageToFindInRoi.release();
             if (colorImageToFind != null) colorImageToFind.release();
@@ -313,8 +311,7 @@ public class Magic {
             logger.devLog("An error occurred while checking spell: " + spellName + " - " + e.getMessage());
         } finally {
             // Release Mat objects
-            if (imageToFind != null) imageToFind.release();
-            if (scaledImageToFind != null) scaledImageToFind.release();
+            // imageToFind and scaledImageToFind are owned by the image cache
             if (imageToFindIn != null) imageToFindIn.release();
             if (imageToFindInRoi != null) imageToFindInRoi.release();
             if (colorImageToFind != null) colorImageToFind.release();
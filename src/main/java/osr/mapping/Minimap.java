@@ -1,8 +1,10 @@
 package osr.mapping;
 
 import helpers.CacheManager;
+import helpers.GetGameView;
 import helpers.Logger;
 import helpers.scripts.CancellationToken;
+import helpers.utils.Frame;
 import helpers.utils.GameObject;
 import javafx.scene.image.Image;
 import javafx.scene.shape.Circle;
@@ -24,6 +26,8 @@ import java.io.File;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Minimap {
     private final CacheManager cacheManager;
@@ -32,13 +36,18 @@ public class Minimap {
 
     private final ScriptInfo scriptInfo;
     private final ImageUtils imageUtils;
+    private final GetGameView getGameView;
 
-    public Minimap(CacheManager cacheManager, Logger logger, MinimapProjections minimapProjections, ScriptInfo scriptInfo, ImageUtils imageUtils) {
+    // The last cleaned minimap per device, reused until a new frame is captured
+    private final Map<String, CleanMinimap> cleanMinimaps = new ConcurrentHashMap<>();
+
+    public Minimap(CacheManager cacheManager, Logger logger, MinimapProjections minimapProjections, ScriptInfo scriptInfo, ImageUtils imageUtils, GetGameView getGameView) {
         this.cacheManager = cacheManager;
         this.logger = logger;
         this.minimapProjections = minimapProjections;
         this.scriptInfo = scriptInfo;
         this.imageUtils = imageUtils;
+        this.getGameView = getGameView;
     }
 
     public Circle getMinimapPosition(String device) {
@@ -107,8 +116,42 @@ public class Minimap {
         return getCleanMinimap(device, 92, saveImage, cropCircle, ignoreCancellationToken);
     }
 
+    /**
+     * Returns the cleaned minimap, reusing the last result while no new frame was captured for the device.
+     * Walker position queries come in faster than frames, so most of them skip the dot search and the inpainting.
+     * Reads that save the image or can be cancelled halfway always process the minimap.
+     */
     private Mat processMinimapImage(String device, int regionSize, boolean saveImage, boolean cropCircle, boolean ignoreCancellationToken) {
-        Mat minimapImage = getMinimap(device);
+        // The result is cached under the version of the frame it was cut from, not the latest version, which can be newer
+        try (Frame frame = getGameView.acquireFrame(device)) {
+            if (saveImage || !ignoreCancellationToken || frame == null) {
+                return cleanMinimapImage(device, frame, regionSize, saveImage, cropCircle, ignoreCancellationToken);
+            }
+            long frameVersion = frame.getVersion();
+
+            CleanMinimap cached = cleanMinimaps.get(device);
+            if (cached != null && cached.matches(frameVersion, regionSize, cropCircle)) {
+                synchronized (cached) {
+                    if (!cached.image.empty()) {
+                        return cached.image.clone();
+                    }
+                }
+            }
+
+            Mat cleaned = cleanMinimapImage(device, frame, regionSize, false, cropCircle, true);
+            if (cleaned == null) {
+                return null;
+            }
+            CleanMinimap replaced = cleanMinimaps.put(device, new CleanMinimap(frameVersion, regionSize, cropCircle, cleaned.clone()));
+            if (replaced != null) {
+                replaced.release();
+            }
+            return cleaned;
+        }
+    }
+
+    private Mat cleanMinimapImage(String device, Frame frame, int regionSize, boolean saveImage, boolean cropCircle, boolean ignoreCancellationToken) {
+        Mat minimapImage = minimapProjections.getMinimapMat(device, frame, getMinimapPosition(device));
         if (minimapImage == null) {
             return null;
         }
@@ -219,13 +262,25 @@ public class Minimap {
 
         Mat regionUnderneath = minimapImage.submat(areaUnderneath);
         Mat grayRegionUnderneath = new Mat();
-        Imgproc.cvtColor(regionUnderneath, grayRegionUnderneath, Imgproc.COLOR_BGRA2GRAY);
-
-        for (int x = 0; x < grayRegionUnderneath.cols(); x++) {
-            double[] pixel = grayRegionUnderneath.get(0, x);
-            if (pixel != null && pixel[0] == 0) {
-                mask.put(areaUnderneath.y, areaUnderneath.x + x, 255);
+        Mat maskUnderneath = mask.submat(areaUnderneath);
+        try {
+            Imgproc.cvtColor(regionUnderneath, grayRegionUnderneath, Imgproc.COLOR_BGRA2GRAY);
+
+            // Read and write the row in one go instead of a JNI call per pixel
+            byte[] gray = new byte[areaUnderneath.width];
+            byte[] maskRow = new byte[areaUnderneath.width];
+            grayRegionUnderneath.get(0, 0, gray);
+            maskUnderneath.get(0, 0, maskRow);
+            for (int x = 0; x < gray.length; x++) {
+                if (gray[x] == 0) {
+                    maskRow[x] = (byte) 255;
+                }
             }
+            maskUnderneath.put(0, 0, maskRow);
+        } finally {
+            regionUnderneath.release();
+            grayRegionUnderneath.release();
+            maskUnderneath.release();
         }
     }
 
@@ -272,4 +327,26 @@ public class Minimap {
             logger.devLog("Failed to save image to " + path);
         }
     }
+
+    private static class CleanMinimap {
+        private final long frameVersion;
+        private final int regionSize;
+        private final boolean cropCircle;
+        private final Mat image;
+
+        CleanMinimap(long frameVersion, int regionSize, boolean cropCircle, Mat image) {
+            this.frameVersion = frameVersion;
+            this.regionSize = regionSize;
+            this.cropCircle = cropCircle;
+            this.image = image;
+        }
+
+        boolean matches(long frameVersion, int regionSize, boolean cropCircle) {
+            return this.frameVersion == frameVersion && this.regionSize == regionSize && this.cropCircle == cropCircle;
+        }
+
+        synchronized void release() {
+            image.release();
+        }
+    }
 }
@@ -60,16 +60,10 @@ public class Objects {
     }
 
     public Rectangle getBestMatch(String device, String filePath, double threshold) {
-        Mat fileToSearchFor = null;
-        try {
-            fileToSearchFor = imageUtils.pathToMat(filePath);
-            Mat gameView = getGameView.getMat(device);
-            return imageRecognition.returnBestMatchObject(fileToSearchFor, gameView, threshold);
-        } finally {
-            if (fileToSearchFor != null) {
-                fileToSearchFor.release();
-            }
-        }
+        // The image is owned by the image cache, it is not released here
+        Mat fileToSearchFor = imageUtils.pathToMat(filePath);
+        Mat gameView = getGameView.getMat(device);
+        return imageRecognition.returnBestMatchObject(fileToSearchFor, gameView, threshold);
     }
 
     public Rectangle getNearest(String device, String filePath) {
@@ -97,10 +91,13 @@ public class Objects {
         Mat imageToFind = null;
         try {
             Mat imageToSearchIn = getGameView.getMat(device);
-            imageToFind = imageUtils.pathToMat(filePath);
-
-            if (imageToFind.channels() == 4) {
-                Imgproc.cvtColor(imageToFind, imageToFind, Imgproc.COLOR_BGRA2BGR);
+            // The cached image is converted into a copy, the image cache owns it and hands it to other callers
+            Mat cachedImage = imageUtils.pathToMat(filePath);
+            imageToFind = new Mat();
+            if (cachedImage.channels() == 4) {
+                Imgproc.cvtColor(cachedImage, imageToFind, Imgproc.COLOR_BGRA2BGR);
+            } else {
+                cachedImage.copyTo(imageToFind);
             }
 
             if (imageToSearchIn.channels() == 4) {
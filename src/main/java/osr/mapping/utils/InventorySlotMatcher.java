@@ -0,0 +1,274 @@
+package osr.mapping.utils;
+
+import helpers.GetGameView;
+import helpers.openCV.utils.Template;
+import helpers.utils.Frame;
+import helpers.utils.FrameHash;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Matches items against the inventory once and answers per slot which of them it holds.
+ * Each item is searched in the inventory area the same way the rest of the inventory API searches it:
+ * one masked {@link Imgproc#TM_CCOEFF_NORMED} match of the item without its stack size rows, scores above
+ * {@link #MAX_SCORE} ignored. Every placement is then attributed to the slots it overlaps, so a slot holds an item
+ * when a placement overlapping it reaches the threshold, and the inventory holds it exactly when the whole inventory
+ * search would have found it.
+ * <p>
+ * The per slot scores don't depend on the threshold, they are kept per device until the pixels of the inventory area change.
+ * Checking more items, other thresholds or other slots on an unchanged inventory doesn't match anything again,
+ * a new item costs one search like before.
+ */
+public class InventorySlotMatcher {
+    private static final int ITEM_CROP_TOP = 10;
+    // Scores above this are artifacts of masked matching on flat areas, not real matches
+    private static final double MAX_SCORE = 1.1;
+
+    private final GetGameView getGameView;
+    private final IntFunction<Mat> itemImages;
+    private final Rectangle[] slotBoxes;
+    private final Rect searchArea;
+    private final int emptySlotThreshold;
+    private final Map<Integer, Template> templates = new ConcurrentHashMap<>();
+    private final Map<String, DeviceSlots> deviceSlots = new ConcurrentHashMap<>();
+
+    /**
+     * @param itemImages         The item images by id, as loaded with IMREAD_UNCHANGED.
+     * @param slotBoxes          The slots in the game view, in slot order.
+     * @param searchArea         The part of the game view the items are searched in.
+     * @param emptySlotThreshold The number of non black pixels from which a slot counts as empty.
+     */
+    public InventorySlotMatcher(GetGameView getGameView, IntFunction<Mat> itemImages, Rectangle[] slotBoxes, Rect searchArea, int emptySlotThreshold) {
+        this.getGameView = getGameView;
+        this.itemImages = itemImages;
+        this.slotBoxes = slotBoxes;
+        this.searchArea = searchArea;
+        this.emptySlotThreshold = emptySlotThreshold;
+    }
+
+    /**
+     * Reads the inventory of the latest frame and matches the items against it.
+     *
+     * @param device    The device.
+     * @param itemIds   The items to look for.
+     * @param threshold The minimum match score.
+     * @return The slots, with no items found if no frame was captured yet.
+     */
+    public InventorySlots scan(String device, int[] itemIds, double threshold) {
+        int slotCount = slotBoxes.length;
+        boolean[] empty = new boolean[slotCount];
+        int[] itemBySlot = new int[slotCount];
+        Rectangle[] matchBySlot = new Rectangle[slotCount];
+        Map<Integer, Integer> slotMaskByItem = new HashMap<>();
+        Arrays.fill(itemBySlot, -1);
+
+        DeviceSlots slots = deviceSlots.computeIfAbsent(device, k -> new DeviceSlots(slotCount));
+        synchronized (slots) {
+            try (Frame frame = getGameView.acquireFrame(device)) {
+                Rect visible = frame == null ? null : frame.clamp(searchArea);
+                if (visible == null) {
+                    Arrays.fill(empty, true);
+                    return new InventorySlots(0, empty, itemBySlot, matchBySlot, slotMaskByItem);
+                }
+
+                Mat area = frame.roi(visible);
+                try {
+                    if (frame.getVersion() != slots.frameVersion) {
+                        readSlots(frame, area, visible, slots);
+                    }
+                    System.arraycopy(slots.empty, 0, empty, 0, slotCount);
+
+                    double[] best = new double[slotCount];
+                    Arrays.fill(best, Double.NEGATIVE_INFINITY);
+                    for (int itemId : itemIds) {
+                        SlotScores scores = slots.scores.get(itemId);
+                        if (scores == null) {
+                            Template template = getTemplate(itemId);
+                            if (template == null) {
+                                continue;
+                            }
+                            scores = match(template, area, visible);
+                            slots.scores.put(itemId, scores);
+                        }
+
+                        for (int i = 0; i < slotCount; i++) {
+                            // NaN never reaches the threshold
+                            if (!(scores.values[i] >= threshold)) {
+                                continue;
+                            }
+                            slotMaskByItem.merge(itemId, 1 << i, (a, b) -> a | b);
+                            if (scores.values[i] > best[i]) {
+                                best[i] = scores.values[i];
+                                itemBySlot[i] = itemId;
+                                matchBySlot[i] = new Rectangle(scores.x[i], scores.y[i] - ITEM_CROP_TOP,
+                                        scores.width, scores.height + ITEM_CROP_TOP);
+                            }
+                        }
+                    }
+                    return new InventorySlots(frame.getVersion(), empty, itemBySlot, matchBySlot, slotMaskByItem);
+                } finally {
+                    area.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the inventory read for a device, e.g. when it disconnects.
+     */
+    public void clearDevice(String device) {
+        deviceSlots.remove(device);
+    }
+
+    /**
+     * Reads which slots are empty, and drops the remembered scores if the inventory area changed since they were matched.
+     */
+    private void readSlots(Frame frame, Mat area, Rect visible, DeviceSlots slots) {
+        Rectangle inArea = new Rectangle(visible.x, visible.y, visible.width, visible.height);
+        Mat gray = new Mat();
+        try {
+            Imgproc.cvtColor(area, gray, Imgproc.COLOR_BGR2GRAY);
+            for (int i = 0; i < slotBoxes.length; i++) {
+                Rectangle slot = slotBoxes[i];
+                if (!inArea.contains(slot)) {
+                    slots.empty[i] = true; // Cut off by the frame edge
+                    continue;
+                }
+                Mat slotGray = gray.submat(new Rect(slot.x - visible.x, slot.y - visible.y, slot.width, slot.height));
+                try {
+                    slots.empty[i] = Core.countNonZero(slotGray) >= emptySlotThreshold;
+                } finally {
+                    slotGray.release();
+                }
+            }
+        } finally {
+            gray.release();
+        }
+
+        int size = (int) (area.total() * area.channels());
+        if (slots.pixels.length != size) {
+            slots.pixels = new byte[size];
+        }
+        area.get(0, 0, slots.pixels);
+        long signature = 31 * FrameHash.hash(slots.pixels) + visible.hashCode();
+        if (signature != slots.signature) {
+            slots.scores.clear();
+            slots.signature = signature;
+        }
+        slots.frameVersion = frame.getVersion();
+    }
+
+    /**
+     * Searches the item in the inventory area and keeps, per slot, the best placement that overlaps the slot.
+     */
+    private SlotScores match(Template template, Mat area, Rect visible) {
+        SlotScores scores = new SlotScores(slotBoxes.length, template.width(), template.height());
+        if (area.cols() < template.width() || area.rows() < template.height()) {
+            return scores;
+        }
+
+        Mat result = new Mat();
+        try {
+            if (template.hasMask()) {
+                Imgproc.matchTemplate(area, template.getImage(), result, Imgproc.TM_CCOEFF_NORMED, template.getMask());
+            } else {
+                Imgproc.matchTemplate(area, template.getImage(), result, Imgproc.TM_CCOEFF_NORMED);
+            }
+            int columns = result.cols();
+            int rows = result.rows();
+            float[] values = new float[columns * rows];
+            result.get(0, 0, values);
+
+            for (int i = 0; i < slotBoxes.length; i++) {
+                // The placements overlapping the slot, in result coordinates
+                Rectangle slot = slotBoxes[i];
+                int firstX = Math.max(0, slot.x - visible.x - template.width() + 1);
+                int lastX = Math.min(columns - 1, slot.x - visible.x + slot.width - 1);
+                int firstY = Math.max(0, slot.y - visible.y - template.height() + 1);
+                int lastY = Math.min(rows - 1, slot.y - visible.y + slot.height - 1);
+
+                // Row order with a strict comparison, ties go to the first placement like in the whole inventory search
+                double best = Double.NaN;
+                for (int y = firstY; y <= lastY; y++) {
+                    for (int x = firstX; x <= lastX; x++) {
+                        float value = values[y * columns + x];
+                        if (value <= MAX_SCORE && (Double.isNaN(best) || value > best)) {
+                            best = value;
+                            scores.x[i] = visible.x + x;
+                            scores.y[i] = visible.y + y;
+                        }
+                    }
+                }
+                scores.values[i] = best;
+            }
+        } finally {
+            result.release();
+        }
+        return scores;
+    }
+
+    private Template getTemplate(int itemId) {
+        Template template = templates.get(itemId);
+        if (template != null) {
+            return template;
+        }
+
+        Mat image = itemImages.apply(itemId);
+        if (image == null || image.rows() <= ITEM_CROP_TOP || image.channels() < 3 || image.depth() != CvType.CV_8U) {
+            return null; // The image is missing or not a BGR(A) image, the item can't match
+        }
+        // Without the rows where the stack size is drawn, copied so the template doesn't hold on to the item image
+        Mat cropped = image.submat(ITEM_CROP_TOP, image.rows(), 0, image.cols()).clone();
+        template = Template.of(cropped);
+        if (template.getImage() != cropped) {
+            cropped.release();
+        }
+        Template existing = templates.putIfAbsent(itemId, template);
+        return existing != null ? existing : template;
+    }
+
+    /**
+     * The best score of an item per slot and where in the game view its placement lies, NaN for slots nothing scored in.
+     */
+    private static class SlotScores {
+        private final double[] values;
+        private final int[] x;
+        private final int[] y;
+        private final int width;
+        private final int height;
+
+        SlotScores(int slotCount, int width, int height) {
+            this.values = new double[slotCount];
+            this.x = new int[slotCount];
+            this.y = new int[slotCount];
+            this.width = width;
+            this.height = height;
+            Arrays.fill(values, Double.NaN);
+        }
+    }
+
+    /**
+     * The inventory of a device as last read, and the scores matched on it by item.
+     */
+    private static class DeviceSlots {
+        private long frameVersion = -1;
+        private long signature;
+        private final boolean[] empty;
+        private byte[] pixels = new byte[0];
+        private final Map<Integer, SlotScores> scores = new HashMap<>();
+
+        DeviceSlots(int slotCount) {
+            this.empty = new boolean[slotCount];
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package osr.mapping.utils;
+
+import java.awt.*;
+import java.util.Map;
+
+/**
+ * The result of one {@link InventorySlotMatcher} scan: which of the requested items each inventory slot holds,
+ * read from a single frame. Slots are numbered 1 to 28 like everywhere else in the inventory API.
+ */
+public class InventorySlots {
+    private final long frameVersion;
+    private final boolean[] empty;
+    private final int[] itemBySlot;
+    private final Rectangle[] matchBySlot;
+    private final Map<Integer, Integer> slotMaskByItem;
+
+    InventorySlots(long frameVersion, boolean[] empty, int[] itemBySlot, Rectangle[] matchBySlot, Map<Integer, Integer> slotMaskByItem) {
+        this.frameVersion = frameVersion;
+        this.empty = empty;
+        this.itemBySlot = itemBySlot;
+        this.matchBySlot = matchBySlot;
+        this.slotMaskByItem = slotMaskByItem;
+    }
+
+    /**
+     * @return The version of the frame the slots were read from, 0 if no frame was available.
+     */
+    public long getFrameVersion() {
+        return frameVersion;
+    }
+
+    public boolean isEmpty(int slot) {
+        return empty[slot - 1];
+    }
+
+    /**
+     * @return The requested item that matched the slot best, or -1 if none of them matched it.
+     */
+    public int getItem(int slot) {
+        return itemBySlot[slot - 1];
+    }
+
+    /**
+     * @return Where the best item of the slot was found in the game view, or null if none of the requested items matched it.
+     */
+    public Rectangle getMatch(int slot) {
+        Rectangle match = matchBySlot[slot - 1];
+        return match == null ? null : new Rectangle(match);
+    }
+
+    /**
+     * @return true if the item matched the slot, even when another requested item matched it better.
+     */
+    public boolean slotContains(int slot, int itemId) {
+        return (slotMask(itemId) & (1 << (slot - 1))) != 0;
+    }
+
+    public boolean contains(int itemId) {
+        return slotMask(itemId) != 0;
+    }
+
+    /**
+     * @return The number of slots the item matched.
+     */
+    public int count(int itemId) {
+        return Integer.bitCount(slotMask(itemId));
+    }
+
+    /**
+     * @return The first slot the item matched, or 0 if it matched none.
+     */
+    public int firstSlot(int itemId) {
+        int mask = slotMask(itemId);
+        return mask == 0 ? 0 : Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    /**
+     * @return The last slot the item matched, or 0 if it matched none.
+     */
+    public int lastSlot(int itemId) {
+        int mask = slotMask(itemId);
+        return mask == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    private int slotMask(int itemId) {
+        return slotMaskByItem.getOrDefault(itemId, 0);
+    }
+}
@@ -0,0 +1,240 @@
+package osr.mapping.utils;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The item images packed into one memory-mapped file of raw pixels, so looking up an item image
+ * neither reads a file nor decodes a PNG. The pixels are stored exactly as {@link Imgcodecs#IMREAD_UNCHANGED}
+ * decodes them, and an entry is handed out as a Mat over the mapped memory.
+ * <p>
+ * The file is a header, an index of (item id, rows, cols, type, offset) sorted by id, and the pixels.
+ * The header records the number of images and the newest modification time in the folder it was packed from,
+ * {@link #isCurrent(Path, Path)} compares those to tell when the folder changed and the pack has to be rebuilt.
+ * <p>
+ * The mapping is read only. The Mat handed out for an item is shared by every device and points into read only memory,
+ * so callers only read it or take submats of it, and copy it before changing anything. Writing to it would fault.
+ * A pack is meant to stay open for the lifetime of the client, the Mats it handed out point into its mapping.
+ */
+public class ItemImagePack {
+    private static final int MAGIC = 0x4D495043; // "MIPC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8;
+    private static final int ENTRY_BYTES = 4 + 4 + 4 + 4 + 8;
+    private static final String IMAGE_SUFFIX = ".png";
+
+    private final MappedByteBuffer buffer;
+
+    // Indexed by item id, the entry index + 1, so a lookup is a single array read
+    private final int[] entryById;
+    private final int[] rows;
+    private final int[] cols;
+    private final int[] types;
+    private final long[] offsets;
+    // The Mat handed out per entry, wrapped on first use so every lookup of an item returns the same instance
+    private final AtomicReferenceArray<Mat> wrapped;
+
+    private ItemImagePack(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        ByteBuffer header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not an item image pack");
+        }
+        int entries = header.getInt();
+        header.position(HEADER_BYTES);
+
+        this.rows = new int[entries];
+        this.cols = new int[entries];
+        this.types = new int[entries];
+        this.offsets = new long[entries];
+        this.wrapped = new AtomicReferenceArray<>(entries);
+        int[] ids = new int[entries];
+        int maxId = -1;
+        for (int i = 0; i < entries; i++) {
+            ids[i] = header.getInt();
+            rows[i] = header.getInt();
+            cols[i] = header.getInt();
+            types[i] = header.getInt();
+            offsets[i] = header.getLong();
+            maxId = Math.max(maxId, ids[i]);
+        }
+        this.entryById = new int[maxId + 1];
+        for (int i = 0; i < entries; i++) {
+            entryById[ids[i]] = i + 1;
+        }
+    }
+
+    /**
+     * Maps a pack file.
+     *
+     * @throws IOException If the file can't be read or isn't a pack.
+     */
+    public static ItemImagePack open(Path packFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            return new ItemImagePack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Packs every "&lt;item id&gt;.png" in a folder into a pack file. The file is written next to its destination
+     * and moved in place once complete, so a failed pack never leaves a broken file behind.
+     * Images that can't be decoded are left out, their lookups fall back to the PNG.
+     *
+     * @param imageFolder The folder holding the item images.
+     * @param packFile    The pack file to write.
+     * @return The number of images packed.
+     */
+    public static int build(Path imageFolder, Path packFile) throws IOException {
+        FolderState state = FolderState.of(imageFolder);
+        long dataStart = HEADER_BYTES + (long) state.ids.length * ENTRY_BYTES;
+        ByteBuffer index = ByteBuffer.allocate((int) dataStart).order(ByteOrder.LITTLE_ENDIAN);
+        index.position(HEADER_BYTES);
+
+        // The pixels are written as each image is decoded, the index is written last into the space left for it
+        Path temp = packFile.resolveSibling(packFile.getFileName() + ".tmp");
+        int packed = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = dataStart;
+            for (int id : state.ids) {
+                byte[] encoded = Files.readAllBytes(imageFolder.resolve(id + IMAGE_SUFFIX));
+                Mat mat = Imgcodecs.imdecode(new MatOfByte(encoded), Imgcodecs.IMREAD_UNCHANGED);
+                if (mat.empty() || !mat.isContinuous()) {
+                    mat.release();
+                    continue;
+                }
+                byte[] pixels = new byte[(int) (mat.total() * mat.elemSize())];
+                mat.get(0, 0, pixels);
+                index.putInt(id).putInt(mat.rows()).putInt(mat.cols()).putInt(mat.type()).putLong(offset);
+                mat.release();
+                writeFully(out, ByteBuffer.wrap(pixels), offset);
+                offset += pixels.length;
+                packed++;
+            }
+            index.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, packed).putInt(12, state.ids.length).putLong(16, state.newestModified);
+            writeFully(out, index.clear(), 0);
+        }
+        Files.move(temp, packFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return packed;
+    }
+
+    /**
+     * Checks a pack file against the folder it was packed from, without mapping it.
+     *
+     * @return true if the pack exists and was built from the folder as it is now,
+     * false if it is missing or images were added, removed or changed since.
+     */
+    public static boolean isCurrent(Path packFile, Path imageFolder) throws IOException {
+        if (!Files.isRegularFile(packFile)) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            return false;
+        }
+        FolderState state = FolderState.of(imageFolder);
+        return state.ids.length == header.getInt(12) && state.newestModified == header.getLong(16);
+    }
+
+    /**
+     * @return true if the pack holds an image for the item.
+     */
+    public boolean contains(int itemId) {
+        return itemId >= 0 && itemId < entryById.length && entryById[itemId] != 0;
+    }
+
+    /**
+     * Returns the image of an item as a read only Mat over the mapped pixels, wrapped without copying or decoding them.
+     * Every lookup of an item returns the same Mat, so it works as a key for the prepared templates.
+     * Don't write to it or release it, copy it to change it.
+     *
+     * @return The image, or null if the pack doesn't hold it.
+     */
+    public Mat getImage(int itemId) {
+        if (!contains(itemId)) {
+            return null;
+        }
+        int i = entryById[itemId] - 1;
+        Mat image = wrapped.get(i);
+        if (image == null) {
+            ByteBuffer pixels = buffer.slice((int) offsets[i], rows[i] * cols[i] * CvType.ELEM_SIZE(types[i]));
+            image = new Mat(rows[i], cols[i], types[i], pixels);
+            if (!wrapped.compareAndSet(i, null, image)) {
+                image.release();
+                image = wrapped.get(i);
+            }
+        }
+        return image;
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+    }
+
+    /**
+     * The item images in a folder, as the sorted item ids and the newest modification time.
+     */
+    private static class FolderState {
+        private final int[] ids;
+        private final long newestModified;
+
+        private FolderState(int[] ids, long newestModified) {
+            this.ids = ids;
+            this.newestModified = newestModified;
+        }
+
+        static FolderState of(Path imageFolder) throws IOException {
+            int[] ids = new int[256];
+            int count = 0;
+            long newest = 0;
+            try (DirectoryStream<Path> images = Files.newDirectoryStream(imageFolder, "*" + IMAGE_SUFFIX)) {
+                for (Path image : images) {
+                    String name = image.getFileName().toString();
+                    int id;
+                    try {
+                        id = Integer.parseInt(name.substring(0, name.length() - IMAGE_SUFFIX.length()));
+                    } catch (NumberFormatException e) {
+                        continue; // Not an item image
+                    }
+                    if (id < 0) {
+                        continue;
+                    }
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = id;
+                    newest = Math.max(newest, Files.readAttributes(image, BasicFileAttributes.class).lastModifiedTime().toMillis());
+                }
+            }
+            int[] sorted = Arrays.copyOf(ids, count);
+            Arrays.sort(sorted);
+            return new FolderState(sorted, newest);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package osr.mapping.utils;
 
 import helpers.CacheManager;
+import helpers.Logger;
+import helpers.ThreadManager;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import org.opencv.core.Mat;
@@ -13,93 +15,105 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class ItemProcessor {
     private final String folderPath = SystemUtils.getItemsFolderPath() + File.separator + "item-images"; // Path to the folder
+    private final Path packFile = Paths.get(SystemUtils.getItemsFolderPath(), "item-images.pack");
     private final CacheManager cacheManager;
+    private final Logger logger;
+    private volatile ItemImagePack imagePack;
 
-    public ItemProcessor(CacheManager cacheManager) {
+    public ItemProcessor(CacheManager cacheManager, Logger logger) {
         this.cacheManager = cacheManager;
+        this.logger = logger;
+        // Until the pack is ready the images are read from the PNGs
+        ThreadManager.getInstance().getUnifiedExecutor().submit(this::loadImagePack);
     }
 
+    /**
+     * Returns the image of an item by its id as text, see {@link #getItemImage(int)}.
+     * A name that isn't a number is looked up as "&lt;name&gt;.png" in the image folder.
+     */
     public Mat getItemImage(String itemID) {
-        String itemImagePath = folderPath + File.separator + itemID + ".png"; // Full path to the image
+        try {
+            return getItemImage(Integer.parseInt(itemID.trim()));
+        } catch (NumberFormatException e) {
+            return loadItemImage(itemID);
+        }
+    }
 
-        // Check if the image is in the cache
-        Mat cachedMat = cacheManager.getItemMat(itemImagePath);
-        if (cachedMat != null) {
-            return cachedMat;
+    /**
+     * Returns the image of an item, from the image pack once it is mapped, otherwise from its PNG.
+     * The Mat is shared by every caller and must not be modified or released.
+     *
+     * @return The image, or an empty Mat if there is no image for the item.
+     */
+    public Mat getItemImage(int itemID) {
+        ItemImagePack pack = imagePack;
+        if (pack != null && pack.contains(itemID)) {
+            return pack.getImage(itemID);
         }
+        return loadItemImage(String.valueOf(itemID));
+    }
+
+    public Image getItemImageFX(String itemID) {
+        String itemImagePath = folderPath + File.separator + itemID + ".png"; // Full path to the image file
 
-        // If not in cache, load the image from the file system
         try {
-            byte[] buffer = Files.readAllBytes(Paths.get(itemImagePath));
-            MatOfByte matOfByte = new MatOfByte(buffer);
-            Mat mat = Imgcodecs.imdecode(matOfByte, Imgcodecs.IMREAD_UNCHANGED);
-    
-            // Cache the loaded image
-            cacheManager.setImageMat(itemImagePath, mat);
-    
-            return mat;
+            File imageFile = new File(itemImagePath);
+            BufferedImage bufferedImage = ImageIO.read(imageFile);
+            return SwingFXUtils.toFXImage(bufferedImage, null);
         } catch (IOException e) {
-            System.err.println("Error accessing image file: " + e.getMessage());
-            return new Mat();
+            logger.errorLog("Error accessing image file: " + e.getMessage());
+            return null;
         }
     }
 
-    public Mat getItemImage(int itemID) {
-        String itemImagePath = folderPath + File.separator + itemID + ".png"; // Full path to the image
+    public Image getItemImageFX(int itemID) {
+        return getItemImageFX(String.valueOf(itemID));
+    }
+
+    private Mat loadItemImage(String itemName) {
+        String itemImagePath = folderPath + File.separator + itemName + ".png"; // Full path to the image
 
         // Check if the image is in the cache
         Mat cachedMat = cacheManager.getItemMat(itemImagePath);
         if (cachedMat != null) {
             return cachedMat;
         }
-    
+
         // If not in cache, load the image from the file system
         try {
             byte[] buffer = Files.readAllBytes(Paths.get(itemImagePath));
             MatOfByte matOfByte = new MatOfByte(buffer);
             Mat mat = Imgcodecs.imdecode(matOfByte, Imgcodecs.IMREAD_UNCHANGED);
-    
-            // Cache the loaded image
-            cacheManager.setImageMat(itemImagePath, mat);
-    
-            return mat;
+
+            // Cache the loaded image, another thread may have cached it first
+            return cacheManager.setImageMat(itemImagePath, mat);
         } catch (IOException e) {
-            System.err.println("Error accessing image file: " + e.getMessage());
+            logger.errorLog("Error accessing image file: " + e.getMessage());
             return new Mat();
         }
     }
 
-    public Image getItemImageFX(String itemID) {
-        String itemImagePath = folderPath + File.separator + itemID + ".png"; // Full path to the image file
-
-        try {
-            File imageFile = new File(itemImagePath);
-            BufferedImage bufferedImage = ImageIO.read(imageFile);
-            return SwingFXUtils.toFXImage(bufferedImage, null);
-        } catch (IOException e) {
-            System.err.println("Error accessing image file: " + e.getMessage());
-            return null;
+    /**
+     * Maps the item image pack, packing the image folder first if the pack is missing or older than the folder.
+     */
+    private void loadImagePack() {
+        Path imageFolder = Paths.get(folderPath);
+        if (!Files.isDirectory(imageFolder)) {
+            return;
         }
-    }
-
-    public Image getItemImageFX(int itemID) {
-        String itemImagePath = folderPath + File.separator + itemID + ".png"; // Full path to the image file
-
         try {
-            File imageFile = new File(itemImagePath);
-            BufferedImage bufferedImage = ImageIO.read(imageFile);
-            return SwingFXUtils.toFXImage(bufferedImage, null);
-        } catch (IOException e) {
-            System.err.println("Error accessing image file: " + e.getMessage());
-            return null;
+            if (!ItemImagePack.isCurrent(packFile, imageFolder)) {
+                int packed = ItemImagePack.build(imageFolder, packFile);
+                logger.print("Packed " + packed + " item images");
+            }
+            imagePack = ItemImagePack.open(packFile);
+        } catch (IOException | RuntimeException e) {
+            logger.print("Item image pack unavailable, reading the images instead: " + e.getMessage());
         }
     }
 }
-
-
-
-
@@ -4,6 +4,7 @@ import helpers.GetGameView;
 import helpers.Logger;
 import helpers.openCV.ImageRecognition;
 import helpers.patterns.DotPatterns;
+import helpers.utils.Frame;
 import helpers.utils.GameObject;
 import javafx.scene.shape.Circle;
 import org.opencv.core.Point;
@@ -39,7 +40,7 @@ public class MinimapProjections {
         this.getGameView = getGameView;
         this.imageRecognition = imageRecognition;
 
-        minimapTopBorder = imageUtils.pathToMat("/osrsAssets/Minimap/minimaptop.png");
+        minimapTopBorder = imageUtils.pathToMat("/osrsAssets/Minimap/minimaptop.png").clone(); // Kept for good, the cached one is released on eviction
     }
 
     private static Circle getCircle(Rectangle topBorder) {
@@ -273,6 +274,17 @@ public class MinimapProjections {
 
     // MAT stuff
     public Mat getMinimapMat(String device, Circle minimapCircle) {
+        try (Frame frame = getGameView.acquireFrame(device)) {
+            return getMinimapMat(device, frame, minimapCircle);
+        }
+    }
+
+    /**
+     * Cuts the minimap out of a given frame, so the caller knows which frame the pixels came from.
+     *
+     * @param frame The frame to read, or null to fall back to the placeholder image when no frame was captured yet.
+     */
+    public Mat getMinimapMat(String device, Frame frame, Circle minimapCircle) {
         determineCompassAngle(device);
 
         // Retrieve the position of the minimap from getMinimapPosition
@@ -292,7 +304,7 @@ public class MinimapProjections {
         Mat minimapMat;
         try {
             // Directly get the submat for the minimap area
-            minimapMat = getGameView.getSubmat(device, boundingRect);
+            minimapMat = frame == null ? getGameView.getSubmat(device, boundingRect) : frame.roi(boundingRect).clone();
 
             // Rotate based on the minimapRotationAngle determined from compass direction
             if (MINIMAP_ROTATION_ANGLE % 360 != 0) { // Only rotate if angle is not 0 or a full rotation
@@ -49,9 +49,8 @@ public class ImageUtils {
                 // Read the image from file system and return as Mat
                 Mat image = Imgcodecs.imread(path, Imgcodecs.IMREAD_UNCHANGED);
                 if (!image.empty()) {
-                    // Cache the loaded image
-                    cacheManager.setImageStringMat(path, image);
-                    return image;
+                    // Cache the loaded image, another thread may have cached it first
+                    return cacheManager.setImageStringMat(path, image);
                 } else {
                     System.err.println("Absolute image found but unable to read: " + path);
                 }
@@ -71,10 +70,8 @@ public class ImageUtils {
                     encoded.put(0, 0, buffer);
                     Mat image = Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_UNCHANGED);
 
-                    // Cache the loaded image
-                    cacheManager.setImageStringMat(path, image);
-
-                    return image;
+                    // Cache the loaded image, another thread may have cached it first
+                    return cacheManager.setImageStringMat(path, image);
                 } else { // Check if the image is within our script
                     Image image = scriptResourceManager.getResourceImageFromCurrentScript(scriptInfo.getCurrentEmulatorId(), path);
                     if (image != null) {
@@ -88,10 +85,8 @@ public class ImageUtils {
                         Mat mat = new Mat(height, width, CvType.CV_8UC4);
                         mat.put(0, 0, buffer);
 
-                        // Cache the loaded image
-                        cacheManager.setImageStringMat(path, mat);
-
-                        return mat;
+                        // Cache the loaded image, another thread may have cached it first
+                        return cacheManager.setImageStringMat(path, mat);
                     } else {
                         throw new IllegalArgumentException("Image not found: " + path);
                     }
@@ -1,9 +1,7 @@
 package osr.walker;
 
-import helpers.grapher.Graph;
-import helpers.grapher.utils.GraphNode;
-import helpers.grapher.utils.dataclasses.GraphData;
-import com.google.gson.Gson;
+import helpers.grapher.CompactGraph;
+import helpers.grapher.GraphFile;
 import helpers.CacheManager;
 import helpers.Logger;
 import helpers.utils.MapChunk;
@@ -24,15 +22,13 @@ import scripts.ScriptInfo;
 import utils.SystemUtils;
 
 import java.awt.image.BufferedImage;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
-import static helpers.grapher.GraphHelpers.convertToGraph;
-import static helpers.grapher.GraphHelpers.findNearestNode;
 import static utils.Constants.convertTileArrayToOpenCVPointArray;
 
 public class Walker {
+    private static final String BANK_TRACKING_SUFFIX = "-bank";
     private final TranslatePosition translatePosition;
     private final ClientAPI clientAPI;
     private final Logger logger;
@@ -43,7 +39,7 @@ public class Walker {
     private final MapChunkHandler mapChunkHandler;
     private final ImageUtils imageUtils;
     private final CacheManager cacheManager;
-    private Graph graph = null;
+    private CompactGraph graph = null;
     private Mat bankMap = null;
 
     public Walker(TranslatePosition translatePosition, ClientAPI clientAPI, Logger logger, Minimap minimap, MapIR mapIR, ScriptInfo scriptInfo, PlayerHelper playerHelper, MapChunkHandler mapChunkHandler, ImageUtils imageUtils, CacheManager cacheManager) {
@@ -63,13 +59,31 @@ public class Walker {
 
     public void setup(String device, MapChunk mapChunk) {
         BufferedImage mapImage = mapChunkHandler.stitchMap(device, mapChunk, false, true);
+        Mat map = imageUtils.bufferedImageToMat(mapImage);
         // Save the updated MapInfo back to the cache manager
-        cacheManager.setMapInfo(device, new MapInfo(imageUtils.bufferedImageToMat(mapImage)));
+        cacheManager.setMapInfo(device, new MapInfo(map));
+        resetTracking(device);
+
+        // The downscaled map for the global search comes straight from the downscaled chunks
+        BufferedImage scaledMapImage = mapChunkHandler.stitchScaledMap(mapChunk, false);
+        if (scaledMapImage != null) {
+            mapIR.setScaledMap(device, map, imageUtils.bufferedImageToMat(scaledMapImage));
+        }
     }
 
     public void setup(String device, Mat map) {
         // Create or update the MapInfo object with the new map
         cacheManager.setMapInfo(device, new MapInfo(map));
+        resetTracking(device);
+    }
+
+    /**
+     * Drops the position tracking of a device, on the walker map and on the bank map.
+     * @param device the device to reset
+     */
+    public void resetTracking(String device) {
+        mapIR.resetTracking(device);
+        mapIR.resetTracking(device + BANK_TRACKING_SUFFIX);
     }
 
     /**
@@ -96,7 +110,7 @@ public class Walker {
         }
 
         Mat minimapMat = minimap.getCleanMinimapMat(device,false, true);
-        return mapIR.getPosition(minimapMat, bankMap);
+        return mapIR.getPosition(device + BANK_TRACKING_SUFFIX, minimapMat, bankMap);
     }
 
     public PositionResult getPlayerPosition(String device) {
@@ -109,7 +123,7 @@ public class Walker {
         if (minimapMat == null) {
             return new PositionResult(new Point(0, 0), 0.0, 0, 0);
         }
-        return mapIR.getPosition(minimapMat, deviceInfo.getMap());
+        return mapIR.getPosition(device, minimapMat, deviceInfo.getMap());
     }
 
     /**
@@ -154,7 +168,7 @@ public class Walker {
     public Point getWorldPosition(String device, int minimapRegionSize) {
         MapInfo deviceInfo = cacheManager.getMapInfo(device);
         Mat minimapMat = minimap.getCleanMinimapMat(device, minimapRegionSize, false, true);
-        return mapIR.getPosition(minimapMat, deviceInfo.getMap()).getWorldCoordinatesOCV(device);
+        return mapIR.getPosition(device, minimapMat, deviceInfo.getMap()).getWorldCoordinatesOCV(device);
     }
 
     public Point worldToMM(Point worldPoint, Point playerPoint, String device) {
@@ -307,23 +321,26 @@ public class Walker {
         }
     }
 
-    // Shared method to find the shortest path and return GraphNode[] (internal logic)
-    private GraphNode[] findShortestPath(String device, Tile endTile) {
+    // Shared method to find the shortest path and return the graph node indices (internal logic)
+    private int[] findShortestPath(String device, Tile endTile) {
         Point startPosition = getWorldPosition(device);
         logger.print("world position: " + startPosition.x + "," + startPosition.y);
-        GraphNode startNode = findNearestNode(graph, (int) startPosition.x, (int) startPosition.y);
-        logger.print("Start node: " + startNode.getNodeX() + "," + startNode.getNodeY() + "," + startNode.getNodeZ());
-        GraphNode endNode = findNearestNode(graph, endTile.x(), endTile.y());
-
-        // Find the shortest path as a GraphNode[] array
-        GraphNode[] shortestPathNodes = graph.findShortestPath(startNode, endNode);
+        int startNode = graph.findNearestNode((int) startPosition.x, (int) startPosition.y);
+        logger.print("Start node: " + graph.getNodeX(startNode) + "," + graph.getNodeY(startNode) + "," + graph.getNodeZ(startNode));
+        int endNode = graph.findNearestNode(endTile.x(), endTile.y());
+
+        // Find the shortest path as an array of node indices
+        int[] shortestPathNodes = graph.findPathIndices(graph.findBestStartNode(startNode), endNode);
+        if (shortestPathNodes.length == 0) {
+            logger.print("No path found from start node " + graph.getNodeX(startNode) + "," + graph.getNodeY(startNode) + "," + graph.getNodeZ(startNode) + " to end node " + graph.getNodeX(endNode) + "," + graph.getNodeY(endNode) + "," + graph.getNodeZ(endNode));
+        }
 
         // Return the shortest path or null if no path is found
-        return (shortestPathNodes == null || shortestPathNodes.length == 0) ? null : shortestPathNodes;
+        return shortestPathNodes.length == 0 ? null : shortestPathNodes;
     }
 
     public Tile[] buildTilePath(String device, Tile endTile, boolean includeEndTile) {
-        GraphNode[] shortestPathNodes = findShortestPath(device, endTile);
+        int[] shortestPathNodes = findShortestPath(device, endTile);
 
         // If no path is found, return an empty array
         if (shortestPathNodes == null) {
@@ -334,10 +351,10 @@ public class Walker {
         int tileArraySize = shortestPathNodes.length + (includeEndTile ? 1 : 0);
         Tile[] tiles = new Tile[tileArraySize];
 
-        // Convert the GraphNode[] array into a Tile[] array
+        // Convert the node indices into a Tile[] array
         for (int i = 0; i < shortestPathNodes.length; i++) {
-            GraphNode node = shortestPathNodes[i];
-            tiles[i] = new Tile(node.getNodeX(), node.getNodeY(), node.getNodeZ());
+            int node = shortestPathNodes[i];
+            tiles[i] = new Tile(graph.getNodeX(node), graph.getNodeY(node), graph.getNodeZ(node));
         }
 
         // Add the endTile to the last position if needed
@@ -350,13 +367,11 @@ public class Walker {
 
     private void loadGraph() {
         logger.print("Loading webwalker graphs");
-        String graphFilePath = SystemUtils.getSystemPath() + "graphs/map.graph";
+        Path graphFilePath = Path.of(SystemUtils.getSystemPath() + "graphs/map.graph");
 
         try {
-            String json = new String(Files.readAllBytes(Path.of(graphFilePath)));
-            Gson gson = new Gson();
-            GraphData graphData = gson.fromJson(json, GraphData.class);
-            graph = convertToGraph(graphData);
+            // The JSON graph is converted to the binary format once, after that the binary file is mapped directly
+            graph = GraphFile.loadOrConvert(graphFilePath);
             logger.print("Done loading graphs");
         } catch (Exception e) {
             e.printStackTrace();
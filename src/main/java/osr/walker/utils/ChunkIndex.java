@@ -0,0 +1,242 @@
+package osr.walker.utils;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * The chunks stitched into one device's map and where they were drawn, indexed both ways.
+ * World lookups hash the packed (chunk x, chunk y, plane) of the chunk a world tile falls in,
+ * local lookups read a grid over the stitched map whose cells are as coarse as the chunk positions allow,
+ * so both directions are a constant number of array reads instead of a scan over every chunk.
+ * <p>
+ * Chunks are added while a map is stitched. The lookup tables are rebuilt on the first lookup after a change.
+ */
+public class ChunkIndex {
+    private static final int CHUNK_SIZE = 256;
+
+    private int size;
+    private int[] chunkX = new int[64];
+    private int[] chunkY = new int[64];
+    private int[] plane = new int[64];
+    private int[] left = new int[64];
+    private int[] top = new int[64];
+    private volatile Lookup lookup;
+
+    /**
+     * Adds a chunk drawn on the map, replacing an earlier chunk with the same coordinates and plane.
+     *
+     * @param x         The chunk's x.
+     * @param y         The chunk's y.
+     * @param planeName The plane, as the number it was stitched with.
+     * @param topLeft   Where the chunk was drawn on the stitched map.
+     */
+    public synchronized void add(int x, int y, String planeName, Point topLeft) {
+        int planeNumber = planeName != null ? Integer.parseInt(planeName.trim()) : -1;
+        int index = size;
+        for (int i = 0; i < size; i++) {
+            if (chunkX[i] == x && chunkY[i] == y && plane[i] == planeNumber) {
+                index = i;
+                break;
+            }
+        }
+        if (index == size) {
+            if (size == chunkX.length) {
+                int capacity = size * 2;
+                chunkX = Arrays.copyOf(chunkX, capacity);
+                chunkY = Arrays.copyOf(chunkY, capacity);
+                plane = Arrays.copyOf(plane, capacity);
+                left = Arrays.copyOf(left, capacity);
+                top = Arrays.copyOf(top, capacity);
+            }
+            size++;
+        }
+        chunkX[index] = x;
+        chunkY[index] = y;
+        plane[index] = planeNumber;
+        left[index] = topLeft.x;
+        top[index] = topLeft.y;
+        lookup = null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Translates a position on the stitched map to world coordinates.
+     *
+     * @return The world coordinates and plane, or (0, 0) on plane -1 if no chunk was drawn there.
+     */
+    public ChunkCoordinates toWorld(int localX, int localY) {
+        Lookup current = getLookup();
+        int i = current.chunkAtLocal(localX, localY);
+        if (i < 0) {
+            return new ChunkCoordinates(new Point(0, 0), -1);
+        }
+        int worldX = current.chunkX[i] * CHUNK_SIZE + (localX - current.left[i]);
+        int worldY = current.chunkY[i] * CHUNK_SIZE + (current.top[i] - localY);
+        return new ChunkCoordinates(new Point(worldX, worldY), current.plane[i]);
+    }
+
+    /**
+     * @return The plane of the chunk drawn at a position on the stitched map, or -1 if no chunk was drawn there.
+     */
+    public int getPlaneAtLocal(int localX, int localY) {
+        Lookup current = getLookup();
+        int i = current.chunkAtLocal(localX, localY);
+        return i < 0 ? -1 : current.plane[i];
+    }
+
+    /**
+     * Translates world coordinates to a position on the stitched map.
+     *
+     * @return The local coordinates and plane, or (0, 0) on plane -1 if the chunk holding the tile was not stitched.
+     */
+    public ChunkCoordinates toLocal(int worldX, int worldY, int worldPlane) {
+        // The chunk's y axis is inverted, chunk y covers world y from y * 256 - 255 up to y * 256
+        int x = Math.floorDiv(worldX, CHUNK_SIZE);
+        int y = Math.floorDiv(worldY + CHUNK_SIZE - 1, CHUNK_SIZE);
+        Lookup current = getLookup();
+        int i = current.chunkAtWorld(x, y, worldPlane);
+        if (i < 0) {
+            return new ChunkCoordinates(new Point(0, 0), -1);
+        }
+        int localX = worldX - x * CHUNK_SIZE + current.left[i];
+        int localY = current.top[i] + (y * CHUNK_SIZE - worldY);
+        return new ChunkCoordinates(new Point(localX, localY), worldPlane);
+    }
+
+    private Lookup getLookup() {
+        Lookup current = lookup;
+        if (current == null) {
+            synchronized (this) {
+                current = lookup;
+                if (current == null) {
+                    current = new Lookup(size, chunkX, chunkY, plane, left, top);
+                    lookup = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * An immutable snapshot of the chunks with both lookup tables.
+     */
+    private static class Lookup {
+        private final int[] chunkX;
+        private final int[] chunkY;
+        private final int[] plane;
+        private final int[] left;
+        private final int[] top;
+
+        // Open addressing table from packed chunk key to chunk index + 1
+        private final int[] keys;
+        private final int[] values;
+        private final int mask;
+        private final int shift;
+
+        // Grid over the stitched map holding chunk index + 1 per cell
+        private final int originX;
+        private final int originY;
+        private final int cellWidth;
+        private final int cellHeight;
+        private final int columns;
+        private final int rows;
+        private final int[] grid;
+
+        Lookup(int size, int[] chunkX, int[] chunkY, int[] plane, int[] left, int[] top) {
+            this.chunkX = Arrays.copyOf(chunkX, size);
+            this.chunkY = Arrays.copyOf(chunkY, size);
+            this.plane = Arrays.copyOf(plane, size);
+            this.left = Arrays.copyOf(left, size);
+            this.top = Arrays.copyOf(top, size);
+
+            int capacity = Integer.highestOneBit(Math.max(16, size * 4) - 1) << 1;
+            this.keys = new int[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+            this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+            for (int i = 0; i < size; i++) {
+                int key = pack(chunkX[i], chunkY[i], plane[i]);
+                int slot = slot(key);
+                while (values[slot] != 0 && keys[slot] != key) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = i + 1;
+            }
+
+            // The cells are the largest size every chunk edge falls on, 256 wide and 4 high for a stitched map
+            int minX = 0, minY = 0, maxX = 0, maxY = 0;
+            for (int i = 0; i < size; i++) {
+                minX = i == 0 ? left[i] : Math.min(minX, left[i]);
+                minY = i == 0 ? top[i] : Math.min(minY, top[i]);
+                maxX = i == 0 ? left[i] : Math.max(maxX, left[i]);
+                maxY = i == 0 ? top[i] : Math.max(maxY, top[i]);
+            }
+            int width = CHUNK_SIZE;
+            int height = CHUNK_SIZE;
+            for (int i = 0; i < size; i++) {
+                width = gcd(width, left[i] - minX);
+                height = gcd(height, top[i] - minY);
+            }
+            this.originX = minX;
+            this.originY = minY;
+            this.cellWidth = width;
+            this.cellHeight = height;
+            this.columns = size == 0 ? 0 : (maxX - minX + CHUNK_SIZE) / width;
+            this.rows = size == 0 ? 0 : (maxY - minY + CHUNK_SIZE) / height;
+            this.grid = new int[columns * rows];
+            for (int i = 0; i < size; i++) {
+                int column = (left[i] - minX) / width;
+                int row = (top[i] - minY) / height;
+                for (int r = row; r < row + CHUNK_SIZE / height; r++) {
+                    Arrays.fill(grid, r * columns + column, r * columns + column + CHUNK_SIZE / width, i + 1);
+                }
+            }
+        }
+
+        int chunkAtLocal(int localX, int localY) {
+            int dx = localX - originX;
+            int dy = localY - originY;
+            if (dx < 0 || dy < 0) {
+                return -1;
+            }
+            int column = dx / cellWidth;
+            int row = dy / cellHeight;
+            if (column >= columns || row >= rows) {
+                return -1;
+            }
+            return grid[row * columns + column] - 1;
+        }
+
+        int chunkAtWorld(int x, int y, int worldPlane) {
+            int key = pack(x, y, worldPlane);
+            for (int slot = slot(key); values[slot] != 0; slot = (slot + 1) & mask) {
+                int i = values[slot] - 1;
+                if (keys[slot] == key && chunkX[i] == x && chunkY[i] == y && plane[i] == worldPlane) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int slot(int key) {
+            return (key * 0x9E3779B9) >>> shift;
+        }
+
+        private static int pack(int x, int y, int plane) {
+            return (plane << 24) ^ ((x & 0xFFF) << 12) ^ (y & 0xFFF);
+        }
+
+        private static int gcd(int a, int b) {
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+}
@@ -9,19 +9,22 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class MapChunkHandler {
     private final Logger logger;
-    private static final ConcurrentHashMap<String, Map<String, ChunkData>> deviceChunkPositions = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ChunkIndex> deviceChunkPositions = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, MapTileStore> tileStores = new ConcurrentHashMap<>();
 
     public MapChunkHandler(Logger logger) {
         this.logger = logger;
     }
 
-    public static ConcurrentHashMap<String, Map<String, ChunkData>> getDeviceChunkPositions() {
+    public static ConcurrentHashMap<String, ChunkIndex> getDeviceChunkPositions() {
         return deviceChunkPositions;
     }
 
@@ -29,34 +32,20 @@ public class MapChunkHandler {
         deviceChunkPositions.remove(deviceID);
     }
 
-    private static ChunkCoordinates findChunkCoordinates(String device, int localX, int localY) {
-        Map<String, ChunkData> chunkPositions = deviceChunkPositions.get(device);
-        if (chunkPositions == null) {
+    private static ChunkIndex getChunkIndex(String device) {
+        ChunkIndex chunkIndex = deviceChunkPositions.get(device);
+        if (chunkIndex == null) {
             System.out.println("No chunks stored for device: " + device);
-            return new ChunkCoordinates(new Point(0, 0), -1);  // Indicating no chunk found
         }
+        return chunkIndex;
+    }
 
-        for (Map.Entry<String, ChunkData> entry : chunkPositions.entrySet()) {
-            ChunkData chunkData = entry.getValue();
-            Point topLeft = chunkData.getTopLeft();
-            if (localX >= topLeft.x && localX < topLeft.x + 256 &&
-                    localY >= topLeft.y && localY < topLeft.y + 256) {
-
-                // Extract and parse the chunk key parts
-                String[] chunkKeyParts = entry.getKey().split("-");
-                int chunkX = Integer.parseInt(chunkKeyParts[0].trim());
-                int chunkY = Integer.parseInt(chunkKeyParts[1].trim());
-                int worldX = chunkX * 256 + (localX - topLeft.x);
-                int worldY = chunkY * 256 + (topLeft.y - localY);
-
-                int plane = chunkData.getPlane() != null ? Integer.parseInt(chunkData.getPlane()) : -1;
-
-                return new ChunkCoordinates(new Point(worldX, worldY), plane);
-            }
+    private static ChunkCoordinates findChunkCoordinates(String device, int localX, int localY) {
+        ChunkIndex chunkIndex = getChunkIndex(device);
+        if (chunkIndex == null) {
+            return new ChunkCoordinates(new Point(0, 0), -1);  // Indicating no chunk found
         }
-
-        //System.out.println("Coordinates (" + localX + ", " + localY + ") do not match any chunk for device: " + device);
-        return new ChunkCoordinates(new Point(0, 0), -1);
+        return chunkIndex.toWorld(localX, localY);
     }
 
     public static Point getWorldCoordinates(String device, int localX, int localY) {
@@ -80,74 +69,19 @@ public class MapChunkHandler {
     }
 
     public static int getPlaneFromLocalCoordinates(String device, int localX, int localY) {
-        // Retrieve the map of chunk positions for the given device
-        Map<String, ChunkData> chunkPositions = deviceChunkPositions.get(device);
-
-        if (chunkPositions == null) {
-            System.out.println("No chunks stored for device: " + device);
+        ChunkIndex chunkIndex = getChunkIndex(device);
+        if (chunkIndex == null) {
             return -1;  // Indicating no chunk found
         }
-
-        // Iterate over all chunks to find which one contains the local coordinates
-        for (Map.Entry<String, ChunkData> entry : chunkPositions.entrySet()) {
-            ChunkData chunkData = entry.getValue();
-            Point topLeft = chunkData.getTopLeft();
-
-            // Check if the local coordinates fall within this chunk
-            if (localX >= topLeft.x && localX < topLeft.x + 256 &&
-                    localY >= topLeft.y && localY < topLeft.y + 256) {
-
-                // Extract and parse the plane information from the chunk key
-                return chunkData.getPlane() != null ? Integer.parseInt(chunkData.getPlane()) : -1;
-            }
-        }
-
-        // If no chunk is found for the given local coordinates, return -1
-        //System.out.println("Coordinates (" + localX + ", " + localY + ") do not match any chunk for device: " + device);
-        return -1;
+        return chunkIndex.getPlaneAtLocal(localX, localY);
     }
 
     public static ChunkCoordinates getLocalCoordinatesFromWorld(String device, int worldX, int worldY, int worldPlane) {
-        Map<String, ChunkData> chunkPositions = deviceChunkPositions.get(device);
-
-        if (chunkPositions == null) {
-            System.out.println("No chunks stored for device: " + device);
+        ChunkIndex chunkIndex = getChunkIndex(device);
+        if (chunkIndex == null) {
             return new ChunkCoordinates(new Point(0, 0), -1);
         }
-
-        for (Map.Entry<String, ChunkData> entry : chunkPositions.entrySet()) {
-            ChunkData chunkData = entry.getValue();
-            Point chunkTopLeft = chunkData.getTopLeft();
-
-            // Parse chunk key
-            String[] parts = entry.getKey().split("-");
-            int chunkX = Integer.parseInt(parts[0].trim());
-            int chunkY = Integer.parseInt(parts[1].trim());
-            int plane = Integer.parseInt(parts[2].trim());
-
-            // Check if we are on the right plane
-            if (plane != worldPlane) continue;
-
-            // Chunk boundaries for inverted Y-axis
-            int startX = chunkX * 256;  // X-boundary start
-            int endX = startX + 256 - 1;  // X-boundary end
-
-            // Adjust Y-boundary for inverted Y-axis
-            int startY = chunkY * 256;  // Chunk Y-start (inverted)
-            int endY = startY - 256 + 1;  // Y-end (since Y is inverted, we subtract to go "downward")
-
-            // Check if the world coordinates fall within this chunk
-            if (worldX >= startX && worldX <= endX && worldY >= endY && worldY <= startY) {
-                int localX = worldX - startX + chunkTopLeft.x;
-                int localY = chunkTopLeft.y + (startY - worldY);  // Handle inverted Y-axis for local coordinates
-                //System.out.println("Matching chunk found. Local coordinates: (" + localX + ", " + localY + ")");
-                return new ChunkCoordinates(new Point(localX, localY), plane);
-            }
-        }
-
-        // No matching chunk found
-        //System.out.println("No matching chunk found for world coordinates (" + worldX + ", " + worldY + ")");
-        return new ChunkCoordinates(new Point(0, 0), -1);
+        return chunkIndex.toLocal(worldX, worldY, worldPlane);
     }
 
     public BufferedImage stitchMap(String device, MapChunk mapChunk, boolean getCollision, boolean cleanChunkCache) {
@@ -166,51 +100,65 @@ public class MapChunkHandler {
         }
 
         // If there is only 1 chunk, we calculate the bounding chunks around it
-        Set<String> allChunks;
         if (mapChunk.getChunks().size() == 1) {
-            String singleChunk = mapChunk.getChunks().get(0);
-            allChunks = calculateBoundingChunksFromBox(singleChunk, singleChunk);
-            // Create a new MapChunk with the updated chunks list
-            MapChunk adjustedMapChunk = new MapChunk(allChunks.toArray(new String[0]), mapChunk.getPlanes().toArray(new String[0]));
-            logger.print("Only one chunk provided, adding surrounding chunks: " + allChunks);
-            return stitchChunks(device, adjustedMapChunk, getCollision);
-        } else {
-            // If there are 2 or more chunks, proceed as usual
-            return stitchChunks(device, mapChunk, getCollision);
+            logger.print("Only one chunk provided, adding surrounding chunks: " + resolveChunks(mapChunk.getChunks()));
         }
+
+        ChunkIndex chunkPositions = deviceChunkPositions.computeIfAbsent(device, k -> new ChunkIndex());
+        return stitchChunks(mapChunk, getCollision, false, chunkPositions);
+    }
+
+    /**
+     * Stitches the same map as {@link #stitchMap} at a quarter of the size, from the downscaled chunks in the tile store.
+     * The result equals the full map resized by {@link MapTileStore#LEVEL_SCALE} and does not touch the stored chunk positions.
+     *
+     * @param mapChunk     The chunks and planes to stitch.
+     * @param getCollision true to use the collision chunks.
+     * @return The downscaled map, or null if no chunks are provided.
+     */
+    public BufferedImage stitchScaledMap(MapChunk mapChunk, boolean getCollision) {
+        if (mapChunk.getChunks().isEmpty()) {
+            return null;
+        }
+        return stitchChunks(mapChunk, getCollision, true, null);
+    }
+
+    /**
+     * Gets all the chunks to stitch: a single chunk is grown by its surrounding chunks, two chunks are the corners of a box.
+     */
+    private Set<String> resolveChunks(List<String> chunks) {
+        if (chunks.size() == 1) {
+            return calculateBoundingChunksFromBox(chunks.get(0), chunks.get(0));
+        } else if (chunks.size() == 2) {
+            return calculateBoundingChunksFromBox(chunks.get(0), chunks.get(1));
+        }
+        return new HashSet<>(chunks);
     }
 
-    private BufferedImage stitchChunks(String device, MapChunk mapChunk, boolean getCollision) {
-        List<String> chunks = mapChunk.getChunks();
+    private BufferedImage stitchChunks(MapChunk mapChunk, boolean getCollision, boolean scaled, ChunkIndex chunkPositions) {
         List<String> planes = mapChunk.getPlanes();
 
         // Get all chunks including bounding chunks if needed
-        Set<String> allChunks = (chunks.size() == 2)
-                ? calculateBoundingChunksFromBox(chunks.get(0), chunks.get(1))
-                : new HashSet<>(chunks);
+        Set<String> allChunks = resolveChunks(mapChunk.getChunks());
 
         // Group chunks based on adjacency
         List<Set<String>> chunkGroups = groupChunks(allChunks);
 
-        // Calculate dimensions for the image, accounting for the border
+        // Calculate dimensions for the image, accounting for the border.
+        // A new BGR image is already black, and it is the layout Walker converts to a Mat without a redraw.
         Dimension dimensions = calculateDimensionsForStitchingWithBorder(chunkGroups, planes);
-        BufferedImage finalImage = new BufferedImage(dimensions.width, dimensions.height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D gFinal = finalImage.createGraphics();
-
-        // Prepare the canvas (black background)
-        prepareCanvas(gFinal, dimensions);
+        int divisor = scaled ? MapTileStore.LEVEL_SCALE : 1;
+        BufferedImage finalImage = new BufferedImage(dimensions.width / divisor, dimensions.height / divisor, BufferedImage.TYPE_3BYTE_BGR);
 
         int currentHeight = 100;  // Start with yOffset of 100 to account for top border
-        Map<String, ChunkData> chunkPositions = deviceChunkPositions.computeIfAbsent(device, k -> new HashMap<>());
 
         // Process each chunk group
         for (Set<String> group : chunkGroups) {
             Dimension groupDimensions = calculateGroupDimensions(group, planes);
-            processGroup(gFinal, group, planes, currentHeight, chunkPositions, getCollision);
+            processGroup(finalImage, group, planes, currentHeight, chunkPositions, getCollision, scaled);
             currentHeight += groupDimensions.height;
         }
 
-        gFinal.dispose();
         return finalImage;
     }
 
@@ -244,12 +192,7 @@ public class MapChunkHandler {
         return calculateBoundingChunks(upperLeftX, upperLeftY, lowerRightX, lowerRightY);
     }
 
-    private void prepareCanvas(Graphics2D graphics, Dimension dimensions) {
-        graphics.setColor(Color.BLACK);
-        graphics.fillRect(0, 0, dimensions.width, dimensions.height);  // Fill entire canvas with black
-    }
-
-    private void processGroup(Graphics2D gFinal, Set<String> group, List<String> planes, int yOffset, Map<String, ChunkData> chunkPositions, boolean getCollision) {
+    private void processGroup(BufferedImage target, Set<String> group, List<String> planes, int yOffset, ChunkIndex chunkPositions, boolean getCollision, boolean scaled) {
         int[] boundingBox = calculateBoundingBox(group);
 
         // Calculate the number of vertical chunks in the group
@@ -262,7 +205,7 @@ public class MapChunkHandler {
             // Iterate over each chunk in the group
             for (String chunk : group) {
                 // Draw each chunk for the current plane
-                processChunk(gFinal, chunk, boundingBox, currentPlaneOffset, chunkPositions, plane, getCollision);
+                processChunk(target, chunk, boundingBox, currentPlaneOffset, chunkPositions, plane, getCollision, scaled);
             }
 
             // After drawing the entire plane, update the offset for the next plane
@@ -283,7 +226,7 @@ public class MapChunkHandler {
         return uniqueYCoordinates.size();  // The number of unique Y coordinates represents the vertical chunks
     }
 
-    private void processChunk(Graphics2D gFinal, String chunk, int[] boundingBox, int yOffset, Map<String, ChunkData> chunkPositions, String plane, boolean getCollision) {
+    private void processChunk(BufferedImage target, String chunk, int[] boundingBox, int yOffset, ChunkIndex chunkPositions, String plane, boolean getCollision, boolean scaled) {
         String[] parts = chunk.split("-");
         int chunkX = Integer.parseInt(parts[0].trim());
         int chunkY = Integer.parseInt(parts[1].trim());
@@ -292,19 +235,75 @@ public class MapChunkHandler {
         int drawX = (chunkX - boundingBox[0]) * 256 + 100;  // Horizontal position, starting 100px from the left
         int drawY = (boundingBox[1] - chunkY) * 256 + yOffset;  // Vertical position is adjusted by yOffset for planes
 
-        chunkPositions.put(chunkX + "-" + chunkY + "-" + plane, new ChunkData(new Point(drawX, drawY), plane));
-
-        // Construct the file path for the chunk and plane
-        String filePath = constructFilePath(chunkX, chunkY, plane, getCollision);
+        if (chunkPositions != null) {
+            chunkPositions.add(chunkX, chunkY, plane, new Point(drawX, drawY));
+        }
 
-        // Draw the chunk at the calculated position
-        drawImage(gFinal, filePath, drawX, drawY);
+        // Copy the chunk from the tile store, falling back to drawing the png if the store can't be used
+        int divisor = scaled ? MapTileStore.LEVEL_SCALE : 1;
+        MapTileStore store = getTileStore(plane, getCollision);
+        if (store != null) {
+            try {
+                store.copyChunk(chunkX, chunkY, scaled, target, drawX / divisor, drawY / divisor);
+                return;
+            } catch (UncheckedIOException e) {
+                // Usually an interrupted script closed the store's channel, the next chunk opens it again
+                logger.print("Map tile store failed, reopening it: " + e.getMessage());
+                dropTileStore(plane, getCollision, store);
+            }
+        }
+        drawImage(target, constructFilePath(chunkX, chunkY, plane, getCollision), drawX / divisor, drawY / divisor, divisor);
     }
 
     private String constructFilePath(int chunkX, int chunkY, String plane, boolean getCollision) {
+        return constructFolderPath(plane, getCollision) + chunkX + "-" + chunkY + ".png";
+    }
+
+    private String constructFolderPath(String plane, boolean getCollision) {
         String basePath = SystemUtils.getSystemPath();
         String folder = getCollision ? "chunks/collision/" : "chunks/map/";
-        return basePath + folder + plane + "/" + chunkX + "-" + chunkY + ".png";
+        return basePath + folder + plane + "/";
+    }
+
+    /**
+     * Opens the tile store of a chunk folder, the stores are shared by all devices.
+     *
+     * @return The store, or null if it can't be opened.
+     */
+    private MapTileStore getTileStore(String plane, boolean getCollision) {
+        String key = tileStoreKey(plane, getCollision);
+        MapTileStore store = tileStores.get(key);
+        if (store != null && store.isOpen()) {
+            return store;
+        }
+
+        synchronized (tileStores) {
+            store = tileStores.get(key);
+            if (store != null && !store.isOpen()) {
+                tileStores.remove(key);
+                store = null;
+            }
+            if (store == null) {
+                try {
+                    Path folder = Path.of(constructFolderPath(plane, getCollision));
+                    store = new MapTileStore(folder, Path.of(SystemUtils.getSystemPath() + "chunks/store/" + key + ".tiles"));
+                    tileStores.put(key, store);
+                } catch (IOException | RuntimeException e) {
+                    logger.print("Failed to open the map tile store for " + key + ": " + e.getMessage());
+                }
+            }
+            return store;
+        }
+    }
+
+    private void dropTileStore(String plane, boolean getCollision, MapTileStore store) {
+        if (tileStores.remove(tileStoreKey(plane, getCollision), store)) {
+            store.close();
+        }
+    }
+
+    private static String tileStoreKey(String plane, boolean getCollision) {
+        return (getCollision ? "collision-" : "map-") + plane;
     }
 
     private Dimension calculateGroupDimensions(Set<String> group, List<String> planes) {
@@ -393,11 +392,13 @@ public class MapChunkHandler {
         return allChunks;
     }
 
-    private void drawImage(Graphics2D g, String filePath, int x, int y) {
+    private void drawImage(BufferedImage target, String filePath, int x, int y, int divisor) {
         try {
             BufferedImage image = ImageIO.read(new File(filePath));
             if (image != null) {
-                g.drawImage(image, x, y, null);
+                Graphics2D g = target.createGraphics();
+                g.drawImage(image, x, y, image.getWidth() / divisor, image.getHeight() / divisor, null);
+                g.dispose();
                 image.flush();
             } else {
                 logger.print("Failed to load image: " + filePath);
@@ -414,7 +415,7 @@ public class MapChunkHandler {
         }
 
         // Check if the device has any chunk data stored
-        Map<String, ChunkData> removedChunks = deviceChunkPositions.remove(device);
+        ChunkIndex removedChunks = deviceChunkPositions.remove(device);
 
         if (removedChunks != null) {
             System.out.println("Removed all chunks for device: " + device + ". Number of chunks removed: " + removedChunks.size());
@@ -7,16 +7,22 @@ import org.opencv.imgproc.Imgproc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
 public class MapIR {
+    private static final String DEFAULT_TRACKER = "default";
+    private static final double LOCAL_MIN_CONFIDENCE = 0.60;
+
     private final Logger logger;
 
     private final ThreadLocal<WalkerCache> threadLocalCache = ThreadLocal.withInitial(WalkerCache::new);
     private final int scale = 4;
     private final ExecutorService threadExecutor = ThreadManager.getInstance().getUnifiedExecutor();
+    private final Map<String, MinimapTracker> trackers = new ConcurrentHashMap<>();
 
     public MapIR(Logger logger) {
         this.logger = logger;
@@ -29,7 +35,21 @@ public class MapIR {
      * @return local position on stitched map
      */
     public PositionResult getPosition(Mat miniMap, Mat worldMap) {
-        Callable<PositionResult> positionTask = () -> performTemplateMatchForMap(miniMap, worldMap);
+        return getPosition(DEFAULT_TRACKER, miniMap, worldMap);
+    }
+
+    /**
+     * Returns the map position of our character as LOCAL coordinates (Local to the stitched map).
+     * The search is tracked per key: while the previous position is recent only a window around it is searched,
+     * the whole map is only searched again when the character can't be found in that window.
+     * @param trackingKey The key to track the position under, usually the device
+     * @param miniMap The minimap mat
+     * @param worldMap The generated chunk map
+     * @return local position on stitched map
+     */
+    public PositionResult getPosition(String trackingKey, Mat miniMap, Mat worldMap) {
+        MinimapTracker tracker = trackers.computeIfAbsent(trackingKey, k -> new MinimapTracker());
+        Callable<PositionResult> positionTask = () -> trackPosition(tracker, miniMap, worldMap);
         try {
             return threadExecutor.invokeAny(List.of(positionTask));
         } catch (InterruptedException | ExecutionException e) {
@@ -38,21 +58,112 @@ public class MapIR {
         }
     }
 
-    private PositionResult performTemplateMatchForMap(Mat miniMap, Mat worldMap) {
+    /**
+     * Drops the tracking state and cached scaled map for a key.
+     * @param trackingKey The key the position was tracked under
+     */
+    public void resetTracking(String trackingKey) {
+        MinimapTracker tracker = trackers.remove(trackingKey);
+        if (tracker != null) {
+            synchronized (tracker) {
+                tracker.release();
+            }
+        }
+    }
+
+    /**
+     * Gives the tracker of a key a prebuilt downscaled map, for example stitched from the downscaled map chunks.
+     * @param trackingKey The key the position is tracked under
+     * @param worldMap The generated chunk map
+     * @param scaledMap The map downscaled by 4, the tracker takes ownership of it
+     */
+    public void setScaledMap(String trackingKey, Mat worldMap, Mat scaledMap) {
+        if (scaledMap.cols() != worldMap.cols() / scale || scaledMap.rows() != worldMap.rows() / scale) {
+            scaledMap.release();
+            return;
+        }
+        MinimapTracker tracker = trackers.computeIfAbsent(trackingKey, k -> new MinimapTracker());
+        synchronized (tracker) {
+            tracker.setScaledMap(worldMap, scaledMap);
+        }
+    }
+
+    private PositionResult trackPosition(MinimapTracker tracker, Mat miniMap, Mat worldMap) {
         if (!validateInput(miniMap, worldMap)) {
-            return new PositionResult(new Point(0, 0), 0.0, worldMap.height(), worldMap.width());
+            return new PositionResult(new Point(0, 0), 0.0, worldMap == null ? 0 : worldMap.height(), worldMap == null ? 0 : worldMap.width());
         }
 
+        synchronized (tracker) {
+            try {
+                PositionResult localResult = performLocalSearch(tracker, miniMap, worldMap);
+                if (localResult != null) {
+                    return localResult;
+                }
+
+                PositionResult globalResult = performTemplateMatchForMap(miniMap, worldMap, tracker.getScaledMap(worldMap, scale));
+                if (globalResult.getConfidence() > 0) {
+                    tracker.updatePosition(topLeftOf(globalResult.getPosition(), miniMap.size()));
+                } else {
+                    tracker.lostTrack();
+                }
+                return globalResult;
+            } finally {
+                miniMap.release();
+            }
+        }
+    }
+
+    /**
+     * Matches the minimap against the window around the last known position only.
+     * @return The position, or null if there is no recent position or the window match isn't trustworthy
+     */
+    private PositionResult performLocalSearch(MinimapTracker tracker, Mat miniMap, Mat worldMap) {
+        Rect window = tracker.getSearchWindow(worldMap, miniMap.size());
+        if (window == null) {
+            return null;
+        }
+
+        Mat subWorldMap = new Mat(worldMap, window);
+        Mat localResult = new Mat();
+        try {
+            Imgproc.matchTemplate(subWorldMap, miniMap, localResult, Imgproc.TM_CCOEFF_NORMED);
+            Core.MinMaxLocResult mmr = Core.minMaxLoc(localResult);
+
+            if (Double.isNaN(mmr.maxVal) || mmr.maxVal < LOCAL_MIN_CONFIDENCE) {
+                logger.devLog(String.format("Local minimap search confidence too low: %.4f, searching the full map.", mmr.maxVal));
+                tracker.lostTrack();
+                return null;
+            }
+
+            // A best match on the window's edge means the character may have moved past it
+            boolean onLeftEdge = mmr.maxLoc.x == 0 && window.x > 0;
+            boolean onTopEdge = mmr.maxLoc.y == 0 && window.y > 0;
+            boolean onRightEdge = mmr.maxLoc.x == localResult.cols() - 1 && window.x + window.width < worldMap.cols();
+            boolean onBottomEdge = mmr.maxLoc.y == localResult.rows() - 1 && window.y + window.height < worldMap.rows();
+            if (onLeftEdge || onTopEdge || onRightEdge || onBottomEdge) {
+                logger.devLog("Local minimap match is on the edge of the search window, searching the full map.");
+                tracker.lostTrack();
+                return null;
+            }
+
+            tracker.updatePosition(new Point(mmr.maxLoc.x + window.x, mmr.maxLoc.y + window.y));
+            Point centerPoint = calculateCenterPoint(mmr.maxLoc, window, miniMap.size());
+            return new PositionResult(adjustPoint(centerPoint, 3), mmr.maxVal, worldMap.cols(), worldMap.rows());
+        } finally {
+            subWorldMap.release();
+            localResult.release();
+        }
+    }
+
+    private PositionResult performTemplateMatchForMap(Mat miniMap, Mat worldMap, Mat scaledWorldMap) {
         WalkerCache cache = threadLocalCache.get();
 
-        // Scale down the maps
+        // Scale down the minimap, the scaled world map is cached by the tracker
         Mat scaledMiniMap = null;
-        Mat scaledWorldMap = null;
         Mat result = null;
 
         try {
             scaledMiniMap = scaleImage(miniMap, scale);
-            scaledWorldMap = scaleImage(worldMap, scale);
 
             // Perform template matching on scaled maps
             result = new Mat();
@@ -94,16 +205,10 @@ public class MapIR {
 
             return bestMatch;
         } finally {
-            // Release the scaled images and result Mat to free native memory
-            if (miniMap != null) {
-                miniMap.release();
-            }
+            // Release the scaled minimap and result Mat to free native memory
             if (scaledMiniMap != null) {
                 scaledMiniMap.release();
             }
-            if (scaledWorldMap != null) {
-                scaledWorldMap.release();
-            }
             if (result != null) {
                 result.release();
             }
@@ -199,6 +304,11 @@ public class MapIR {
         return new Point(point.x - adjustment, point.y - adjustment);
     }
 
+    private Point topLeftOf(Point position, Size miniMapSize) {
+        // Inverse of calculateCenterPoint followed by adjustPoint
+        return new Point(position.x + 3 - miniMapSize.width / 2, position.y + 3 - miniMapSize.height / 2);
+    }
+
     private List<Core.MinMaxLocResult> findTopMatches(Mat result, int topN) {
         List<Core.MinMaxLocResult> topMatches = new ArrayList<>();
         for (int i = 0; i < topN; i++) {
@@ -0,0 +1,329 @@
+package osr.walker.utils;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Raw pixel store for the map chunks of one folder, e.g. chunks/map/0.
+ * Every chunk png is decoded once into a fixed size record holding the 256x256 chunk as BGR bytes followed by a
+ * precomputed 4x downscaled level, and appended to a single file that is read through memory mapped segments.
+ * Stitching a region is then a row copy per chunk row instead of a png decode and a redraw.
+ * <p>
+ * A record also keeps the modification time of the png it came from, so a chunk is decoded again when its png changes.
+ * Chunks without a png are kept if they are in the store, and left black otherwise.
+ * <p>
+ * A segment is mapped for more records than it holds and remapped at twice the size once appended records outgrow it,
+ * so appending a chunk doesn't remap. The file is grown to the mapped size, the header's record count tells what is stored.
+ * <p>
+ * The file channel is closed for good when a thread is interrupted while it writes, see {@link #isOpen()}.
+ * <pre>
+ * header  magic, version, chunkSize, levelScale, gridSize, recordCount, 2 reserved ints
+ * index   int[gridSize * gridSize], record number + 1 of chunk (x, y) at y * gridSize + x, 0 when not stored
+ * records long pngModified, byte[chunkSize * chunkSize * 3] chunk, byte[(chunkSize / levelScale)^2 * 3] level
+ * </pre>
+ */
+public class MapTileStore {
+    public static final int CHUNK_SIZE = 256;
+    public static final int LEVEL_SCALE = 4;
+    public static final int LEVEL_SIZE = CHUNK_SIZE / LEVEL_SCALE;
+
+    private static final int MAGIC = 0x4F535254; // "OSRT"
+    private static final int VERSION = 1;
+    private static final int GRID_SIZE = 256;
+    private static final int HEADER_BYTES = 8 * 4;
+    private static final int INDEX_BYTES = GRID_SIZE * GRID_SIZE * 4;
+    private static final int CHUNK_BYTES = CHUNK_SIZE * CHUNK_SIZE * 3;
+    private static final int LEVEL_BYTES = LEVEL_SIZE * LEVEL_SIZE * 3;
+    private static final int RECORD_BYTES = 8 + CHUNK_BYTES + LEVEL_BYTES;
+    private static final int RECORDS_PER_SEGMENT = 2048;
+    private static final int MIN_MAPPED_RECORDS = 64;
+
+    private final Path folder;
+    private final FileChannel channel;
+    private final int[] index = new int[GRID_SIZE * GRID_SIZE];
+    private int recordCount;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private int[] mappedRecords = new int[0];
+    private final byte[] tileBytes = new byte[CHUNK_BYTES];
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Opens the store for a chunk folder, creating it if it doesn't exist yet.
+     *
+     * @param folder    The folder holding the X-Y.png chunks.
+     * @param storeFile The store file.
+     * @throws IOException if the store can't be opened or created.
+     */
+    public MapTileStore(Path folder, Path storeFile) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(storeFile.getParent());
+        this.channel = FileChannel.open(storeFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            if (channel.size() < HEADER_BYTES + INDEX_BYTES || !readHeader()) {
+                // New or unreadable store, start over
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + INDEX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(CHUNK_SIZE).putInt(LEVEL_SCALE).putInt(GRID_SIZE).putInt(0);
+                writeFully(header.clear(), 0);
+                recordCount = 0;
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private boolean readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + INDEX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Keep reading until the header and index are in
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != CHUNK_SIZE
+                || header.getInt() != LEVEL_SCALE || header.getInt() != GRID_SIZE) {
+            return false;
+        }
+        recordCount = header.getInt();
+        if (channel.size() < HEADER_BYTES + INDEX_BYTES + (long) recordCount * RECORD_BYTES) {
+            return false;
+        }
+        header.position(HEADER_BYTES);
+        header.asIntBuffer().get(index);
+        for (int entry : index) {
+            if (entry < 0 || entry > recordCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies a chunk into a BGR image.
+     *
+     * @param chunkX The chunk's x.
+     * @param chunkY The chunk's y.
+     * @param scaled true to copy the downscaled level instead of the full chunk.
+     * @param target The TYPE_3BYTE_BGR image to copy into.
+     * @param x      The left edge of the chunk in the target.
+     * @param y      The top edge of the chunk in the target.
+     * @return false if the chunk has no png and isn't stored, the target is left untouched then.
+     * @throws UncheckedIOException if the store can't be used anymore, e.g. its channel was closed by an interrupt.
+     */
+    public synchronized boolean copyChunk(int chunkX, int chunkY, boolean scaled, BufferedImage target, int x, int y) {
+        int record = findRecord(chunkX, chunkY);
+        if (record < 0) {
+            return false;
+        }
+
+        int size = scaled ? LEVEL_SIZE : CHUNK_SIZE;
+        int offset = recordOffset(record) + 8 + (scaled ? CHUNK_BYTES : 0);
+        MappedByteBuffer segment = segmentOf(record);
+        byte[] data = ((DataBufferByte) target.getRaster().getDataBuffer()).getData();
+        int targetStride = target.getWidth() * 3;
+
+        // Clip the chunk to the target
+        int fromColumn = Math.max(0, -x);
+        int toColumn = Math.min(size, target.getWidth() - x);
+        int fromRow = Math.max(0, -y);
+        int toRow = Math.min(size, target.getHeight() - y);
+        if (fromColumn >= toColumn) {
+            return true;
+        }
+        for (int row = fromRow; row < toRow; row++) {
+            segment.get(offset + (row * size + fromColumn) * 3, data, (y + row) * targetStride + (x + fromColumn) * 3, (toColumn - fromColumn) * 3);
+        }
+        return true;
+    }
+
+    /**
+     * Decodes every png in the folder that isn't stored yet or changed since it was stored.
+     *
+     * @return The number of chunks decoded.
+     * @throws IOException if the folder can't be listed.
+     */
+    public synchronized int convertAll() throws IOException {
+        int converted = 0;
+        File[] files = folder.toFile().listFiles((dir, name) -> name.endsWith(".png"));
+        if (files == null) {
+            return 0;
+        }
+        for (File file : files) {
+            String[] parts = file.getName().substring(0, file.getName().length() - 4).split("-");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                int chunkX = Integer.parseInt(parts[0].trim());
+                int chunkY = Integer.parseInt(parts[1].trim());
+                if (chunkX < 0 || chunkY < 0 || chunkX >= GRID_SIZE || chunkY >= GRID_SIZE) {
+                    continue;
+                }
+                long storedBefore = storedModified(chunkX, chunkY);
+                findRecord(chunkX, chunkY);
+                if (storedModified(chunkX, chunkY) != storedBefore) {
+                    converted++;
+                }
+            } catch (NumberFormatException e) {
+                // Not a chunk
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Looks up the record of a chunk, decoding its png into the store first if it is missing or outdated.
+     *
+     * @return The record number, or -1 if the chunk has no png and isn't stored.
+     */
+    private int findRecord(int chunkX, int chunkY) {
+        if (chunkX < 0 || chunkY < 0 || chunkX >= GRID_SIZE || chunkY >= GRID_SIZE) {
+            return -1;
+        }
+
+        int record = index[chunkY * GRID_SIZE + chunkX] - 1;
+        File png = folder.resolve(chunkX + "-" + chunkY + ".png").toFile();
+        long modified = png.lastModified(); // 0 if the png doesn't exist
+        if (modified == 0 || (record >= 0 && segmentOf(record).getLong(recordOffset(record)) == modified)) {
+            return record;
+        }
+
+        try {
+            BufferedImage image = ImageIO.read(png);
+            if (image == null) {
+                return record;
+            }
+            return store(chunkX, chunkY, record, image, modified);
+        } catch (ClosedChannelException e) {
+            throw new UncheckedIOException("Chunk store closed", e);
+        } catch (IOException e) {
+            return record;
+        }
+    }
+
+    private long storedModified(int chunkX, int chunkY) {
+        int record = index[chunkY * GRID_SIZE + chunkX] - 1;
+        return record < 0 ? 0 : segmentOf(record).getLong(recordOffset(record));
+    }
+
+    private int store(int chunkX, int chunkY, int record, BufferedImage image, long modified) throws IOException {
+        // Draw the png on a black BGR tile, the same as it was drawn on the black map canvas
+        BufferedImage tile = new BufferedImage(CHUNK_SIZE, CHUNK_SIZE, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = tile.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        image.flush();
+        System.arraycopy(((DataBufferByte) tile.getRaster().getDataBuffer()).getData(), 0, tileBytes, 0, CHUNK_BYTES);
+
+        recordBuffer.clear();
+        recordBuffer.putLong(modified);
+        recordBuffer.put(tileBytes);
+        putLevel(recordBuffer);
+        recordBuffer.flip();
+
+        boolean append = record < 0;
+        if (append) {
+            record = recordCount;
+        }
+        writeFully(recordBuffer, HEADER_BYTES + INDEX_BYTES + (long) record * RECORD_BYTES);
+
+        if (append) {
+            recordCount++;
+            ByteBuffer entry = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            writeFully(entry.putInt(0, record + 1).clear(), HEADER_BYTES + (long) (chunkY * GRID_SIZE + chunkX) * 4);
+            writeFully(entry.putInt(0, recordCount).clear(), 5 * 4);
+            index[chunkY * GRID_SIZE + chunkX] = record + 1;
+        }
+        return record;
+    }
+
+    /**
+     * Downscales the tile in tileBytes by LEVEL_SCALE. Each pixel is the rounded mean of the centre 2x2 pixels of its
+     * 4x4 block, which is what a bilinear resize by the same factor samples, so a stitched level equals the stitched
+     * map resized.
+     */
+    private void putLevel(ByteBuffer buffer) {
+        int stride = CHUNK_SIZE * 3;
+        for (int y = 0; y < LEVEL_SIZE; y++) {
+            int top = (y * LEVEL_SCALE + 1) * stride;
+            int bottom = top + stride;
+            for (int x = 0; x < LEVEL_SIZE; x++) {
+                int left = (x * LEVEL_SCALE + 1) * 3;
+                for (int channel = 0; channel < 3; channel++) {
+                    int sum = (tileBytes[top + left + channel] & 0xFF) + (tileBytes[top + left + 3 + channel] & 0xFF)
+                            + (tileBytes[bottom + left + channel] & 0xFF) + (tileBytes[bottom + left + 3 + channel] & 0xFF);
+                    buffer.put((byte) ((sum + 2) >> 2));
+                }
+            }
+        }
+    }
+
+    private static int recordOffset(int record) {
+        // Offset within the record's segment
+        return (record % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+    }
+
+    private MappedByteBuffer segmentOf(int record) {
+        int segment = record / RECORDS_PER_SEGMENT;
+        if (segment >= segments.length) {
+            segments = Arrays.copyOf(segments, segment + 1);
+            mappedRecords = Arrays.copyOf(mappedRecords, segment + 1);
+        }
+        int needed = record % RECORDS_PER_SEGMENT + 1;
+        if (segments[segment] == null || needed > mappedRecords[segment]) {
+            int records = Math.min(RECORDS_PER_SEGMENT, Math.max(needed, Math.max(MIN_MAPPED_RECORDS, mappedRecords[segment] * 2)));
+            try {
+                long position = HEADER_BYTES + INDEX_BYTES + (long) segment * RECORDS_PER_SEGMENT * RECORD_BYTES;
+                long end = position + (long) records * RECORD_BYTES;
+                if (channel.size() < end) {
+                    writeFully(ByteBuffer.allocate(1), end - 1); // A read only mapping must lie within the file
+                }
+                // The buffer mapped before is unmapped once it is garbage collected
+                segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) records * RECORD_BYTES);
+                segments[segment].order(ByteOrder.LITTLE_ENDIAN);
+                mappedRecords[segment] = records;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map chunk store segment " + segment, e);
+            }
+        }
+        return segments[segment];
+    }
+
+    /**
+     * @return false once the file channel was closed, e.g. by an interrupt during a write, the store has to be reopened then.
+     */
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes the file channel. The mapped segments are released once they are garbage collected.
+     */
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package osr.walker.utils;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Per-device tracking state for {@link MapIR}.
+ * Holds the downscaled copy of the map the device is walking on, so it is only built once per map,
+ * and the last position the minimap was found at, so the next search can be limited to a window around it.
+ */
+public class MinimapTracker {
+    // The stitched map uses 4 pixels per tile, running covers 2 tiles per 600ms game tick
+    private static final int PIXELS_PER_TICK = 8;
+    private static final long TICK_MILLIS = 600;
+    private static final int BASE_MARGIN = 16;
+    private static final int MAX_MARGIN = 160;
+
+    private long mapHandle;
+    private long mapDataAddress;
+    private int mapCols;
+    private int mapRows;
+    private Mat scaledMap;
+
+    private Point lastTopLeft;
+    private long lastFixMillis;
+
+    /**
+     * Returns the downscaled map, rebuilding it when a different map is passed in.
+     *
+     * @param worldMap The full resolution map.
+     * @param scale    The downscale factor.
+     * @return The cached downscaled map, owned by the tracker.
+     */
+    public Mat getScaledMap(Mat worldMap, int scale) {
+        if (scaledMap == null || !isSameMap(worldMap)) {
+            release();
+            scaledMap = new Mat();
+            Imgproc.resize(worldMap, scaledMap, new Size(worldMap.cols() / scale, worldMap.rows() / scale));
+            mapHandle = worldMap.nativeObj;
+            mapDataAddress = worldMap.dataAddr();
+            mapCols = worldMap.cols();
+            mapRows = worldMap.rows();
+        }
+        return scaledMap;
+    }
+
+    /**
+     * Hands the tracker a downscaled map that was built elsewhere, so it doesn't have to resize the map itself.
+     *
+     * @param worldMap  The full resolution map.
+     * @param scaledMap The map downscaled by the factor the tracker is asked for, the tracker takes ownership of it.
+     */
+    public void setScaledMap(Mat worldMap, Mat scaledMap) {
+        release();
+        this.scaledMap = scaledMap;
+        mapHandle = worldMap.nativeObj;
+        mapDataAddress = worldMap.dataAddr();
+        mapCols = worldMap.cols();
+        mapRows = worldMap.rows();
+    }
+
+    /**
+     * Returns the region of the map to search locally, or null if there is no recent position on this map.
+     * The window is the minimap's last location grown by how far the player could have moved since then.
+     *
+     * @param worldMap The full resolution map.
+     * @param miniSize The size of the minimap template.
+     * @return The search window, clamped to the map.
+     */
+    public Rect getSearchWindow(Mat worldMap, Size miniSize) {
+        if (lastTopLeft == null || !isSameMap(worldMap)) {
+            return null;
+        }
+
+        long ticks = Math.max(0, System.currentTimeMillis() - lastFixMillis) / TICK_MILLIS;
+        int margin = (int) Math.min(MAX_MARGIN, BASE_MARGIN + ticks * PIXELS_PER_TICK);
+
+        int x = Math.max(0, (int) lastTopLeft.x - margin);
+        int y = Math.max(0, (int) lastTopLeft.y - margin);
+        int right = Math.min(worldMap.cols(), (int) lastTopLeft.x + (int) miniSize.width + margin);
+        int bottom = Math.min(worldMap.rows(), (int) lastTopLeft.y + (int) miniSize.height + margin);
+
+        if (right - x < miniSize.width || bottom - y < miniSize.height) {
+            return null;
+        }
+        return new Rect(x, y, right - x, bottom - y);
+    }
+
+    /**
+     * Records where the minimap's top left corner was found on the map.
+     */
+    public void updatePosition(Point topLeft) {
+        lastTopLeft = topLeft;
+        lastFixMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Forgets the last position, so the next search is a global one.
+     */
+    public void lostTrack() {
+        lastTopLeft = null;
+    }
+
+    public void release() {
+        if (scaledMap != null) {
+            scaledMap.release();
+            scaledMap = null;
+        }
+        lastTopLeft = null;
+    }
+
+    private boolean isSameMap(Mat worldMap) {
+        return worldMap.nativeObj == mapHandle
+                && worldMap.dataAddr() == mapDataAddress
+                && worldMap.cols() == mapCols
+                && worldMap.rows() == mapRows;
+    }
+}
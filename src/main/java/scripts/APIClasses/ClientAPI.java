@@ -138,6 +138,24 @@ public class ClientAPI implements iClient {
         FeedbackObservables.listPointsAndPointObservable.setValue(scriptInfo.getCurrentEmulatorId(), new ListPointsAndPoint(points, selectedPoint));
     }
 
+    public void tapSequence(List<Point> points, List<Integer> delays) {
+        // Check if the list of points is null or empty
+        if (points == null || points.isEmpty()) {
+            System.err.println("List of points provided is null or empty.");
+            return;
+        }
+
+        List<String> commands = new ArrayList<>(points.size());
+        for (Point point : points) {
+            commands.add(String.format("tap %d %d", point.x, point.y));
+        }
+
+        // Sends all taps in one batch, the delays between them are kept on the device
+        logger.devLog("Tapping " + points.size() + " points in sequence");
+        adbHandler.executeInputSequence(commands, delays, scriptInfo.getCurrentEmulatorId());
+        FeedbackObservables.pointObservable.setValue(scriptInfo.getCurrentEmulatorId(), points.get(points.size() - 1));
+    }
+
     public void tap(Polygon polygon) {
         Rectangle bounds = polygon.getBounds();
         int x, y;
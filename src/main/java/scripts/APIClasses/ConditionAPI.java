@@ -1,24 +1,25 @@
 package scripts.APIClasses;
 
+import helpers.GetGameView;
 import helpers.scripts.CancellationToken;
 import interfaces.iCondition;
 import scripts.ScriptInfo;
 
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 public class ConditionAPI implements iCondition {
     private final ScriptInfo scriptInfo;
+    private final GetGameView getGameView;
     private static final Random random = new Random();
 
-    public ConditionAPI(ScriptInfo scriptInfo) {
+    public ConditionAPI(ScriptInfo scriptInfo, GetGameView getGameView) {
         this.scriptInfo = scriptInfo;
+        this.getGameView = getGameView;
     }
 
     public void sleep(int intervalMillis) {
-        int slice = 100; // Duration of each sleep slice in milliseconds
-        int elapsed = 0; // Track elapsed time
-
         String emulatorId = scriptInfo.getCurrentEmulatorId();
         if (emulatorId == null) {
             return; // Handle the case where emulatorId is null
@@ -28,18 +29,8 @@ public class ConditionAPI implements iCondition {
             return;
         }
 
-        while (elapsed < intervalMillis) {
-            if (cancellationToken.isCancellationRequested()) {
-                break; // Exit early if cancellation has been requested
-            }
-            try {
-                Thread.sleep(Math.min(slice, intervalMillis - elapsed));
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Properly handle InterruptedException by restoring the interrupted status
-                break;
-            }
-            elapsed += slice;
-        }
+        // Parks for the whole interval, cancelling the token wakes it up right away
+        cancellationToken.awaitCancellation(intervalMillis, TimeUnit.MILLISECONDS);
     }
 
     public void sleep(int minMillis, int maxMillis) {
@@ -58,24 +49,11 @@ public class ConditionAPI implements iCondition {
             return;
         }
 
-        for (int i = 0; i < attempts; i++) {
-            if (cancellationToken.isCancellationRequested()) {
-                break; // Exit early if cancellation has been requested
-            }
-            try {
-                if (conditionCallable.call()) {
-                    break; // Exit if the condition is met
-                }
-                sleep(intervalMillis); // Use the adapted sleep method
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Restore the interrupted status
-                System.err.println("Interrupted while waiting: " + e.getMessage());
-                break;
-            } catch (Exception e) {
-                System.err.println("Exception in callable or during sleep: " + e.getMessage());
-                e.printStackTrace();
-                break;
-            }
+        try {
+            waitForCondition(conditionCallable, intervalMillis, attempts, cancellationToken);
+        } catch (Exception e) {
+            System.err.println("Exception in callable or during sleep: " + e.getMessage());
+            e.printStackTrace();
         }
     }
 
@@ -86,27 +64,59 @@ public class ConditionAPI implements iCondition {
             return false; // Early return if no cancellation token is found
         }
 
-        boolean conditionMet = false;
-        for (int i = 0; i < attempts; i++) {
-            if (cancellationToken.isCancellationRequested()) {
+        try {
+            boolean conditionMet = waitForCondition(conditionCallable, intervalMillis, attempts, cancellationToken);
+            if (!conditionMet && cancellationToken.isCancellationRequested()) {
                 System.err.println("Operation cancelled.");
-                break; // Exit early if cancellation has been requested
             }
-            try {
-                if (conditionCallable.call()) {
-                    conditionMet = true;
-                    break; // Exit if the condition is met
-                }
-                sleep(intervalMillis); // Use the adapted sleep method
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Restore the interrupted status
-                System.err.println("Interrupted while waiting: " + e.getMessage());
-                break;
-            } catch (Exception e) {
-                System.err.println("Exception in callable or during sleep: " + e.getMessage());
-                break;
+            return conditionMet;
+        } catch (Exception e) {
+            System.err.println("Exception in callable or during sleep: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks a condition up to attempts times, one interval apart at the most, as the old polling loop did.
+     * While frames are being captured for the device, a check doesn't wait for the end of its interval: it runs as soon
+     * as a frame newer than the one the last check read arrives, but never before its interval has started.
+     * So a check still runs every interval, for conditions that don't read the screen, and there are never more than
+     * attempts checks. Without captured frames the checks run at the end of each interval.
+     *
+     * @return true if the condition was met, false on timeout, cancellation or interruption.
+     */
+    private boolean waitForCondition(Callable<Boolean> conditionCallable, int intervalMillis, int attempts, CancellationToken cancellationToken) throws Exception {
+        String emulatorId = scriptInfo.getCurrentEmulatorId();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        long start = System.nanoTime();
+
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            if (cancellationToken.isCancellationRequested() || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            // Read the version before checking, a frame stored during the check must trigger another one
+            long frameVersion = getGameView.getFrameVersion(emulatorId);
+            if (conditionCallable.call()) {
+                return true;
+            }
+
+            long due = start + (attempt + 1) * intervalNanos;
+            if (attempt < attempts - 1) {
+                // The next check belongs to the next interval, which starts where this one was due
+                awaitUntil(start + attempt * intervalNanos, cancellationToken);
+                getGameView.awaitNewFrame(emulatorId, frameVersion, due, cancellationToken);
+            } else {
+                // Like the polling loop, the last failed check still waits out its interval
+                awaitUntil(due, cancellationToken);
             }
         }
-        return conditionMet; // Return true if condition was met, false otherwise
+        return false;
+    }
+
+    private static void awaitUntil(long deadlineNanos, CancellationToken cancellationToken) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) {
+            cancellationToken.awaitCancellation(remaining, TimeUnit.NANOSECONDS);
+        }
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import helpers.DiscordWebhook;
 import helpers.Logger;
 import helpers.scripts.CancellationToken;
 import helpers.scripts.ScriptCleanup;
+import helpers.scripts.ScriptThreads;
 import helpers.scripts.utils.Script;
 import helpers.services.*;
 import helpers.utils.IsScriptRunning;
@@ -22,7 +23,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 
+import static UI.components.utils.Observables.USE_VIRTUAL_THREADS;
+
 public class ScriptExecutor implements iScript {
+    private static final long SCRIPT_LOOP_INTERVAL_MS = 200;
+
     public final BooleanProperty paused = new SimpleBooleanProperty(false);
     private final CacheManager cacheManager;
     private final Logger logger;
@@ -102,8 +107,9 @@ public class ScriptExecutor implements iScript {
     public void startScriptThread(AbstractScript script, String deviceID) {
         runtimeService.getHandler(deviceID);
 
-        Thread scriptThread = new Thread(() -> runScript(script, deviceID));
-        scriptThread.setName("ScriptThread-" + deviceID);
+        // The thread is interrupted as soon as the script's token is cancelled
+        Thread scriptThread = ScriptThreads.newThread("ScriptThread-" + deviceID, () -> runScript(script, deviceID),
+                scriptInfo.getCancellationToken(deviceID), USE_VIRTUAL_THREADS.get());
         emulatorScriptThreads.putIfAbsent(deviceID, scriptThread);
         scriptThread.start();
     }
@@ -139,16 +145,13 @@ public class ScriptExecutor implements iScript {
             return; // Exit if the script couldn't start
         }
 
-        // Initialize Scheduler for Repetitive Execution
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
-                new ScriptThreadFactory(deviceID, scriptInfo, logger)
-        );
-
-        scheduler.scheduleAtFixedRate(() -> {
+        // Run the script loop on this thread, a second thread per device would only wait for this one
+        long nextRun = System.nanoTime();
+        while (true) {
             try {
                 if (isCancellationRequested(deviceID) || Thread.currentThread().isInterrupted()) {
-                    logger.print("Cancellation requested or thread interrupted, stopping scheduler on: " + deviceID);
-                    stopScriptOnEmulator(deviceID);
+                    // Whoever cancelled or interrupted the thread is already stopping the script
+                    logger.print("Cancellation requested or thread interrupted, stopping script loop on: " + deviceID);
                     return;
                 }
 
@@ -156,7 +159,8 @@ public class ScriptExecutor implements iScript {
             }  catch (Exception e) {
                 logger.errorLog("Exception occurred in client");
                 logger.errorLog(e.getMessage());
-                stopScriptOnEmulator(deviceID);
+                stopAfterFailure(deviceID);
+                return;
             } catch (Throwable t) {
                 logger.errorLog("Exception occurred in client");
                 logger.errorLog(t.getMessage());
@@ -164,12 +168,28 @@ public class ScriptExecutor implements iScript {
                 // Console part of it
                 logger.log("Exception in script executor: " + t.getMessage(), deviceID);
                 t.printStackTrace();
-                stopScriptOnEmulator(deviceID);
+                stopAfterFailure(deviceID);
+                return;
+            }
+
+            // Keep the loop at one run per SCRIPT_LOOP_INTERVAL_MS, running late loops right away
+            nextRun = Math.max(nextRun + TimeUnit.MILLISECONDS.toNanos(SCRIPT_LOOP_INTERVAL_MS), System.nanoTime());
+            long wait = nextRun - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // Checked at the top of the loop
+                }
             }
-        }, 0, 200, TimeUnit.MILLISECONDS);
+        }
+    }
 
-        // Store the scheduler for later shutdown
-        scriptInfo.setScriptScheduler(deviceID, scheduler);
+    private void stopAfterFailure(String deviceID) {
+        // A script stopped from the UI often fails on the interrupt, it is being stopped already
+        if (!isCancellationRequested(deviceID)) {
+            stopScriptOnEmulator(deviceID);
+        }
     }
 
     private boolean scriptStartup(AbstractScript script, String deviceID) {
@@ -355,8 +375,6 @@ public class ScriptExecutor implements iScript {
         if (cancellationToken != null) {
             cancellationToken.requestCancellation();
         }
-
-        scriptInfo.removeScriptScheduler(deviceID);
     }
 
     private void attemptThreadTermination(String deviceID) {
@@ -13,7 +13,6 @@ public class ScriptInfo {
     private final ConcurrentMap<String, AbstractScript> currentAbstractScripts = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, ScriptManifest> currentScriptManifests = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, CancellationToken> cancellationTokens = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, ScheduledExecutorService> scriptSchedulers = new ConcurrentHashMap<>();
 
     // Getters
     public String getCurrentEmulatorId() {
@@ -21,31 +20,6 @@ public class ScriptInfo {
         return emulatorId != null ? emulatorId : "none";
     }
 
-    public void setScriptScheduler(String device, ScheduledExecutorService scheduler) {
-        scriptSchedulers.put(device, scheduler);
-    }
-
-    public ScheduledExecutorService getScriptScheduler(String device) {
-        return scriptSchedulers.get(device);
-    }
-
-    public void removeScriptScheduler(String device) {
-        ScheduledExecutorService scheduler = scriptSchedulers.get(device);
-        if (scheduler != null) {
-            scheduler.shutdownNow();
-            try {
-                // Wait for tasks to complete for a specified time (e.g., 1 second)
-                if (!scheduler.awaitTermination(1, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow(); // Force shutdown if tasks are not completed in time
-                }
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow(); // Interrupt the shutdown and force stop
-                Thread.currentThread().interrupt(); // Preserve the interrupt status
-            }
-            scriptSchedulers.remove(device); // Remove from the map after shutdown
-        }
-    }
-
     public void setCurrentEmulatorId(String device) {
         currentEmulatorId.set(device);
     }
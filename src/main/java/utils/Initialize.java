@@ -8,6 +8,7 @@ import helpers.CacheManager;
 import helpers.DiscordWebhook;
 import helpers.GetGameView;
 import helpers.Logger;
+import helpers.ThreadManager;
 import helpers.OCR.DigitReader;
 import helpers.OCR.ReadLevels;
 import helpers.OCR.ReadXP;
@@ -87,6 +88,7 @@ public class Initialize {
         // Internal client dependencies
         System.out.println("Creating client dependency objects");
         classes.logger = new Logger(classes.logArea);
+        ThreadManager.getInstance().getTickScheduler().setLogger(classes.logger);
         classes.adbHandler = new ADBHandler(classes.logger);
         classes.rsPreferenceUpdater = new RSPreferenceUpdater(classes.adbHandler);
 
@@ -100,7 +102,7 @@ public class Initialize {
 
         classes.mapChunkHandler = new MapChunkHandler(classes.logger);
         classes.directCapture = new DirectCapture(classes.logger, classes.cacheManager);
-        classes.itemProcessor = new ItemProcessor(classes.cacheManager);
+        classes.itemProcessor = new ItemProcessor(classes.cacheManager, classes.logger);
         classes.paintBar = new PaintBar(classes.cacheManager, classes.itemProcessor);
         classes.scriptResourceManager = new ScriptResourceManager(classes.scriptInfo);
         classes.imageUtils = new ImageUtils(classes.scriptInfo, classes.scriptResourceManager, classes.cacheManager);
@@ -124,10 +126,10 @@ public class Initialize {
         classes.imageRecognition = new ImageRecognition(classes.logger, classes.colorFinder);
         classes.readxp = new ReadXP(classes.digitReader, classes.cacheManager, classes.colorFinder, classes.getGameView);
         classes.readlevels = new ReadLevels(classes.logger, classes.getGameView, classes.cacheManager, classes.digitReader);
-        classes.conditionAPI = new ConditionAPI(classes.scriptInfo);
+        classes.conditionAPI = new ConditionAPI(classes.scriptInfo, classes.getGameView);
         classes.clientAPI = new ClientAPI(classes.digitReader, classes.cacheManager, classes.conditionAPI, classes.adbHandler, classes.colorFinder, classes.logger, classes.scriptInfo, classes.afkHandlerService, classes.breakHandlerService, classes.sleepHandlerService);
         classes.minimapProjections = new MinimapProjections(classes.logger, classes.getGameView, classes.imageRecognition, classes.imageUtils);
-        classes.minimap = new Minimap(classes.cacheManager, classes.logger, classes.minimapProjections, classes.scriptInfo, classes.imageUtils);
+        classes.minimap = new Minimap(classes.cacheManager, classes.logger, classes.minimapProjections, classes.scriptInfo, classes.imageUtils, classes.getGameView);
         classes.translatePosition = new TranslatePosition(classes.logger, classes.minimap);
         classes.fairyRings = new FairyRings(classes.logger, classes.imageRecognition, classes.getGameView, classes.clientAPI, classes.imageUtils);
         classes.playerHelper = new PlayerHelper(classes.clientAPI, classes.readlevels, classes.colorFinder);
@@ -193,7 +195,7 @@ public class Initialize {
         classes.scriptAPIHandler = new ScriptAPIHandler(classes.grandExchangeAPI, classes.interfacesAPI, classes.bankAPI, classes.clientAPI, classes.conditionAPI, classes.depositBoxAPI, classes.equipmentAPI, classes.gameAPI, classes.gameTabsAPI, classes.inventoryAPI, classes.loginAPI, classes.logoutAPI, classes.magicAPI, classes.overlayAPI, classes.playerAPI, classes.prayerAPI, classes.statsAPI, classes.walkerAPI, classes.xpBarAPI, classes.chatboxAPI, classes.loggerAPI, classes.objectsAPI, classes.paintAPI, classes.ocrAPI);
         classes.scriptConfigurator = new ScriptConfigurator(classes.annotationControls, classes.scriptAccountManager, classes.credMgr);
         classes.scriptInitializer = new ScriptInitializer(classes.logger, classes.scriptAPIHandler, classes.scriptInstanceLoader, classes.scriptConfigurator, classes.scriptInfo, classes.breakHandlerService, classes.sleepHandlerService);
-        classes.scriptCleanup = new ScriptCleanup(classes.cacheManager, classes.logger, classes.discordWebhook, classes.xpBar, classes.isScriptRunning);
+        classes.scriptCleanup = new ScriptCleanup(classes.cacheManager, classes.logger, classes.discordWebhook, classes.xpBar, classes.isScriptRunning, classes.walker, classes.adbHandler);
         classes.scriptExecutor = new ScriptExecutor(classes.cacheManager, classes.logger, classes.scriptAPIHandler, classes.scriptCleanup, classes.scriptAccountManager, classes.scriptInitializer, classes.scriptInfo, classes.login, classes.isScriptRunning, classes.runtimeService, classes.breakHandlerService, classes.sleepHandlerService, classes.afkHandlerService, classes.xpService, classes.leveledupService, classes.credMgr, classes.discordWebhook, classes.game);
 
         //Initialize UI
@@ -0,0 +1,150 @@
+package helpers.Color;
+
+import helpers.Color.utils.PackedPoints;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.List;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link GridDBSCAN} gives exactly the clusters of the all-pairs {@link DBSCAN}, in the same order.
+ */
+class GridDBSCANTest {
+    private final DBSCAN reference = new DBSCAN();
+    private final GridDBSCAN grid = new GridDBSCAN();
+
+    @Test
+    void matchesReferenceOnRandomPoints() {
+        Random random = new Random(42);
+        double[] epsValues = {1, 1.5, 2, 3, 4.2, 5, 7.5, 10};
+        int[] minPtsValues = {1, 2, 3, 5, 8};
+
+        for (int round = 0; round < 200; round++) {
+            List<Point> points = randomBlobs(random, 1 + random.nextInt(6), 1 + random.nextInt(60), 40 + random.nextInt(200));
+            double eps = epsValues[random.nextInt(epsValues.length)];
+            int minPts = minPtsValues[random.nextInt(minPtsValues.length)];
+
+            assertEquals(reference.applyDBSCAN(points, eps, minPts), grid.applyDBSCAN(points, eps, minPts),
+                    "round " + round + ", eps " + eps + ", minPts " + minPts);
+        }
+    }
+
+    @Test
+    void packedPointsGiveTheSameClusters() {
+        Random random = new Random(7);
+        List<Point> points = randomBlobs(random, 4, 50, 120);
+        PackedPoints packed = new PackedPoints();
+        for (Point point : points) {
+            packed.add(point.x, point.y);
+        }
+
+        assertEquals(reference.applyDBSCAN(points, 3, 4), grid.applyDBSCAN(packed, 3, 4));
+    }
+
+    @Test
+    void pointsExactlyEpsApartAreNotNeighbors() {
+        // A 3-4-5 triangle: the distance is exactly eps, which doesn't count as closer than eps
+        List<Point> points = List.of(new Point(0, 0), new Point(3, 4));
+        assertEquals(List.of(), grid.applyDBSCAN(points, 5, 2));
+        assertEquals(reference.applyDBSCAN(points, 5, 2), grid.applyDBSCAN(points, 5, 2));
+
+        // Just over the distance they are
+        assertEquals(List.of(new HashSet<>(points)), grid.applyDBSCAN(points, 5.0001, 2));
+        assertEquals(reference.applyDBSCAN(points, 5.0001, 2), grid.applyDBSCAN(points, 5.0001, 2));
+    }
+
+    @Test
+    void integerEpsOnAxisAndDiagonal() {
+        for (int eps = 1; eps <= 6; eps++) {
+            List<Point> points = new ArrayList<>();
+            for (int x = 0; x <= 3 * eps; x++) {
+                points.add(new Point(x * eps, 0));
+                points.add(new Point(x, x));
+            }
+            for (int minPts = 1; minPts <= 4; minPts++) {
+                assertEquals(reference.applyDBSCAN(points, eps, minPts), grid.applyDBSCAN(points, eps, minPts),
+                        "eps " + eps + ", minPts " + minPts);
+            }
+        }
+    }
+
+    @Test
+    void borderPointJoinsEveryClusterThatReachesIt() {
+        // Two dense blocks with one point between them that is within eps of both, but not a core point itself
+        List<Point> points = new ArrayList<>(twoBlocks());
+        Point border = new Point(2, 2);
+        points.add(border);
+
+        List<Set<Point>> expected = reference.applyDBSCAN(points, 2.5, 8);
+        List<Set<Point>> clusters = grid.applyDBSCAN(points, 2.5, 8);
+        assertEquals(expected, clusters);
+        assertEquals(2, clusters.size());
+        assertTrue(clusters.get(0).contains(border));
+        assertTrue(clusters.get(1).contains(border));
+    }
+
+    @Test
+    void clustersComeInSeedOrder() {
+        // The border point is listed first, it is visited as noise and still assigned when the clusters reach it
+        List<Point> points = new ArrayList<>();
+        points.add(new Point(2, 2));
+        List<Point> blocks = twoBlocks();
+        points.addAll(blocks.subList(10, 20));
+        points.addAll(blocks.subList(0, 10));
+
+        List<Set<Point>> clusters = grid.applyDBSCAN(points, 2.5, 8);
+        assertEquals(reference.applyDBSCAN(points, 2.5, 8), clusters);
+        assertEquals(2, clusters.size());
+        assertTrue(clusters.get(0).contains(new Point(0, 4)));
+        assertTrue(clusters.get(1).contains(new Point(0, 0)));
+        assertTrue(clusters.get(0).contains(new Point(2, 2)) && clusters.get(1).contains(new Point(2, 2)));
+    }
+
+    @Test
+    void duplicatePointsCountAsNeighbors() {
+        List<Point> points = List.of(new Point(5, 5), new Point(5, 5), new Point(5, 5), new Point(20, 20));
+        for (int minPts = 1; minPts <= 4; minPts++) {
+            assertEquals(reference.applyDBSCAN(points, 1, minPts), grid.applyDBSCAN(points, 1, minPts), "minPts " + minPts);
+        }
+    }
+
+    @Test
+    void emptyInput() {
+        assertEquals(List.of(), grid.applyDBSCAN(List.of(), 3, 2));
+    }
+
+    /**
+     * Two 5 by 2 blocks, rows -1 and 0 and rows 4 and 5.
+     */
+    private static List<Point> twoBlocks() {
+        List<Point> points = new ArrayList<>();
+        for (int y : new int[]{-1, 0, 4, 5}) {
+            for (int x = 0; x < 5; x++) {
+                points.add(new Point(x, y));
+            }
+        }
+        return points;
+    }
+
+    private static List<Point> randomBlobs(Random random, int blobs, int pointsPerBlob, int size) {
+        List<Point> points = new ArrayList<>();
+        for (int b = 0; b < blobs; b++) {
+            int centerX = random.nextInt(size);
+            int centerY = random.nextInt(size);
+            int spread = 1 + random.nextInt(12);
+            for (int i = 0; i < pointsPerBlob; i++) {
+                points.add(new Point(centerX + (int) (random.nextGaussian() * spread), centerY + (int) (random.nextGaussian() * spread)));
+            }
+        }
+        // Scattered noise
+        for (int i = 0; i < pointsPerBlob / 2; i++) {
+            points.add(new Point(random.nextInt(size), random.nextInt(size)));
+        }
+        Collections.shuffle(points, random);
+        return points;
+    }
+}
@@ -0,0 +1,209 @@
+package helpers.OCR;
+
+import helpers.OCR.utils.FontName;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+import static helpers.patterns.Bold12Patterns.bold12Patterns;
+import static helpers.patterns.Plain11Patterns.plain11Patterns;
+import static helpers.patterns.Plain12Patterns.plain12Patterns;
+import static helpers.patterns.Quill1Patterns.quill1Patterns;
+import static helpers.patterns.Quill2Patterns.quill2Patterns;
+import static helpers.patterns.Quill8Patterns.quill8Patterns;
+
+/**
+ * The {@link cfOCR} pipeline as it was before the bitset matching: a per pixel search for every glyph,
+ * and rows grouped by rescanning every row for each letter. Kept as the reference the reader is checked against.
+ */
+final class CfOCRReference {
+    private CfOCRReference() {
+    }
+
+    static String findAllPatternsInImage(int tolerance, BufferedImage image, List<Color> colors, FontName font) {
+        Map<String, List<Point>> foundLetters = findPatternsInImage(tolerance, image, colors, font);
+        return compileStringFromPatternPoints(foundLetters, font);
+    }
+
+    static String findAllPatternsInImageAnyFont(int tolerance, BufferedImage image, List<Color> colors) {
+        List<FontName> fonts = Arrays.asList(FontName.BOLD_12, FontName.PLAIN_11, FontName.PLAIN_12, FontName.QUILL_8, FontName.QUILL);
+
+        Map<FontName, String> results = new HashMap<>();
+        for (FontName font : fonts) {
+            results.put(font, findAllPatternsInImage(tolerance, image, colors, font));
+        }
+
+        FontName bestFont = results.entrySet().stream()
+                .max(Comparator.comparingInt(entry -> entry.getValue().length()))
+                .map(Map.Entry::getKey)
+                .orElse(FontName.BOLD_12);
+        return results.getOrDefault(bestFont, "");
+    }
+
+    private static String compileStringFromPatternPoints(Map<String, List<Point>> foundLetters, FontName fontName) {
+        int rowThreshold = 0;
+
+        switch (fontName) {
+            case BOLD_12:
+                rowThreshold = 15;
+                break;
+            case PLAIN_11:
+                rowThreshold = 10;
+                break;
+            case PLAIN_12:
+                rowThreshold = 11;
+                break;
+            case QUILL_8:
+                rowThreshold = 9;
+                break;
+        }
+
+        List<Map.Entry<String, Point>> sortedLetters = new ArrayList<>();
+        for (Map.Entry<String, List<Point>> entry : foundLetters.entrySet()) {
+            for (Point point : entry.getValue()) {
+                sortedLetters.add(new AbstractMap.SimpleEntry<>(entry.getKey(), point));
+            }
+        }
+
+        sortedLetters.sort(Comparator.comparing(entry -> entry.getValue().y * 10000 + entry.getValue().x));
+
+        List<List<Map.Entry<String, Point>>> rows = new ArrayList<>();
+        for (Map.Entry<String, Point> entry : sortedLetters) {
+            boolean added = false;
+            for (List<Map.Entry<String, Point>> row : rows) {
+                int rowY = row.get(0).getValue().y;
+                int currentY = entry.getValue().y;
+
+                if (Math.abs(rowY - currentY) <= rowThreshold) {
+                    row.add(entry);
+                    added = true;
+                    break;
+                }
+            }
+
+            if (!added) {
+                List<Map.Entry<String, Point>> newRow = new ArrayList<>();
+                newRow.add(entry);
+                rows.add(newRow);
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (List<Map.Entry<String, Point>> row : rows) {
+            row.sort(Comparator.comparing(entry -> entry.getValue().x));
+
+            int lastX = -999;
+            int lastWidth = 0;
+
+            for (Map.Entry<String, Point> entry : row) {
+                int currentX = entry.getValue().x;
+                int letterWidth = getLetterWidth(entry.getKey(), fontName);
+
+                if (lastX != -999 && (currentX - lastX) > (lastWidth + 2)) {
+                    result.append(" ");
+                }
+
+                result.append(entry.getKey());
+                lastX = currentX;
+                lastWidth = letterWidth;
+            }
+
+            result.append("\n");
+        }
+
+        return result.toString().trim();
+    }
+
+    private static Map<String, List<Point>> findPatternsInImage(int tolerance, BufferedImage image, List<Color> colors, FontName fontName) {
+        Map<String, List<Point>> foundLetters = new HashMap<>();
+
+        if (fontName == FontName.QUILL) {
+            Map<String, List<Point>> quill1Results = findPatternsInImageInternal(tolerance, image, colors, quill1Patterns);
+            Map<String, List<Point>> quill2Results = findPatternsInImageInternal(tolerance, image, colors, quill2Patterns);
+
+            for (Map.Entry<String, List<Point>> entry : quill1Results.entrySet()) {
+                foundLetters.putIfAbsent(entry.getKey(), new ArrayList<>());
+                foundLetters.get(entry.getKey()).addAll(entry.getValue());
+            }
+            for (Map.Entry<String, List<Point>> entry : quill2Results.entrySet()) {
+                foundLetters.putIfAbsent(entry.getKey(), new ArrayList<>());
+                foundLetters.get(entry.getKey()).addAll(entry.getValue());
+            }
+        } else {
+            foundLetters = findPatternsInImageInternal(tolerance, image, colors, getLetterPatterns(fontName));
+        }
+
+        return foundLetters;
+    }
+
+    private static Map<String, List<Point>> findPatternsInImageInternal(int tolerance, BufferedImage image, List<Color> colors, Map<String, int[][]> letterPatterns) {
+        Map<String, List<Point>> foundLetters = new HashMap<>();
+        List<Point> occupiedPoints = new ArrayList<>();
+
+        for (Map.Entry<String, int[][]> entry : letterPatterns.entrySet()) {
+            String letter = entry.getKey();
+            int[][] pattern = entry.getValue();
+
+            List<Point> points = PixelReference.findPattern(image, pattern, colors, tolerance);
+            List<Point> validPoints = new ArrayList<>();
+
+            for (Point point : points) {
+                boolean overlaps = false;
+
+                for (Point occupied : occupiedPoints) {
+                    if (Math.abs(point.x - occupied.x) < pattern[0].length - 2 &&
+                            Math.abs(point.y - occupied.y) < pattern.length - 2) {
+                        overlaps = true;
+                        break;
+                    }
+                }
+
+                if (!overlaps || letter.matches("[a-zA-Z0-9]")) {
+                    validPoints.add(point);
+                    occupiedPoints.add(point);
+                }
+            }
+
+            if (!validPoints.isEmpty()) {
+                foundLetters.put(letter, validPoints);
+            }
+        }
+
+        return foundLetters;
+    }
+
+    private static int getLetterWidth(String letter, FontName fontName) {
+        if (fontName == FontName.QUILL) {
+            if (quill1Patterns.containsKey(letter)) {
+                return quill1Patterns.get(letter)[0].length;
+            }
+            if (quill2Patterns.containsKey(letter)) {
+                return quill2Patterns.get(letter)[0].length;
+            }
+        } else {
+            Map<String, int[][]> letterPatterns = getLetterPatterns(fontName);
+            if (letterPatterns.containsKey(letter)) {
+                return letterPatterns.get(letter)[0].length;
+            }
+        }
+
+        return 7;
+    }
+
+    static Map<String, int[][]> getLetterPatterns(FontName fontName) {
+        switch (fontName) {
+            case BOLD_12:
+                return bold12Patterns;
+            case PLAIN_11:
+                return plain11Patterns;
+            case PLAIN_12:
+                return plain12Patterns;
+            case QUILL_8:
+                return quill8Patterns;
+            default:
+                throw new IllegalArgumentException("Unsupported font: " + fontName);
+        }
+    }
+}
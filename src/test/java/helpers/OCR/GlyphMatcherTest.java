@@ -0,0 +1,164 @@
+package helpers.OCR;
+
+import helpers.Color.utils.BitMask;
+import helpers.OCR.utils.Glyph;
+import helpers.patterns.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link GlyphMatcher} finds exactly the positions of the per pixel search in {@link PixelReference},
+ * on golden images rendered from every font the readers use.
+ */
+class GlyphMatcherTest {
+    private static final Map<String, Map<String, int[][]>> FONTS = Map.of(
+            "bold12", Bold12Patterns.bold12Patterns,
+            "plain11", Plain11Patterns.plain11Patterns,
+            "plain12", Plain12Patterns.plain12Patterns,
+            "quill8", Quill8Patterns.quill8Patterns,
+            "quill1", Quill1Patterns.quill1Patterns,
+            "quill2", Quill2Patterns.quill2Patterns,
+            "digits", DigitPatterns.digitPatterns,
+            "letters", LetterPatterns.letterPatterns,
+            "bankPin", BankPinDigitPatterns.bankPinDigitPatterns
+    );
+
+    private static final List<Color> WHITE = List.of(Color.WHITE);
+    private static final List<Color> CHAT = List.of(Color.decode("#ffffff"), Color.decode("#9090ff"));
+    private static final List<Color> YELLOW = List.of(new Color(255, 255, 0));
+
+    @Test
+    void binarizeMatchesPerPixelTolerance() {
+        Random random = new Random(1);
+        for (int tolerance : new int[]{0, 5, 20}) {
+            for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_ARGB}) {
+                BufferedImage image = GoldenText.render(random, Plain12Patterns.plain12Patterns, 2, 10, CHAT, tolerance, type);
+                BitMask mask = GlyphMatcher.binarize(image, CHAT, tolerance);
+                for (int y = 0; y < image.getHeight(); y++) {
+                    for (int x = 0; x < image.getWidth(); x++) {
+                        assertEquals(PixelReference.isColorListWithinTolerance(new Color(image.getRGB(x, y)), CHAT, tolerance), mask.get(x, y),
+                                "pixel " + x + "," + y + ", tolerance " + tolerance + ", type " + type);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void exactMatchesFindPatternOnEveryFont() {
+        Random random = new Random(2);
+        for (Map.Entry<String, Map<String, int[][]>> font : FONTS.entrySet()) {
+            int matches = 0;
+            for (int round = 0; round < 3; round++) {
+                List<Color> colors = round == 0 ? WHITE : round == 1 ? CHAT : YELLOW;
+                int tolerance = round * 6;
+                BufferedImage image = GoldenText.render(random, font.getValue(), 2, 14, colors, tolerance, BufferedImage.TYPE_INT_RGB);
+                matches += assertSamePositions(font.getKey(), font.getValue(), image, colors, tolerance, true);
+            }
+            // The rendered text has to be found for the comparison to mean anything
+            assertTrue(matches > 0, font.getKey() + " rendered no readable glyphs");
+        }
+    }
+
+    @Test
+    void inkOnlyMatchesFindLetterPatternOnEveryFont() {
+        Random random = new Random(3);
+        for (Map.Entry<String, Map<String, int[][]>> font : FONTS.entrySet()) {
+            int matches = 0;
+            for (int round = 0; round < 3; round++) {
+                List<Color> colors = round == 0 ? WHITE : round == 1 ? CHAT : YELLOW;
+                int tolerance = round * 6;
+                BufferedImage image = GoldenText.render(random, font.getValue(), 2, 14, colors, tolerance, BufferedImage.TYPE_INT_RGB);
+                matches += assertSamePositions(font.getKey(), font.getValue(), image, colors, tolerance, false);
+            }
+            // The rendered text has to be found for the comparison to mean anything
+            assertTrue(matches > 0, font.getKey() + " rendered no readable glyphs");
+        }
+    }
+
+    @Test
+    void subImagesAndByteImagesGiveTheSamePositions() {
+        // Game view regions are sub images of a 3 byte BGR frame
+        Random random = new Random(4);
+        BufferedImage frame = GoldenText.render(random, Bold12Patterns.bold12Patterns, 3, 16, CHAT, 4, BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage region = frame.getSubimage(7, 5, frame.getWidth() - 19, frame.getHeight() - 11);
+        assertSamePositions("bold12 sub image", Bold12Patterns.bold12Patterns, region, CHAT, 4, true);
+        assertSamePositions("bold12 sub image", Bold12Patterns.bold12Patterns, region, CHAT, 4, false);
+    }
+
+    @Test
+    void glyphsTouchingTheImageEdges() {
+        int[][] pattern = DigitPatterns.digitPatterns.get("0");
+        int width = pattern[0].length;
+        int height = pattern.length;
+        BufferedImage image = new BufferedImage(2 * width + 1, height + 1, BufferedImage.TYPE_INT_RGB);
+        // Top left corner and bottom right corner
+        paint(image, pattern, 0, 0);
+        paint(image, pattern, width + 1, 1);
+
+        Glyph glyph = Glyph.compile("0", pattern);
+        BitMask mask = GlyphMatcher.binarize(image, WHITE, 0);
+        for (boolean exact : new boolean[]{true, false}) {
+            List<Point> expected = exact
+                    ? PixelReference.findPattern(image, pattern, WHITE, 0)
+                    : PixelReference.findLetterPattern(image, pattern, WHITE, 0);
+            assertEquals(List.of(new Point(0, 0), new Point(width + 1, 1)), expected);
+            assertEquals(expected, GlyphMatcher.findAll(mask, glyph, exact));
+        }
+    }
+
+    @Test
+    void imageSmallerThanGlyph() {
+        int[][] pattern = DigitPatterns.digitPatterns.get("8");
+        BufferedImage image = new BufferedImage(pattern[0].length - 1, pattern.length, BufferedImage.TYPE_INT_RGB);
+        paint(image, new int[][]{{1, 1}, {1, 1}}, 0, 0);
+        BitMask mask = GlyphMatcher.binarize(image, WHITE, 0);
+
+        assertTrue(GlyphMatcher.findAll(mask, Glyph.compile("8", pattern), true).isEmpty());
+        assertTrue(GlyphMatcher.findAll(mask, Glyph.compile("8", pattern), false).isEmpty());
+    }
+
+    @Test
+    void patternsWithoutInkMatchLikeThePerPixelSearch() {
+        int[][] blank = {{0, 0}, {0, 0}, {0, 0}};
+        BufferedImage image = new BufferedImage(6, 5, BufferedImage.TYPE_INT_RGB);
+        paint(image, new int[][]{{1}}, 3, 2);
+        BitMask mask = GlyphMatcher.binarize(image, WHITE, 0);
+        Glyph glyph = Glyph.compile(" ", blank);
+
+        assertEquals(PixelReference.findPattern(image, blank, WHITE, 0), GlyphMatcher.findAll(mask, glyph, true));
+        assertEquals(PixelReference.findLetterPattern(image, blank, WHITE, 0), GlyphMatcher.findAll(mask, glyph, false));
+    }
+
+    private static int assertSamePositions(String fontName, Map<String, int[][]> font, BufferedImage image, List<Color> colors, int tolerance, boolean exact) {
+        BitMask mask = GlyphMatcher.binarize(image, colors, tolerance);
+        int matches = 0;
+        for (Glyph glyph : GlyphMatcher.compile(font).getGlyphs()) {
+            int[][] pattern = font.get(glyph.getName());
+            List<Point> expected = exact
+                    ? PixelReference.findPattern(image, pattern, colors, tolerance)
+                    : PixelReference.findLetterPattern(image, pattern, colors, tolerance);
+            assertEquals(expected, GlyphMatcher.findAll(mask, glyph, exact),
+                    fontName + " glyph '" + glyph.getName() + "', tolerance " + tolerance + ", exact " + exact);
+            matches += expected.size();
+        }
+        return matches;
+    }
+
+    private static void paint(BufferedImage image, int[][] pattern, int x, int y) {
+        for (int py = 0; py < pattern.length; py++) {
+            for (int px = 0; px < pattern[py].length; px++) {
+                if (pattern[py][px] == 1) {
+                    image.setRGB(x + px, y + py, Color.WHITE.getRGB());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package helpers.OCR;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Renders seeded text images from the font pattern maps, the way the game draws them: ink pixels close to the text color
+ * on a noisy background, with some background pixels close enough to the text color to be taken for ink.
+ */
+final class GoldenText {
+    private GoldenText() {
+    }
+
+    /**
+     * Renders lines of random glyphs from a font.
+     *
+     * @param random      The seeded source of the layout and noise.
+     * @param font        The pattern map to draw glyphs from.
+     * @param lines       The number of lines.
+     * @param perLine     The number of glyphs per line.
+     * @param colors      The text colors, each glyph is drawn in one of them.
+     * @param tolerance   The per channel tolerance the image will be read with.
+     * @param imageType   The BufferedImage type to render into.
+     * @return The rendered image.
+     */
+    static BufferedImage render(Random random, Map<String, int[][]> font, int lines, int perLine, List<Color> colors, int tolerance, int imageType) {
+        List<String> names = new ArrayList<>(font.keySet());
+        names.sort(null);
+        int lineHeight = 0;
+        int widest = 0;
+        for (int[][] pattern : font.values()) {
+            lineHeight = Math.max(lineHeight, pattern.length);
+            widest = Math.max(widest, pattern[0].length);
+        }
+        lineHeight += 3;
+
+        int width = 4 + perLine * (widest + 6);
+        int height = 4 + lines * (lineHeight + 2);
+        BufferedImage image = new BufferedImage(width, height, imageType);
+
+        // Dark background, sprinkled with pixels around the text colors
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb;
+                if (random.nextInt(25) == 0) {
+                    rgb = near(random, colors.get(random.nextInt(colors.size())), 2 * tolerance + 1);
+                } else {
+                    rgb = new Color(random.nextInt(60), random.nextInt(60), random.nextInt(60)).getRGB();
+                }
+                image.setRGB(x, y, rgb);
+            }
+        }
+
+        for (int line = 0; line < lines; line++) {
+            int x = 1 + random.nextInt(3);
+            int baseY = 1 + line * (lineHeight + 2);
+            for (int i = 0; i < perLine; i++) {
+                int[][] pattern = font.get(names.get(random.nextInt(names.size())));
+                Color color = colors.get(random.nextInt(colors.size()));
+                int y = baseY + lineHeight - 3 - pattern.length + random.nextInt(2);
+                if (x + pattern[0].length >= width) {
+                    break;
+                }
+                draw(random, image, pattern, x, y, color, tolerance);
+                // Mostly tight spacing, sometimes a word gap
+                x += pattern[0].length + (random.nextInt(6) == 0 ? 4 + random.nextInt(3) : random.nextInt(2));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Draws glyphs at random positions of a clean image, so rows start at every possible distance from each other.
+     */
+    static BufferedImage scatter(Random random, Map<String, int[][]> font, int count, int width, int height, List<Color> colors, int imageType) {
+        List<String> names = new ArrayList<>(font.keySet());
+        names.sort(null);
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        for (int i = 0; i < count; i++) {
+            int[][] pattern = font.get(names.get(random.nextInt(names.size())));
+            if (pattern[0].length >= width || pattern.length >= height) {
+                continue;
+            }
+            int x = random.nextInt(width - pattern[0].length);
+            int y = random.nextInt(height - pattern.length);
+            draw(random, image, pattern, x, y, colors.get(random.nextInt(colors.size())), 0);
+        }
+        return image;
+    }
+
+    private static void draw(Random random, BufferedImage image, int[][] pattern, int x, int y, Color color, int tolerance) {
+        for (int py = 0; py < pattern.length; py++) {
+            for (int px = 0; px < pattern[py].length; px++) {
+                if (pattern[py][px] == 1 && y + py < image.getHeight()) {
+                    // Now and then an ink pixel is lost, so not every glyph matches
+                    int rgb = random.nextInt(200) == 0 ? 0 : near(random, color, tolerance);
+                    image.setRGB(x + px, y + py, rgb);
+                }
+            }
+        }
+    }
+
+    private static int near(Random random, Color color, int spread) {
+        return new Color(jitter(random, color.getRed(), spread), jitter(random, color.getGreen(), spread), jitter(random, color.getBlue(), spread)).getRGB();
+    }
+
+    private static int jitter(Random random, int value, int spread) {
+        return Math.max(0, Math.min(255, value + random.nextInt(2 * spread + 1) - spread));
+    }
+}
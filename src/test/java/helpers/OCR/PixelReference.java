@@ -0,0 +1,78 @@
+package helpers.OCR;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The per pixel pattern search the OCR readers used before {@link GlyphMatcher}, kept as the reference its results are checked against.
+ */
+final class PixelReference {
+    private PixelReference() {
+    }
+
+    /**
+     * Every position where the ink pixels of the pattern are within tolerance of a color and its background pixels are not.
+     */
+    static List<Point> findPattern(BufferedImage image, int[][] pattern, List<Color> targetColors, int tolerance) {
+        return find(image, pattern, targetColors, tolerance, true);
+    }
+
+    /**
+     * Every position where the ink pixels of the pattern are within tolerance of a color, whatever the background pixels are.
+     */
+    static List<Point> findLetterPattern(BufferedImage image, int[][] pattern, List<Color> targetColors, int tolerance) {
+        return find(image, pattern, targetColors, tolerance, false);
+    }
+
+    static boolean isColorListWithinTolerance(Color color1, List<Color> targetColors, int tolerance) {
+        for (Color targetColor : targetColors) {
+            if (Math.abs(color1.getRed() - targetColor.getRed()) <= tolerance &&
+                    Math.abs(color1.getGreen() - targetColor.getGreen()) <= tolerance &&
+                    Math.abs(color1.getBlue() - targetColor.getBlue()) <= tolerance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Point> find(BufferedImage image, int[][] pattern, List<Color> targetColors, int tolerance, boolean exact) {
+        List<Point> points = new ArrayList<>();
+        int patternWidth = pattern[0].length;
+        int patternHeight = pattern.length;
+
+        for (int x = 0; x <= image.getWidth() - patternWidth; x++) {
+            for (int y = 0; y <= image.getHeight() - patternHeight; y++) {
+                boolean match = true;
+
+                for (int px = 0; px < patternWidth; px++) {
+                    for (int py = 0; py < patternHeight; py++) {
+                        Color pixelColor = new Color(image.getRGB(x + px, y + py));
+
+                        if (pattern[py][px] == 1) {
+                            // The pixel must match one of the target colors.
+                            if (!isColorListWithinTolerance(pixelColor, targetColors, tolerance)) {
+                                match = false;
+                                break;
+                            }
+                        } else if (exact) {
+                            // The pixel should NOT match any of the target colors.
+                            if (isColorListWithinTolerance(pixelColor, targetColors, tolerance)) {
+                                match = false;
+                                break;
+                            }
+                        }
+                    }
+                    if (!match) break;
+                }
+
+                if (match) {
+                    points.add(new Point(x, y));
+                }
+            }
+        }
+
+        return points;
+    }
+}
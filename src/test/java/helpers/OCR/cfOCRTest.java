@@ -0,0 +1,131 @@
+package helpers.OCR;
+
+import helpers.Color.utils.BitMask;
+import helpers.OCR.utils.FontName;
+import helpers.OCR.utils.Glyph;
+import helpers.patterns.Quill1Patterns;
+import helpers.patterns.Quill2Patterns;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that {@link cfOCR} reads golden images to the same text as the per pixel pipeline in {@link CfOCRReference}.
+ */
+class cfOCRTest {
+    private static final List<Color> WHITE = List.of(Color.WHITE);
+    private static final List<Color> CHAT = List.of(Color.decode("#ffffff"), Color.decode("#9090ff"));
+    private static final List<FontName> FONTS = List.of(FontName.BOLD_12, FontName.PLAIN_11, FontName.PLAIN_12, FontName.QUILL_8, FontName.QUILL);
+
+    @Test
+    void readsTheSameTextAsThePerPixelPipeline() {
+        Random random = new Random(11);
+        for (FontName font : FONTS) {
+            for (int round = 0; round < 2; round++) {
+                List<Color> colors = round == 0 ? WHITE : CHAT;
+                BufferedImage image = GoldenText.render(random, fontPatterns(font), 2, 10, colors, 0, BufferedImage.TYPE_3BYTE_BGR);
+
+                String expected = CfOCRReference.findAllPatternsInImage(0, image, colors, font);
+                assertFalse(expected.isEmpty(), font + " rendered no readable text");
+                assertEquals(expected, cfOCR.findAllPatternsInImage(0, image, colors, font), font + ", round " + round);
+            }
+        }
+    }
+
+    @Test
+    void rowsAreGroupedLikeThePerPixelPipeline() {
+        // Glyphs scattered over the image start rows at every distance from each other, around each font's row threshold
+        Random random = new Random(12);
+        for (FontName font : FONTS) {
+            for (int round = 0; round < 3; round++) {
+                BufferedImage image = GoldenText.scatter(random, fontPatterns(font), 12, 120, 70, WHITE, BufferedImage.TYPE_INT_RGB);
+                assertEquals(CfOCRReference.findAllPatternsInImage(0, image, WHITE, font),
+                        cfOCR.findAllPatternsInImage(0, image, WHITE, font), font + ", round " + round);
+            }
+        }
+    }
+
+    @Test
+    void readsTheSameTextWithTolerance() {
+        Random random = new Random(13);
+        for (int tolerance : new int[]{3, 12}) {
+            BufferedImage image = GoldenText.render(random, fontPatterns(FontName.PLAIN_12), 2, 10, CHAT, tolerance, BufferedImage.TYPE_INT_RGB);
+            assertEquals(CfOCRReference.findAllPatternsInImage(tolerance, image, CHAT, FontName.PLAIN_12),
+                    cfOCR.findAllPatternsInImage(tolerance, image, CHAT, FontName.PLAIN_12), "tolerance " + tolerance);
+        }
+    }
+
+    @Test
+    void anyFontPicksTheSameText() {
+        // GameOCR reads FontName.ANY the same way, one binarized mask for every font
+        Random random = new Random(14);
+        for (FontName font : List.of(FontName.BOLD_12, FontName.PLAIN_12, FontName.QUILL)) {
+            BufferedImage image = GoldenText.render(random, fontPatterns(font), 1, 8, CHAT, 0, BufferedImage.TYPE_3BYTE_BGR);
+            String expected = CfOCRReference.findAllPatternsInImageAnyFont(0, image, CHAT);
+
+            assertEquals(expected, cfOCR.findAllPatternsInImageAnyFont(0, image, CHAT), "rendered in " + font);
+            BitMask ink = GlyphMatcher.binarize(image, CHAT, 0);
+            Map<FontName, String> results = new HashMap<>();
+            for (FontName testFont : FONTS) {
+                results.put(testFont, cfOCR.findAllPatternsInMask(ink, testFont));
+            }
+            String best = results.values().stream().max(Comparator.comparingInt(String::length)).orElse("");
+            assertEquals(expected.length(), best.length(), "rendered in " + font);
+        }
+    }
+
+    @Test
+    void segmentAnchoredSearchFindsEveryPosition() {
+        // Random masks, dense and sparse, against trying the glyph at every position
+        Random random = new Random(15);
+        List<Glyph> glyphs = new ArrayList<>(GlyphMatcher.compile(fontPatterns(FontName.PLAIN_11)).getGlyphs());
+        glyphs.addAll(GlyphMatcher.compile(Quill1Patterns.quill1Patterns).getGlyphs());
+        glyphs.add(Glyph.compile("bar", new int[][]{{1}, {1}, {1}}));
+        glyphs.add(Glyph.compile("dot", new int[][]{{0, 0}, {0, 1}}));
+
+        for (int round = 0; round < 40; round++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(30);
+            int density = 2 + random.nextInt(6);
+            BitMask mask = new BitMask(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (random.nextInt(density) != 0) {
+                        mask.set(x, y);
+                    }
+                }
+            }
+
+            for (Glyph glyph : glyphs) {
+                for (boolean exact : new boolean[]{true, false}) {
+                    List<Point> expected = new ArrayList<>();
+                    for (int x = 0; x <= width - glyph.getWidth(); x++) {
+                        for (int y = 0; y <= height - glyph.getHeight(); y++) {
+                            if (glyph.matchesAt(mask, x, y, exact)) {
+                                expected.add(new Point(x, y));
+                            }
+                        }
+                    }
+                    assertEquals(expected, GlyphMatcher.findAll(mask, glyph, exact),
+                            "round " + round + ", glyph '" + glyph.getName() + "', exact " + exact);
+                }
+            }
+        }
+    }
+
+    private static Map<String, int[][]> fontPatterns(FontName font) {
+        if (font == FontName.QUILL) {
+            // Quill text is drawn from both halves of the font
+            Map<String, int[][]> quill = new HashMap<>(Quill1Patterns.quill1Patterns);
+            Quill2Patterns.quill2Patterns.forEach((name, pattern) -> quill.put(name + "'", pattern));
+            return quill;
+        }
+        return CfOCRReference.getLetterPatterns(font);
+    }
+}
@@ -0,0 +1,155 @@
+package helpers.OCR.utils;
+
+import helpers.OCR.cfOCR;
+import helpers.utils.FrameHash;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays frame sequences through the OCR result cache and checks that every cached read gives the text of a fresh read.
+ */
+class OCRResultCacheTest {
+    private static final List<Color> WHITE = List.of(Color.WHITE);
+    private static final Rectangle REGION = new Rectangle(10, 20, 90, 16);
+    private static final String[] WORDS = {"Attack", "Strength", "Bank", "Use", "Drop", "Walk here", "Cancel"};
+
+    @Test
+    void replayedFramesReadTheSameText() {
+        Random random = new Random(21);
+        OCRResultCache cache = new OCRResultCache(4096, 10);
+        List<String> devices = List.of("emulator-5554", "emulator-5556");
+        // Each device shows one of a few texts, so most frames repeat an earlier one
+        List<BufferedImage> screens = new ArrayList<>();
+        for (String word : WORDS) {
+            screens.add(render(word));
+        }
+
+        int expectedHits = 0;
+        Set<String> seen = new HashSet<>();
+        for (int frame = 0; frame < 200; frame++) {
+            String device = devices.get(random.nextInt(devices.size()));
+            int screen = random.nextInt(screens.size());
+            // A new capture of the same pixels
+            BufferedImage image = copy(screens.get(screen));
+
+            String fresh = read(image);
+            String cached = cache.read(key(device, image), () -> read(image));
+            assertEquals(fresh, cached, "frame " + frame + " on " + device);
+            if (!seen.add(device + screen)) {
+                expectedHits++;
+            }
+        }
+        assertEquals(expectedHits, cache.stats().hitCount());
+        assertEquals(200 - expectedHits, cache.stats().missCount());
+    }
+
+    @Test
+    void aChangedPixelIsReadAgain() {
+        OCRResultCache cache = new OCRResultCache(4096, 10);
+        AtomicInteger reads = new AtomicInteger();
+        BufferedImage image = render("Bank");
+
+        assertEquals("Bank", cache.read(key("emulator-5554", image), () -> countedRead(reads, image)));
+        assertEquals("Bank", cache.read(key("emulator-5554", copy(image)), () -> countedRead(reads, image)));
+        assertEquals(1, reads.get());
+
+        BufferedImage changed = copy(image);
+        changed.setRGB(changed.getWidth() - 1, 0, Color.WHITE.getRGB());
+        assertEquals(read(changed), cache.read(key("emulator-5554", changed), () -> countedRead(reads, changed)));
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void resultsAreKeptPerDevice() {
+        OCRResultCache cache = new OCRResultCache(4096, 10);
+        BufferedImage image = render("Drop");
+        cache.put(key("emulator-5554", image), "Drop");
+
+        assertEquals("Drop", cache.get(key("emulator-5554", image)));
+        assertNull(cache.get(key("emulator-5556", image)));
+    }
+
+    @Test
+    void removeDeviceDropsOnlyThatDevicesResults() {
+        OCRResultCache cache = new OCRResultCache(4096, 10);
+        BufferedImage image = render("Use");
+        cache.put(key("emulator-5554", image), "Use");
+        cache.put(key("emulator-5556", image), "Use");
+
+        cache.removeDevice("emulator-5554");
+
+        assertNull(cache.get(key("emulator-5554", image)));
+        assertEquals("Use", cache.get(key("emulator-5556", image)));
+    }
+
+    @Test
+    void readsWithoutADeviceAreNotCached() {
+        OCRResultCache cache = new OCRResultCache(4096, 10);
+        AtomicInteger reads = new AtomicInteger();
+        BufferedImage image = render("Cancel");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Cancel", cache.read(key(null, image), () -> countedRead(reads, image)));
+        }
+        assertEquals(3, reads.get());
+        assertEquals(0, cache.getCache().estimatedSize());
+    }
+
+    private static OCRCacheKey key(String device, BufferedImage image) {
+        return new OCRCacheKey(device, REGION, "text:PLAIN_12", 0, WHITE, null, image.getWidth(), image.getHeight(), FrameHash.hash(image));
+    }
+
+    private static String read(BufferedImage image) {
+        return cfOCR.findAllPatternsInImage(0, image, WHITE, FontName.PLAIN_12);
+    }
+
+    private static String countedRead(AtomicInteger reads, BufferedImage image) {
+        reads.incrementAndGet();
+        return read(image);
+    }
+
+    /**
+     * Draws a word in Plain 12 on a dark background.
+     */
+    private static BufferedImage render(String word) {
+        BufferedImage image = new BufferedImage(REGION.width, REGION.height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(30, 25, 20));
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+
+        int x = 2;
+        for (char c : word.toCharArray()) {
+            int[][] pattern = helpers.patterns.Plain12Patterns.plain12Patterns.get(String.valueOf(c));
+            if (pattern == null) {
+                x += 4;
+                continue;
+            }
+            for (int py = 0; py < pattern.length; py++) {
+                for (int px = 0; px < pattern[py].length; px++) {
+                    if (pattern[py][px] == 1) {
+                        image.setRGB(x + px, 1 + py, Color.WHITE.getRGB());
+                    }
+                }
+            }
+            x += pattern[0].length + 1;
+        }
+        return image;
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        copy.setData(image.getData());
+        return copy;
+    }
+}
@@ -0,0 +1,176 @@
+package helpers.adb;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local endpoint that speaks enough of the ADB host protocol to open "exec:sh" on a device,
+ * and stands in for the shell: it records every line written to it and answers with the marker the line ends with.
+ */
+final class FakeADBServer implements Closeable {
+    private static final Pattern MARKER = Pattern.compile("echo (\\S+)$");
+
+    /**
+     * What the fake shell does with a line it received.
+     */
+    enum Reply {
+        // Echo the marker, the batch finished
+        FINISH,
+        // Print some output before the marker
+        OUTPUT,
+        // Close the connection without answering
+        CLOSE,
+        // Refuse the exec service
+        REFUSE
+    }
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptThread;
+    private final BlockingQueue<Reply> replies = new LinkedBlockingQueue<>();
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Integer> closedShells = new LinkedBlockingQueue<>();
+    private volatile int shells;
+
+    FakeADBServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptThread = new Thread(this::accept, "FakeADBServer");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Queues the replies to the next lines or services, once they run out every line finishes.
+     */
+    void reply(Reply... next) {
+        replies.addAll(List.of(next));
+    }
+
+    /**
+     * @return Every line written to a shell, in order.
+     */
+    List<String> getReceived() {
+        return received;
+    }
+
+    /**
+     * @return Every host request, e.g. "host:transport:emulator-5554" and "exec:sh".
+     */
+    List<String> getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return The number of exec shells opened.
+     */
+    int getShells() {
+        return shells;
+    }
+
+    /**
+     * Waits for the client to close a shell.
+     *
+     * @return The number of the closed shell, starting at 1, or null if none closed in time.
+     */
+    Integer awaitClosedShell(long timeout, TimeUnit unit) throws InterruptedException {
+        return closedShells.poll(timeout, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> serve(socket), "FakeADBShell");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            OutputStream output = socket.getOutputStream();
+
+            String transport = readRequest(input);
+            if (!transport.startsWith("host:transport:")) {
+                fail(output, "unsupported " + transport);
+                return;
+            }
+            output.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+
+            String service = readRequest(input);
+            if (replies.peek() == Reply.REFUSE) {
+                replies.poll();
+                fail(output, "device offline");
+                return;
+            }
+            output.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            int shell;
+            synchronized (this) {
+                shell = ++shells;
+            }
+            if (!service.equals("exec:sh")) {
+                return;
+            }
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                received.add(line);
+                Reply reply = replies.poll();
+                if (reply == Reply.CLOSE) {
+                    return;
+                }
+                Matcher marker = MARKER.matcher(line);
+                if (reply == Reply.OUTPUT) {
+                    output.write("Error: unknown command\n".getBytes(StandardCharsets.UTF_8));
+                }
+                if (marker.find()) {
+                    output.write((marker.group(1) + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                output.flush();
+            }
+            closedShells.add(shell);
+        } catch (IOException ignored) {
+            // The client went away
+        }
+    }
+
+    private String readRequest(DataInputStream input) throws IOException {
+        byte[] length = new byte[4];
+        input.readFully(length);
+        byte[] payload = new byte[Integer.parseInt(new String(length, StandardCharsets.US_ASCII), 16)];
+        input.readFully(payload);
+        String request = new String(payload, StandardCharsets.UTF_8);
+        requests.add(request);
+        return request;
+    }
+
+    private static void fail(OutputStream output, String message) throws IOException {
+        output.write(("FAIL" + String.format("%04x", message.length()) + message).getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+}
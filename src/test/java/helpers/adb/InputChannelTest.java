@@ -0,0 +1,112 @@
+package helpers.adb;
+
+import helpers.Logger;
+import helpers.adb.FakeADBServer.Reply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link InputChannel} against a fake ADB endpoint and checks what reaches the shell, and when a batch is sent again.
+ */
+class InputChannelTest {
+    private static final String DEVICE = "emulator-5554";
+
+    private FakeADBServer server;
+    private InputChannel inputChannel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeADBServer();
+        inputChannel = new InputChannel(new ADBClient(new Logger(null), "127.0.0.1", server.getPort()), new Logger(null));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        inputChannel.shutdown();
+        server.close();
+    }
+
+    @Test
+    void commandsShareOneShell() {
+        assertTrue(inputChannel.run(DEVICE, "input tap 1 2"));
+        assertTrue(inputChannel.run(DEVICE, "input keyevent 4"));
+        assertTrue(inputChannel.run(DEVICE, "input tap 3 4"));
+
+        assertEquals(1, server.getShells());
+        assertEquals(List.of("host:transport:" + DEVICE, "exec:sh"), server.getRequests());
+        assertEquals(List.of(
+                "{ input tap 1 2; } 2>&1; echo __input_done_0",
+                "{ input keyevent 4; } 2>&1; echo __input_done_1",
+                "{ input tap 3 4; } 2>&1; echo __input_done_2"), server.getReceived());
+    }
+
+    @Test
+    void sequenceIsOneLineWithTheDelaysBetweenCommands() {
+        assertTrue(inputChannel.runSequence(DEVICE, List.of("input tap 1 2", "input tap 3 4", "input tap 5 6"), List.of(150, 0, 300)));
+
+        // No pause after the last command, and none where the delay is 0
+        assertEquals(List.of("{ input tap 1 2; sleep 0.150; input tap 3 4; input tap 5 6; } 2>&1; echo __input_done_0"), server.getReceived());
+    }
+
+    @Test
+    void outputBeforeTheMarkerIsSkipped() {
+        server.reply(Reply.OUTPUT);
+        assertTrue(inputChannel.run(DEVICE, "input bogus"));
+        // The marker of the next batch isn't confused with the output of the last one
+        assertTrue(inputChannel.run(DEVICE, "input tap 1 2"));
+
+        assertEquals(1, server.getShells());
+        assertEquals(2, server.getReceived().size());
+    }
+
+    @Test
+    void shellClosedMidBatchFailsTheBatchWithoutSendingItAgain() {
+        server.reply(Reply.CLOSE);
+        // Sent, so the caller must not send it another way
+        assertTrue(inputChannel.runSequence(DEVICE, List.of("input tap 1 2", "input tap 3 4"), List.of(50)));
+        assertEquals(1, server.getReceived().size());
+
+        // The next batch opens a new shell, and only the new commands reach it
+        assertTrue(inputChannel.run(DEVICE, "input tap 5 6"));
+        assertEquals(2, server.getShells());
+        assertEquals(List.of(
+                "{ input tap 1 2; sleep 0.050; input tap 3 4; } 2>&1; echo __input_done_0",
+                "{ input tap 5 6; } 2>&1; echo __input_done_1"), server.getReceived());
+    }
+
+    @Test
+    void refusedShellLetsTheCallerSendTheCommandAnotherWay() {
+        server.reply(Reply.REFUSE);
+        assertFalse(inputChannel.run(DEVICE, "input tap 1 2"));
+        assertTrue(server.getReceived().isEmpty());
+
+        assertTrue(inputChannel.run(DEVICE, "input tap 1 2"));
+        assertEquals(1, server.getReceived().size());
+    }
+
+    @Test
+    void closeDeviceClosesTheShell() throws InterruptedException {
+        assertTrue(inputChannel.run(DEVICE, "input tap 1 2"));
+        inputChannel.closeDevice(DEVICE);
+        assertEquals(1, server.awaitClosedShell(5, TimeUnit.SECONDS));
+
+        assertTrue(inputChannel.run(DEVICE, "input tap 1 2"));
+        assertEquals(2, server.getShells());
+    }
+
+    @Test
+    void devicesGetTheirOwnShell() {
+        assertTrue(inputChannel.run(DEVICE, "input tap 1 2"));
+        assertTrue(inputChannel.run("emulator-5556", "input tap 1 2"));
+
+        assertEquals(2, server.getShells());
+        assertTrue(server.getRequests().contains("host:transport:emulator-5556"));
+    }
+}
@@ -0,0 +1,135 @@
+package helpers.grapher;
+
+import com.google.gson.Gson;
+import helpers.grapher.utils.GraphEdge;
+import helpers.grapher.utils.GraphNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a graph loaded from its binary file answers like the graph it was built from,
+ * and that converting a changed JSON graph never replaces a file that is still mapped.
+ */
+class GraphFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadedGraphAnswersLikeTheBuiltGraph() throws IOException {
+        Graph graph = grid(12, 9);
+        CompactGraph built = graph.compact();
+        Path file = directory.resolve("grid.bgraph");
+        GraphFile.write(built, file);
+        CompactGraph loaded = GraphFile.load(file);
+
+        assertEquals(built.getNodeCount(), loaded.getNodeCount());
+        assertEquals(built.getEdgeCount(), loaded.getEdgeCount());
+        for (GraphNode node : graph.getNodes()) {
+            int index = built.indexOf(node.getNodeId());
+            assertEquals(index, loaded.indexOf(node.getNodeId()), node.getNodeId());
+            assertEquals(node.getNodeId(), loaded.getNodeId(index));
+        }
+        assertEquals(-1, loaded.indexOf("missing"));
+
+        int start = loaded.indexOf("0-0");
+        int goal = loaded.indexOf("11-8");
+        GraphNode[] builtPath = built.findPath(start, goal);
+        GraphNode[] loadedPath = loaded.findPath(start, goal);
+        assertEquals(ids(builtPath), ids(loadedPath));
+        assertEquals(builtPath[builtPath.length - 1].getNodeX(), loadedPath[loadedPath.length - 1].getNodeX());
+        assertEquals(builtPath[builtPath.length - 1].getNodeY(), loadedPath[loadedPath.length - 1].getNodeY());
+    }
+
+    @Test
+    void changedJsonIsConvertedToANewFile() throws IOException {
+        Path json = directory.resolve("map.graph");
+        writeJson(grid(5, 5), json, 1_000_000L);
+        CompactGraph first = GraphFile.loadOrConvert(json);
+        assertEquals(25, first.getNodeCount());
+        assertTrue(Files.exists(GraphFile.getBinaryPath(json, 1_000_000L)));
+
+        writeJson(grid(6, 5), json, 2_000_000L);
+        CompactGraph second = GraphFile.loadOrConvert(json);
+        assertEquals(30, second.getNodeCount());
+        assertTrue(Files.exists(GraphFile.getBinaryPath(json, 2_000_000L)));
+        // The old version is gone from disk, the graph handed out before still works on its mapping
+        assertFalse(Files.exists(GraphFile.getBinaryPath(json, 1_000_000L)));
+        assertEquals(9, first.findPathIndices(first.indexOf("0-0"), first.indexOf("4-4")).length);
+
+        // An unchanged JSON file is not converted again
+        assertSame(second, GraphFile.loadOrConvert(json));
+    }
+
+    @Test
+    void withoutJsonTheNewestBinaryIsLoaded() throws IOException {
+        Path json = directory.resolve("map.graph");
+        GraphFile.write(grid(3, 3).compact(), GraphFile.getBinaryPath(json, 10));
+        GraphFile.write(grid(4, 3).compact(), GraphFile.getBinaryPath(json, 20));
+
+        assertEquals(12, GraphFile.loadOrConvert(json).getNodeCount());
+        assertThrows(NoSuchFileException.class, () -> GraphFile.loadOrConvert(directory.resolve("other.graph")));
+    }
+
+    @Test
+    void filesFromOlderBuildsAreRemoved() throws IOException {
+        Path json = directory.resolve("map.graph");
+        Files.write(directory.resolve("map.bgraph"), new byte[]{1, 2, 3});
+        writeJson(grid(2, 2), json, 3_000_000L);
+
+        GraphFile.loadOrConvert(json);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(Arrays.asList("map.3000000.v" + CompactGraph.VERSION + ".bgraph", "map.graph"),
+                    files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * A grid of nodes named "x-y", ten tiles apart, each connected to its right and lower neighbour.
+     */
+    private static Graph grid(int width, int height) {
+        Graph graph = new Graph();
+        GraphNode[][] nodes = new GraphNode[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                nodes[x][y] = new GraphNode(x + "-" + y, 3000 + 10 * x, 3000 + 10 * y, 0);
+                graph.addNode(nodes[x][y]);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (x + 1 < width) {
+                    graph.addEdge(new GraphEdge(nodes[x][y], nodes[x + 1][y]));
+                }
+                if (y + 1 < height) {
+                    graph.addEdge(new GraphEdge(nodes[x][y], nodes[x][y + 1]));
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static void writeJson(Graph graph, Path json, long lastModified) throws IOException {
+        Files.writeString(json, new Gson().toJson(GraphHelpers.convertToGraphData(graph)));
+        Files.setLastModifiedTime(json, FileTime.fromMillis(lastModified));
+    }
+
+    private static String ids(GraphNode[] path) {
+        StringBuilder ids = new StringBuilder();
+        for (GraphNode node : path) {
+            ids.append(node.getNodeId()).append(' ');
+        }
+        return ids.toString();
+    }
+}
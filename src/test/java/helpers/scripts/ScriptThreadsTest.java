@@ -0,0 +1,147 @@
+package helpers.scripts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Cancels many script threads at once and checks that they all end promptly, that virtual threads are interrupted
+ * and that platform threads are not, so NIO channels they are using stay open.
+ */
+class ScriptThreadsTest {
+    private static final int PLATFORM_SCRIPTS = 500;
+    private static final int VIRTUAL_SCRIPTS = 10_000;
+
+    @Test
+    void cancellingWakesManyPlatformScriptsWithoutInterruptingThem() throws InterruptedException {
+        List<CancellationToken> tokens = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch waiting = new CountDownLatch(PLATFORM_SCRIPTS);
+        AtomicInteger interrupted = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+
+        for (int i = 0; i < PLATFORM_SCRIPTS; i++) {
+            CancellationToken token = new CancellationToken();
+            tokens.add(token);
+            threads.add(ScriptThreads.newThread("script-" + i, () -> {
+                waiting.countDown();
+                if (token.awaitCancellation(1, TimeUnit.MINUTES)) {
+                    cancelled.incrementAndGet();
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    interrupted.incrementAndGet();
+                }
+            }, token, false));
+        }
+        threads.forEach(Thread::start);
+        assertTrue(waiting.await(30, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        tokens.forEach(CancellationToken::requestCancellation);
+        joinAll(threads);
+
+        assertEquals(PLATFORM_SCRIPTS, cancelled.get());
+        assertEquals(0, interrupted.get());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 10, "cancelled scripts took too long to end");
+    }
+
+    @Test
+    void platformScriptKeepsItsFileChannelOpenWhenCancelled(@TempDir Path directory) throws Exception {
+        CancellationToken token = new CancellationToken();
+        AtomicBoolean writing = new AtomicBoolean();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean openAfterCancel = new AtomicBoolean();
+        List<Throwable> failures = new ArrayList<>();
+
+        Thread thread = ScriptThreads.newThread("script-nio", () -> {
+            try (FileChannel channel = FileChannel.open(directory.resolve("log.bin"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(4096);
+                while (!token.isCancellationRequested()) {
+                    buffer.clear();
+                    channel.write(buffer);
+                    writing.set(true);
+                }
+                // A script still flushes its files after it sees the cancellation
+                buffer.clear();
+                channel.write(buffer);
+                openAfterCancel.set(channel.isOpen());
+            } catch (IOException e) {
+                failures.add(e);
+            }
+            interrupted.set(Thread.currentThread().isInterrupted());
+        }, token, false);
+        thread.start();
+        while (!writing.get()) {
+            Thread.onSpinWait();
+        }
+
+        token.requestCancellation();
+        thread.join(TimeUnit.SECONDS.toMillis(30));
+
+        assertFalse(thread.isAlive());
+        assertEquals(List.of(), failures);
+        assertTrue(openAfterCancel.get());
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    void cancellingInterruptsManyVirtualScripts() throws InterruptedException {
+        assumeTrue(ScriptThreads.isVirtualThreadsSupported(), "virtual threads need Java 21");
+
+        CancellationToken token = new CancellationToken();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch sleeping = new CountDownLatch(VIRTUAL_SCRIPTS);
+        AtomicInteger interrupted = new AtomicInteger();
+
+        for (int i = 0; i < VIRTUAL_SCRIPTS; i++) {
+            threads.add(ScriptThreads.newThread("script-" + i, () -> {
+                sleeping.countDown();
+                try {
+                    // A blocking call that doesn't know about the token
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+            }, token, true));
+        }
+        threads.forEach(thread -> assertTrue(ScriptThreads.isVirtual(thread)));
+        threads.forEach(Thread::start);
+        assertTrue(sleeping.await(30, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        token.requestCancellation();
+        joinAll(threads);
+
+        assertEquals(VIRTUAL_SCRIPTS, interrupted.get());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 10, "cancelled scripts took too long to end");
+    }
+
+    @Test
+    void platformThreadsAreNotVirtual() {
+        assertFalse(ScriptThreads.isVirtual(Thread.currentThread()));
+        assertFalse(ScriptThreads.isVirtual(ScriptThreads.newThread("script", () -> {
+        }, null, false)));
+    }
+
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            assertFalse(thread.isAlive(), thread.getName() + " is still running");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package helpers.utils;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a Mat handed out by {@link MatCache} keeps its pixels when its entry is evicted, replaced or removed,
+ * and that concurrent loads of one image end up sharing a single cached Mat.
+ */
+class MatCacheTest {
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void everyGetReturnsTheSameMat() {
+        MatCache cache = new MatCache(30);
+        Mat cached = cache.put("a", filled(7));
+
+        assertSame(cached, cache.get("a"));
+        assertSame(cached, cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void handedOutMatKeepsItsPixelsAfterRemoval() {
+        MatCache cache = new MatCache(30);
+        Mat cached = cache.put("a", filled(7));
+
+        cache.remove("a");
+        cache.getCache().cleanUp();
+
+        assertNull(cache.get("a"));
+        assertPixels(7, cached);
+    }
+
+    @Test
+    void handedOutMatsKeepTheirPixelsWhenTheBudgetShrinks() {
+        MatCache cache = new MatCache(30);
+        List<Mat> handedOut = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            handedOut.add(cache.put("image" + i, filled(i)));
+        }
+        assertEquals(50L * 32 * 32 * 3, cache.getCache().policy().eviction().map(Policy.Eviction::weightedSize).orElseThrow().getAsLong());
+
+        // What the memory governor does under pressure
+        cache.getCache().policy().eviction().orElseThrow().setMaximum(4L * 32 * 32 * 3);
+        cache.getCache().cleanUp();
+
+        assertTrue(cache.getCache().estimatedSize() <= 4);
+        for (int i = 0; i < handedOut.size(); i++) {
+            assertPixels(i, handedOut.get(i));
+        }
+    }
+
+    @Test
+    void concurrentLoadsShareTheImageCachedFirst() throws Exception {
+        MatCache cache = new MatCache(30);
+        int loaders = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(loaders);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String name = "image" + round;
+                CyclicBarrier start = new CyclicBarrier(loaders);
+                List<Future<Mat>> results = new ArrayList<>();
+                for (int i = 0; i < loaders; i++) {
+                    int value = round + i;
+                    results.add(executor.submit(() -> {
+                        // Every loader missed the cache and decoded its own copy of the image
+                        Mat loaded = filled(value);
+                        start.await();
+                        return cache.put(name, loaded);
+                    }));
+                }
+
+                Mat cached = results.get(0).get(30, TimeUnit.SECONDS);
+                assertSame(cached, cache.get(name));
+                for (Future<Mat> result : results) {
+                    Mat mat = result.get(30, TimeUnit.SECONDS);
+                    // Before, the last put replaced the entry and its removal released the Mat another loader returned
+                    assertSame(cached, mat);
+                    assertFalse(mat.empty());
+                    assertPixels((int) mat.get(0, 0)[0], mat);
+                }
+            }
+            assertEquals(50, cache.getCache().estimatedSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void emptyImagesAreCached() {
+        MatCache cache = new MatCache(30);
+        Mat cached = cache.put("missing", new Mat());
+
+        assertTrue(cached.empty());
+        assertSame(cached, cache.get("missing"));
+    }
+
+    private static Mat filled(int value) {
+        return new Mat(32, 32, CvType.CV_8UC3, new Scalar(value, value + 1, value + 2));
+    }
+
+    private static void assertPixels(int value, Mat mat) {
+        assertEquals(32, mat.rows());
+        assertEquals(32, mat.cols());
+        byte[] pixels = new byte[32 * 32 * 3];
+        mat.get(0, 0, pixels);
+        for (int i = 0; i < pixels.length; i += 3) {
+            assertEquals(value, pixels[i] & 0xFF);
+            assertEquals(value + 1, pixels[i + 1] & 0xFF);
+            assertEquals(value + 2, pixels[i + 2] & 0xFF);
+        }
+    }
+}
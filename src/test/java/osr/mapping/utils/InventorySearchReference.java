@@ -0,0 +1,79 @@
+package osr.mapping.utils;
+
+import helpers.openCV.MatchExtractor;
+import helpers.openCV.utils.MatchedRectangle;
+import helpers.openCV.utils.Template;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * The whole inventory search Inventory runs for a single item, the way returnBestMatchObject does it:
+ * a masked TM_CCOEFF_NORMED match of the item without its top 10 rows over the inventory area, kept as the reference
+ * {@link InventorySlotMatcher} is checked against.
+ */
+final class InventorySearchReference {
+    private static final double MAX_SCORE = 1.1;
+
+    private final float[] scores;
+    private final int columns;
+    private final int rows;
+    private final Rect area;
+    private final Template template;
+
+    InventorySearchReference(Mat frame, Rect area, Mat itemImage) {
+        this.area = area;
+        this.template = Template.of(itemImage.submat(10, itemImage.rows(), 0, itemImage.cols()));
+        Mat result = new Mat();
+        Imgproc.matchTemplate(frame.submat(area), template.getImage(), result, Imgproc.TM_CCOEFF_NORMED, template.getMask());
+        this.columns = result.cols();
+        this.rows = result.rows();
+        this.scores = new float[columns * rows];
+        result.get(0, 0, scores);
+        result.release();
+    }
+
+    /**
+     * The best match in the inventory, as Inventory translates it to the game view, or null if nothing reaches the threshold.
+     */
+    Rectangle best(double threshold) {
+        Mat result = new Mat(rows, columns, CvType.CV_32FC1);
+        result.put(0, 0, scores);
+        List<MatchedRectangle> matches = new MatchExtractor().findAll(result, template.width(), template.height(), threshold);
+        result.release();
+
+        double bestMatchValue = Double.MIN_VALUE;
+        MatchedRectangle bestMatchRect = null;
+        for (MatchedRectangle matchRect : matches) {
+            double matchValue = matchRect.getMatchValue();
+            if (matchValue > bestMatchValue && matchValue <= MAX_SCORE) {
+                bestMatchValue = matchValue;
+                bestMatchRect = matchRect;
+            }
+        }
+        if (bestMatchRect == null) {
+            return null;
+        }
+        return new Rectangle(bestMatchRect.x + area.x, bestMatchRect.y - 10 + area.y, bestMatchRect.width, bestMatchRect.height + 10);
+    }
+
+    /**
+     * Whether any placement of the item that overlaps the slot reaches the threshold.
+     */
+    boolean overlaps(Rectangle slot, double threshold) {
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                float score = scores[y * columns + x];
+                Rectangle placement = new Rectangle(area.x + x, area.y + y, template.width(), template.height());
+                if (score >= threshold && score <= MAX_SCORE && placement.intersects(slot)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
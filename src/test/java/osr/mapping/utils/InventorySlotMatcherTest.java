@@ -0,0 +1,258 @@
+package osr.mapping.utils;
+
+import helpers.GetGameView;
+import helpers.utils.Frame;
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.*;
+import org.opencv.core.Point;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link InventorySlotMatcher} against the whole inventory search in {@link InventorySearchReference},
+ * on seeded inventories of random items with noise.
+ */
+class InventorySlotMatcherTest {
+    private static final Rect INVENTORY_RECT = new Rect(593, 220, 202, 273);
+    private static final Rectangle[] SLOT_BOXES = new Rectangle[28];
+    private static final int ITEMS = 12;
+    private static final double[] THRESHOLDS = {0.6, 0.75, 0.9};
+
+    static {
+        int[] columns = {614, 655, 696, 737};
+        for (int i = 0; i < SLOT_BOXES.length; i++) {
+            SLOT_BOXES[i] = new Rectangle(columns[i % 4], 231 + 36 * (i / 4), 36, 36);
+        }
+    }
+
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void findsAnItemExactlyWhenTheWholeInventorySearchDoes() {
+        Random random = new Random(1);
+        Map<Integer, Mat> items = items(random);
+        for (double sigma : new double[]{0, 8, 25}) {
+            Mat frame = inventory(random, items, sigma);
+            FakeGameView gameView = new FakeGameView(frame);
+            InventorySlotMatcher matcher = new InventorySlotMatcher(gameView, items::get, SLOT_BOXES, INVENTORY_RECT, 1290);
+
+            Map<Integer, InventorySearchReference> references = references(frame, items);
+            int found = 0;
+            for (double threshold : THRESHOLDS) {
+                InventorySlots slots = matcher.scan("device", ids(), threshold);
+                for (int id = 1; id <= ITEMS; id++) {
+                    Rectangle best = references.get(id).best(threshold);
+                    assertEquals(best != null, slots.contains(id), "item " + id + ", noise " + sigma + ", threshold " + threshold);
+                    if (best != null) {
+                        found++;
+                        assertTrue(bestIsSomeSlotMatch(matcher, best, id, threshold), "position of item " + id + ", noise " + sigma);
+                    }
+                }
+            }
+            // The items have to be found for the comparison to mean anything
+            assertTrue(found > 0, "noise " + sigma + " found no items");
+        }
+    }
+
+    @Test
+    void slotHoldsAnItemExactlyWhenAMatchOverlapsIt() {
+        Random random = new Random(2);
+        Map<Integer, Mat> items = items(random);
+        Mat frame = inventory(random, items, 10);
+        InventorySlotMatcher matcher = new InventorySlotMatcher(new FakeGameView(frame), items::get, SLOT_BOXES, INVENTORY_RECT, 1290);
+
+        Map<Integer, InventorySearchReference> references = references(frame, items);
+        for (double threshold : THRESHOLDS) {
+            InventorySlots slots = matcher.scan("device", ids(), threshold);
+            for (int id = 1; id <= ITEMS; id++) {
+                for (int slot = 1; slot <= SLOT_BOXES.length; slot++) {
+                    assertEquals(references.get(id).overlaps(SLOT_BOXES[slot - 1], threshold), slots.slotContains(slot, id),
+                            "item " + id + ", slot " + slot + ", threshold " + threshold);
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchOverlappingASlotByOnePixelBelongsToIt() {
+        Map<Integer, Mat> items = items(new Random(5));
+        Mat frame = new Mat(503, 894, CvType.CV_8UC3, new Scalar(50, 50, 50));
+        // Without the cropped top rows: the last column of slot 1, the last column of slot 3 and the last row of slot 1
+        draw(frame, items.get(1), 649, 221);
+        draw(frame, items.get(2), 731, 221);
+        draw(frame, items.get(3), 614, 256);
+        InventorySlots slots = new InventorySlotMatcher(new FakeGameView(frame), items::get, SLOT_BOXES, INVENTORY_RECT, 1290)
+                .scan("device", new int[]{1, 2, 3}, 0.9);
+
+        assertTrue(slots.slotContains(1, 1));
+        assertTrue(slots.slotContains(3, 2));
+        assertTrue(slots.slotContains(1, 3));
+        Map<Integer, InventorySearchReference> references = references(frame, items);
+        for (int id = 1; id <= 3; id++) {
+            for (int slot = 1; slot <= SLOT_BOXES.length; slot++) {
+                assertEquals(references.get(id).overlaps(SLOT_BOXES[slot - 1], 0.9), slots.slotContains(slot, id), "item " + id + ", slot " + slot);
+            }
+        }
+    }
+
+    @Test
+    void rememberedScoresGiveTheSameSlotsAsAFreshMatcher() {
+        Random random = new Random(3);
+        Map<Integer, Mat> items = items(random);
+        Mat frame = inventory(random, items, 10);
+        FakeGameView gameView = new FakeGameView(frame);
+        InventorySlotMatcher matcher = new InventorySlotMatcher(gameView, items::get, SLOT_BOXES, INVENTORY_RECT, 1290);
+
+        // Single items first, then all of them, on later frames with the same pixels
+        for (int id = 1; id <= ITEMS; id++) {
+            matcher.scan("device", new int[]{id}, 0.9);
+        }
+        gameView.version++;
+        assertSameSlots(new InventorySlotMatcher(gameView, items::get, SLOT_BOXES, INVENTORY_RECT, 1290).scan("device", ids(), 0.7),
+                matcher.scan("device", ids(), 0.7));
+
+        // A changed inventory is matched again
+        gameView.mat = inventory(random, items, 10);
+        gameView.version++;
+        assertSameSlots(new InventorySlotMatcher(gameView, items::get, SLOT_BOXES, INVENTORY_RECT, 1290).scan("device", ids(), 0.7),
+                matcher.scan("device", ids(), 0.7));
+    }
+
+    @Test
+    void noFrameFindsNothing() {
+        Map<Integer, Mat> items = items(new Random(4));
+        FakeGameView gameView = new FakeGameView(null);
+        InventorySlots slots = new InventorySlotMatcher(gameView, items::get, SLOT_BOXES, INVENTORY_RECT, 1290).scan("device", ids(), 0.7);
+
+        assertEquals(0, slots.getFrameVersion());
+        for (int slot = 1; slot <= SLOT_BOXES.length; slot++) {
+            assertTrue(slots.isEmpty(slot));
+            assertEquals(-1, slots.getItem(slot));
+        }
+    }
+
+    private static boolean bestIsSomeSlotMatch(InventorySlotMatcher matcher, Rectangle best, int id, double threshold) {
+        InventorySlots single = matcher.scan("device", new int[]{id}, threshold);
+        for (int slot = 1; slot <= SLOT_BOXES.length; slot++) {
+            if (best.equals(single.getMatch(slot))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assertSameSlots(InventorySlots expected, InventorySlots actual) {
+        for (int slot = 1; slot <= SLOT_BOXES.length; slot++) {
+            assertEquals(expected.isEmpty(slot), actual.isEmpty(slot), "empty slot " + slot);
+            assertEquals(expected.getItem(slot), actual.getItem(slot), "item in slot " + slot);
+            assertEquals(expected.getMatch(slot), actual.getMatch(slot), "match in slot " + slot);
+            for (int id = 1; id <= ITEMS; id++) {
+                assertEquals(expected.slotContains(slot, id), actual.slotContains(slot, id), "item " + id + " in slot " + slot);
+            }
+        }
+    }
+
+    private static Map<Integer, InventorySearchReference> references(Mat frame, Map<Integer, Mat> items) {
+        Map<Integer, InventorySearchReference> references = new HashMap<>();
+        for (int id = 1; id <= ITEMS; id++) {
+            references.put(id, new InventorySearchReference(frame, INVENTORY_RECT, items.get(id)));
+        }
+        return references;
+    }
+
+    private static int[] ids() {
+        int[] ids = new int[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            ids[i] = i + 1;
+        }
+        return ids;
+    }
+
+    /**
+     * Item sprites like the game's: 36x32 BGRA, a round opaque blob of smooth random color on a transparent background.
+     */
+    private static Map<Integer, Mat> items(Random random) {
+        Map<Integer, Mat> items = new HashMap<>();
+        for (int id = 1; id <= ITEMS; id++) {
+            Core.setRNGSeed(random.nextInt());
+            Mat body = new Mat(26, 26, CvType.CV_8UC3);
+            Core.randu(body, 20, 255);
+            Imgproc.GaussianBlur(body, body, new Size(5, 5), 0);
+            Mat color = new Mat(32, 36, CvType.CV_8UC3, new Scalar(0, 0, 0));
+            body.copyTo(color.submat(4, 30, 5, 31));
+
+            Mat alpha = new Mat(32, 36, CvType.CV_8UC1, new Scalar(0));
+            Imgproc.circle(alpha, new Point(18, 17), 8 + random.nextInt(5), new Scalar(255), -1);
+
+            List<Mat> channels = new ArrayList<>();
+            Core.split(color, channels);
+            channels.add(alpha);
+            Mat item = new Mat();
+            Core.merge(channels, item);
+            items.put(id, item);
+        }
+        return items;
+    }
+
+    /**
+     * A game view sized frame with random items in two of every three slots, slightly off center, and gaussian noise.
+     */
+    private static Mat inventory(Random random, Map<Integer, Mat> items, double sigma) {
+        Core.setRNGSeed(random.nextInt());
+        Mat frame = new Mat(503, 894, CvType.CV_8UC3);
+        Core.randu(frame, 30, 70);
+        for (int slot = 0; slot < SLOT_BOXES.length; slot++) {
+            if (slot % 3 == 2) {
+                continue;
+            }
+            Mat item = items.get(1 + random.nextInt(ITEMS));
+            draw(frame, item, SLOT_BOXES[slot].x + random.nextInt(3) - 1, SLOT_BOXES[slot].y + random.nextInt(3));
+        }
+
+        if (sigma > 0) {
+            Mat noisy = new Mat();
+            frame.convertTo(noisy, CvType.CV_16SC3);
+            Mat noise = new Mat(frame.size(), CvType.CV_16SC3);
+            Core.randn(noise, 0, sigma);
+            Core.add(noisy, noise, noisy);
+            noisy.convertTo(frame, CvType.CV_8UC3);
+        }
+        return frame;
+    }
+
+    private static void draw(Mat frame, Mat item, int x, int y) {
+        List<Mat> channels = new ArrayList<>();
+        Core.split(item, channels);
+        Mat bgr = new Mat();
+        Core.merge(channels.subList(0, 3), bgr);
+        bgr.copyTo(frame.submat(y, y + item.rows(), x, x + item.cols()), channels.get(3));
+    }
+
+    private static class FakeGameView extends GetGameView {
+        private Mat mat;
+        private long version = 1;
+
+        FakeGameView(Mat mat) {
+            super(null, null);
+            this.mat = mat;
+        }
+
+        @Override
+        public Frame acquireFrame(String device) {
+            return mat == null ? null : new Frame(version, null, new Mat(mat, Range.all()));
+        }
+    }
+}
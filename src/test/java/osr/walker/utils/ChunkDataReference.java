@@ -0,0 +1,106 @@
+package osr.walker.utils;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The chunk positions as MapChunkHandler kept them before {@link ChunkIndex}: a map from "x-y-plane" to where the chunk was drawn,
+ * scanned in full for every lookup. Kept as the reference the index is checked against.
+ */
+final class ChunkDataReference {
+    private final Map<String, ChunkData> chunkPositions = new HashMap<>();
+
+    void add(int chunkX, int chunkY, String plane, Point topLeft) {
+        chunkPositions.put(chunkX + "-" + chunkY + "-" + plane, new ChunkData(topLeft, plane));
+    }
+
+    ChunkCoordinates findChunkCoordinates(int localX, int localY) {
+        for (Map.Entry<String, ChunkData> entry : chunkPositions.entrySet()) {
+            ChunkData chunkData = entry.getValue();
+            Point topLeft = chunkData.getTopLeft();
+            if (localX >= topLeft.x && localX < topLeft.x + 256 &&
+                    localY >= topLeft.y && localY < topLeft.y + 256) {
+
+                // Extract and parse the chunk key parts
+                String[] chunkKeyParts = entry.getKey().split("-");
+                int chunkX = Integer.parseInt(chunkKeyParts[0].trim());
+                int chunkY = Integer.parseInt(chunkKeyParts[1].trim());
+                int worldX = chunkX * 256 + (localX - topLeft.x);
+                int worldY = chunkY * 256 + (topLeft.y - localY);
+
+                int plane = chunkData.getPlane() != null ? Integer.parseInt(chunkData.getPlane()) : -1;
+
+                return new ChunkCoordinates(new Point(worldX, worldY), plane);
+            }
+        }
+
+        return new ChunkCoordinates(new Point(0, 0), -1);
+    }
+
+    int getPlaneFromLocalCoordinates(int localX, int localY) {
+        for (Map.Entry<String, ChunkData> entry : chunkPositions.entrySet()) {
+            ChunkData chunkData = entry.getValue();
+            Point topLeft = chunkData.getTopLeft();
+
+            if (localX >= topLeft.x && localX < topLeft.x + 256 &&
+                    localY >= topLeft.y && localY < topLeft.y + 256) {
+                return chunkData.getPlane() != null ? Integer.parseInt(chunkData.getPlane()) : -1;
+            }
+        }
+
+        return -1;
+    }
+
+    ChunkCoordinates getLocalCoordinatesFromWorld(int worldX, int worldY, int worldPlane) {
+        for (Map.Entry<String, ChunkData> entry : chunkPositions.entrySet()) {
+            ChunkData chunkData = entry.getValue();
+            Point chunkTopLeft = chunkData.getTopLeft();
+
+            // Parse chunk key
+            String[] parts = entry.getKey().split("-");
+            int chunkX = Integer.parseInt(parts[0].trim());
+            int chunkY = Integer.parseInt(parts[1].trim());
+            int plane = Integer.parseInt(parts[2].trim());
+
+            // Check if we are on the right plane
+            if (plane != worldPlane) continue;
+
+            // Chunk boundaries for inverted Y-axis
+            int startX = chunkX * 256;
+            int endX = startX + 256 - 1;
+            int startY = chunkY * 256;
+            int endY = startY - 256 + 1;
+
+            if (worldX >= startX && worldX <= endX && worldY >= endY && worldY <= startY) {
+                int localX = worldX - startX + chunkTopLeft.x;
+                int localY = chunkTopLeft.y + (startY - worldY);
+                return new ChunkCoordinates(new Point(localX, localY), plane);
+            }
+        }
+
+        return new ChunkCoordinates(new Point(0, 0), -1);
+    }
+
+    int size() {
+        return chunkPositions.size();
+    }
+
+    private static class ChunkData {
+        private final Point topLeft;
+        private final String plane;
+
+        ChunkData(Point topLeft, String plane) {
+            this.topLeft = topLeft;
+            this.plane = plane;
+        }
+
+        Point getTopLeft() {
+            return topLeft;
+        }
+
+        String getPlane() {
+            return plane;
+        }
+    }
+}
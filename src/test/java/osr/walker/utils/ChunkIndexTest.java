@@ -0,0 +1,135 @@
+package osr.walker.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link ChunkIndex} answers every lookup like the ChunkData map it replaced, on random stitched maps.
+ */
+class ChunkIndexTest {
+    @Test
+    void localLookupsMatchTheChunkDataMap() {
+        Random random = new Random(17);
+        for (int round = 0; round < 60; round++) {
+            ChunkIndex index = new ChunkIndex();
+            ChunkDataReference reference = new ChunkDataReference();
+            int[] bounds = fill(StitchedMaps.layout(random, 1 + random.nextInt(5), 1 + random.nextInt(12)), index, reference);
+
+            for (int i = 0; i < 5000; i++) {
+                // Points inside the map and in the border around it
+                int localX = random.nextInt(bounds[0] + 300) - 150;
+                int localY = random.nextInt(bounds[1] + 300) - 150;
+                assertSame(reference.findChunkCoordinates(localX, localY), index.toWorld(localX, localY), "local " + localX + "," + localY);
+                assertEquals(reference.getPlaneFromLocalCoordinates(localX, localY), index.getPlaneAtLocal(localX, localY), "local " + localX + "," + localY);
+            }
+        }
+    }
+
+    @Test
+    void worldLookupsMatchTheChunkDataMap() {
+        Random random = new Random(18);
+        for (int round = 0; round < 60; round++) {
+            ChunkIndex index = new ChunkIndex();
+            ChunkDataReference reference = new ChunkDataReference();
+            List<StitchedMaps.DrawnChunk> chunks = StitchedMaps.layout(random, 1 + random.nextInt(5), 1 + random.nextInt(12));
+            fill(chunks, index, reference);
+
+            for (int i = 0; i < 5000; i++) {
+                // Tiles of and around stitched chunks, on every plane and one that was not stitched
+                StitchedMaps.DrawnChunk near = chunks.get(random.nextInt(chunks.size()));
+                int worldX = near.chunkX * 256 + random.nextInt(768) - 256;
+                int worldY = near.chunkY * 256 + random.nextInt(768) - 512;
+                int plane = random.nextInt(5);
+                assertSame(reference.getLocalCoordinatesFromWorld(worldX, worldY, plane), index.toLocal(worldX, worldY, plane),
+                        "world " + worldX + "," + worldY + "," + plane);
+            }
+        }
+    }
+
+    @Test
+    void chunkEdgesMatchTheChunkDataMap() {
+        Random random = new Random(19);
+        ChunkIndex index = new ChunkIndex();
+        ChunkDataReference reference = new ChunkDataReference();
+        List<StitchedMaps.DrawnChunk> chunks = StitchedMaps.layout(random, 4, 10);
+        fill(chunks, index, reference);
+
+        for (StitchedMaps.DrawnChunk chunk : chunks) {
+            int plane = Integer.parseInt(chunk.plane);
+            for (int dx : new int[]{-1, 0, 255, 256}) {
+                for (int dy : new int[]{-1, 0, 255, 256}) {
+                    int localX = chunk.topLeft.x + dx;
+                    int localY = chunk.topLeft.y + dy;
+                    assertSame(reference.findChunkCoordinates(localX, localY), index.toWorld(localX, localY), "local " + localX + "," + localY);
+
+                    int worldX = chunk.chunkX * 256 + dx;
+                    int worldY = chunk.chunkY * 256 - dy;
+                    assertSame(reference.getLocalCoordinatesFromWorld(worldX, worldY, plane), index.toLocal(worldX, worldY, plane),
+                            "world " + worldX + "," + worldY + "," + plane);
+                }
+            }
+        }
+    }
+
+    @Test
+    void restitchingMovesTheChunk() {
+        // Stitching the same chunk again replaces where it was drawn, in the map as in the index
+        ChunkIndex index = new ChunkIndex();
+        ChunkDataReference reference = new ChunkDataReference();
+        index.add(50, 50, "0", new Point(100, 100));
+        reference.add(50, 50, "0", new Point(100, 100));
+        index.add(50, 50, "0", new Point(100, 356));
+        reference.add(50, 50, "0", new Point(100, 356));
+
+        assertEquals(reference.size(), index.size());
+        assertSame(reference.getLocalCoordinatesFromWorld(12810, 12790, 0), index.toLocal(12810, 12790, 0), "world");
+        assertSame(reference.findChunkCoordinates(120, 130), index.toWorld(120, 130), "old position");
+        assertSame(reference.findChunkCoordinates(120, 400), index.toWorld(120, 400), "new position");
+    }
+
+    @Test
+    void hitsRoundTrip() {
+        Random random = new Random(20);
+        ChunkIndex index = new ChunkIndex();
+        fill(StitchedMaps.layout(random, 3, 8), index, new ChunkDataReference());
+
+        for (int i = 0; i < 20000; i++) {
+            int localX = random.nextInt(2000);
+            int localY = random.nextInt(8000);
+            ChunkCoordinates world = index.toWorld(localX, localY);
+            if (world.z < 0) {
+                continue;
+            }
+            ChunkCoordinates local = index.toLocal(world.x, world.y, world.z);
+            assertEquals(localX, local.x);
+            assertEquals(localY, local.y);
+            assertEquals(world.z, local.z);
+        }
+    }
+
+    /**
+     * Adds the chunks to both and returns the width and height the map covers.
+     */
+    private static int[] fill(List<StitchedMaps.DrawnChunk> chunks, ChunkIndex index, ChunkDataReference reference) {
+        int width = 0;
+        int height = 0;
+        for (StitchedMaps.DrawnChunk chunk : chunks) {
+            index.add(chunk.chunkX, chunk.chunkY, chunk.plane, chunk.topLeft);
+            reference.add(chunk.chunkX, chunk.chunkY, chunk.plane, chunk.topLeft);
+            width = Math.max(width, chunk.topLeft.x + 256);
+            height = Math.max(height, chunk.topLeft.y + 256);
+        }
+        return new int[]{width, height};
+    }
+
+    private static void assertSame(ChunkCoordinates expected, ChunkCoordinates actual, String message) {
+        assertEquals(expected.x, actual.x, message + " x");
+        assertEquals(expected.y, actual.y, message + " y");
+        assertEquals(expected.z, actual.z, message + " plane");
+    }
+}
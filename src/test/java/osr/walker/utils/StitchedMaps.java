@@ -0,0 +1,86 @@
+package osr.walker.utils;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Lays out random stitched maps the way MapChunkHandler.stitchChunks does: connected groups of chunks stacked top to bottom,
+ * every plane of a group below the previous one, with a 100 px border.
+ */
+final class StitchedMaps {
+    /**
+     * A chunk as it was drawn on the stitched map.
+     */
+    static final class DrawnChunk {
+        final int chunkX;
+        final int chunkY;
+        final String plane;
+        final Point topLeft;
+
+        DrawnChunk(int chunkX, int chunkY, String plane, Point topLeft) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.plane = plane;
+            this.topLeft = topLeft;
+        }
+    }
+
+    private StitchedMaps() {
+    }
+
+    /**
+     * @param random  The seeded source of the layout.
+     * @param groups  The number of chunk groups.
+     * @param maxSize The largest number of chunks in a group.
+     * @return The chunks in the order they are drawn.
+     */
+    static List<DrawnChunk> layout(Random random, int groups, int maxSize) {
+        List<String> planes = new ArrayList<>(List.of("0", "1", "2", "3"));
+        Collections.shuffle(planes, random);
+        planes = planes.subList(0, 1 + random.nextInt(planes.size()));
+
+        List<DrawnChunk> drawn = new ArrayList<>();
+        int currentHeight = 100;
+        for (int g = 0; g < groups; g++) {
+            List<Point> group = randomGroup(random, 1 + random.nextInt(maxSize));
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+            for (Point chunk : group) {
+                minX = Math.min(minX, chunk.x);
+                minY = Math.min(minY, chunk.y);
+                maxY = Math.max(maxY, chunk.y);
+            }
+            int verticalChunks = maxY - minY + 1;
+
+            int planeOffset = currentHeight;
+            for (String plane : planes) {
+                for (Point chunk : group) {
+                    drawn.add(new DrawnChunk(chunk.x, chunk.y, plane,
+                            new Point((chunk.x - minX) * 256 + 100, (maxY - chunk.y) * 256 + planeOffset)));
+                }
+                planeOffset += verticalChunks * 256;
+            }
+            currentHeight = planeOffset;
+        }
+        return drawn;
+    }
+
+    /**
+     * A connected set of chunks grown from a random chunk of the world.
+     */
+    private static List<Point> randomGroup(Random random, int size) {
+        Set<Point> chunks = new LinkedHashSet<>();
+        chunks.add(new Point(10 + random.nextInt(60), 40 + random.nextInt(150)));
+        List<Point> list = new ArrayList<>(chunks);
+        while (chunks.size() < size) {
+            Point from = list.get(random.nextInt(list.size()));
+            Point next = random.nextBoolean()
+                    ? new Point(from.x + (random.nextBoolean() ? 1 : -1), from.y)
+                    : new Point(from.x, from.y + (random.nextBoolean() ? 1 : -1));
+            if (chunks.add(next)) {
+                list.add(next);
+            }
+        }
+        return list;
+    }
+}